@@ -1,32 +1,40 @@
 
 package control;
 
+import control.interfaces.JannatonEngine;
 import control.interfaces.Renderable;
 import control.interfaces.Updatable;
 import domain.GameClient;
+import domain.Sprite;
+import domain.interfaces.RegistryListener;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import userInterface.GameEngine;
 
 /**
  * This class acts as the control layer between the userInterface (GameEngine, 
  * GameFrame, and GameApplet) and the domain layers (GameClient, Environment ...)
  *
+ * It listens to the Environment registries and passes every Sprite added or
+ * removed to the engine, wich applies the change at the beginning of its next
+ * frame.
+ *
  * @author Germán Coines Laguna
  * @author Alberto Languiz Polo
  *
  */
-public class GameControler {
+public class GameControler implements RegistryListener {
 
     //
     // Fiels.
     //
     /**
-     * The GameEngine instance to wich GameController refers
+     * The engine instance to wich GameController refers. It's usually the
+     * GameEngine, or the HeadlessEngine when there's no display.
      */
-    private GameEngine engine;
+    private JannatonEngine engine;
 
     /**
      * The GameControler itself
@@ -68,15 +76,15 @@ public class GameControler {
      * them and assigned to the field.
      * At last, the updatables and renderables are setted.
      *
-     * @param gameEngine The GameEngine instance that the GameControler will refer.
+     * @param gameEngine The engine instance that the GameControler will refer.
      * @param gameClient The GameClient instance that the GameControler will refer.
      *
-     * @see GameEngine#addGameController(control.GameControler)
+     * @see JannatonEngine#addGameController(control.GameControler)
      * @see GameClient#addGameController(control.GameControler)
      * @see #setUpdatables()
      * @see #setRenderables()
      */
-    private GameControler(GameEngine gameEngine, GameClient gameClient) {
+    private GameControler(JannatonEngine gameEngine, GameClient gameClient) {
 
         if(client == null)
             client = gameClient;
@@ -86,6 +94,7 @@ public class GameControler {
 
         engine.addGameController(this);
         client.addGameController(this);
+        client.addRegistryListener(this);
 
         permittedControls = client.getPermittedControls();
 
@@ -100,7 +109,7 @@ public class GameControler {
      * @return A Dimension object that represents the GameEngine's current dimension.
      */
     public Dimension getEngineDimension(){
-        return engine.getPreferredSize();
+        return engine.getEngineDimension();
     }
 
     /**
@@ -121,6 +130,34 @@ public class GameControler {
         return drawables;
     }
 
+    /**
+     *
+     * @return The region of the Scenario shown at the client window, or null
+     * if there's no camera.
+     *
+     * @see GameClient#getCamera()
+     */
+    public Rectangle getCamera() {
+
+        return client.getCamera();
+    }
+
+    /**
+     * This method adds to an ArrayList the renderables wich may be seen through
+     * an area, found by the GameClient without checking all of them.
+     *
+     * @param area The area in Scenario coordinates, usually the camera.
+     * @param visible The ArrayList where the renderables are added.
+     *
+     * @return The number of renderables added.
+     *
+     * @see GameClient#collectVisibleRenderables(java.awt.Rectangle, java.util.ArrayList)
+     */
+    public int collectVisibleRenderables(Rectangle area, ArrayList<Renderable> visible) {
+
+        return client.collectVisibleRenderables(area, visible);
+    }
+
     /**
      * This method forces the GameControler to ask the GameClient for it's current
      * updatables and then, the GameEngine is told that it should update it's updatables.
@@ -137,7 +174,7 @@ public class GameControler {
      * This method tells the GameEngine that it's updatables instances are outDated.
      * That will make the GameEngine updating them whenever it has a chance.
      *
-     * @see GameEngine#setUpdatablesToOutDated()
+     * @see JannatonEngine#setUpdatablesToOutDated()
      */
     private void tellEngineUpdatablesOutDated(){
         engine.setUpdatablesToOutDated();
@@ -159,12 +196,67 @@ public class GameControler {
      * This method tells the GameEngine that it's renderables instances are outDated.
      * That will make the GameEngine updating them whenever it has a chance.
      *
-     * @see GameEngine#setRenderablesToOutDated()
+     * @see JannatonEngine#setRenderablesToOutDated()
      */
     private void tellEngineRenderablesOutDated(){
         engine.setRenderablesToOutDated();
     }
 
+    /**
+     * This method tells the engine that a Sprite has been added to the Environment.
+     *
+     * @param sprite The Sprite added.
+     *
+     * @see JannatonEngine#addUpdatable(control.interfaces.Updatable)
+     * @see JannatonEngine#addRenderable(control.interfaces.Renderable)
+     */
+    public void registered(Sprite sprite) {
+        engine.addUpdatable(sprite);
+        engine.addRenderable(sprite);
+    }
+
+    /**
+     * This method tells the engine that a Sprite has been removed from the Environment.
+     *
+     * @param sprite The Sprite removed.
+     *
+     * @see JannatonEngine#removeUpdatable(control.interfaces.Updatable)
+     * @see JannatonEngine#removeRenderable(control.interfaces.Renderable)
+     */
+    public void unregistered(Sprite sprite) {
+        engine.removeUpdatable(sprite);
+        engine.removeRenderable(sprite);
+    }
+
+    /**
+     * This method tells the engine that a Sprite has changed its zIndex.
+     *
+     * @param sprite The Sprite restacked.
+     *
+     * @see JannatonEngine#restackRenderable(control.interfaces.Renderable)
+     */
+    public void restacked(Sprite sprite) {
+        engine.restackRenderable(sprite);
+    }
+
+    /**
+     * The engine doesn't keep the renderables by position, so a movement
+     * changes nothing.
+     *
+     * @param sprite The Sprite moved.
+     */
+    public void moved(Sprite sprite) {
+    }
+
+    /**
+     * This method asks the GameClient for the updatables and renderables again,
+     * and tells the engine that they are out dated.
+     */
+    public void registryRebuilt() {
+        setUpdatables();
+        setRenderables();
+    }
+
     /**
      * This method is invoked by the GameEngine instance every time it receives
      * a KeyEvent. The GameControler then checks if the event code of this KeyEvent
@@ -207,12 +299,12 @@ public class GameControler {
     /**
      * This method is used to get a GameControler instance following the Single-Town model
      *
-     * @param gameEngine The GameEngine instance that the GameControler will refer.
+     * @param gameEngine The engine instance that the GameControler will refer.
      * @param gameClient The GameClient instance that the GameControler will refer.
      *
      * @return a GameControler instance
      */
-    public static GameControler instanciate(GameEngine gameEngine, GameClient gameClient) {
+    public static GameControler instanciate(JannatonEngine gameEngine, GameClient gameClient) {
 
         if (controller == null )
             controller = new GameControler(gameEngine, gameClient);
@@ -0,0 +1,36 @@
+package control.interfaces;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * This interface should be implemented by any class wich consumes the frames
+ * captured by a FrameCapture (i.e. a recording encoder or a visual regression
+ * checker).
+ *
+ * The frames are handed from the encoder Threads of the FrameCapture, never
+ * from the rendering Thread. If the FrameCapture has more than one encoder
+ * Thread the implementations should be safe to invoke from any of them, and
+ * the frames may arrive out of order.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see userInterface.FrameCapture
+ */
+public interface FrameSink {
+
+    /**
+     * This method consumes a captured frame.
+     *
+     * The frame image is a pooled buffer wich will be reused for a latter
+     * frame once this method returns, so it shouldn't be kept.
+     *
+     * @param frame The captured frame.
+     * @param frameNumber The number of the frame since the capture started.
+     * The frames dropped by the FrameCapture leave gaps in the numbering.
+     *
+     * @throws IOException If the frame can't be written.
+     */
+    public void frameCaptured(BufferedImage frame, long frameNumber) throws IOException;
+}
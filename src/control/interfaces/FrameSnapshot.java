@@ -0,0 +1,58 @@
+
+package control.interfaces;
+
+import java.awt.Image;
+
+/**
+ * This interface should be implemented by any class wich holds the state
+ * needed to render a single frame. The Snapshotable renderables describe their
+ * rendering through it, as images at screen positions, so they don't need to
+ * know how the frame is stored and rendered latter.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see Snapshotable
+ * @see userInterface.RenderSnapshot
+ */
+public interface FrameSnapshot {
+
+    /**
+     * This method adds a whole image drawn at the given screen position.
+     *
+     * @param owner The Renderable wich is represented by the image.
+     * @param image The image to draw. If it's null the entry is not added.
+     * @param x The screen x coordinate.
+     * @param y The screen y coordinate.
+     * @param zIndex The superposition value of the owner.
+     */
+    public void addImage(Renderable owner, Image image, int x, int y, int zIndex);
+
+    /**
+     * This method adds a region of an image drawn at the given screen position
+     * without scaling.
+     *
+     * @param owner The Renderable wich is represented by the image.
+     * @param image The image from wich the region is drawn. If it's null the entry
+     * is not added.
+     * @param x The screen x coordinate.
+     * @param y The screen y coordinate.
+     * @param width The width of the region.
+     * @param height The height of the region.
+     * @param sourceX The x coordinate of the region at the image.
+     * @param sourceY The y coordinate of the region at the image.
+     * @param zIndex The superposition value of the owner.
+     */
+    public void addImageWindow(Renderable owner, Image image, int x, int y, int width, int height,
+            int sourceX, int sourceY, int zIndex);
+
+    /**
+     * This method adds a Renderable wich will render itself when the frame
+     * is rendered.
+     *
+     * @param renderable The Renderable to add. If it's null the entry is not added.
+     * @param zIndex The superposition value of the Renderable.
+     */
+    public void addRenderable(Renderable renderable, int zIndex);
+
+}
@@ -0,0 +1,36 @@
+
+package control.interfaces;
+
+import java.awt.Graphics;
+
+/**
+ * This interface should be implemented by any Renderable wich is able to be
+ * drawn between two simulation states. It's used by the GameEngine when it's
+ * running in fixed time step mode: the updates run at their own rate, and the
+ * renderings draw the positions interpolated between the last two updated states.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public interface Interpolable extends Renderable {
+
+    /**
+     * This method is invoked by the GameEngine just before every update, so the
+     * current state can be remembered as the previous one.
+     *
+     * NEVER IMPLEMENT INFINITE LOOPS OR INDEPENDENT THREADS IN THIS METHOD.
+     */
+    public void savePreviousState();
+
+    /**
+     * This method should render the instance at the state interpolated between
+     * the previous and the current one.
+     *
+     * NEVER IMPLEMENT INFINITE LOOPS OR INDEPENDENT THREADS IN THIS METHOD.
+     *
+     * @param gr Graphics object
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     */
+    public void render(Graphics gr, double interpolation);
+
+}
@@ -0,0 +1,83 @@
+
+package control.interfaces;
+
+import control.GameControler;
+import java.awt.Dimension;
+
+/**
+ * This interface should be implemented by any engine wich drives the updatables
+ * and renderables offered by a GameControler. It's implemented by the GameEngine,
+ * wich needs a display, and by the HeadlessEngine, wich runs the same game logic
+ * without any display.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see userInterface.GameEngine
+ * @see userInterface.HeadlessEngine
+ */
+public interface JannatonEngine {
+
+    /**
+     * This method should add the GameControler wich offers the updatables and
+     * renderables to the engine.
+     *
+     * @param gameController The GameControler instance.
+     */
+    public void addGameController(GameControler gameController);
+
+    /**
+     * This method should make the engine ask the GameControler for its updatables
+     * before the next update.
+     */
+    public void setUpdatablesToOutDated();
+
+    /**
+     * This method should make the engine ask the GameControler for its renderables
+     * before the next rendering.
+     */
+    public void setRenderablesToOutDated();
+
+    /**
+     *
+     * @return The Dimension of the area where the engine renders.
+     */
+    public Dimension getEngineDimension();
+
+    /**
+     * This method should add an Updatable before the next update.
+     *
+     * @param updatable The Updatable to add.
+     */
+    public void addUpdatable(Updatable updatable);
+
+    /**
+     * This method should remove an Updatable before the next update.
+     *
+     * @param updatable The Updatable to remove.
+     */
+    public void removeUpdatable(Updatable updatable);
+
+    /**
+     * This method should add a Renderable before the next rendering.
+     *
+     * @param renderable The Renderable to add.
+     */
+    public void addRenderable(Renderable renderable);
+
+    /**
+     * This method should remove a Renderable before the next rendering.
+     *
+     * @param renderable The Renderable to remove.
+     */
+    public void removeRenderable(Renderable renderable);
+
+    /**
+     * This method should move a Renderable wich has changed its zIndex to its
+     * new layer before the next rendering.
+     *
+     * @param renderable The Renderable to restack.
+     */
+    public void restackRenderable(Renderable renderable);
+
+}
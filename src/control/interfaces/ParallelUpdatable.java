@@ -0,0 +1,43 @@
+
+package control.interfaces;
+
+/**
+ * This interface should be implemented by any Updatable wich is able to split
+ * its update in two phases, so it can be updated in parallel with the others:
+ * <ul>
+ * <li><code>compute()</code> is invoked from any Thread, at the same time as
+ * the compute phase of the rest of the ParallelUpdatable instances. It should
+ * only read the game state and store the intended changes.</li>
+ * <li><code>commit()</code> is invoked from the engine Thread, one instance
+ * after the other in the updatables order. It should apply the changes stored
+ * by <code>compute()</code>.</li>
+ * </ul>
+ *
+ * The result of <code>compute()</code> followed by <code>commit()</code> should
+ * be the same as the result of <code>update()</code>, so the parallel and the
+ * sequential updates produce the same game states.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see userInterface.ParallelUpdater
+ */
+public interface ParallelUpdatable extends Updatable {
+
+    /**
+     * This method should compute the intended changes without modifying any
+     * state read by other instances.
+     *
+     * NEVER IMPLEMENT INFINITE LOOPS OR INDEPENDENT THREADS IN THIS METHOD.
+     */
+    public void compute();
+
+    /**
+     * This method should apply the changes computed by the last <code>compute()</code>
+     * invocation.
+     *
+     * NEVER IMPLEMENT INFINITE LOOPS OR INDEPENDENT THREADS IN THIS METHOD.
+     */
+    public void commit();
+
+}
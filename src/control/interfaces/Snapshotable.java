@@ -0,0 +1,28 @@
+
+package control.interfaces;
+
+/**
+ * This interface should be implemented by any Renderable wich is able to
+ * describe its rendering as images at screen positions. It's used by the
+ * GameEngine when it's running in pipelined mode: the snapshot is taken by the
+ * updating Thread and rendered latter by the rendering Thread, so the Renderable
+ * state is never read while it's being updated.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public interface Snapshotable extends Renderable {
+
+    /**
+     * This method should add to the snapshot the entries that represent the
+     * current rendering of this instance.
+     *
+     * NEVER IMPLEMENT INFINITE LOOPS OR INDEPENDENT THREADS IN THIS METHOD.
+     *
+     * @param snapshot The FrameSnapshot being taken.
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     * It's always 1 when the GameEngine is not running in fixed time step mode.
+     */
+    public void snapshot(FrameSnapshot snapshot, double interpolation);
+
+}
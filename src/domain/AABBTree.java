@@ -0,0 +1,326 @@
+
+package domain;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class is a static bounding volume hierarchy of rectangles: a binary
+ * tree of axis aligned bounding boxes (AABB), where each node bounds all the
+ * rectangles below it. It's built for a fixed set of rectangles, such as the
+ * Scenario collisionable areas, so finding the ones wich intersect an area
+ * takes a logarithmic time instead of checking all of them.
+ *
+ * The tree is built from the top, splitting the rectangles of each node in
+ * two halves by the median of their centers along the widest axis of the node,
+ * until a node holds only a few rectangles. The nodes are kept in plain
+ * arrays, and each child is stored after its parent.
+ *
+ * The rectangles are referenced, not copied. If any of them is moved or
+ * resized <code>refit()</code> should be invoked, wich updates the node bounds
+ * keeping the tree shape. If rectangles are added or removed a new tree
+ * should be built.
+ *
+ * The queries only read the tree, so they may be done from several Threads at
+ * once, each one walking the nodes with its own stack. The tree shouldn't be
+ * refitted while it's being queried, though.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see Scenario#getCollisionableAreasTree()
+ */
+public class AABBTree {
+
+    //
+    // Fields
+    //
+    /**
+     * The maximum number of rectangles held by a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * The maximum depth of the tree. The median split halves the rectangles at
+     * each level, so it's never reached.
+     */
+    private static final int MAX_DEPTH = 64;
+    /**
+     * The stack of nodes used by the queries of each Thread, so they don't
+     * allocate it every time.
+     */
+    private static final ThreadLocal<int[]> stacks = new ThreadLocal<int[]>() {
+
+        @Override
+        protected int[] initialValue() {
+            return new int[MAX_DEPTH];
+        }
+    };
+    /**
+     * The rectangles the tree was built for.
+     */
+    private final Rectangle[] areas;
+    /**
+     * The indexes of the rectangles, ordered so the ones of each leaf are
+     * contiguous.
+     */
+    private int[] order;
+    /**
+     * The bounds of each node. The max values are exclusive.
+     */
+    private int[] minX, minY, maxX, maxY;
+    /**
+     * The index of the second child of each node, or -1 if it's a leaf. The
+     * first child is always the next node.
+     */
+    private int[] secondChild;
+    /**
+     * The first position at the order of the rectangles of each node.
+     */
+    private int[] first;
+    /**
+     * The number of rectangles of each node.
+     */
+    private int[] count;
+    /**
+     * The number of nodes.
+     */
+    private int nodeCount;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. It builds the tree for the given rectangles. The null ones
+     * are skipped.
+     *
+     * @param areas The rectangles. The array is referenced, not copied.
+     */
+    public AABBTree(Rectangle[] areas) {
+
+        this.areas = areas != null ? areas : new Rectangle[0];
+
+        int size = 0;
+        for (Rectangle area : this.areas) {
+            if (area != null) {
+                size++;
+            }
+        }
+
+        order = new int[size];
+        for (int i = 0, position = 0; i < this.areas.length; i++) {
+            if (this.areas[i] != null) {
+                order[position++] = i;
+            }
+        }
+
+        int capacity = Math.max(1, 2 * size);
+        minX = new int[capacity];
+        minY = new int[capacity];
+        maxX = new int[capacity];
+        maxY = new int[capacity];
+        secondChild = new int[capacity];
+        first = new int[capacity];
+        count = new int[capacity];
+
+        if (size > 0) {
+            build(0, size, new long[size]);
+        }
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method builds the node for a range of the order, and its children.
+     *
+     * @param from The first position of the range.
+     * @param to The position after the last one of the range.
+     * @param keys An array where the rectangles are sorted, as long as the
+     * whole order.
+     *
+     * @return The index of the node.
+     */
+    private int build(int from, int to, long[] keys) {
+
+        int node = nodeCount++;
+        first[node] = from;
+        count[node] = to - from;
+        secondChild[node] = -1;
+        boundNode(node);
+
+        if (to - from <= LEAF_SIZE) {
+            return node;
+        }
+
+        //The rectangles are sorted by their doubled center along the widest
+        //axis, packed with their index, and split by the median.
+        boolean horizontal = (long) maxX[node] - minX[node] >= (long) maxY[node] - minY[node];
+
+        for (int i = from; i < to; i++) {
+            Rectangle area = areas[order[i]];
+            long center = horizontal ? (long) area.x * 2 + area.width : (long) area.y * 2 + area.height;
+            keys[i] = (center << 32) | order[i];
+        }
+
+        Arrays.sort(keys, from, to);
+
+        for (int i = from; i < to; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        int middle = (from + to) >>> 1;
+        build(from, middle, keys);
+        secondChild[node] = build(middle, to, keys);
+
+        return node;
+    }
+
+    /**
+     * This method sets the bounds of a node to the ones of its rectangles.
+     *
+     * @param node The index of the node.
+     */
+    private void boundNode(int node) {
+
+        int nodeMinX = Integer.MAX_VALUE, nodeMinY = Integer.MAX_VALUE;
+        int nodeMaxX = Integer.MIN_VALUE, nodeMaxY = Integer.MIN_VALUE;
+
+        for (int i = first[node], end = first[node] + count[node]; i < end; i++) {
+            Rectangle area = areas[order[i]];
+            nodeMinX = Math.min(nodeMinX, area.x);
+            nodeMinY = Math.min(nodeMinY, area.y);
+            nodeMaxX = Math.max(nodeMaxX, area.x + area.width);
+            nodeMaxY = Math.max(nodeMaxY, area.y + area.height);
+        }
+
+        minX[node] = nodeMinX;
+        minY[node] = nodeMinY;
+        maxX[node] = nodeMaxX;
+        maxY[node] = nodeMaxY;
+    }
+
+    /**
+     * This method updates the bounds of every node to the current bounds of
+     * the rectangles, keeping the tree shape. It should be invoked after moving
+     * or resizing any of them.
+     */
+    public void refit() {
+
+        //The children are stored after their parents, so they're refitted first.
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (secondChild[node] < 0) {
+                boundNode(node);
+            } else {
+                int firstChild = node + 1;
+                int second = secondChild[node];
+                minX[node] = Math.min(minX[firstChild], minX[second]);
+                minY[node] = Math.min(minY[firstChild], minY[second]);
+                maxX[node] = Math.max(maxX[firstChild], maxX[second]);
+                maxY[node] = Math.max(maxY[firstChild], maxY[second]);
+            }
+        }
+    }
+
+    /**
+     * This method adds to a Collection the rectangles wich intersect an area,
+     * as <code>Rectangle.intersects(Rectangle)</code> tells. Only the nodes
+     * whose bounds overlap the area are visited.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the rectangles are added.
+     *
+     * @return The number of rectangles added.
+     */
+    public int query(Rectangle area, Collection<? super Rectangle> found) {
+        return visit(area, found);
+    }
+
+    /**
+     * This method checks if any rectangle intersects an area. It stops at the
+     * first one found.
+     *
+     * @param area The area to look at.
+     *
+     * @return true if any rectangle intersects the area. false otherwise.
+     */
+    public boolean intersectsAny(Rectangle area) {
+        return visit(area, null) > 0;
+    }
+
+    /**
+     * This method walks down the nodes wich overlap an area.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the intersecting rectangles are added,
+     * or null to stop at the first one.
+     *
+     * @return The number of intersecting rectangles found.
+     */
+    private int visit(Rectangle area, Collection<? super Rectangle> found) {
+
+        if (nodeCount == 0 || area.width <= 0 || area.height <= 0) {
+            return 0;
+        }
+
+        int areaMaxX = area.x + area.width;
+        int areaMaxY = area.y + area.height;
+        int[] stack = stacks.get();
+        int top = 0;
+        int hits = 0;
+
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+
+            if (maxX[node] <= area.x || minX[node] >= areaMaxX
+                    || maxY[node] <= area.y || minY[node] >= areaMaxY) {
+                continue;
+            }
+
+            if (secondChild[node] >= 0) {
+                stack[top++] = secondChild[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int i = first[node], end = first[node] + count[node]; i < end; i++) {
+                Rectangle candidate = areas[order[i]];
+                if (candidate.intersects(area)) {
+                    hits++;
+                    if (found == null) {
+                        return hits;
+                    }
+                    found.add(candidate);
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    /**
+     *
+     * @return The rectangles the tree was built for.
+     */
+    public Rectangle[] getAreas() {
+        return areas;
+    }
+
+    /**
+     *
+     * @return The number of rectangles in the tree.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     *
+     * @return The number of nodes of the tree.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -1,19 +1,27 @@
 
 package domain;
 
+import control.interfaces.ParallelUpdatable;
 import domain.Collisions.CollisionDirection;
+import domain.Collisions.CollisionNotification;
 import domain.interfaces.Movable;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 
 /**
  * This Specialitzation class represents a Sprite wich has the ability of moving.
  * That's why it implements the Movable interface and it's methods.
  *
+ * It implements the ParallelUpdatable interface too: the movement is computed
+ * from the sprite's own position and the Scenario, and applied later together
+ * with the collisions found, so the Animated sprites can compute their movements
+ * in parallel.
+ *
  * @author Germán Coines Laguna
  * @author Alberto Languiz Polo
  */
-public abstract class Animated extends Sprite implements Movable {
+public abstract class Animated extends Sprite implements Movable, ParallelUpdatable {
 
     //
     // Fields
@@ -37,6 +45,39 @@ public abstract class Animated extends Sprite implements Movable {
      * at each moveInterval. It can't have a negative value.
      */
     private int moveInterval;
+    /**
+     * The x increment computed for the next movement.
+     */
+    private int pendingXMove;
+    /**
+     * The y increment computed for the next movement.
+     */
+    private int pendingYMove;
+    /**
+     * The collisions found while computing the next movement. They are told
+     * when the movement is applied.
+     */
+    private final ArrayList<CollisionNotification> pendingCollisions = new ArrayList<CollisionNotification>();
+    /**
+     * true if the next movement has been computed by <code>compute()</code>.
+     */
+    private boolean movementComputed = false;
+    /**
+     * The x increment from wich the computed movement was computed.
+     */
+    private int computedXIncrement;
+    /**
+     * The y increment from wich the computed movement was computed.
+     */
+    private int computedYIncrement;
+    /**
+     * The collisionable area from wich the computed movement was computed.
+     */
+    private Rectangle computedArea;
+    /**
+     * The Scenario against wich the computed movement was computed.
+     */
+    private Scenario computedScenario;
 
     //
     // Constructors
@@ -199,116 +240,133 @@ public abstract class Animated extends Sprite implements Movable {
      * @param direction The current direction of the Animated sprite.
      *
      * @see CollisionDirection
-     * @see Collisions#checkScenarioCollisionableAreasCollision(domain.interfaces.Collisionable, domain.Collisions.CollisionDirection, domain.Scenario)
-     * @see Collisions#checkScenarioLimitsCollision(domain.interfaces.Collisionable, domain.Collisions.CollisionDirection, domain.Scenario)
+     * @see #computeMovement(domain.Collisions.CollisionDirection)
+     * @see #applyMovement()
      */
-    @SuppressWarnings("static-access")
     protected void moveCheckingScenarioCollisions(CollisionDirection direction) {
 
+        pendingCollisions.clear();
+        movementComputed = false;
+
+        Collisions.deferCollisionNotifications(pendingCollisions);
+        try {
+            computeMovement(direction);
+        } finally {
+            Collisions.stopDeferringCollisionNotifications();
+        }
+
+        applyMovement();
+    }
+
+    /**
+     * This method computes the movement that the Animated instance will perform
+     * in the given direction, taking care of the Scenario Limits and collisionable
+     * areas, without moving it. The increments to apply are stored in the
+     * pendingXMove and pendingYMove fields.
+     *
+     * For the diagonal directions, the vertical movement is checked first and
+     * the horizontal one is checked from the area reached by the vertical one.
+     *
+     * @param direction The current direction of the Animated sprite.
+     *
+     * @see Collisions#checkScenarioCollisionableAreasCollision(domain.interfaces.Collisionable, java.awt.Rectangle, domain.Collisions.CollisionDirection, domain.Scenario)
+     * @see Collisions#checkScenarioLimitsCollision(domain.interfaces.Collisionable, java.awt.Rectangle, domain.Collisions.CollisionDirection, domain.Scenario)
+     */
+    protected void computeMovement(CollisionDirection direction) {
+
+        Rectangle area = getCollisionableArea();
+
+        pendingXMove = 0;
+        pendingYMove = 0;
+
         if (direction.equals(CollisionDirection.NORTH) ||
                 direction.equals(CollisionDirection.SOUTH)) {
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, direction, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, direction, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, this.yIncrement);
-                }
+            if (!isMovementBlocked(area, direction)) {
+                pendingXMove = this.xIncrement;
+                pendingYMove = this.yIncrement;
             } else {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, 0);
-                }
+                pendingXMove = this.xIncrement;
             }
         } else if (direction.equals(CollisionDirection.WEST) ||
                 direction.equals(CollisionDirection.EAST)) {
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, direction, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, direction, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, this.yIncrement);
-                }
+            if (!isMovementBlocked(area, direction)) {
+                pendingXMove = this.xIncrement;
+                pendingYMove = this.yIncrement;
             } else {
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(0, this.yIncrement);
-                }
+                pendingYMove = this.yIncrement;
             }
         } else if (direction.equals(CollisionDirection.NORTH_EAST)) {
-
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.NORTH, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.NORTH, environment.getScenario())) {
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(0, this.yIncrement);
-                }
-            }
-
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.EAST, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.EAST, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, 0);
-                }
-            }
-
+            computeDiagonalMovement(area, CollisionDirection.NORTH, CollisionDirection.EAST);
         } else if (direction.equals(CollisionDirection.NORTH_WEST)) {
+            computeDiagonalMovement(area, CollisionDirection.NORTH, CollisionDirection.WEST);
+        } else if (direction.equals(CollisionDirection.SOUTH_EAST)) {
+            computeDiagonalMovement(area, CollisionDirection.SOUTH, CollisionDirection.EAST);
+        } else if (direction.equals(CollisionDirection.SOUTH_WEST)) {
+            computeDiagonalMovement(area, CollisionDirection.SOUTH, CollisionDirection.WEST);
+        }
+    }
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.NORTH, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.NORTH, environment.getScenario())) {
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(0, this.yIncrement);
-                }
-            }
+    /**
+     * This method computes a diagonal movement as a vertical movement followed
+     * by an horizontal one.
+     *
+     * @param area The current collisionable area. It's translated by the vertical movement.
+     * @param vertical The vertical component of the direction.
+     * @param horizontal The horizontal component of the direction.
+     */
+    private void computeDiagonalMovement(Rectangle area, CollisionDirection vertical, CollisionDirection horizontal) {
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.WEST, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.WEST, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, 0);
-                }
-            }
+        if (!isMovementBlocked(area, vertical)) {
+            pendingYMove = this.yIncrement;
+            area.translate(0, this.yIncrement);
+        }
 
-        } else if (direction.equals(CollisionDirection.SOUTH_EAST)) {
+        if (!isMovementBlocked(area, horizontal)) {
+            pendingXMove = this.xIncrement;
+        }
+    }
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.SOUTH, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.SOUTH, environment.getScenario())) {
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(0, this.yIncrement);
-                }
-            }
+    /**
+     * This method checks if the Scenario limits or collisionable areas block a
+     * movement from the given area.
+     *
+     * @param area The area from wich the movement starts.
+     * @param direction The direction of the movement.
+     *
+     * @return true if the movement is blocked. false otherwise.
+     */
+    @SuppressWarnings("static-access")
+    private boolean isMovementBlocked(Rectangle area, CollisionDirection direction) {
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.EAST, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.EAST, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, 0);
-                }
-            }
+        return environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, area, direction, environment.getScenario()) ||
+                environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, area, direction, environment.getScenario());
+    }
 
-        } else if (direction.equals(CollisionDirection.SOUTH_WEST)) {
+    /**
+     * This method applies the movement computed by <code>computeMovement()</code>
+     * to the scenario position and the collisionable areas, and then tells the
+     * collisions found while computing it.
+     *
+     * @see #computeMovement(domain.Collisions.CollisionDirection)
+     */
+    protected void applyMovement() {
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.SOUTH, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.SOUTH, environment.getScenario())) {                    //this.pointRelativeToScenario.x += this.xIncrement;
-                this.pointRelativeToScenario.y += this.yIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(0, this.yIncrement);
-                }
-            }
+        this.pointRelativeToScenario.x += pendingXMove;
+        this.pointRelativeToScenario.y += pendingYMove;
+        for (Rectangle collisionableArea : collisionableAreas) {
+            collisionableArea.translate(pendingXMove, pendingYMove);
+        }
 
-            if (!environment.getPhisics().getCollisions().checkScenarioLimitsCollision(this, CollisionDirection.WEST, environment.getScenario()) &&
-                    !environment.getPhisics().getCollisions().checkScenarioCollisionableAreasCollision(this, CollisionDirection.WEST, environment.getScenario())) {
-                this.pointRelativeToScenario.x += this.xIncrement;
-                for (Rectangle collisionableArea : collisionableAreas) {
-                    collisionableArea.translate(this.xIncrement, 0);
-                }
-            }
+        if (pendingXMove != 0 || pendingYMove != 0) {
+            boundsChanged();
         }
+
+        pendingXMove = 0;
+        pendingYMove = 0;
+
+        Collisions.deliverCollisionNotifications(pendingCollisions);
     }
 
     /**
@@ -316,8 +374,16 @@ public abstract class Animated extends Sprite implements Movable {
      * has been passed since the last movement. If it has been, then the Animated
      * will move taking care of the Scenario limits and collisionable Areas.
      *
-     * @see #moveCheckingScenarioCollisions(domain.Collisions.CollisionDirection)
-     * @see #examineCurrentDirection()
+     * If the movement was yet computed by <code>compute()</code> from the same
+     * increments, position and Scenario that the Animated instance has now, it's
+     * just applied. Otherwise (i.e. the subclasses changed them at their
+     * <code>update()</code> or at a collision reaction before invoking
+     * <code>super.update()</code>) it's computed again, so the movement is always
+     * the same as the one performed by a sequential update.
+     *
+     * @see #compute()
+     * @see #computeMovement(domain.Collisions.CollisionDirection)
+     * @see #applyMovement()
      *
      */
     public void move() {
@@ -326,12 +392,93 @@ public abstract class Animated extends Sprite implements Movable {
 
         if (currentTime - lastMovementTime > moveInterval) {
 
-            CollisionDirection direction = examineCurrentDirection();
-
-            moveCheckingScenarioCollisions(direction);
+            if (!movementComputed || !isComputedMovementCurrent()) {
+                computeDeferringCollisions();
+            }
 
+            applyMovement();
             lastMovementTime = currentTime;
+        } else {
+            pendingXMove = 0;
+            pendingYMove = 0;
+            pendingCollisions.clear();
         }
+
+        movementComputed = false;
+        computedArea = null;
+        computedScenario = null;
+    }
+
+    /**
+     * This method computes the next movement without moving the Animated instance.
+     * The collisions found are stored, and they will be told when the movement
+     * is applied. It may be invoked from any Thread while the rest of the
+     * updatables are computing their movements, since it only reads the
+     * Animated instance and the Scenario, and only writes the computed movement.
+     *
+     * The increments, position and Scenario used are recorded too, so
+     * <code>move()</code> can check if the computed movement is still the one
+     * to apply.
+     *
+     * @see ParallelUpdatable#compute()
+     * @see #move()
+     */
+    public void compute() {
+
+        movementComputed = false;
+
+        if (System.currentTimeMillis() - lastMovementTime > moveInterval) {
+            computeDeferringCollisions();
+            computedXIncrement = xIncrement;
+            computedYIncrement = yIncrement;
+            computedArea = getCollisionableArea();
+            computedScenario = environment != null ? environment.getScenario() : null;
+            movementComputed = true;
+        }
+    }
+
+    /**
+     * This method computes the movement in the current direction, storing the
+     * collisions found instead of telling them. The collisions stored by a
+     * previous computation are discarded.
+     */
+    private void computeDeferringCollisions() {
+
+        pendingCollisions.clear();
+
+        Collisions.deferCollisionNotifications(pendingCollisions);
+        try {
+            computeMovement(examineCurrentDirection());
+        } finally {
+            Collisions.stopDeferringCollisionNotifications();
+        }
+    }
+
+    /**
+     * This method checks if the movement computed by <code>compute()</code> was
+     * computed from the increments, position and Scenario that the Animated
+     * instance has now.
+     *
+     * @return true if the computed movement can be applied as it is.
+     */
+    private boolean isComputedMovementCurrent() {
+
+        return computedXIncrement == xIncrement && computedYIncrement == yIncrement
+                && computedArea != null && computedArea.equals(getCollisionableArea())
+                && computedScenario == (environment != null ? environment.getScenario() : null);
+    }
+
+    /**
+     * This method applies the movement computed by <code>compute()</code> by
+     * invoking <code>update()</code>, so the processes added by the subclasses
+     * overriding it are not lost. If those processes change the increments or
+     * the position before the movement, <code>move()</code> computes it again.
+     *
+     * @see ParallelUpdatable#commit()
+     * @see #update()
+     */
+    public void commit() {
+        update();
     }
 
     /**
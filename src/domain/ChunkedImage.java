@@ -0,0 +1,602 @@
+
+package domain;
+
+import control.interfaces.FrameSnapshot;
+import control.interfaces.Renderable;
+import domain.interfaces.ChunkSource;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.SampleModel;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class represents an image too big to be kept in memory as a whole, i.e.
+ * the background of a huge DinamicEnvironment Scenario. The image is split in
+ * square chunks wich are loaded on demand from a ChunkSource, and only some of
+ * them are resident at the same time.
+ *
+ * Every time a window of the image is drawn:
+ * <ul>
+ * <li>The chunks wich intersect the window are drawn one by one. A chunk wich
+ * isn't resident yet is loaded at once, so the frame is never drawn with holes.</li>
+ * <li>The chunks around the window (<code>prefetchMargin</code> chunks away) are
+ * loaded by a background Thread, so the window usually finds its chunks yet
+ * resident when it scrolls.</li>
+ * <li>While the resident chunks take more memory than the budget, the least
+ * recently drawn ones are released. The chunks of the window and its margin
+ * are never released, so the budget may be exceeded if it's too low for them.</li>
+ * </ul>
+ *
+ * The loaded chunks are prepared by the ImagesManager, so they are as fast to
+ * draw as any other loaded image.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see Scenario#setChunkedImage(domain.ChunkedImage)
+ * @see FileChunkSource
+ */
+public class ChunkedImage {
+
+    //
+    // Fields
+    //
+    /**
+     * The default side length of the chunks, in pixels.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+    /**
+     * The default memory budget of the resident chunks, in bytes (64 MB).
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024L * 1024L;
+    /**
+     * The source of the chunks.
+     */
+    private final ChunkSource source;
+    /**
+     * The width of the whole image.
+     */
+    private final int width;
+    /**
+     * The height of the whole image.
+     */
+    private final int height;
+    /**
+     * The side length of the chunks, in pixels.
+     */
+    private final int chunkSize;
+    /**
+     * The number of chunk columns.
+     */
+    private final int columns;
+    /**
+     * The number of chunk rows.
+     */
+    private final int rows;
+    /**
+     * The resident chunks by chunk key, from the least recently drawn to the
+     * most recently drawn one. An empty chunk is kept as null.
+     */
+    private final LinkedHashMap<Long, BufferedImage> resident = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true);
+    /**
+     * The keys of the chunks being loaded by the background Thread.
+     */
+    private final HashSet<Long> loading = new HashSet<Long>();
+    /**
+     * The memory taken by the resident chunks, in bytes.
+     */
+    private long residentBytes;
+    /**
+     * The maximum memory wich should be taken by the resident chunks, in bytes.
+     */
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    /**
+     * The number of chunks around the drawn window wich are loaded in advance.
+     */
+    private int prefetchMargin = 1;
+    /**
+     * The chunk range of the last drawn window, grown by the prefetch margin.
+     * Its chunks are never released.
+     */
+    private int keptFirstColumn, keptFirstRow, keptLastColumn = -1, keptLastRow = -1;
+    /**
+     * The number of chunks loaded since the ChunkedImage was created.
+     */
+    private long loadedChunks;
+    /**
+     * The background Thread wich loads the chunks around the drawn window.
+     * It's created the first time it's needed.
+     */
+    private ExecutorService loader;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. The chunks are DEFAULT_CHUNK_SIZE pixels wide.
+     *
+     * @param source The source of the chunks.
+     * @param width The width of the whole image.
+     * @param height The height of the whole image.
+     */
+    public ChunkedImage(ChunkSource source, int width, int height) {
+        this(source, width, height, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param source The source of the chunks.
+     * @param width The width of the whole image.
+     * @param height The height of the whole image.
+     * @param chunkSize The side length of the chunks, in pixels. It should be
+     * the one used to split the image. Values lower than 1 are taken as 1.
+     */
+    public ChunkedImage(ChunkSource source, int width, int height, int chunkSize) {
+        this.source = source;
+        this.width = Math.max(width, 0);
+        this.height = Math.max(height, 0);
+        this.chunkSize = chunkSize > 0 ? chunkSize : 1;
+        columns = (this.width + this.chunkSize - 1) / this.chunkSize;
+        rows = (this.height + this.chunkSize - 1) / this.chunkSize;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method draws a window of the image, chunk by chunk, and then
+     * prefetches the chunks around it and releases the ones wich exceed the
+     * memory budget.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param window The window of the image to draw.
+     * @param x The screen x coordinate where the window is drawn.
+     * @param y The screen y coordinate where the window is drawn.
+     */
+    public void render(Graphics g, Rectangle window, int x, int y) {
+
+        int firstColumn = Math.max(window.x, 0) / chunkSize;
+        int firstRow = Math.max(window.y, 0) / chunkSize;
+        int right = Math.min(window.x + window.width, width);
+        int bottom = Math.min(window.y + window.height, height);
+
+        for (int row = firstRow; row * chunkSize < bottom; row++) {
+            for (int column = firstColumn; column * chunkSize < right; column++) {
+                BufferedImage chunk = getChunk(column, row);
+                if (chunk == null) {
+                    continue;
+                }
+
+                int chunkX = column * chunkSize;
+                int chunkY = row * chunkSize;
+                int left = Math.max(window.x, chunkX);
+                int top = Math.max(window.y, chunkY);
+                int partWidth = Math.min(right, chunkX + chunk.getWidth()) - left;
+                int partHeight = Math.min(bottom, chunkY + chunk.getHeight()) - top;
+
+                if (partWidth > 0 && partHeight > 0) {
+                    int screenX = x + left - window.x;
+                    int screenY = y + top - window.y;
+                    g.drawImage(chunk, screenX, screenY, screenX + partWidth, screenY + partHeight,
+                            left - chunkX, top - chunkY, left - chunkX + partWidth, top - chunkY + partHeight, null);
+                }
+            }
+        }
+
+        update(window);
+    }
+
+    /**
+     * This method adds a window of the image to a FrameSnapshot, one entry
+     * per chunk, and then prefetches the chunks around it and releases the
+     * ones wich exceed the memory budget.
+     *
+     * @param snapshot The FrameSnapshot being taken.
+     * @param owner The Renderable wich is represented by the image.
+     * @param window The window of the image to add.
+     * @param x The screen x coordinate where the window is drawn.
+     * @param y The screen y coordinate where the window is drawn.
+     * @param zIndex The superposition value of the owner.
+     */
+    public void snapshot(FrameSnapshot snapshot, Renderable owner, Rectangle window, int x, int y, int zIndex) {
+
+        int firstColumn = Math.max(window.x, 0) / chunkSize;
+        int firstRow = Math.max(window.y, 0) / chunkSize;
+        int right = Math.min(window.x + window.width, width);
+        int bottom = Math.min(window.y + window.height, height);
+
+        for (int row = firstRow; row * chunkSize < bottom; row++) {
+            for (int column = firstColumn; column * chunkSize < right; column++) {
+                BufferedImage chunk = getChunk(column, row);
+                if (chunk == null) {
+                    continue;
+                }
+
+                int chunkX = column * chunkSize;
+                int chunkY = row * chunkSize;
+                int left = Math.max(window.x, chunkX);
+                int top = Math.max(window.y, chunkY);
+                int partWidth = Math.min(right, chunkX + chunk.getWidth()) - left;
+                int partHeight = Math.min(bottom, chunkY + chunk.getHeight()) - top;
+
+                if (partWidth > 0 && partHeight > 0) {
+                    snapshot.addImageWindow(owner, chunk, x + left - window.x, y + top - window.y,
+                            partWidth, partHeight, left - chunkX, top - chunkY, zIndex);
+                }
+            }
+        }
+
+        update(window);
+    }
+
+    /**
+     * This method returns a chunk, loading it at once if it isn't resident.
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The chunk image, or null if the chunk is empty, it's out of the
+     * image or it can't be loaded.
+     */
+    public BufferedImage getChunk(int column, int row) {
+
+        if (column < 0 || row < 0 || column >= columns || row >= rows) {
+            return null;
+        }
+
+        Long key = key(column, row);
+
+        synchronized (this) {
+            if (resident.containsKey(key)) {
+                return resident.get(key);
+            }
+        }
+
+        BufferedImage chunk = load(column, row);
+
+        synchronized (this) {
+            store(key, chunk);
+        }
+
+        return chunk;
+    }
+
+    /**
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return true if the chunk is resident.
+     */
+    public synchronized boolean isResident(int column, int row) {
+        return resident.containsKey(key(column, row));
+    }
+
+    /**
+     * This method releases all the resident chunks and stops the background
+     * Thread. The chunks are loaded again if the image is drawn later.
+     */
+    public void flush() {
+
+        ExecutorService stopped;
+
+        synchronized (this) {
+            resident.clear();
+            loading.clear();
+            residentBytes = 0L;
+            keptLastColumn = -1;
+            keptLastRow = -1;
+            stopped = loader;
+            loader = null;
+        }
+
+        if (stopped != null) {
+            stopped.shutdownNow();
+        }
+    }
+
+    /**
+     * This method keeps the chunk range of the drawn window, queues the
+     * loading of the chunks around it and releases the chunks wich exceed the
+     * memory budget.
+     *
+     * @param window The drawn window.
+     */
+    private void update(Rectangle window) {
+
+        int firstColumn = Math.max(Math.max(window.x, 0) / chunkSize - prefetchMargin, 0);
+        int firstRow = Math.max(Math.max(window.y, 0) / chunkSize - prefetchMargin, 0);
+        int lastColumn = Math.min((Math.max(window.x + window.width, 1) - 1) / chunkSize + prefetchMargin, columns - 1);
+        int lastRow = Math.min((Math.max(window.y + window.height, 1) - 1) / chunkSize + prefetchMargin, rows - 1);
+
+        synchronized (this) {
+            keptFirstColumn = firstColumn;
+            keptFirstRow = firstRow;
+            keptLastColumn = lastColumn;
+            keptLastRow = lastRow;
+
+            if (prefetchMargin > 0) {
+                for (int row = firstRow; row <= lastRow; row++) {
+                    for (int column = firstColumn; column <= lastColumn; column++) {
+                        Long key = key(column, row);
+                        if (!resident.containsKey(key) && loading.add(key)) {
+                            getLoader().execute(new ChunkLoad(column, row));
+                        }
+                    }
+                }
+            }
+
+            trim();
+        }
+    }
+
+    /**
+     * This method releases the least recently drawn chunks, out of the kept
+     * range, while the resident chunks exceed the memory budget.
+     */
+    private void trim() {
+
+        Iterator<Map.Entry<Long, BufferedImage>> chunks = resident.entrySet().iterator();
+
+        while (residentBytes > memoryBudget && chunks.hasNext()) {
+            Map.Entry<Long, BufferedImage> chunk = chunks.next();
+            long key = chunk.getKey().longValue();
+            int column = (int) (key >> 32);
+            int row = (int) key;
+
+            if (column < keptFirstColumn || column > keptLastColumn
+                    || row < keptFirstRow || row > keptLastRow) {
+                residentBytes -= bytesOf(chunk.getValue());
+                chunks.remove();
+            }
+        }
+    }
+
+    /**
+     * This method makes a chunk resident. If it was yet resident, it's replaced.
+     *
+     * @param key The chunk key.
+     * @param chunk The chunk image.
+     */
+    private void store(Long key, BufferedImage chunk) {
+
+        BufferedImage replaced = resident.put(key, chunk);
+
+        residentBytes += bytesOf(chunk) - bytesOf(replaced);
+        loadedChunks++;
+    }
+
+    /**
+     * This method loads a chunk from the source and prepares it.
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The chunk image, or null if it's empty or it can't be loaded.
+     */
+    private BufferedImage load(int column, int row) {
+
+        try {
+            return ImagesManager.instantiate().prepareImage(source.loadChunk(column, row));
+        } catch (IOException ioEx) {
+            System.out.println("Error reading the chunk " + column + "," + row + ". It will be left empty.");
+        }
+
+        return null;
+    }
+
+    /**
+     *
+     * @return The background Thread wich loads the chunks, created if needed.
+     */
+    private ExecutorService getLoader() {
+
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ChunkedImage loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return loader;
+    }
+
+    /**
+     *
+     * @param image A chunk image. It may be null.
+     *
+     * @return The memory taken by its pixels, in bytes.
+     */
+    private static long bytesOf(BufferedImage image) {
+
+        if (image == null) {
+            return 0L;
+        }
+
+        SampleModel model = image.getSampleModel();
+
+        return (long) image.getWidth() * image.getHeight() * model.getNumDataElements()
+                * DataBuffer.getDataTypeSize(model.getTransferType()) / 8;
+    }
+
+    /**
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The key of the chunk.
+     */
+    private static Long key(int column, int row) {
+        return Long.valueOf(((long) column << 32) | (row & 0xFFFFFFFFL));
+    }
+
+    /**
+     *
+     * @return The width of the whole image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     *
+     * @return The height of the whole image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     *
+     * @return The side length of the chunks, in pixels.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     *
+     * @return The number of chunk columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     *
+     * @return The number of chunk rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     *
+     * @return The maximum memory wich should be taken by the resident chunks, in bytes.
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * This method sets the maximum memory wich should be taken by the resident
+     * chunks. The exceeding chunks are released at once.
+     *
+     * @param memoryBudget The memory budget, in bytes. Negative values are ignored.
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+
+        if (memoryBudget >= 0L) {
+            this.memoryBudget = memoryBudget;
+            trim();
+        }
+    }
+
+    /**
+     *
+     * @return The number of chunks around the drawn window wich are loaded in advance.
+     */
+    public synchronized int getPrefetchMargin() {
+        return prefetchMargin;
+    }
+
+    /**
+     * This method sets the number of chunks around the drawn window wich are
+     * loaded in advance by the background Thread.
+     *
+     * @param prefetchMargin The margin, in chunks. 0 turns the prefetching off,
+     * so the chunks are only loaded when they are drawn. Negative values are ignored.
+     */
+    public synchronized void setPrefetchMargin(int prefetchMargin) {
+
+        if (prefetchMargin >= 0) {
+            this.prefetchMargin = prefetchMargin;
+        }
+    }
+
+    /**
+     *
+     * @return The number of resident chunks.
+     */
+    public synchronized int getResidentChunks() {
+        return resident.size();
+    }
+
+    /**
+     *
+     * @return The memory taken by the resident chunks, in bytes.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     *
+     * @return The number of chunks loaded since the ChunkedImage was created.
+     */
+    public synchronized long getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    /**
+     * This class loads a chunk from the background Thread.
+     */
+    private class ChunkLoad implements Runnable {
+
+        /**
+         * The chunk column.
+         */
+        private final int column;
+        /**
+         * The chunk row.
+         */
+        private final int row;
+
+        /**
+         * Constructor.
+         *
+         * @param column The chunk column.
+         * @param row The chunk row.
+         */
+        ChunkLoad(int column, int row) {
+            this.column = column;
+            this.row = row;
+        }
+
+        public void run() {
+
+            Long key = key(column, row);
+
+            synchronized (ChunkedImage.this) {
+                if (!loading.contains(key) || resident.containsKey(key)) {
+                    loading.remove(key);
+                    return;
+                }
+            }
+
+            BufferedImage chunk = load(column, row);
+
+            synchronized (ChunkedImage.this) {
+                //A flush while loading drops the chunk.
+                if (loading.remove(key) && !resident.containsKey(key)) {
+                    store(key, chunk);
+                    trim();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+
+package domain;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * This class holds the solid pixels of an image as a bitmask, so two images
+ * can be checked for a pixel perfect collision without reading their pixels.
+ *
+ * A pixel is solid if it's not fully transparent. Each row of the mask is
+ * packed in longs, 64 pixels per long, with the leftmost pixel at the lowest
+ * bit. Two masks are checked row by row over the intersection of their
+ * bounds, shifting their words to line them up and ANDing them, so 64 pixels
+ * are checked at once.
+ *
+ * The ImagesManager builds the mask of an image the first time a pixel perfect
+ * collision needs it, and keeps it while the image is in use. A mask costs one
+ * bit per pixel.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see ImagesManager#getCollisionMask(java.awt.image.BufferedImage)
+ * @see Collisions#checkCollisionableIntersectionPrecisionCollision(domain.interfaces.Collisionable, domain.interfaces.Collisionable)
+ */
+public class CollisionMask {
+
+    //
+    // Fields
+    //
+    /**
+     * The mask width, in pixels.
+     */
+    private final int width;
+    /**
+     * The mask height, in pixels.
+     */
+    private final int height;
+    /**
+     * The number of longs of each row.
+     */
+    private final int wordsPerRow;
+    /**
+     * The packed rows, one after the other. The bits beyond the width are 0.
+     */
+    private final long[] bits;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. It builds the mask of an image, reading its pixels a row
+     * at a time. The opaque images are fully solid, so their pixels aren't read.
+     *
+     * @param image The image.
+     */
+    public CollisionMask(BufferedImage image) {
+
+        this(image.getWidth(), image.getHeight());
+
+        if (image.getColorModel().getTransparency() == Transparency.OPAQUE) {
+            fill();
+            return;
+        }
+
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * wordsPerRow;
+            for (int x = 0; x < width; x++) {
+                if ((row[x] >>> 24) != 0) {
+                    bits[offset + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor. It builds an empty mask.
+     *
+     * @param width The mask width, in pixels.
+     * @param height The mask height, in pixels.
+     */
+    public CollisionMask(int width, int height) {
+
+        this.width = Math.max(width, 0);
+        this.height = Math.max(height, 0);
+        this.wordsPerRow = (this.width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * this.height];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method makes every pixel of the mask solid.
+     */
+    private void fill() {
+
+        if (wordsPerRow == 0) {
+            return;
+        }
+
+        int lastBits = width & 63;
+        long lastWord = lastBits == 0 ? -1L : (1L << lastBits) - 1L;
+
+        for (int y = 0; y < height; y++) {
+            int offset = y * wordsPerRow;
+            for (int word = 0; word < wordsPerRow - 1; word++) {
+                bits[offset + word] = -1L;
+            }
+            bits[offset + wordsPerRow - 1] = lastWord;
+        }
+    }
+
+    /**
+     * This method makes a pixel solid or empty.
+     *
+     * @param x The pixel column.
+     * @param y The pixel row.
+     * @param solid true to make it solid.
+     */
+    public void setSolid(int x, int y, boolean solid) {
+
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            System.out.println("WARNING! The pixel " + x + ", " + y + " is out of the mask. Not setting.");
+            return;
+        }
+
+        int word = y * wordsPerRow + (x >>> 6);
+
+        if (solid) {
+            bits[word] |= 1L << x;
+        } else {
+            bits[word] &= ~(1L << x);
+        }
+    }
+
+    /**
+     *
+     * @param x The pixel column.
+     * @param y The pixel row.
+     *
+     * @return true if the pixel is solid. false if it's empty or out of the mask.
+     */
+    public boolean isSolid(int x, int y) {
+
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0L;
+    }
+
+    /**
+     * This method checks if this mask and another one share any solid pixel
+     * when they are placed at the given positions. Only the intersection of
+     * their bounds is checked, 64 pixels at a time.
+     *
+     * @param x The x coordinate of this mask.
+     * @param y The y coordinate of this mask.
+     * @param other The other mask.
+     * @param otherX The x coordinate of the other mask.
+     * @param otherY The y coordinate of the other mask.
+     *
+     * @return true if both masks have a solid pixel at the same position.
+     */
+    public boolean overlaps(int x, int y, CollisionMask other, int otherX, int otherY) {
+
+        int left = Math.max(x, otherX);
+        int right = Math.min(x + width, otherX + other.width);
+        int top = Math.max(y, otherY);
+        int bottom = Math.min(y + height, otherY + other.height);
+
+        if (left >= right || top >= bottom) {
+            return false;
+        }
+
+        int columns = right - left;
+        int column = left - x;
+        int otherColumn = left - otherX;
+
+        for (int row = top; row < bottom; row++) {
+            int offset = (row - y) * wordsPerRow;
+            int otherOffset = (row - otherY) * other.wordsPerRow;
+
+            for (int done = 0; done < columns; done += 64) {
+                long common = wordAt(offset, column + done) & other.wordAt(otherOffset, otherColumn + done);
+                int remaining = columns - done;
+                if (remaining < 64) {
+                    common &= (1L << remaining) - 1L;
+                }
+                if (common != 0L) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * This method reads 64 pixels of a row, starting at any column, joining
+     * the two words they span.
+     *
+     * @param rowOffset The position of the row first word.
+     * @param column The first column to read. It should be inside the mask.
+     *
+     * @return The pixels, with the first one at the lowest bit. The ones beyond
+     * the row are 0.
+     */
+    private long wordAt(int rowOffset, int column) {
+
+        int word = column >>> 6;
+        int shift = column & 63;
+        long pixels = bits[rowOffset + word] >>> shift;
+
+        if (shift != 0 && word + 1 < wordsPerRow) {
+            pixels |= bits[rowOffset + word + 1] << (64 - shift);
+        }
+
+        return pixels;
+    }
+
+    /**
+     *
+     * @return The mask width, in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     *
+     * @return The mask height, in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -1,20 +1,42 @@
 package domain;
 
 import domain.interfaces.Action;
+import domain.interfaces.Broadphase;
 import domain.interfaces.Collisionable;
+import domain.interfaces.RegistryListener;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 
 /**
  * This utility class implements methods for detecting collisions, detecting 
  * Collisionable instances in determinated areas, detecting visible Collisionable
  * instances for a determinated Collisionable, etc.
  *
+ * It listens to the Environment registries, so its collisionables are updated
+ * incrementally when a Sprite is added or removed.
+ *
+ * The collisionables are also indexed by their collisionable area in a
+ * SpatialHash, wich is updated as the sprites move. The queries wich look for
+ * collisionables in an area or at a point only check the ones kept at the
+ * cells they overlap, and the results are given in registry order, as if all
+ * of them had been checked.
+ *
+ * The search of all the intersecting pairs at once is done by a selectable
+ * Broadphase: the same SpatialHash by default, or i.e. a SweepAndPrune for
+ * clustered scenes. When a pair Broadphase is selected, the intersection
+ * collisions of each Collisionable are taken from those pairs, wich are found
+ * once and kept until any collisionable moves, is added or removed.
+ *
+ * @see #setPairBroadphase(domain.interfaces.Broadphase)
+ *
  * @author Alberto Languiz Polo
  * @author German Coines Laguna
  */
-public class Collisions {
+public class Collisions implements RegistryListener {
 
     //
     //Fields
@@ -56,7 +78,55 @@ public class Collisions {
      *
      * @see #checkIfCollisionablesOutDated()
      */
-    private static boolean collisionablesOutdated = true;
+    private static volatile boolean collisionablesOutdated = true;
+    /**
+     * The collisionables indexed by their collisionable area.
+     *
+     * @see #collectCandidates(java.awt.Rectangle)
+     */
+    private static SpatialHash<Collisionable> collisionIndex = new SpatialHash<Collisionable>();
+    /**
+     * The Broadphase wich finds the intersecting pairs, or null to use the
+     * collisionIndex.
+     *
+     * @see #collectIntersectingPairs(java.util.ArrayList)
+     */
+    private static Broadphase<Collisionable> pairBroadphase;
+    /**
+     * The intersecting pairs found by the pair Broadphase, as two consecutive
+     * elements, kept while they're not outdated.
+     *
+     * @see #checkIfPairsOutDated()
+     */
+    private static final ArrayList<Collisionable> intersectingPairs = new ArrayList<Collisionable>();
+    /**
+     * The collisionables intersecting each one, in registry order, taken from
+     * the intersectingPairs. The lists are kept and reused.
+     */
+    private static final IdentityHashMap<Collisionable, ArrayList<Collisionable>> pairPartners =
+            new IdentityHashMap<Collisionable, ArrayList<Collisionable>>();
+    /**
+     * If it's true, the intersectingPairs should be found again before using them.
+     */
+    private static volatile boolean pairsOutdated = true;
+    /**
+     * The registry sequence number of each collisionable. It grows with each
+     * addition, so sorting by it keeps the registry order.
+     */
+    private static IdentityHashMap<Collisionable, Long> registrySequences = new IdentityHashMap<Collisionable, Long>();
+    /**
+     * The sequence number for the next collisionable registered.
+     */
+    private static long nextRegistrySequence;
+    /**
+     * The Comparator wich sorts the collisionables in registry order.
+     */
+    private static final Comparator<Collisionable> registryOrder = new Comparator<Collisionable>() {
+
+        public int compare(Collisionable first, Collisionable second) {
+            return registrySequences.get(first).compareTo(registrySequences.get(second));
+        }
+    };
     /**
      * A field holding the Phisics instance passed by parameter to the constructor.
      *
@@ -64,6 +134,102 @@ public class Collisions {
      * @see Collisions#instantiate(domain.Phisics)
      */
     private static Phisics phisics;
+    /**
+     * The collision notifications deferred by the current Thread. While it's not
+     * null, the collisions found are stored instead of being told to the
+     * collisioned Collisionable instances.
+     *
+     * @see #deferCollisionNotifications(java.util.ArrayList)
+     * @see #deliverCollisionNotifications(java.util.ArrayList)
+     */
+    private static final ThreadLocal<ArrayList<CollisionNotification>> deferredNotifications =
+            new ThreadLocal<ArrayList<CollisionNotification>>();
+    /**
+     * The Scenario collisionable areas found by the last query of each Thread.
+     * The list is reused, so the Scenario checks don't allocate it every time.
+     * It's not read anymore once a collision is told, so a check made by the
+     * collisioned instance while receiving it can reuse it too.
+     */
+    private static final ThreadLocal<ArrayList<Rectangle>> scenarioAreasFound =
+            new ThreadLocal<ArrayList<Rectangle>>() {
+
+                @Override
+                protected ArrayList<Rectangle> initialValue() {
+                    return new ArrayList<Rectangle>();
+                }
+            };
+    /**
+     * A list of collisionables lent to each Thread while it tells intersection
+     * collisions. It's taken out while in use, so a check made by a collisioned
+     * instance while receiving a collision gets a new one.
+     */
+    private static final ThreadLocal<ArrayList<Collisionable>> collisionedFound =
+            new ThreadLocal<ArrayList<Collisionable>>() {
+
+                @Override
+                protected ArrayList<Collisionable> initialValue() {
+                    return new ArrayList<Collisionable>();
+                }
+            };
+
+    /**
+     * This class holds a collision wich has been found but not yet told to the
+     * collisioned Collisionable instance.
+     */
+    static class CollisionNotification {
+
+        /**
+         * The Collisionable instance that caused the collision.
+         */
+        private Collisionable causable;
+        /**
+         * The collision type produced. It's ignored if action is not null.
+         */
+        private CollisionType collisionType;
+        /**
+         * The direction in wich the collision type was produced.
+         */
+        private CollisionDirection direction;
+        /**
+         * The Action raised by the causable, or null.
+         */
+        private Action action;
+        /**
+         * The target Collisionable, wich will be told for the collision.
+         */
+        private Collisionable collisioned;
+
+        /**
+         * Constructor.
+         *
+         * @param causable The Collisionable instance that caused the collision.
+         * @param collisionType The collision type produced.
+         * @param direction The direction in wich the collision was produced.
+         * @param action The Action raised by the causable, or null.
+         * @param collisioned The target Collisionable.
+         */
+        CollisionNotification(Collisionable causable, CollisionType collisionType, CollisionDirection direction,
+                Action action, Collisionable collisioned) {
+
+            this.causable = causable;
+            this.collisionType = collisionType;
+            this.direction = direction;
+            this.action = action;
+            this.collisioned = collisioned;
+        }
+
+        /**
+         * This method tells the collision to the collisioned Collisionable instance.
+         */
+        void deliver() {
+
+            if (action != null) {
+                tellCollisionToCollisionableCollisioned(causable, action, collisioned);
+            } else {
+                tellCollisionToCollisionableCollisioned(causable, collisionType, direction, collisioned);
+            }
+        }
+    }
 
     /**
      * Constructor. The phisics field will be initialized with the Phisics instance
@@ -129,6 +295,10 @@ public class Collisions {
      * produced, then the collisioned instance is told that it has received a collision.
      * This method first checks if the collisionables ArrayList is out dated.
      *
+     * If a pair Broadphase has been selected, the collisioned instances are
+     * taken from the intersecting pairs it found instead of looking around the
+     * causable.
+     *
      * @param causable The Collisionable instance wich executed the action
      * @param action The Action executed
      *
@@ -142,6 +312,10 @@ public class Collisions {
 
         checkIfCollisionablesOutDated();
 
+        if (pairBroadphase != null && pairBroadphase.contains(causable)) {
+            return checkPairCollisions(causable, action);
+        }
+
         Rectangle collisionableArea = causable.getCollisionableArea();
         int zIndex = causable.getZIndex();
 
@@ -161,6 +335,58 @@ public class Collisions {
         return collisioned;
     }
 
+    /**
+     * This method tells the collisions of an Action executed by a Collisionable
+     * to the instances paired with it by the pair Broadphase. They're filtered
+     * as <code>checkCollisionableIntersectionCollision(Collisionable, Action)</code>
+     * does, so the same instances are told in the same order.
+     *
+     * @param causable The Collisionable instance wich executed the action
+     * @param action The Action executed
+     *
+     * @return true if the Action executed has produced an intersection collision.
+     * false otherwise.
+     *
+     * @see #checkIfPairsOutDated()
+     */
+    private static boolean checkPairCollisions(Collisionable causable, Action action) {
+
+        checkIfPairsOutDated();
+
+        ArrayList<Collisionable> partners = pairPartners.get(causable);
+
+        if (partners == null || partners.isEmpty()) {
+            return false;
+        }
+
+        Rectangle collisionableArea = causable.getCollisionableArea();
+        Rectangle visibleArea = causable.getVisibleArea();
+        int zIndex = causable.getZIndex();
+
+        //The partners may be found again while the collisions are told.
+        ArrayList<Collisionable> collisioned = collisionedFound.get();
+        collisionedFound.remove();
+
+        for (int i = 0, count = partners.size(); i < count; i++) {
+            Collisionable col = partners.get(i);
+            Rectangle area = col.getCollisionableArea();
+            if (zIndex == col.getZIndex() && collisionableArea.intersects(area)
+                    && (visibleArea.contains(area) || visibleArea.intersects(area))) {
+                collisioned.add(col);
+            }
+        }
+
+        for (int i = 0, count = collisioned.size(); i < count; i++) {
+            tellCollisionToCollisionableCollisioned(causable, action, collisioned.get(i));
+        }
+
+        boolean found = !collisioned.isEmpty();
+        collisioned.clear();
+        collisionedFound.set(collisioned);
+
+        return found;
+    }
+
     /**
      * This method checks if a Collisionable wich is moving in a direction collisionate
      * with another.
@@ -248,18 +474,38 @@ public class Collisions {
     }
 
     /**
-     * This method checks if any of the collisionable1 collisionableAreas intersects any of the collisionable2
+     * This method checks if two collisionables are collisioning pixel by pixel.
+     * If both are Sprite instances with an image, their CollisionMask instances
+     * are checked at their scenario positions, so they collide only if a solid
+     * pixel of each one is at the same place. Otherwise, it checks if any of the
+     * collisionable1 collisionableAreas intersects any of the collisionable2
      * collisionableAreas.
      *
      * @param collisionable1 the first Collisionable instance
      * @param collisionable2 the second Collisionable instance
      *
-     * @return true if any of the collisionable1 collisionableAreas intersects any of the collisionable2.
+     * @return true if the solid pixels of both Sprite instances overlap, or if any of the
+     * collisionable1 collisionableAreas intersects any of the collisionable2.
      * false otherwise.
+     *
+     * @see CollisionMask#overlaps(int, int, domain.CollisionMask, int, int)
      */
     public static boolean checkCollisionableIntersectionPrecisionCollision(Collisionable collisionable1, Collisionable collisionable2) {
 
         if (collisionable1.getZIndex() == collisionable2.getZIndex()) {
+
+            if (collisionable1 instanceof Sprite && collisionable2 instanceof Sprite) {
+                Sprite sprite1 = (Sprite) collisionable1;
+                Sprite sprite2 = (Sprite) collisionable2;
+                CollisionMask mask1 = sprite1.getCollisionMask();
+                CollisionMask mask2 = sprite2.getCollisionMask();
+
+                if (mask1 != null && mask2 != null) {
+                    return mask1.overlaps(sprite1.pointRelativeToScenario.x, sprite1.pointRelativeToScenario.y,
+                            mask2, sprite2.pointRelativeToScenario.x, sprite2.pointRelativeToScenario.y);
+                }
+            }
+
             Rectangle[] rectangles1 = collisionable1.getCollisionableAreas();
             Rectangle[] rectangles2 = collisionable2.getCollisionableAreas();
             for (Rectangle rectangle1 : rectangles1) {
@@ -385,6 +631,154 @@ public class Collisions {
         return true;
     }
 
+    /**
+     * This method finds every pair of collisionables wich are colliding: they
+     * have the same zIndex and their collisionable areas intersect. All the
+     * pairs are found at once by the pair Broadphase, instead of looking for
+     * the collisions of each Collisionable apart.
+     *
+     * @param pairs The list where the pairs are added, as two consecutive
+     * elements.
+     *
+     * @return The number of pairs added.
+     *
+     * @see #setPairBroadphase(domain.interfaces.Broadphase)
+     */
+    public static int collectIntersectingPairs(ArrayList<Collisionable> pairs) {
+
+        checkIfCollisionablesOutDated();
+
+        Broadphase<Collisionable> broadphase = pairBroadphase != null ? pairBroadphase : collisionIndex;
+
+        int first = pairs.size();
+        broadphase.collectPairs(pairs);
+
+        //The broadphase pairs share their bounds, so only the zIndex is left.
+        int kept = first;
+        for (int i = first, count = pairs.size(); i < count; i += 2) {
+            Collisionable collisionable1 = pairs.get(i);
+            Collisionable collisionable2 = pairs.get(i + 1);
+            if (collisionable1.getZIndex() == collisionable2.getZIndex()) {
+                pairs.set(kept++, collisionable1);
+                pairs.set(kept++, collisionable2);
+            }
+        }
+        truncate(pairs, kept);
+
+        return (kept - first) / 2;
+    }
+
+    /**
+     * This method finds every pair of colliding collisionables and tells each
+     * one of them about the collision with the other, in any direction.
+     *
+     * @param collisionType The collision type told.
+     *
+     * @return The number of colliding pairs.
+     *
+     * @see #collectIntersectingPairs(java.util.ArrayList)
+     */
+    public static int checkIntersectionCollisions(CollisionType collisionType) {
+
+        //The pairs may be found again while the collisions are told.
+        ArrayList<Collisionable> pairs = collisionedFound.get();
+        collisionedFound.remove();
+
+        int count = collectIntersectingPairs(pairs);
+
+        for (int i = 0; i < pairs.size(); i += 2) {
+            tellCollisionToCollisionableCollisioned(pairs.get(i), collisionType, CollisionDirection.ANY, pairs.get(i + 1));
+            tellCollisionToCollisionableCollisioned(pairs.get(i + 1), collisionType, CollisionDirection.ANY, pairs.get(i));
+        }
+
+        pairs.clear();
+        collisionedFound.set(pairs);
+
+        return count;
+    }
+
+    /**
+     * This method finds the intersecting pairs again if any collisionable has
+     * moved, or has been added or removed, since they were found. Then the
+     * collisionables intersecting each one are kept in registry order.
+     */
+    private static void checkIfPairsOutDated() {
+
+        checkIfCollisionablesOutDated();
+
+        if (pairsOutdated) {
+            synchronized (Collisions.class) {
+                if (pairsOutdated) {
+                    for (ArrayList<Collisionable> partners : pairPartners.values()) {
+                        partners.clear();
+                    }
+
+                    intersectingPairs.clear();
+                    collectIntersectingPairs(intersectingPairs);
+
+                    for (int i = 0, count = intersectingPairs.size(); i < count; i += 2) {
+                        addPartner(intersectingPairs.get(i), intersectingPairs.get(i + 1));
+                        addPartner(intersectingPairs.get(i + 1), intersectingPairs.get(i));
+                    }
+
+                    for (ArrayList<Collisionable> partners : pairPartners.values()) {
+                        if (partners.size() > 1) {
+                            Collections.sort(partners, registryOrder);
+                        }
+                    }
+
+                    pairsOutdated = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds a collisionable to the ones intersecting another.
+     *
+     * @param collisionable The collisionable.
+     * @param partner The collisionable intersecting it.
+     */
+    private static void addPartner(Collisionable collisionable, Collisionable partner) {
+
+        ArrayList<Collisionable> partners = pairPartners.get(collisionable);
+
+        if (partners == null) {
+            partners = new ArrayList<Collisionable>();
+            pairPartners.put(collisionable, partners);
+        }
+
+        partners.add(partner);
+    }
+
+    /**
+     * This method sets the Broadphase wich finds the intersecting pairs. The
+     * area and point queries always use the SpatialHash of the collisionables.
+     *
+     * @param broadphase The Broadphase, i.e. a SweepAndPrune, or null to use
+     * the SpatialHash. It's cleared and filled with the collisionables.
+     *
+     * @see SweepAndPrune
+     * @see SpatialHash
+     */
+    public static void setPairBroadphase(Broadphase<Collisionable> broadphase) {
+
+        synchronized (Collisions.class) {
+            pairBroadphase = broadphase;
+            collisionablesOutdated = true;
+            pairsOutdated = true;
+        }
+    }
+
+    /**
+     *
+     * @return The Broadphase wich finds the intersecting pairs, or null if
+     * it's the SpatialHash of the collisionables.
+     */
+    public static Broadphase<Collisionable> getPairBroadphase() {
+        return pairBroadphase;
+    }
+
     //
     //Collisions between a Collisionable and other Objects
     //
@@ -417,7 +811,26 @@ public class Collisions {
      */
     public static boolean checkScenarioLimitsCollision(Collisionable collisionable, CollisionDirection direction, Scenario scenario) {
 
-        Rectangle collisionableArea = collisionable.getCollisionableArea();
+        return checkScenarioLimitsCollision(collisionable, collisionable.getCollisionableArea(), direction, scenario);
+    }
+
+    /**
+     * This method is used to check if a Collisionable instance placed at the
+     * given area has reached the Scenario limits. It lets checking a movement
+     * before applying it to the collisionable.
+     *
+     * @param collisionable The collisionable instance wich will be told for the collision.
+     * @param collisionableArea The area to check instead of the current collisionable area.
+     * @param direction The direction in wich the collisionable is moving.
+     * @param scenario The Scenario instance from wich to get the limits
+     *
+     * @return true if the area has reached or passes the Scenario limits for the
+     * specified direction. false otherwise.
+     *
+     * @see #checkScenarioLimitsCollision(domain.interfaces.Collisionable, domain.Collisions.CollisionDirection, domain.Scenario)
+     */
+    public static boolean checkScenarioLimitsCollision(Collisionable collisionable, Rectangle collisionableArea,
+            CollisionDirection direction, Scenario scenario) {
 
         boolean collision = false;
 
@@ -493,23 +906,42 @@ public class Collisions {
      */
     public static boolean checkScenarioCollisionableAreasCollision(Collisionable collisionable, CollisionDirection direction, Scenario scenario) {
 
+        return checkScenarioCollisionableAreasCollision(collisionable, collisionable.getCollisionableArea(), direction, scenario);
+    }
+
+    /**
+     * This method is used to check if a Collisionable instance placed at the
+     * given area is collisioning with any Scenario instance collisionableAreas.
+     * It lets checking a movement before applying it to the collisionable.
+     *
+     * @param collisionable The collisionable instance wich will be told for the collision.
+     * @param collisionableArea The area to check instead of the current collisionable area.
+     * @param direction The direction in wich the collisionable is moving.
+     * @param scenario The Scenario instance from wich to get the collisionable areas
+     *
+     * @return true if the area intersects any of the scenario collisionable areas
+     * in the specified direction. false otherwise.
+     *
+     * @see #checkScenarioCollisionableAreasCollision(domain.interfaces.Collisionable, domain.Collisions.CollisionDirection, domain.Scenario)
+     */
+    public static boolean checkScenarioCollisionableAreasCollision(Collisionable collisionable, Rectangle collisionableArea,
+            CollisionDirection direction, Scenario scenario) {
+
         boolean collision = false;
 
-        Rectangle collisionableArea = collisionable.getCollisionableArea();
-        Rectangle[] collisionedAreas = scenario.getCollisionableAreas();
+        //Every surface collision needs the areas to intersect, so only the
+        //ones found by the tree are checked.
+        ArrayList<Rectangle> collisionedAreas = scenarioAreasFound.get();
+        collisionedAreas.clear();
+        scenario.getCollisionableAreasTree().query(collisionableArea, collisionedAreas);
 
-        for (Rectangle collisionedArea : collisionedAreas) {
-            if (collision) {
-                break;
-            }
+        for (int i = 0, count = collisionedAreas.size(); i < count && !collision; i++) {
 
-            collision = checkSurfaceCollisionablesCollision(collisionableArea, direction, collisionedArea);
+            collision = checkSurfaceCollisionablesCollision(collisionableArea, direction, collisionedAreas.get(i));
 
             if (collision) {
                 tellCollisionToCollisionableCollisioned(scenario, CollisionType.SCENARIO_COLLISIONABLE_AREA_REACHED, direction, collisionable);
             }
-
-
         }
 
         return collision;
@@ -532,15 +964,19 @@ public class Collisions {
         Point bottomRight = new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height);
 
         Point[] basePoints = Paths.generateLinearPathFromPointToPoint(bottomLeft, bottomRight);
-        Rectangle[] collisionableAreas = scenario.getCollisionableAreas();
 
+        //Only the areas under the base, one pixel down, can contain its points.
+        ArrayList<Rectangle> collisionableAreas = scenarioAreasFound.get();
+        collisionableAreas.clear();
+        scenario.getCollisionableAreasTree().query(new Rectangle(bottomLeft.x, bottomLeft.y + 1,
+                collisionableArea.width + 1, 1), collisionableAreas);
 
         boolean falling = true;
 
         for (Point basePoint : basePoints) {
             basePoint.translate(0, 1);
-            for (Rectangle rectangle : collisionableAreas) {
-                if (rectangle.contains(basePoint)) {
+            for (int i = 0, count = collisionableAreas.size(); i < count; i++) {
+                if (collisionableAreas.get(i).contains(basePoint)) {
                     falling = false;
                     return falling;
                 }
@@ -568,8 +1004,10 @@ public class Collisions {
 
         checkIfCollisionablesOutDated();
 
-        for (Collisionable collisionable : collisionables) {
-            if (collisionable.getCollisionableArea().contains(point)) {
+        ArrayList<Collisionable> candidates = collectCandidates(new Rectangle(point.x, point.y, 1, 1));
+
+        for (int i = 0, count = candidates.size(); i < count; i++) {
+            if (candidates.get(i).getCollisionableArea().contains(point)) {
                 return true;
             }
         }
@@ -672,335 +1110,168 @@ public class Collisions {
      */
     public static boolean checkSurfaceCollisionablesCollision(Rectangle collisionableArea, CollisionDirection direction, Rectangle collisionedArea) {
 
-        boolean collision = false;
-
         switch (direction) {
 
             case NORTH:
-                if (collisionableArea.y <= collisionedArea.y + collisionedArea.height) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] northSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-
-                        for (Point north : northSide) {
-                            if (north.x >= collisionedX && north.x <= collisionedXEnd) {
-                                if (north.y <= collisionedYEnd && north.y >= collisionedY) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-
-                    }
-                }
-                break;
-
+                return checkNorthSideCollision(collisionableArea, collisionedArea);
             case NORTH_EAST:
-
-                if (collisionableArea.x + collisionableArea.width >= collisionedArea.x) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] eastSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y),
-                                new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height - 5));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-                        for (Point point : eastSide) {
-                            if (point.y >= collisionedY && point.y <= collisionedYEnd) {
-                                if (point.x >= collisionedX && point.x >= collisionedXEnd) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (!collision) {
-
-                    if (collisionableArea.y <= collisionedArea.y + collisionedArea.height) {
-                        if (collisionableArea.intersects(collisionedArea)) {
-
-                            Point[] northSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                    new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y));
-
-                            int collisionedX = collisionedArea.x;
-                            int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                            int collisionedY = collisionedArea.y;
-                            int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-
-                            for (Point north : northSide) {
-                                if (north.x >= collisionedX && north.x <= collisionedXEnd) {
-                                    if (north.y <= collisionedYEnd && north.y >= collisionedY) {
-
-                                        collision = true;
-                                        break;
-                                    }
-                                }
-                            }
-
-                        }
-                    }
-                }
-
-                break;
-
+                return checkEastSideCollision(collisionableArea, collisionedArea)
+                        || checkNorthSideCollision(collisionableArea, collisionedArea);
             case EAST:
-                if (collisionableArea.x + collisionableArea.width >= collisionedArea.x) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] eastSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y),
-                                new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height - 5));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-                        for (Point point : eastSide) {
-                            if (point.y >= collisionedY && point.y <= collisionedYEnd) {
-                                if (point.x >= collisionedX && point.x >= collisionedXEnd) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-
+                return checkEastSideCollision(collisionableArea, collisionedArea);
             case SOUTH_EAST:
-
-                if (collisionableArea.x + collisionableArea.width >= collisionedArea.x) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] eastSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y),
-                                new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height - 5));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-                        for (Point point : eastSide) {
-                            if (point.y >= collisionedY && point.y <= collisionedYEnd) {
-                                if (point.x >= collisionedX && point.x >= collisionedXEnd) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (!collision) {
-
-                    if (collisionableArea.y + collisionableArea.height >= collisionedArea.y) {
-                        if (collisionableArea.intersects(collisionedArea)) {
-
-                            Point[] southSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height),
-                                    new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height));
-
-                            int collisionedX = collisionedArea.x;
-                            int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                            int collisionedY = collisionedArea.y;
-                            int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-
-                            for (Point south : southSide) {
-                                if (south.x >= collisionedX && south.x <= collisionedXEnd) {
-                                    if (south.y <= collisionedYEnd && south.y >= collisionedY) {
-
-                                        collision = true;
-                                        break;
-                                    }
-                                }
-                            }
-
-                        }
-                    }
-                }
-                break;
-
+                return checkEastSideCollision(collisionableArea, collisionedArea)
+                        || checkSouthSideCollision(collisionableArea, collisionedArea);
             case SOUTH:
-                if (collisionableArea.y + collisionableArea.height >= collisionedArea.y) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] southSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height),
-                                new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-
-                        for (Point south : southSide) {
-                            if (south.x >= collisionedX && south.x <= collisionedXEnd) {
-                                if (south.y <= collisionedYEnd && south.y >= collisionedY) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-
-                    }
-                }
-                break;
-
+                return checkSouthSideCollision(collisionableArea, collisionedArea);
             case SOUTH_WEST:
-
-                if (collisionableArea.x <= collisionedArea.x + collisionedArea.width) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] westSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height - 5));
-
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-                        for (Point west : westSide) {
-                            if (west.y >= collisionedY && west.y <= collisionedYEnd) {
-                                if (west.x >= collisionedX && west.x >= collisionedXEnd) {
-
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (!collision) {
-
-                    if (collisionableArea.y + collisionableArea.height >= collisionedArea.y) {
-                        if (collisionableArea.intersects(collisionedArea)) {
-
-                            Point[] southSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height),
-                                    new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y + collisionableArea.height));
-
-                            int collisionedX = collisionedArea.x;
-                            int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                            int collisionedY = collisionedArea.y;
-                            int collisionedYEnd = collisionedArea.y + collisionedArea.height;
-
-
-                            for (Point south : southSide) {
-                                if (south.x >= collisionedX && south.x <= collisionedXEnd) {
-                                    if (south.y <= collisionedYEnd && south.y >= collisionedY) {
-
-                                        collision = true;
-                                        break;
-                                    }
-                                }
-                            }
-
-                        }
-                    }
-                }
-                break;
-
+                return checkWestSideCollision(collisionableArea, collisionedArea)
+                        || checkSouthSideCollision(collisionableArea, collisionedArea);
             case WEST:
-                if (collisionableArea.x <= collisionedArea.x + collisionedArea.width) {
-                    if (collisionableArea.intersects(collisionedArea)) {
-
-                        Point[] westSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height - 5));
+                return checkWestSideCollision(collisionableArea, collisionedArea);
+            case NORTH_WEST:
+                return checkWestSideCollision(collisionableArea, collisionedArea)
+                        || checkNorthSideCollision(collisionableArea, collisionedArea);
+        }
 
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
+        return false;
+    }
 
-                        for (Point west : westSide) {
-                            if (west.y >= collisionedY && west.y <= collisionedYEnd) {
-                                if (west.x >= collisionedX && west.x >= collisionedXEnd) {
+    /**
+     * This method checks if the upper surface of a Rectangle collisionates with
+     * another one. The surface is made of the points from <code>x + 1</code> to
+     * <code>x + width</code> at the upper row, so it's checked as an interval
+     * overlap instead of point by point.
+     *
+     * @param collisionableArea The Rectangle whose upper surface is checked.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if any point of the upper surface lies on the other Rectangle,
+     * borders included. false otherwise.
+     */
+    private static boolean checkNorthSideCollision(Rectangle collisionableArea, Rectangle collisionedArea) {
 
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
+        int northY = collisionableArea.y;
 
-            case NORTH_WEST:
-                if (collisionableArea.x <= collisionedArea.x + collisionedArea.width) {
-                    if (collisionableArea.intersects(collisionedArea)) {
+        return northY <= collisionedArea.y + collisionedArea.height
+                && collisionableArea.intersects(collisionedArea)
+                && checkHorizontalSideCollision(collisionableArea, northY, collisionedArea);
+    }
 
-                        Point[] westSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                new Point(collisionableArea.x, collisionableArea.y + collisionableArea.height - 5));
+    /**
+     * This method checks if the bottom surface of a Rectangle collisionates with
+     * another one, as the upper one is checked.
+     *
+     * @param collisionableArea The Rectangle whose bottom surface is checked.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if any point of the bottom surface lies on the other Rectangle,
+     * borders included. false otherwise.
+     *
+     * @see #checkNorthSideCollision(java.awt.Rectangle, java.awt.Rectangle)
+     */
+    private static boolean checkSouthSideCollision(Rectangle collisionableArea, Rectangle collisionedArea) {
 
-                        int collisionedX = collisionedArea.x;
-                        int collisionedXEnd = collisionedX;
-                        int collisionedY = collisionedArea.y;
-                        int collisionedYEnd = collisionedArea.y + collisionedArea.height;
+        int southY = collisionableArea.y + collisionableArea.height;
 
-                        for (Point west : westSide) {
-                            if (west.y >= collisionedY && west.y <= collisionedYEnd) {
-                                if (west.x >= collisionedX && west.x >= collisionedXEnd) {
+        return southY >= collisionedArea.y
+                && collisionableArea.intersects(collisionedArea)
+                && checkHorizontalSideCollision(collisionableArea, southY, collisionedArea);
+    }
 
-                                    collision = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
+    /**
+     * This method checks if the right surface of a Rectangle collisionates with
+     * another one. The surface leaves the lowest 5 pixels out, so a Sprite
+     * walking over the ground isn't stopped by it.
+     *
+     * @param collisionableArea The Rectangle whose right surface is checked.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if the surface is at or beyond the left border of the other
+     * Rectangle and overlaps its rows. false otherwise.
+     *
+     * @see #checkVerticalSideCollision(java.awt.Rectangle, int, java.awt.Rectangle)
+     */
+    private static boolean checkEastSideCollision(Rectangle collisionableArea, Rectangle collisionedArea) {
 
-                if (!collision) {
+        int eastX = collisionableArea.x + collisionableArea.width;
 
-                    if (collisionableArea.y <= collisionedArea.y + collisionedArea.height) {
-                        if (collisionableArea.intersects(collisionedArea)) {
+        return eastX >= collisionedArea.x
+                && collisionableArea.intersects(collisionedArea)
+                && checkVerticalSideCollision(collisionableArea, eastX, collisionedArea);
+    }
 
-                            Point[] northSide = Paths.generateLinearPathFromPointToPoint(new Point(collisionableArea.getLocation()),
-                                    new Point(collisionableArea.x + collisionableArea.width, collisionableArea.y));
+    /**
+     * This method checks if the left surface of a Rectangle collisionates with
+     * another one, as the right one is checked.
+     *
+     * @param collisionableArea The Rectangle whose left surface is checked.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if the surface is at or beyond the left border of the other
+     * Rectangle and overlaps its rows. false otherwise.
+     *
+     * @see #checkEastSideCollision(java.awt.Rectangle, java.awt.Rectangle)
+     */
+    private static boolean checkWestSideCollision(Rectangle collisionableArea, Rectangle collisionedArea) {
 
-                            int collisionedX = collisionedArea.x;
-                            int collisionedXEnd = collisionedArea.x + collisionedArea.width;
-                            int collisionedY = collisionedArea.y;
-                            int collisionedYEnd = collisionedArea.y + collisionedArea.height;
+        int westX = collisionableArea.x;
 
+        return westX <= collisionedArea.x + collisionedArea.width
+                && collisionableArea.intersects(collisionedArea)
+                && checkVerticalSideCollision(collisionableArea, westX, collisionedArea);
+    }
 
-                            for (Point north : northSide) {
-                                if (north.x >= collisionedX && north.x <= collisionedXEnd) {
-                                    if (north.y <= collisionedYEnd && north.y >= collisionedY) {
+    /**
+     * This method checks if an horizontal surface of a Rectangle, the points
+     * from <code>x + 1</code> to <code>x + width</code> at a row, lies on
+     * another Rectangle, borders included.
+     *
+     * @param collisionableArea The Rectangle whose surface is checked.
+     * @param sideY The row of the surface.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if the surface and the other Rectangle share any point.
+     */
+    private static boolean checkHorizontalSideCollision(Rectangle collisionableArea, int sideY, Rectangle collisionedArea) {
 
-                                        collision = true;
-                                        break;
-                                    }
-                                }
-                            }
+        int fromX = Math.max(collisionableArea.x + 1, collisionedArea.x);
+        int toX = Math.min(collisionableArea.x + collisionableArea.width, collisionedArea.x + collisionedArea.width);
 
-                        }
-                    }
-                }
-                break;
+        return fromX <= toX && sideY >= collisionedArea.y && sideY <= collisionedArea.y + collisionedArea.height;
+    }
 
-        }
+    /**
+     * This method checks if a vertical surface of a Rectangle overlaps another
+     * Rectangle. The surface goes from the row after <code>y</code> to the row
+     * <code>y + height - 5</code>, both included, so it's above <code>y</code>
+     * for the Rectangles shorter than 5 pixels, and empty for the ones 5 pixels
+     * high. It's checked against the left border of the other Rectangle.
+     *
+     * @param collisionableArea The Rectangle whose surface is checked.
+     * @param sideX The column of the surface.
+     * @param collisionedArea The other Rectangle.
+     *
+     * @return true if the surface is at or beyond the left border of the other
+     * Rectangle and any of its rows lies on it.
+     */
+    private static boolean checkVerticalSideCollision(Rectangle collisionableArea, int sideX, Rectangle collisionedArea) {
 
-        return collision;
+        int sideEnd = collisionableArea.y + collisionableArea.height - 5;
+        int fromY, toY;
 
+        if (sideEnd > collisionableArea.y) {
+            fromY = collisionableArea.y + 1;
+            toY = sideEnd;
+        } else if (sideEnd < collisionableArea.y) {
+            fromY = sideEnd;
+            toY = collisionableArea.y - 1;
+        } else {
+            return false;
+        }
 
+        return sideX >= collisionedArea.x
+                && Math.max(fromY, collisionedArea.y) <= Math.min(toY, collisionedArea.y + collisionedArea.height);
     }
     //
     //Collisionables operations
@@ -1015,7 +1286,13 @@ public class Collisions {
      */
     private static void tellCollisionToCollisionableCollisioned(Collisionable causable, CollisionType collisionType, CollisionDirection direction, Collisionable collisioned) {
 
-        collisioned.receiveCollisionFromSprite((Sprite) causable, collisionType, direction);
+        ArrayList<CollisionNotification> notifications = deferredNotifications.get();
+
+        if (notifications != null) {
+            notifications.add(new CollisionNotification(causable, collisionType, direction, null, collisioned));
+        } else {
+            collisioned.receiveCollisionFromSprite((Sprite) causable, collisionType, direction);
+        }
 
     }
 
@@ -1028,10 +1305,54 @@ public class Collisions {
      */
     private static void tellCollisionToCollisionableCollisioned(Collisionable causable, Action actionCaused, Collisionable collisioned) {
 
-        CollisionType collisionTypeCaused = actionCaused.getCollisionTypeCausable();
+        ArrayList<CollisionNotification> notifications = deferredNotifications.get();
+
+        if (notifications != null) {
+            notifications.add(new CollisionNotification(causable, null, null, actionCaused, collisioned));
+        } else {
+            CollisionType collisionTypeCaused = actionCaused.getCollisionTypeCausable();
+
+            collisioned.receiveCollisionFromSprite((Sprite) causable, collisionTypeCaused);
+        }
+
+    }
+
+    /**
+     * This method makes the collisions found by the current Thread being stored
+     * in the given ArrayList instead of being told to the collisioned instances.
+     * It's used while computing the updates in parallel, so no Collisionable
+     * reacts before all the computations are done.
+     *
+     * @param notifications The ArrayList wich will store the deferred notifications.
+     *
+     * @see #stopDeferringCollisionNotifications()
+     * @see #deliverCollisionNotifications(java.util.ArrayList)
+     */
+    protected static void deferCollisionNotifications(ArrayList<CollisionNotification> notifications) {
+        deferredNotifications.set(notifications);
+    }
+
+    /**
+     * This method makes the collisions found by the current Thread being told
+     * again to the collisioned instances as soon as they are found.
+     */
+    protected static void stopDeferringCollisionNotifications() {
+        deferredNotifications.remove();
+    }
+
+    /**
+     * This method tells the deferred collisions to the collisioned instances in
+     * the order they were found, and then clears the ArrayList.
+     *
+     * @param notifications The deferred notifications.
+     */
+    protected static void deliverCollisionNotifications(ArrayList<CollisionNotification> notifications) {
 
-        collisioned.receiveCollisionFromSprite((Sprite) causable, collisionTypeCaused);
+        for (CollisionNotification notification : notifications) {
+            notification.deliver();
+        }
 
+        notifications.clear();
     }
 
     /**
@@ -1049,16 +1370,18 @@ public class Collisions {
 
         Rectangle visibleArea = visionable.getVisibleArea();
 
-        ArrayList<Collisionable> visibleCollisionables = new ArrayList<Collisionable>();
+        ArrayList<Collisionable> visibleCollisionables = collectCandidates(visibleArea);
 
-        for (Collisionable col : collisionables) {
-            if (visibleArea.contains(col.getCollisionableArea()) ||
-                    visibleArea.intersects(col.getCollisionableArea())) {
-                visibleCollisionables.add(col);
+        int kept = 0;
+        for (int i = 0, count = visibleCollisionables.size(); i < count; i++) {
+            Collisionable col = visibleCollisionables.get(i);
+            Rectangle collisionableArea = col.getCollisionableArea();
+            if (col != visionable && (visibleArea.contains(collisionableArea) ||
+                    visibleArea.intersects(collisionableArea))) {
+                visibleCollisionables.set(kept++, col);
             }
         }
-
-        visibleCollisionables.remove(visionable);
+        truncate(visibleCollisionables, kept);
 
         return visibleCollisionables;
     }
@@ -1074,13 +1397,16 @@ public class Collisions {
 
         checkIfCollisionablesOutDated();
 
-        ArrayList<Collisionable> collisionablesInArea = new ArrayList<Collisionable>();
+        ArrayList<Collisionable> collisionablesInArea = collectCandidates(area);
 
-        for (Collisionable col : collisionables) {
+        int kept = 0;
+        for (int i = 0, count = collisionablesInArea.size(); i < count; i++) {
+            Collisionable col = collisionablesInArea.get(i);
             if (area.contains(col.getCollisionableArea())) {
-                collisionablesInArea.add(col);
+                collisionablesInArea.set(kept++, col);
             }
         }
+        truncate(collisionablesInArea, kept);
 
         return collisionablesInArea;
     }
@@ -1097,7 +1423,10 @@ public class Collisions {
 
         checkIfCollisionablesOutDated();
 
-        for (Collisionable collisionable : collisionables) {
+        ArrayList<Collisionable> candidates = collectCandidates(new Rectangle(point.x, point.y, 1, 1));
+
+        for (int i = 0, count = candidates.size(); i < count; i++) {
+            Collisionable collisionable = candidates.get(i);
             if (checkPointCollision(collisionable, point)) {
                 return collisionable;
             }
@@ -1106,6 +1435,39 @@ public class Collisions {
         return null;
     }
 
+    /**
+     * This method looks for the collisionables kept at the cells of the
+     * collision index wich an area overlaps. Their collisionable areas aren't
+     * checked, so the callers should apply their own test.
+     *
+     * @param area The area to look at.
+     *
+     * @return The candidates, sorted in registry order.
+     */
+    private static ArrayList<Collisionable> collectCandidates(Rectangle area) {
+
+        ArrayList<Collisionable> candidates = new ArrayList<Collisionable>();
+
+        if (collisionIndex.queryCandidates(area, candidates) > 1) {
+            Collections.sort(candidates, registryOrder);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * This method removes the elements of a list from the given size on.
+     *
+     * @param list The list to truncate.
+     * @param size The size to keep.
+     */
+    private static void truncate(ArrayList<Collisionable> list, int size) {
+
+        for (int i = list.size() - 1; i >= size; i--) {
+            list.remove(i);
+        }
+    }
+
     //
     //Integrity checkings
     //
@@ -1124,9 +1486,129 @@ public class Collisions {
     private static void checkIfCollisionablesOutDated() {
 
         if (collisionablesOutdated) {
-            collisionables = phisics.getEnvironment().getCollisionables();
+            //The queries may be done from several Threads while the updatables
+            //compute their movements, so only one of them builds the index.
+            synchronized (Collisions.class) {
+                if (collisionablesOutdated) {
+                    collisionables = new ArrayList<Collisionable>(phisics.getEnvironment().getCollisionables());
+                    rebuildCollisionIndex();
+                    collisionablesOutdated = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method indexes all the collisionables again, numbering them in
+     * registry order.
+     */
+    private static void rebuildCollisionIndex() {
+
+        collisionIndex.clear();
+        registrySequences.clear();
+        nextRegistrySequence = 0L;
+        pairPartners.clear();
+        pairsOutdated = true;
+
+        if (pairBroadphase != null) {
+            pairBroadphase.clear();
+        }
+
+        for (int i = 0, count = collisionables.size(); i < count; i++) {
+            indexCollisionable(collisionables.get(i));
+        }
+    }
+
+    /**
+     * This method indexes a collisionable by its collisionable area, numbering
+     * it after the rest if it wasn't indexed yet.
+     *
+     * @param collisionable The collisionable to index.
+     */
+    private static void indexCollisionable(Collisionable collisionable) {
+
+        if (!registrySequences.containsKey(collisionable)) {
+            registrySequences.put(collisionable, nextRegistrySequence++);
+        }
+
+        Rectangle collisionableArea = collisionable.getCollisionableArea();
+        collisionIndex.put(collisionable, collisionableArea);
+
+        if (pairBroadphase != null) {
+            pairBroadphase.put(collisionable, collisionableArea);
         }
+    }
 
-        collisionablesOutdated = false;
+    /**
+     * This method adds a Sprite added to the current Environment to the
+     * collisionables. If they are outdated, they will be asked for later anyway.
+     *
+     * @param sprite The Sprite added.
+     */
+    public void registered(Sprite sprite) {
+
+        if (!collisionablesOutdated && sprite.environment == phisics.getEnvironment()) {
+            collisionables.add(sprite);
+            indexCollisionable(sprite);
+            pairsOutdated = true;
+        }
+    }
+
+    /**
+     * This method removes a Sprite removed from the current Environment from
+     * the collisionables.
+     *
+     * @param sprite The Sprite removed.
+     */
+    public void unregistered(Sprite sprite) {
+
+        if (!collisionablesOutdated && sprite.environment == phisics.getEnvironment()) {
+            collisionables.remove(sprite);
+            collisionIndex.remove(sprite);
+            registrySequences.remove(sprite);
+            pairPartners.remove(sprite);
+            pairsOutdated = true;
+
+            if (pairBroadphase != null) {
+                pairBroadphase.remove(sprite);
+            }
+        }
+    }
+
+    /**
+     * This method moves a Sprite of the current Environment at the collision
+     * index. If the collisionables are outdated, it will be indexed later anyway.
+     *
+     * @param sprite The Sprite moved.
+     */
+    public void moved(Sprite sprite) {
+
+        if (!collisionablesOutdated && collisionIndex.contains(sprite)) {
+            Rectangle collisionableArea = sprite.getCollisionableArea();
+            collisionIndex.put(sprite, collisionableArea);
+            pairsOutdated = true;
+
+            if (pairBroadphase != null) {
+                pairBroadphase.put(sprite, collisionableArea);
+            }
+        }
+    }
+
+    /**
+     * The collisionables aren't kept by layer, but the intersecting pairs only
+     * join collisionables of the same zIndex, so they're found again.
+     *
+     * @param sprite The Sprite restacked.
+     */
+    public void restacked(Sprite sprite) {
+        pairsOutdated = true;
+    }
+
+    /**
+     * This method makes the collisionables being asked again to the Environment
+     * when they are needed.
+     */
+    public void registryRebuilt() {
+        collisionablesOutdated = true;
     }
 }
@@ -5,8 +5,12 @@ import control.interfaces.Updatable;
 import domain.interfaces.Collisionable;
 import domain.interfaces.FiredActionable;
 import domain.interfaces.Logic;
+import domain.interfaces.RegistryListener;
 import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Collection;
 import persistence.interfaces.Statitzable;
 
 /**
@@ -14,6 +18,14 @@ import persistence.interfaces.Statitzable;
  * It's as the 'world'. It's subclasses will specify diferent kinds of logic and 
  * positioning methods, and the global control variables for a game instance.
  *
+ * The Environment keeps its updatables, renderables and collisionables in
+ * registries wich are updated incrementally when a Sprite is added to or removed
+ * from the others, and tells every change to its RegistryListener instances.
+ *
+ * The others are indexed by their Scenario bounds in a SpatialHash, so the
+ * ones wich are inside the camera (the Scenario region shown at the client
+ * window) can be found without checking all of them.
+ *
  * @author Germán Coines Laguna
  * @author Alberto Languiz Polo
  */
@@ -46,6 +58,33 @@ public abstract class Environment implements Statitzable, Logic {
      * The Dimension of the client (a GameEpplet or a GameFrame)
      */
     protected Dimension clientScreen;
+    /**
+     * The registry of the Updatable instances: the player, the scenario and
+     * the others, in this order.
+     */
+    private ArrayList<Updatable> updatables;
+    /**
+     * The registry of the Renderable instances: the player, the scenario and
+     * the others, in this order.
+     */
+    private ArrayList<Renderable> renderables;
+    /**
+     * The registry of the Collisionable instances: the player, the scenario and
+     * the others, in this order.
+     */
+    private ArrayList<Collisionable> collisionables;
+    /**
+     * The instances wich are told about the registries changes.
+     *
+     * @see #addRegistryListener(domain.interfaces.RegistryListener)
+     */
+    private ArrayList<RegistryListener> registryListeners;
+    /**
+     * The others indexed by their Scenario bounds.
+     *
+     * @see #collectVisibleRenderables(java.awt.Rectangle, java.util.Collection)
+     */
+    private SpatialHash<Sprite> spatialIndex;
 
     //
     // Constructors
@@ -61,9 +100,17 @@ public abstract class Environment implements Statitzable, Logic {
 
         others = new ArrayList<Sprite>();
 
+        updatables = new ArrayList<Updatable>();
+        renderables = new ArrayList<Renderable>();
+        collisionables = new ArrayList<Collisionable>();
+        registryListeners = new ArrayList<RegistryListener>();
+        spatialIndex = new SpatialHash<Sprite>();
+
         phisics = Phisics.instantiate();
         phisics.setEnvironment(this);
 
+        addRegistryListener(phisics.getCollisions());
+
     }
 
     /**
@@ -109,6 +156,7 @@ public abstract class Environment implements Statitzable, Logic {
         if (sprite != null) {
             player = sprite;
             player.environment = this;
+            rebuildRegistries();
         } else {
             System.out.println("WARNING! sprite is null. Player not assigned.");
         }
@@ -125,6 +173,7 @@ public abstract class Environment implements Statitzable, Logic {
         if (sprite != null) {
             scenario = sprite;
             scenario.environment = this;
+            rebuildRegistries();
         } else {
             System.out.println("WARNING! sprite is null. Scenario not assigned.");
         }
@@ -164,6 +213,7 @@ public abstract class Environment implements Statitzable, Logic {
             }
 
             others = sprites;
+            rebuildRegistries();
 
         } else {
             System.out.println("WARNING! sprites is null. Others not assigned.");
@@ -177,7 +227,16 @@ public abstract class Environment implements Statitzable, Logic {
      */
     public void removeFromOthers(Sprite sprite) {
 
-        others.remove(sprite);
+        if (others.remove(sprite)) {
+            updatables.remove(sprite);
+            renderables.remove(sprite);
+            collisionables.remove(sprite);
+            spatialIndex.remove(sprite);
+
+            for (RegistryListener listener : registryListeners) {
+                listener.unregistered(sprite);
+            }
+        }
     }
 
     /**
@@ -188,79 +247,222 @@ public abstract class Environment implements Statitzable, Logic {
      */
     public void addToOthers(Sprite sprite) {
         if (sprite != null) {
+            sprite.environment = this;
             others.add(sprite);
+            updatables.add(sprite);
+            renderables.add(sprite);
+            collisionables.add(sprite);
+            index(sprite);
+
+            for (RegistryListener listener : registryListeners) {
+                listener.registered(sprite);
+            }
         } else {
             System.out.println("WARNING! The sprite instance is null. Not added.");
         }
     }
 
     /**
+     * This method tells the listeners that a Sprite has changed its zIndex. It's
+     * invoked by the Sprite itself.
      *
-     * @return The Updatable ArrayList updatables of this Environment.
+     * @param sprite The Sprite restacked.
+     *
+     * @see Sprite#setZIndex(int)
      */
-    public ArrayList<Updatable> getUpdatables() {
-        ArrayList<Updatable> updatables = new ArrayList<Updatable>();
+    void restack(Sprite sprite) {
+
+        for (RegistryListener listener : registryListeners) {
+            listener.restacked(sprite);
+        }
+    }
+
+    /**
+     * This method adds a RegistryListener wich will be told about every change
+     * of the registries. If it was yet added, this method does nothing.
+     *
+     * @param listener The RegistryListener to add.
+     */
+    public void addRegistryListener(RegistryListener listener) {
+
+        if (listener != null && !registryListeners.contains(listener)) {
+            registryListeners.add(listener);
+        }
+    }
+
+    /**
+     * This method removes a RegistryListener.
+     *
+     * @param listener The RegistryListener to remove.
+     */
+    public void removeRegistryListener(RegistryListener listener) {
+        registryListeners.remove(listener);
+    }
+
+    /**
+     * This method builds the registries again from the player, the scenario
+     * and the others, and tells the listeners that they should ask for them
+     * again. The null instances are skipped.
+     */
+    private void rebuildRegistries() {
+
+        updatables.clear();
+        renderables.clear();
+        collisionables.clear();
+        spatialIndex.clear();
 
         if (player != null) {
-            updatables.add((Updatable) player);
-        } else {
-            System.out.println("WARNING! Player is null. Not Added.");
+            register(player);
         }
 
         if (scenario != null) {
-            updatables.add((Updatable) scenario);
-        } else {
-            System.out.println("WARNING! Scenario is null. Not Added.");
+            register(scenario);
         }
 
         if (others != null) {
-            for (int i = 0; i < others.size(); i++) {
-                if (others.get(i) != null) {
-                    updatables.add((Updatable) others.get(i));
-                } else {
-                    System.out.println("WARNING! A Sprite in others is null. Not Added.");
+            for (Sprite sprite : others) {
+                if (sprite != null) {
+                    register(sprite);
+                    index(sprite);
                 }
             }
-        } else {
-            System.out.println("WARINING! Others is null. Not Added.");
         }
 
-        return updatables;
+        for (RegistryListener listener : registryListeners) {
+            listener.registryRebuilt();
+        }
+    }
+
+    /**
+     * This method adds a Sprite to the registries without telling the listeners.
+     *
+     * @param sprite The Sprite to add.
+     */
+    private void register(Sprite sprite) {
 
+        updatables.add(sprite);
+        renderables.add(sprite);
+        collisionables.add(sprite);
     }
 
     /**
+     * This method indexes a Sprite by its current Scenario bounds, or moves it
+     * at the index if it was yet indexed.
      *
-     * @return The Renderable ArrayList renderables of this Environment.
+     * @param sprite The Sprite to index.
      */
-    public ArrayList<Renderable> getRenderables() {
-        ArrayList<Renderable> drawables = new ArrayList<Renderable>();
+    private void index(Sprite sprite) {
+        spatialIndex.put(sprite, sprite.pointRelativeToScenario.x, sprite.pointRelativeToScenario.y,
+                sprite.width, sprite.height);
+    }
+
+    /**
+     * This method is invoked by a Sprite each time its Scenario position or its
+     * size change, so it's moved at the spatial index and the listeners are
+     * told. Only the others are kept at the spatial index.
+     *
+     * @param sprite The Sprite wich has changed its bounds.
+     *
+     * @see Sprite#boundsChanged()
+     * @see RegistryListener#moved(domain.Sprite)
+     */
+    void spriteMoved(Sprite sprite) {
+
+        if (spatialIndex.contains(sprite)) {
+            index(sprite);
+        }
+
+        for (int i = 0, count = registryListeners.size(); i < count; i++) {
+            registryListeners.get(i).moved(sprite);
+        }
+    }
+
+    /**
+     * This method calculates the camera: the region of the Scenario shown at
+     * the client window. In a DinamicEnvironment the client window follows the
+     * Player, so the camera is placed keeping the Player at its screen position.
+     *
+     * @return The camera Rectangle in Scenario coordinates, or null if the
+     * Environment isn't a DinamicEnvironment or the Player or the client
+     * Dimension haven't been set yet, so there's no camera to look through.
+     *
+     * @see Scenario#render(java.awt.Graphics)
+     */
+    public Rectangle getCamera() {
+
+        if (!(this instanceof DinamicEnvironment) || player == null || clientScreen == null) {
+            return null;
+        }
+
+        return getCamera(player.pointRelativeToScenario);
+    }
+
+    /**
+     * This method calculates the camera when the Player is at the given
+     * Scenario position.
+     *
+     * @param playerPosition The Player Scenario position.
+     *
+     * @return The camera Rectangle in Scenario coordinates.
+     */
+    Rectangle getCamera(Point playerPosition) {
+
+        Point playerScreenPosition = player.pointRelativeToScreen;
+
+        return new Rectangle(playerPosition.x - playerScreenPosition.x,
+                playerPosition.y - playerScreenPosition.y,
+                clientScreen.width, clientScreen.height);
+    }
+
+    /**
+     * This method adds to a Collection the Renderable instances wich may be
+     * seen through an area: the Player and the Scenario, wich are always
+     * visible, and the others whose Scenario bounds intersect the area. They
+     * are found through the spatial index, so the others outside the area
+     * aren't checked at all.
+     *
+     * @param area The area in Scenario coordinates, usually the camera.
+     * @param visible The Collection where the Renderable instances are added.
+     *
+     * @return The number of Renderable instances added.
+     *
+     * @see #getCamera()
+     */
+    public int collectVisibleRenderables(Rectangle area, Collection<? super Sprite> visible) {
+
+        int count = 0;
 
         if (player != null) {
-            drawables.add((Renderable) player);
-        } else {
-            System.out.println("WARNING! Player is null. Not Added.");
+            visible.add(player);
+            count++;
         }
 
         if (scenario != null) {
-            drawables.add((Renderable) scenario);
-        } else {
-            System.out.println("WARNING! Scenario is null. Not Added.");
+            visible.add(scenario);
+            count++;
         }
 
-        if (others != null) {
-            for (int i = 0; i < others.size(); i++) {
-                if (others.get(i) != null) {
-                    drawables.add((Renderable) others.get(i));
-                } else {
-                    System.out.println("WARNING! A Sprite in others is null. Not Added.");
-                }
-            }
-        } else {
-            System.out.println("WARNING! Others is null. Not Added.");
-        }
+        return count + spatialIndex.query(area, visible);
+    }
 
-        return drawables;
+    /**
+     * This method returns the Updatable registry. It's kept up to date by the
+     * Environment, so it shouldn't be modified.
+     *
+     * @return The Updatable ArrayList updatables of this Environment.
+     */
+    public ArrayList<Updatable> getUpdatables() {
+        return updatables;
+    }
+
+    /**
+     * This method returns the Renderable registry. It's kept up to date by the
+     * Environment, so it shouldn't be modified.
+     *
+     * @return The Renderable ArrayList renderables of this Environment.
+     */
+    public ArrayList<Renderable> getRenderables() {
+        return renderables;
     }
 
     /**
@@ -301,36 +503,12 @@ public abstract class Environment implements Statitzable, Logic {
     }
 
     /**
+     * This method returns the Collisionable registry. It's kept up to date by
+     * the Environment, so it shouldn't be modified.
      *
      * @return all the Collisionable instances of the Environment.
      */
     public ArrayList<Collisionable> getCollisionables() {
-
-        ArrayList<Collisionable> collisionables = new ArrayList<Collisionable>();
-
-        if (player != null) {
-            collisionables.add(player);
-        } else {
-            System.out.println("WARNING! Player is null. Not added.");
-        }
-        if (scenario != null) {
-            collisionables.add(scenario);
-        } else {
-            System.out.println("WARNING! Scenario is null. Not added.");
-        }
-
-        if (others != null) {
-            for (Collisionable collisionable : others) {
-                if (collisionable != null) {
-                    collisionables.add(collisionable);
-                } else {
-                    System.out.println("WARNING! A Collisionable in others is null. Skipped.");
-                }
-            }
-        } else {
-            System.out.println("WARNING! Others is null. Not Added.");
-        }
-
         return collisionables;
     }
 
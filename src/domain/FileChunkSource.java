@@ -0,0 +1,205 @@
+
+package domain;
+
+import domain.interfaces.ChunkSource;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * This class loads the chunks of a ChunkedImage from a directory with one
+ * PNG file per chunk, named <code>name_column_row.png</code>. A missing file
+ * is taken as an empty chunk.
+ *
+ * The chunk files are written by <code>split(File, File, String, int)</code>,
+ * wich is an offline tool. It reads the whole image by bands of chunks, so it
+ * never holds more than a row of chunks in memory.
+ *
+ * It can be run from the command line:
+ * <code>java domain.FileChunkSource imageFile outputDirectory name chunkSize</code>
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see ChunkedImage
+ */
+public class FileChunkSource implements ChunkSource {
+
+    //
+    // Fields
+    //
+    /**
+     * The directory wich holds the chunk files.
+     */
+    private File directory;
+    /**
+     * The name prefix of the chunk files.
+     */
+    private String name;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor.
+     *
+     * @param directory The directory wich holds the chunk files.
+     * @param name The name prefix of the chunk files.
+     */
+    public FileChunkSource(File directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method reads the file of a chunk.
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The chunk image, or null if its file doesn't exist.
+     *
+     * @throws IOException If the file exists but it can't be read.
+     */
+    public BufferedImage loadChunk(int column, int row) throws IOException {
+
+        File file = getChunkFile(directory, name, column, row);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        return ImageIO.read(file);
+    }
+
+    /**
+     *
+     * @return The directory wich holds the chunk files.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     *
+     * @return The name prefix of the chunk files.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *
+     * @param directory The directory wich holds the chunk files.
+     * @param name The name prefix of the chunk files.
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The file of the chunk.
+     */
+    public static File getChunkFile(File directory, String name, int column, int row) {
+        return new File(directory, name + "_" + column + "_" + row + ".png");
+    }
+
+    /**
+     * This method splits an image file into chunk files. The image is read by
+     * bands of <code>chunkSize</code> rows, so the whole image is never in
+     * memory. The chunks at the right and bottom edges are smaller if the
+     * image size isn't a multiple of the chunk size.
+     *
+     * @param imageFile The image file to split.
+     * @param directory The directory where the chunk files are written. It's
+     * created if it doesn't exist.
+     * @param name The name prefix of the chunk files.
+     * @param chunkSize The side length of the chunks, in pixels.
+     *
+     * @return The size of the whole image, wich should be given to the
+     * ChunkedImage.
+     *
+     * @throws IOException If the image can't be read or a chunk can't be written.
+     */
+    public static Dimension split(File imageFile, File directory, String name, int chunkSize) throws IOException {
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size should be positive.");
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' can't be created.");
+        }
+
+        ImageInputStream input = ImageIO.createImageInputStream(imageFile);
+        if (input == null) {
+            throw new IOException("The file '" + imageFile + "' can't be read.");
+        }
+
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("The file '" + imageFile + "' isn't an image.");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false, true);
+
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                for (int row = 0, y = 0; y < height; row++, y += chunkSize) {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceRegion(new Rectangle(0, y, width, Math.min(chunkSize, height - y)));
+
+                    BufferedImage band = reader.read(0, param);
+
+                    for (int column = 0, x = 0; x < width; column++, x += chunkSize) {
+                        BufferedImage chunk = band.getSubimage(x, 0,
+                                Math.min(chunkSize, width - x), band.getHeight());
+                        ImageIO.write(chunk, "png", getChunkFile(directory, name, column, row));
+                    }
+                }
+
+                return new Dimension(width, height);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * This method runs the splitter from the command line.
+     *
+     * @param args The image file, the output directory, the chunk files name
+     * and the chunk size.
+     */
+    public static void main(String[] args) {
+
+        if (args.length < 4) {
+            System.out.println("Usage: java domain.FileChunkSource imageFile outputDirectory name chunkSize");
+            return;
+        }
+
+        try {
+            Dimension size = split(new File(args[0]), new File(args[1]), args[2], Integer.parseInt(args[3]));
+            System.out.println("Image of " + size.width + "x" + size.height + " pixels split.");
+        } catch (NumberFormatException numberEx) {
+            System.out.println("The chunk size should be a number.");
+        } catch (IllegalArgumentException illEx) {
+            System.out.println(illEx.getMessage());
+        } catch (IOException ioEx) {
+            System.out.println("Error splitting the image: " + ioEx.getMessage());
+        }
+    }
+}
@@ -5,7 +5,9 @@ import control.GameControler;
 import control.interfaces.Renderable;
 import control.interfaces.Updatable;
 import domain.interfaces.FiredAction;
+import domain.interfaces.RegistryListener;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
@@ -107,6 +109,36 @@ public abstract class GameClient {
 
         return environment.getRenderables();
     }
+    /**
+     * This method will be called by the GameControler when it needs to know
+     * wich region of the Scenario is shown at the client window.
+     *
+     * @return The camera Rectangle in Scenario coordinates, or null if there's
+     * no camera (the whole Scenario fits the client window).
+     *
+     * @see Environment#getCamera()
+     */
+    public Rectangle getCamera() {
+
+        return environment.getCamera();
+    }
+
+    /**
+     * This method will be called by the GameControler when it needs the
+     * Renderable instances wich may be seen through an area.
+     *
+     * @param area The area in Scenario coordinates, usually the camera.
+     * @param visible The ArrayList where the Renderable instances are added.
+     *
+     * @return The number of Renderable instances added.
+     *
+     * @see Environment#collectVisibleRenderables(java.awt.Rectangle, java.util.Collection)
+     */
+    public int collectVisibleRenderables(Rectangle area, ArrayList<Renderable> visible) {
+
+        return environment.collectVisibleRenderables(area, visible);
+    }
+
     /**
      * This method is called by the GameControler each time it receives an Event
      * wich it's key event code is in the permittedControls array.
@@ -197,6 +229,23 @@ public abstract class GameClient {
     protected void setEnvironmentClientDimension(Dimension dimension){
         environment.setDimension(dimension);
     }
+    /**
+     * This method adds a RegistryListener to the Environment, so it will be told
+     * about every Sprite added or removed.
+     *
+     * @param listener The RegistryListener to add.
+     *
+     * @see Environment#addRegistryListener(domain.interfaces.RegistryListener)
+     */
+    public void addRegistryListener(RegistryListener listener) {
+
+        if (environment != null) {
+            environment.addRegistryListener(listener);
+        } else {
+            System.out.println("There's no Environment yet. Listener not added.");
+        }
+    }
+
     /**
      * This method adds the passed Environment instance to the current GameClient.
      * Only one Environment can be assigned and never changed.
@@ -1,16 +1,44 @@
 
 package domain;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.WeakHashMap;
 import javax.imageio.ImageIO;
 
 /**
  * This class is the responsible of managing the images of the game.
  *
+ * The images are prepared when they are loaded: they are copied into images
+ * compatible with the screen GraphicsConfiguration, with the lowest
+ * transparency they need (OPAQUE, BITMASK or TRANSLUCENT). Java2D keeps such
+ * images cached at the video memory, so the Sprite and Scenario blits stay at
+ * the accelerated pipeline instead of falling back to software loops.
+ *
+ * Many images can be loaded at once from a sprite sheet: a single image file
+ * plus the rectangles of its frames. Each frame is kept as a subimage wich
+ * shares the sheet pixels, so the sheet is decoded only once and no pixels are
+ * duplicated. The sprite sheets can be built offline from loose image files by
+ * the SpriteSheetPacker.
+ *
+ * The CollisionMask of an image is built the first time a pixel perfect
+ * collision needs it, so the images never checked that way, such as the
+ * Scenario backgrounds, don't get one. The masks are kept while their images
+ * are in use.
+ *
+ * @see SpriteSheetPacker
+ * @see CollisionMask
  * @author Germán Coines Laguna
  * @author Alberto Languiz Polo
  *
@@ -30,6 +58,21 @@ public class ImagesManager {
      * can be accesed by it's name.
      */
     private HashMap<String, ArrayList<BufferedImage>> imagesNamesMap;
+    /**
+     * If it's true, the loaded images are converted to compatible images.
+     *
+     * @see #prepareImage(java.awt.image.BufferedImage)
+     */
+    private boolean imagesPreparation = true;
+    /**
+     * The CollisionMask of each image, built the first time it's asked for.
+     * The images are weakly referenced, so their masks are dropped together
+     * with them. BufferedImage doesn't override equals(), so they're compared
+     * by identity.
+     *
+     * @see #getCollisionMask(java.awt.image.BufferedImage)
+     */
+    private WeakHashMap<BufferedImage, CollisionMask> collisionMasks;
 
     //
     // Constructors
@@ -40,6 +83,7 @@ public class ImagesManager {
     private ImagesManager() {
 
         imagesNamesMap = new HashMap<String, ArrayList<BufferedImage>>();
+        collisionMasks = new WeakHashMap<BufferedImage, CollisionMask>();
 
     }
 
@@ -74,13 +118,8 @@ public class ImagesManager {
 
             if(bfImage == null)
                 throw new NullPointerException();
-            else if(!imagesNamesMap.containsKey(imageName)){
-                ArrayList<BufferedImage> bfImages = new ArrayList<BufferedImage>();
-                bfImages.add(bfImage);
-                imagesNamesMap.put(imageName, bfImages);
-            } else {
-                imagesNamesMap.get(imageName).add(bfImage);
-            }
+
+            addImage(imageName, prepareImage(bfImage));
 
         } catch (NullPointerException nullEx) {
 
@@ -96,6 +135,308 @@ public class ImagesManager {
         }
     }
 
+    /**
+     * This method loads all the frames of a sprite sheet described by a frames
+     * file. Each line of the frames file describes a frame as
+     * <code>name x y width height</code>, and the frames with the same name are
+     * added, in the order they are listed, to the ArrayList with that name (as
+     * if they were loaded one by one through <code>loadImage()</code>). Empty
+     * lines and the lines starting with '#' are skipped.
+     *
+     * If something causes an Exception, the sprite sheet is not loaded.
+     *
+     * @param sheetFile The File instance wich represents the sprite sheet image.
+     * @param framesFile The File instance wich represents the frames file.
+     *
+     * @see SpriteSheetPacker
+     */
+    public void loadSpriteSheet(File sheetFile, File framesFile) {
+
+        BufferedReader reader = null;
+
+        try {
+
+            BufferedImage sheet = readSheet(sheetFile);
+            if (sheet == null) {
+                return;
+            }
+
+            ArrayList<String> names = new ArrayList<String>();
+            ArrayList<BufferedImage> frames = new ArrayList<BufferedImage>();
+
+            reader = new BufferedReader(new FileReader(framesFile));
+            int lineNumber = 0;
+            String line = reader.readLine();
+
+            while (line != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#")) {
+                    String[] values = line.split("\\s+");
+                    if (values.length != 5) {
+                        System.out.println("Wrong frame at line " + lineNumber + " of '" + framesFile + "'. Sprite sheet not loaded.");
+                        return;
+                    }
+                    names.add(values[0]);
+                    frames.add(sheet.getSubimage(Integer.parseInt(values[1]), Integer.parseInt(values[2]),
+                            Integer.parseInt(values[3]), Integer.parseInt(values[4])));
+                }
+                line = reader.readLine();
+            }
+
+            for (int i = 0; i < frames.size(); i++) {
+                addImage(names.get(i), frames.get(i));
+            }
+
+        } catch (IOException ioEx) {
+
+            System.out.println("Error reading file. Sprite sheet not loaded.");
+
+        } catch (NumberFormatException numberEx) {
+
+            System.out.println("Wrong frame at '" + framesFile + "'. Sprite sheet not loaded.");
+
+        } catch (java.awt.image.RasterFormatException rasterEx) {
+
+            System.out.println("A frame at '" + framesFile + "' is out of the sprite sheet. Sprite sheet not loaded.");
+
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ioEx) {
+                    System.out.println("Error closing file '" + framesFile + "'.");
+                }
+            }
+        }
+    }
+
+    /**
+     * This method loads all the frames of a sprite sheet wich is a grid of
+     * frames of the same size. The frames are added, row by row, to the
+     * ArrayList with the given name. The incomplete frames at the right and
+     * bottom borders are skipped.
+     *
+     * If something causes an Exception, the sprite sheet is not loaded.
+     *
+     * @param imageName The name that specify the ArrayList at wich the frames
+     * will be contained.
+     * @param sheetFile The File instance wich represents the sprite sheet image.
+     * @param frameWidth The width of each frame.
+     * @param frameHeight The height of each frame.
+     */
+    public void loadSpriteSheet(String imageName, File sheetFile, int frameWidth, int frameHeight) {
+
+        if (frameWidth <= 0 || frameHeight <= 0) {
+            System.out.println("The frame size should be positive. Sprite sheet not loaded.");
+            return;
+        }
+
+        BufferedImage sheet = readSheet(sheetFile);
+        if (sheet == null) {
+            return;
+        }
+
+        int columns = sheet.getWidth() / frameWidth;
+        int rows = sheet.getHeight() / frameHeight;
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                addImage(imageName, sheet.getSubimage(column * frameWidth, row * frameHeight, frameWidth, frameHeight));
+            }
+        }
+    }
+
+    /**
+     * This method reads and prepares a sprite sheet image.
+     *
+     * @param sheetFile The File instance wich represents the sprite sheet image.
+     *
+     * @return The prepared sprite sheet, or null if it couldn't be read.
+     */
+    private BufferedImage readSheet(File sheetFile) {
+
+        try {
+
+            BufferedImage sheet = ImageIO.read(sheetFile);
+
+            if (sheet == null) {
+                System.out.println("The file '" + sheetFile + "' was not found.");
+                return null;
+            }
+
+            return prepareImage(sheet);
+
+        } catch (IOException ioEx) {
+
+            System.out.println("Error reading file. Sprite sheet not loaded.");
+
+        } catch (IllegalArgumentException illEx) {
+
+            System.out.println("The argument was null! Sprite sheet not loaded");
+        }
+
+        return null;
+    }
+
+    /**
+     * This method adds an image to the ArrayList with the given name, creating
+     * it if it doesn't exist yet.
+     *
+     * @param imageName The name of the ArrayList.
+     * @param image The image to add.
+     */
+    private void addImage(String imageName, BufferedImage image) {
+
+        ArrayList<BufferedImage> images = imagesNamesMap.get(imageName);
+
+        if (images == null) {
+            images = new ArrayList<BufferedImage>();
+            imagesNamesMap.put(imageName, images);
+        }
+
+        images.add(image);
+    }
+
+    /**
+     * This method returns the CollisionMask of an image. The mask is built the
+     * first time it's asked for, and kept while the image is in use.
+     *
+     * @param image The image.
+     *
+     * @return The CollisionMask of the image, or null if the image is null.
+     */
+    public synchronized CollisionMask getCollisionMask(BufferedImage image) {
+
+        if (image == null) {
+            return null;
+        }
+
+        CollisionMask mask = collisionMasks.get(image);
+
+        if (mask == null) {
+            mask = new CollisionMask(image);
+            collisionMasks.put(image, mask);
+        }
+
+        return mask;
+    }
+
+    /**
+     * This method converts an image to one compatible with the screen
+     * GraphicsConfiguration, with the lowest transparency its pixels need.
+     * If the image is yet compatible, or the images preparation is off, the
+     * same image is returned.
+     *
+     * In a headless environment there's no screen, so the image is converted
+     * to the integer RGB or premultiplied ARGB types, wich have the fastest
+     * software blitting loops.
+     *
+     * @param image The image to prepare.
+     *
+     * @return The prepared image.
+     */
+    protected BufferedImage prepareImage(BufferedImage image) {
+
+        if (!imagesPreparation || image == null) {
+            return image;
+        }
+
+        int transparency = getTransparency(image);
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        BufferedImage prepared;
+
+        if (GraphicsEnvironment.isHeadless()) {
+            int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+            if (image.getType() == type) {
+                return image;
+            }
+            prepared = new BufferedImage(width, height, type);
+        } else {
+            GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            prepared = configuration.createCompatibleImage(width, height, transparency);
+            if (image.getColorModel().equals(prepared.getColorModel())
+                    && image.getType() == prepared.getType()) {
+                image.setAccelerationPriority(1.0f);
+                return image;
+            }
+        }
+
+        Graphics2D g = prepared.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        prepared.setAccelerationPriority(1.0f);
+
+        return prepared;
+    }
+
+    /**
+     * This method finds the lowest transparency needed by the pixels of an
+     * image. An image whose color model is translucent is checked pixel by
+     * pixel, since many of them only use fully opaque or fully transparent
+     * pixels, and a BITMASK (or OPAQUE) image is accelerated more easily.
+     *
+     * @param image The image to check.
+     *
+     * @return Transparency.OPAQUE, Transparency.BITMASK or Transparency.TRANSLUCENT.
+     */
+    protected static int getTransparency(BufferedImage image) {
+
+        int transparency = image.getColorModel().getTransparency();
+
+        if (transparency != Transparency.TRANSLUCENT) {
+            return transparency;
+        }
+
+        WritableRaster alpha = image.getAlphaRaster();
+        if (alpha == null) {
+            return transparency;
+        }
+
+        boolean opaque = true;
+        int width = alpha.getWidth();
+        int height = alpha.getHeight();
+        int maxAlpha = (1 << alpha.getSampleModel().getSampleSize(0)) - 1;
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            alpha.getSamples(0, y, width, 1, 0, row);
+            for (int x = 0; x < width; x++) {
+                if (row[x] != maxAlpha) {
+                    if (row[x] != 0) {
+                        return Transparency.TRANSLUCENT;
+                    }
+                    opaque = false;
+                }
+            }
+        }
+
+        return opaque ? Transparency.OPAQUE : Transparency.BITMASK;
+    }
+
+    /**
+     *
+     * @return true if the loaded images are converted to compatible images.
+     */
+    public boolean isImagesPreparation() {
+        return imagesPreparation;
+    }
+
+    /**
+     * This method turns on or off the conversion of the loaded images to
+     * compatible images. It only affects the images loaded afterwards.
+     *
+     * @param imagesPreparation true to convert the loaded images.
+     */
+    public void setImagesPreparation(boolean imagesPreparation) {
+        this.imagesPreparation = imagesPreparation;
+    }
+
     /**
      * This method is used to get a single BufferedImage from the imagesNamesMap.
      *
@@ -245,8 +586,9 @@ public class ImagesManager {
             this.sequenceDuration = sequenceDuration;
             this.isRepeating = isRepeating;
 
-            if(this.images != null)
+            if(this.images != null){
                 this.imagesNumber = images.size();
+            }
 
             else{
                 System.out.println("The ImagesAnimator images is null! Not animating.");
@@ -335,6 +677,7 @@ public class ImagesManager {
 
                 this.sprite.width = this.sprite.image.getWidth();
                 this.sprite.height = this.sprite.image.getHeight();
+                this.sprite.boundsChanged();
             }
         }
 
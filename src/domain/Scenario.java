@@ -1,5 +1,6 @@
 package domain;
 
+import control.interfaces.FrameSnapshot;
 import domain.Collisions.CollisionDirection;
 import domain.Collisions.CollisionType;
 import java.awt.Dimension;
@@ -46,6 +47,17 @@ public class Scenario extends Inanimated {
      * The east limit
      */
     private int eastLimit;
+    /**
+     * The chunked background image, used instead of the Sprite image when the
+     * Scenario is too big to be kept in memory as a whole.
+     */
+    private ChunkedImage chunkedImage;
+    /**
+     * The tree of the collisionable areas, built the first time it's needed
+     * after they change. It's volatile since the Animated sprites may ask for
+     * it from several Threads while they compute their movements.
+     */
+    private volatile AABBTree collisionableAreasTree;
 
     /**
      * Constructor. It calls <code>super(Point relativeToScreen, int width, int height, int zIndex,
@@ -232,6 +244,100 @@ public class Scenario extends Inanimated {
         westLimit = newWestLimit;
     }
 
+    /**
+     *
+     * @return The chunked background image, or null if the Sprite image is used.
+     */
+    public ChunkedImage getChunkedImage() {
+        return chunkedImage;
+    }
+
+    /**
+     * This method sets a chunked background image. While it's set, the Scenario
+     * is drawn chunk by chunk from it instead of from the Sprite image, so only
+     * the chunks around the client window need to be in memory. The Scenario
+     * should have the same size as the chunked image.
+     *
+     * @param chunkedImage The chunked background image. null draws the Sprite
+     * image again, and the chunks of the previous one are released.
+     */
+    public void setChunkedImage(ChunkedImage chunkedImage) {
+
+        if (this.chunkedImage != null && this.chunkedImage != chunkedImage) {
+            this.chunkedImage.flush();
+        }
+
+        this.chunkedImage = chunkedImage;
+    }
+
+    /**
+     * This method sets the collisionable areas, as the Sprite one does, and
+     * drops their tree so it's built again for the new ones.
+     *
+     * @param collisionableAreas The new collisionable areas Rectangle array. If this
+     * value is null, the method does nothing.
+     */
+    @Override
+    public void setCollisionableAreas(Rectangle[] collisionableAreas) {
+        super.setCollisionableAreas(collisionableAreas);
+        collisionableAreasTree = null;
+    }
+
+    /**
+     * This method appends collisionable areas, as the Sprite one does, and
+     * drops their tree so it's built again with the new ones.
+     *
+     * @param newCollisionableAreas The Rectangle array to append to the current
+     * collisionableAreas. If it's null The method does nothing.
+     */
+    @Override
+    public void addCollisionableAreas(Rectangle[] newCollisionableAreas) {
+        super.addCollisionableAreas(newCollisionableAreas);
+        collisionableAreasTree = null;
+    }
+
+    /**
+     * This method returns the tree of the collisionable areas, wich finds the
+     * ones near a Sprite without checking all of them. It's built the first
+     * time it's needed after the collisionable areas change, by a single Thread
+     * even if several of them ask for it at once.
+     *
+     * @return The AABBTree of the current collisionable areas.
+     *
+     * @see Collisions#checkScenarioCollisionableAreasCollision(domain.interfaces.Collisionable, java.awt.Rectangle, domain.Collisions.CollisionDirection, domain.Scenario)
+     */
+    public AABBTree getCollisionableAreasTree() {
+
+        //The array is compared too, since the subclasses may replace it.
+        AABBTree tree = collisionableAreasTree;
+
+        if (tree == null || tree.getAreas() != collisionableAreas) {
+            synchronized (this) {
+                tree = collisionableAreasTree;
+                if (tree == null || tree.getAreas() != collisionableAreas) {
+                    tree = new AABBTree(collisionableAreas);
+                    collisionableAreasTree = tree;
+                }
+            }
+        }
+
+        return tree;
+    }
+
+    /**
+     * This method updates the tree of the collisionable areas after some of
+     * them have been moved or resized in place. It's cheaper than building it
+     * again, wich is done anyway when the areas are set or added.
+     */
+    public void refitCollisionableAreas() {
+
+        AABBTree tree = collisionableAreasTree;
+
+        if (tree != null) {
+            tree.refit();
+        }
+    }
+
     /**
      * This method actually does nothing. If an operation needs to be performed
      * if the scenario receives a collision, the class should be inherited an the
@@ -268,15 +374,15 @@ public class Scenario extends Inanimated {
     public void render(Graphics g) {
 
         if (environment instanceof StaticEnvironment) {
-            super.render(g);
+            if (chunkedImage != null) {
+                chunkedImage.render(g, new Rectangle(0, 0, width, height),
+                        pointRelativeToScreen.x, pointRelativeToScreen.y);
+            } else {
+                super.render(g);
+            }
         } else if (environment instanceof DinamicEnvironment) {
 
-            Dimension client = environment.clientScreen;
-
             Point playerPosition = environment.getPlayer().getScenarioCoordinates();
-            Point playerScreenPosition = environment.getPlayer().getScreenCoordinates();
-            Point clientWindowPosition = new Point(playerPosition.x - playerScreenPosition.x,
-                    playerPosition.y - playerScreenPosition.y);
 
 //            for(Animated sprite : environment.getOthers()){
 //                sprite.xIncrement = -environment.getPlayer().xIncrement;
@@ -285,11 +391,98 @@ public class Scenario extends Inanimated {
 //                //sprite.pointRelativeToScreen = sprite.pointRelativeToScenario;
 //            }
 
-            g.drawImage(image, 0, 0, client.width, client.height,
-                    clientWindowPosition.x, clientWindowPosition.y, 
-                    (clientWindowPosition.x + client.width),
-                    (clientWindowPosition.y + client.height), null);
+            renderClientWindow(g, playerPosition);
+        }
+
+    }
+
+    /**
+     * The interpolated render method is overriden for the same reason as the
+     * <code>render(Graphics g)</code> one. In a DinamicEnvironment the client window
+     * follows the Player, so it's the Player scenario position wich is interpolated.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     *
+     * @see Sprite#getInterpolatedScenarioCoordinates(double)
+     */
+    @Override
+    public void render(Graphics g, double interpolation) {
+
+        if (environment instanceof DinamicEnvironment) {
+            renderClientWindow(g, environment.getPlayer().getInterpolatedScenarioCoordinates(interpolation));
+        } else {
+            super.render(g, interpolation);
+        }
+    }
+
+    /**
+     * The snapshot method is overriden for the same reason as the
+     * <code>render(Graphics g)</code> one: in a DinamicEnvironment only the
+     * region of the Scenario image wich fits the client window is added. A
+     * chunked image adds one entry per chunk wich intersects the client window.
+     *
+     * @param snapshot The FrameSnapshot being taken.
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     */
+    @Override
+    public void snapshot(FrameSnapshot snapshot, double interpolation) {
+
+        if (environment instanceof DinamicEnvironment) {
+
+            Dimension client = environment.clientScreen;
+            Point clientWindowPosition = getClientWindowPosition(
+                    environment.getPlayer().getInterpolatedScenarioCoordinates(interpolation));
+
+            if (chunkedImage != null) {
+                chunkedImage.snapshot(snapshot, this, new Rectangle(clientWindowPosition, client), 0, 0, zIndex);
+            } else {
+                snapshot.addImageWindow(this, image, 0, 0, client.width, client.height,
+                        clientWindowPosition.x, clientWindowPosition.y, zIndex);
+            }
+        } else if (chunkedImage != null) {
+            chunkedImage.snapshot(snapshot, this, new Rectangle(0, 0, width, height),
+                    pointRelativeToScreen.x, pointRelativeToScreen.y, zIndex);
+        } else {
+            super.snapshot(snapshot, interpolation);
+        }
+    }
+
+    /**
+     * This method calculates the upper-left corner of the client window at the
+     * Scenario when the Player is at the given scenario position.
+     *
+     * @param playerPosition The Player scenario position.
+     *
+     * @return The Scenario relative Point of the client window.
+     *
+     * @see Environment#getCamera(java.awt.Point)
+     */
+    private Point getClientWindowPosition(Point playerPosition) {
+        return environment.getCamera(playerPosition).getLocation();
+    }
+
+    /**
+     * This method renders the subimage of the Scenario wich fits the client window
+     * when the Player is at the given scenario position.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param playerPosition The Player scenario position.
+     */
+    private void renderClientWindow(Graphics g, Point playerPosition) {
+
+        Dimension client = environment.clientScreen;
+
+        Point clientWindowPosition = getClientWindowPosition(playerPosition);
+
+        if (chunkedImage != null) {
+            chunkedImage.render(g, new Rectangle(clientWindowPosition, client), 0, 0);
+            return;
         }
 
+        g.drawImage(image, 0, 0, client.width, client.height,
+                clientWindowPosition.x, clientWindowPosition.y,
+                (clientWindowPosition.x + client.width),
+                (clientWindowPosition.y + client.height), null);
     }
 }
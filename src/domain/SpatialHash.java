@@ -0,0 +1,406 @@
+
+package domain;
+
+import domain.interfaces.Broadphase;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class indexes elements by their bounds in a uniform grid of square
+ * cells, so the elements wich may intersect an area can be found without
+ * checking all of them.
+ *
+ * Each element is kept at every cell its bounds overlap. Only the cells wich
+ * hold any element are stored, so the grid has no limits and negative
+ * coordinates are allowed. Moving an element wich stays at the same cells only
+ * updates its bounds.
+ *
+ * The pairs of elements wich may overlap are found cell by cell, so its cost
+ * grows with the number of elements sharing each cell. It suits scenes whose
+ * elements are spread uniformly and have about the cell size.
+ *
+ * This class isn't thread safe.
+ *
+ * @param <T> The type of the indexed elements.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public class SpatialHash<T> implements Broadphase<T> {
+
+    //
+    // Fields
+    //
+    /**
+     * The default side length of the cells, in pixels.
+     */
+    public static final int DEFAULT_CELL_SIZE = 128;
+    /**
+     * The side length of the cells, in pixels.
+     */
+    private int cellSize;
+    /**
+     * The elements of each non empty cell, by cell key.
+     */
+    private HashMap<Long, ArrayList<Entry<T>>> cells = new HashMap<Long, ArrayList<Entry<T>>>();
+    /**
+     * The entry of each indexed element.
+     */
+    private IdentityHashMap<T, Entry<T>> entries = new IdentityHashMap<T, Entry<T>>();
+
+    //
+    // Constructors
+    //
+    /**
+     * The default constructor. The cells are DEFAULT_CELL_SIZE pixels wide.
+     */
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cellSize The side length of the cells, in pixels. It should be
+     * about the size of the usual elements. Values lower than 1 are taken as 1.
+     */
+    public SpatialHash(int cellSize) {
+        this.cellSize = cellSize > 0 ? cellSize : 1;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method indexes an element, or moves it if it was yet indexed.
+     *
+     * @param element The element to index.
+     * @param x The x coordinate of the element bounds.
+     * @param y The y coordinate of the element bounds.
+     * @param width The width of the element bounds.
+     * @param height The height of the element bounds.
+     */
+    public void put(T element, int x, int y, int width, int height) {
+
+        Entry<T> entry = entries.get(element);
+
+        if (entry == null) {
+            entry = new Entry<T>(element);
+            entries.put(element, entry);
+        } else {
+            int minCellX = cellOf(x);
+            int minCellY = cellOf(y);
+            int maxCellX = cellOf(x + Math.max(width, 1) - 1);
+            int maxCellY = cellOf(y + Math.max(height, 1) - 1);
+
+            if (minCellX == entry.minCellX && minCellY == entry.minCellY
+                    && maxCellX == entry.maxCellX && maxCellY == entry.maxCellY) {
+                entry.bounds.setBounds(x, y, width, height);
+                return;
+            }
+
+            unlink(entry);
+        }
+
+        entry.bounds.setBounds(x, y, width, height);
+        link(entry);
+    }
+
+    /**
+     * This method indexes an element, or moves it if it was yet indexed.
+     *
+     * @param element The element to index.
+     * @param bounds The element bounds.
+     */
+    public void put(T element, Rectangle bounds) {
+        put(element, bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /**
+     * This method removes an element from the index.
+     *
+     * @param element The element to remove.
+     *
+     * @return true if the element was indexed.
+     */
+    public boolean remove(T element) {
+
+        Entry<T> entry = entries.remove(element);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlink(entry);
+
+        return true;
+    }
+
+    /**
+     *
+     * @param element An element.
+     *
+     * @return true if the element is indexed.
+     */
+    public boolean contains(T element) {
+        return entries.containsKey(element);
+    }
+
+    /**
+     * This method adds to a Collection every indexed element whose bounds
+     * intersect an area. Each element is added only once, even if it's at
+     * several cells.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the elements are added.
+     *
+     * @return The number of elements added.
+     */
+    public int query(Rectangle area, Collection<? super T> found) {
+        return collect(area, found, true);
+    }
+
+    /**
+     * This method adds to a Collection every indexed element kept at the cells
+     * an area overlaps, without checking their bounds. It's meant for callers
+     * wich apply their own test to the candidates (i.e. containment instead of
+     * intersection). Each element is added only once.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the elements are added.
+     *
+     * @return The number of elements added.
+     */
+    public int queryCandidates(Rectangle area, Collection<? super T> found) {
+        return collect(area, found, false);
+    }
+
+    /**
+     * This method adds to a list every pair of indexed elements whose bounds
+     * intersect. A pair sharing several cells is only added from the first of
+     * them.
+     *
+     * @param pairs The list where the pairs are added, as two consecutive
+     * elements.
+     *
+     * @return The number of pairs added.
+     */
+    public int collectPairs(ArrayList<? super T> pairs) {
+
+        int count = 0;
+
+        for (Map.Entry<Long, ArrayList<Entry<T>>> cellEntry : cells.entrySet()) {
+            long key = cellEntry.getKey();
+            int cellX = (int) (key >> 32);
+            int cellY = (int) key;
+            ArrayList<Entry<T>> cell = cellEntry.getValue();
+
+            for (int i = 0, size = cell.size(); i < size; i++) {
+                Entry<T> first = cell.get(i);
+                for (int j = i + 1; j < size; j++) {
+                    Entry<T> second = cell.get(j);
+                    if (cellX == Math.max(first.minCellX, second.minCellX)
+                            && cellY == Math.max(first.minCellY, second.minCellY)
+                            && first.bounds.intersects(second.bounds)) {
+                        pairs.add(first.element);
+                        pairs.add(second.element);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * This method removes all the elements from the index.
+     */
+    public void clear() {
+
+        cells.clear();
+        entries.clear();
+    }
+
+    /**
+     *
+     * @return The number of indexed elements.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     *
+     * @return The side length of the cells, in pixels.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * This method adds to a Collection the elements kept at the cells an area
+     * overlaps.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the elements are added.
+     * @param checkBounds true to add only the elements whose bounds intersect
+     * the area.
+     *
+     * @return The number of elements added.
+     */
+    private int collect(Rectangle area, Collection<? super T> found, boolean checkBounds) {
+
+        if (area.width <= 0 || area.height <= 0 || entries.isEmpty()) {
+            return 0;
+        }
+
+        int minCellX = cellOf(area.x);
+        int minCellY = cellOf(area.y);
+        int maxCellX = cellOf(area.x + area.width - 1);
+        int maxCellY = cellOf(area.y + area.height - 1);
+
+        int count = 0;
+
+        //An area wider than the stored cells is cheaper to check element by
+        //element than cell by cell.
+        if (((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1) > cells.size()) {
+            for (Entry<T> entry : entries.values()) {
+                if (entry.maxCellX >= minCellX && entry.minCellX <= maxCellX
+                        && entry.maxCellY >= minCellY && entry.minCellY <= maxCellY
+                        && (!checkBounds || entry.bounds.intersects(area))) {
+                    found.add(entry.element);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                ArrayList<Entry<T>> cell = cells.get(key(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0, size = cell.size(); i < size; i++) {
+                    Entry<T> entry = cell.get(i);
+                    //An element at several cells is only reported from the first
+                    //cell it shares with the area.
+                    if (cellX == Math.max(entry.minCellX, minCellX)
+                            && cellY == Math.max(entry.minCellY, minCellY)
+                            && (!checkBounds || entry.bounds.intersects(area))) {
+                        found.add(entry.element);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * This method adds an entry to all the cells its bounds overlap.
+     *
+     * @param entry The entry to add.
+     */
+    private void link(Entry<T> entry) {
+
+        Rectangle bounds = entry.bounds;
+
+        entry.minCellX = cellOf(bounds.x);
+        entry.minCellY = cellOf(bounds.y);
+        entry.maxCellX = cellOf(bounds.x + Math.max(bounds.width, 1) - 1);
+        entry.maxCellY = cellOf(bounds.y + Math.max(bounds.height, 1) - 1);
+
+        for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+            for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                Long key = key(cellX, cellY);
+                ArrayList<Entry<T>> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<Entry<T>>(4);
+                    cells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    /**
+     * This method removes an entry from all the cells it was added to. The
+     * cells left empty are dropped.
+     *
+     * @param entry The entry to remove.
+     */
+    private void unlink(Entry<T> entry) {
+
+        for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+            for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                Long key = key(cellX, cellY);
+                ArrayList<Entry<T>> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(entry);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param coordinate A coordinate, in pixels.
+     *
+     * @return The cell coordinate wich contains it.
+     */
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    /**
+     *
+     * @param cellX The cell x coordinate.
+     * @param cellY The cell y coordinate.
+     *
+     * @return The key of the cell.
+     */
+    private static Long key(int cellX, int cellY) {
+        return Long.valueOf(((long) cellX << 32) | (cellY & 0xFFFFFFFFL));
+    }
+
+    /**
+     * This class holds an indexed element with its bounds and the range of
+     * cells it overlaps.
+     *
+     * @param <T> The type of the element.
+     */
+    private static class Entry<T> {
+
+        /**
+         * The indexed element.
+         */
+        private final T element;
+        /**
+         * The element bounds.
+         */
+        private final Rectangle bounds = new Rectangle();
+        /**
+         * The range of cells overlapped by the bounds.
+         */
+        private int minCellX, minCellY, maxCellX, maxCellY;
+
+        /**
+         * Constructor.
+         *
+         * @param element The indexed element.
+         */
+        Entry(T element) {
+            this.element = element;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 
 package domain;
 
+import control.interfaces.FrameSnapshot;
+import control.interfaces.Interpolable;
 import control.interfaces.Renderable;
+import control.interfaces.Snapshotable;
 import control.interfaces.Updatable;
 import domain.ImagesManager.ImagesAnimator;
 import domain.SoundsManager.AudioClipPlayer;
@@ -12,6 +15,7 @@ import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.HashMap;
 import persistence.interfaces.Statitzable;
 
 /**
@@ -20,7 +24,7 @@ import persistence.interfaces.Statitzable;
  * @author Germán Coines Laguna
  * @author Alberto Languiz Polo
  */
-public abstract class Sprite implements Renderable, Updatable, Statitzable, Collisionable {
+public abstract class Sprite implements Renderable, Interpolable, Snapshotable, Updatable, Statitzable, Collisionable {
 
     //
     // Fields
@@ -32,6 +36,13 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
 
         TOP_LEFT, TOP, TOP_RIGHT, MIDDLE_RIGHT, BOTTOM_RIGHT, BOTTOM, BOTTOM_LEFT, MIDDLE_LEFT, CENTRATED
     };
+    /**
+     * This HashMap caches, for every Sprite class, if it overrides the render
+     * method without overriding the snapshot one.
+     *
+     * @see #snapshot(control.interfaces.FrameSnapshot, double)
+     */
+    private static HashMap<Class<?>, Boolean> selfRenderingClasses = new HashMap<Class<?>, Boolean>();
     /**
      * The Environment reference for the Sprite instance
      */
@@ -49,6 +60,16 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
      * image in an animated sequence.
      */
     protected ImagesAnimator animator;
+    /**
+     * The CollisionMask of the current image.
+     *
+     * @see #getCollisionMask()
+     */
+    private CollisionMask collisionMask;
+    /**
+     * The image the collisionMask was taken for.
+     */
+    private BufferedImage collisionMaskImage;
     /**
      * An AudioClipPlayer wich is the responsible of playing AudioClip instances.
      */
@@ -67,6 +88,20 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
      * of the Scenario instance represented by a Point.
      */
     protected Point pointRelativeToScenario;
+    /**
+     * The pointRelativeToScreen value that the Sprite had before the last update.
+     * It's only used when the GameEngine is running in fixed time step mode.
+     *
+     * @see #savePreviousState()
+     */
+    protected Point previousPointRelativeToScreen;
+    /**
+     * The pointRelativeToScenario value that the Sprite had before the last update.
+     * It's only used when the GameEngine is running in fixed time step mode.
+     *
+     * @see #savePreviousState()
+     */
+    protected Point previousPointRelativeToScenario;
     /**
      * The Sprite's width
      */
@@ -77,9 +112,8 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
     protected int height;
     /**
      * The Sprite's superposition indicator. This value is used by the Collisions
-     * class to know at wich layer a Sprite instance is. In a next release this field
-     * will be used to order the Renderable instances at the Environment.renderables
-     * ArrayList.
+     * class to know at wich layer a Sprite instance is, and by the engines to
+     * render the Sprite instances from the lowest zIndex to the highest one.
      */
     protected int zIndex;
     /**
@@ -299,6 +333,159 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
         gr.drawImage(image, pointRelativeToScreen.x, pointRelativeToScreen.y, null);
     }
 
+    /**
+     * The implementation method for the Interpolable interface. It stores the
+     * current screen and scenario positions as the previous ones.
+     */
+    public void savePreviousState() {
+
+        if (previousPointRelativeToScreen == null) {
+            previousPointRelativeToScreen = new Point(pointRelativeToScreen);
+            previousPointRelativeToScenario = new Point(pointRelativeToScenario);
+        } else {
+            previousPointRelativeToScreen.setLocation(pointRelativeToScreen);
+            previousPointRelativeToScenario.setLocation(pointRelativeToScenario);
+        }
+    }
+
+    /**
+     * The implementation method for the Interpolable interface. The Graphics
+     * object is translated from the current screen position to the interpolated
+     * one, and then <code>render(Graphics gr)</code> is invoked, so any overriden
+     * render method is respected.
+     *
+     * @param gr The Graphics object wich will perform the rendering.
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     */
+    public void render(Graphics gr, double interpolation) {
+
+        if (previousPointRelativeToScreen == null) {
+            render(gr);
+        } else {
+            int xOffset = interpolateOffset(previousPointRelativeToScreen.x, pointRelativeToScreen.x, interpolation);
+            int yOffset = interpolateOffset(previousPointRelativeToScreen.y, pointRelativeToScreen.y, interpolation);
+
+            gr.translate(xOffset, yOffset);
+            render(gr);
+            gr.translate(-xOffset, -yOffset);
+        }
+    }
+
+    /**
+     * The implementation method for the Snapshotable interface. It adds the
+     * current image at the (interpolated) pointRelativeToScreen position.
+     *
+     * If the Sprite class overrides <code>render(Graphics gr)</code> but not this
+     * method, the Sprite is added as a live entry so its own render method is
+     * respected.
+     *
+     * @param snapshot The FrameSnapshot being taken.
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     */
+    public void snapshot(FrameSnapshot snapshot, double interpolation) {
+
+        if (isSelfRendering(getClass())) {
+            snapshot.addRenderable(this, zIndex);
+        } else if (previousPointRelativeToScreen == null || interpolation >= 1.0) {
+            snapshot.addImage(this, image, pointRelativeToScreen.x, pointRelativeToScreen.y, zIndex);
+        } else {
+            snapshot.addImage(this, image,
+                    pointRelativeToScreen.x + interpolateOffset(previousPointRelativeToScreen.x, pointRelativeToScreen.x, interpolation),
+                    pointRelativeToScreen.y + interpolateOffset(previousPointRelativeToScreen.y, pointRelativeToScreen.y, interpolation),
+                    zIndex);
+        }
+    }
+
+    /**
+     * This method checks if a Sprite class declares its render method below the
+     * class wich declares its snapshot method.
+     *
+     * @param spriteClass The Sprite class to check.
+     *
+     * @return true if the Sprite class should be rendered by its own render method.
+     */
+    private static synchronized boolean isSelfRendering(Class<?> spriteClass) {
+
+        Boolean selfRendering = selfRenderingClasses.get(spriteClass);
+
+        if (selfRendering == null) {
+            try {
+                Class<?> renderClass = spriteClass.getMethod("render", Graphics.class).getDeclaringClass();
+                Class<?> snapshotClass = spriteClass.getMethod("snapshot", FrameSnapshot.class, double.class).getDeclaringClass();
+
+                selfRendering = renderClass != snapshotClass && snapshotClass.isAssignableFrom(renderClass);
+            } catch (NoSuchMethodException noMethodEx) {
+                selfRendering = true;
+            }
+
+            selfRenderingClasses.put(spriteClass, selfRendering);
+        }
+
+        return selfRendering;
+    }
+
+    /**
+     *
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     *
+     * @return The pointRelativeToScenario interpolated between the previous and
+     * the current state.
+     */
+    protected Point getInterpolatedScenarioCoordinates(double interpolation) {
+
+        Point interpolated = new Point(pointRelativeToScenario);
+
+        if (previousPointRelativeToScenario != null) {
+            interpolated.translate(
+                    interpolateOffset(previousPointRelativeToScenario.x, pointRelativeToScenario.x, interpolation),
+                    interpolateOffset(previousPointRelativeToScenario.y, pointRelativeToScenario.y, interpolation));
+        }
+
+        return interpolated;
+    }
+
+    /**
+     * This method calculates the offset from the current coordinate to the one
+     * interpolated between the previous and the current.
+     *
+     * @param previous The previous coordinate
+     * @param current The current coordinate
+     * @param interpolation A value between 0 (previous state) and 1 (current state).
+     *
+     * @return The offset to add to the current coordinate.
+     */
+    private static int interpolateOffset(int previous, int current, double interpolation) {
+        return (int) Math.round((previous - current) * (1.0 - interpolation));
+    }
+
+    /**
+     *
+     * @return The current BufferedImage of this Sprite. It may change at each
+     * update if an animator has been set.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * This method returns the CollisionMask of the current image. If the image
+     * has changed since the last time, the ImagesManager is asked for it, so
+     * the mask is only built for the Sprites checked for pixel perfect collisions.
+     *
+     * @return The CollisionMask of the current image, or null if there's no image.
+     *
+     * @see ImagesManager#getCollisionMask(java.awt.image.BufferedImage)
+     */
+    public CollisionMask getCollisionMask() {
+
+        if (collisionMaskImage != image) {
+            collisionMask = ImagesManager.instantiate().getCollisionMask(image);
+            collisionMaskImage = image;
+        }
+
+        return collisionMask;
+    }
+
     /**
      *
      * @return The current pointRelativeToScreen for this Sprite.
@@ -308,22 +495,32 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
     }
 
     /**
-     * This method sets the current screen coordinates for this Sprite.
+     * This method sets the current screen coordinates for this Sprite. If the
+     * Sprite was built without Scenario coordinates, they're the same Point, so
+     * the Environment is told that the bounds have changed.
      *
      * @param x The new pointRelativeToScreen.x value
      * @param y The new pointRelativeToScreen.y value
      */
     protected void setScreenCoordinates(int x, int y) {
         this.pointRelativeToScreen.setLocation(x, y);
+        if (pointRelativeToScreen == pointRelativeToScenario) {
+            boundsChanged();
+        }
     }
 
     /**
-     * This method sets the current screen coordinates for this Sprite.
+     * This method sets the current screen coordinates for this Sprite. If the
+     * Sprite was built without Scenario coordinates, they're the same Point, so
+     * the Environment is told that the bounds have changed.
      *
      * @param point The new pointRelativeToScreen value.
      */
     protected void setScreenCoordinates(Point point) {
         this.pointRelativeToScreen.setLocation(point);
+        if (pointRelativeToScreen == pointRelativeToScenario) {
+            boundsChanged();
+        }
     }
 
     /**
@@ -342,6 +539,7 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
      */
     protected void setScenarioCoordinates(int x, int y) {
         this.pointRelativeToScenario.setLocation(x, y);
+        boundsChanged();
     }
 
     /**
@@ -351,6 +549,21 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
      */
     protected void setScenarioCoordinates(Point point) {
         this.pointRelativeToScenario.setLocation(point);
+        boundsChanged();
+    }
+
+    /**
+     * This method should be invoked each time the Scenario position or the
+     * size of the Sprite change. It tells the Environment, so the Sprite is
+     * moved at its spatial index.
+     *
+     * @see Environment#spriteMoved(domain.Sprite)
+     */
+    protected void boundsChanged() {
+
+        if (environment != null) {
+            environment.spriteMoved(this);
+        }
     }
 
     /**
@@ -362,12 +575,22 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
     }
 
     /**
-     * This method is used to set the Sprite zIndex's
+     * This method is used to set the Sprite zIndex's. If the value changes and
+     * the Sprite belongs to an Environment, the Environment listeners are told
+     * so the Sprite is moved to its new rendering layer.
      *
      * @param zindex The Sprite's superposition indicator value.
+     *
+     * @see Environment#restack(domain.Sprite)
      */
     public void setZIndex(int zindex) {
-        zIndex = zindex;
+
+        if (zIndex != zindex) {
+            zIndex = zindex;
+            if (environment != null) {
+                environment.restack(this);
+            }
+        }
     }
 
     /**
@@ -491,7 +714,8 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
     /**
      * This method sets the Sprite's image. If an animator was setted, it's stopped.
      * Then the Media instance for this Sprite is asked for the imageName named
-     * BufferedImage. Once the image is setted, then width and height are setted too.
+     * BufferedImage. Once the image is setted, then width and height are setted too,
+     * and the Environment is told that the bounds have changed.
      *
      * @param imageName The name of the ImagesManager requested image.
      */
@@ -506,6 +730,7 @@ public abstract class Sprite implements Renderable, Updatable, Statitzable, Coll
             this.image = settedImage;
             this.width = settedImage.getWidth();
             this.height = settedImage.getHeight();
+            boundsChanged();
         } else {
             System.out.println("Image not found.");
         }
@@ -0,0 +1,361 @@
+
+package domain;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import javax.imageio.ImageIO;
+
+/**
+ * This class is an offline tool wich packs many loose image files into sprite
+ * sheets (atlases), so they can be loaded at once by
+ * <code>ImagesManager.loadSpriteSheet(File, File)</code>.
+ *
+ * The images are sorted by height and placed in rows (shelves) from left to
+ * right. When a sprite sheet is full, a new one is started. Each sprite sheet
+ * is written as a PNG file and a frames file with the same name.
+ *
+ * The frame name of each image is its file name without the extension and
+ * without the trailing frame number, so <code>walk_0.png</code>,
+ * <code>walk_1.png</code> and <code>walk_2.png</code> become three frames of
+ * the <code>walk</code> sequence. The frames of a sequence keep the order of
+ * their file names.
+ *
+ * It can be run from the command line:
+ * <code>java domain.SpriteSheetPacker outputPrefix maxSize imageFileOrDirectory...</code>
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see ImagesManager#loadSpriteSheet(java.io.File, java.io.File)
+ */
+public class SpriteSheetPacker {
+
+    //
+    // Fields
+    //
+    /**
+     * The extension of the frames files.
+     */
+    public static final String FRAMES_EXTENSION = ".frames";
+    /**
+     * The maximum width and height of each sprite sheet.
+     */
+    private int maxSize;
+    /**
+     * The transparent pixels left between the frames, so they don't bleed into
+     * each other when they are scaled.
+     */
+    private int padding = 1;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor.
+     *
+     * @param maxSize The maximum width and height of each sprite sheet. An
+     * image bigger than it gets a sprite sheet on its own.
+     */
+    public SpriteSheetPacker(int maxSize) {
+        this.maxSize = maxSize > 0 ? maxSize : 1024;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method packs the images of the given files into sprite sheets, and
+     * writes them as <code>outputPrefix_N.png</code> and
+     * <code>outputPrefix_N.frames</code>.
+     *
+     * @param imageFiles The image files to pack. The directories are replaced
+     * by the files they contain.
+     * @param outputPrefix The path and name prefix of the written files.
+     *
+     * @return The number of sprite sheets written.
+     *
+     * @throws IOException If an image can't be read or a sprite sheet can't be written.
+     */
+    public int pack(ArrayList<File> imageFiles, String outputPrefix) throws IOException {
+
+        ArrayList<File> files = new ArrayList<File>();
+        for (File file : imageFiles) {
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children != null) {
+                    Arrays.sort(children);
+                    for (File child : children) {
+                        if (child.isFile()) {
+                            files.add(child);
+                        }
+                    }
+                }
+            } else {
+                files.add(file);
+            }
+        }
+
+        ArrayList<Frame> frames = new ArrayList<Frame>();
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                System.out.println("The file '" + file + "' isn't an image. Skipped.");
+            } else {
+                frames.add(new Frame(getFrameName(file.getName()), image, i));
+            }
+        }
+
+        ArrayList<ArrayList<Frame>> sheets = place(frames);
+
+        for (int i = 0; i < sheets.size(); i++) {
+            write(sheets.get(i), new File(outputPrefix + "_" + i + ".png"),
+                    new File(outputPrefix + "_" + i + FRAMES_EXTENSION));
+        }
+
+        return sheets.size();
+    }
+
+    /**
+     * This method places the frames in rows, sorted from the highest to the
+     * lowest, starting a new sprite sheet each time the current one is full.
+     *
+     * @param frames The frames to place. Their bounds are set.
+     *
+     * @return The frames of each sprite sheet.
+     */
+    ArrayList<ArrayList<Frame>> place(ArrayList<Frame> frames) {
+
+        ArrayList<Frame> sorted = new ArrayList<Frame>(frames);
+        Collections.sort(sorted, new Comparator<Frame>() {
+
+            public int compare(Frame first, Frame second) {
+                if (first.image.getHeight() != second.image.getHeight()) {
+                    return second.image.getHeight() - first.image.getHeight();
+                }
+                return first.order - second.order;
+            }
+        });
+
+        ArrayList<ArrayList<Frame>> sheets = new ArrayList<ArrayList<Frame>>();
+        ArrayList<Frame> sheet = null;
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+
+        for (Frame frame : sorted) {
+            int width = frame.image.getWidth();
+            int height = frame.image.getHeight();
+
+            if (sheet != null && x > 0 && x + width > maxSize) {
+                x = 0;
+                y += rowHeight + padding;
+                rowHeight = 0;
+            }
+
+            if (sheet == null || (y > 0 && y + height > maxSize)) {
+                sheet = new ArrayList<Frame>();
+                sheets.add(sheet);
+                x = 0;
+                y = 0;
+                rowHeight = 0;
+            }
+
+            frame.bounds = new Rectangle(x, y, width, height);
+            sheet.add(frame);
+
+            x += width + padding;
+            rowHeight = Math.max(rowHeight, height);
+        }
+
+        for (ArrayList<Frame> placed : sheets) {
+            Collections.sort(placed, new Comparator<Frame>() {
+
+                public int compare(Frame first, Frame second) {
+                    return first.order - second.order;
+                }
+            });
+        }
+
+        return sheets;
+    }
+
+    /**
+     * This method draws the frames of a sprite sheet and writes it with its
+     * frames file.
+     *
+     * @param frames The frames of the sprite sheet, in the order they should
+     * be listed.
+     * @param imageFile The PNG file to write.
+     * @param framesFile The frames file to write.
+     *
+     * @throws IOException If the files can't be written.
+     */
+    private void write(ArrayList<Frame> frames, File imageFile, File framesFile) throws IOException {
+
+        Rectangle size = new Rectangle();
+        for (Frame frame : frames) {
+            size.add(frame.bounds);
+        }
+
+        BufferedImage sheet = new BufferedImage(Math.max(size.width, 1), Math.max(size.height, 1),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sheet.createGraphics();
+        for (Frame frame : frames) {
+            g.drawImage(frame.image, frame.bounds.x, frame.bounds.y, null);
+        }
+        g.dispose();
+
+        ImageIO.write(sheet, "png", imageFile);
+        writeFrames(framesFile, frames);
+    }
+
+    /**
+     * This method writes a frames file, one <code>name x y width height</code>
+     * line per frame.
+     *
+     * @param framesFile The frames file to write.
+     * @param frames The frames to list.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    static void writeFrames(File framesFile, ArrayList<Frame> frames) throws IOException {
+
+        PrintWriter writer = new PrintWriter(new FileWriter(framesFile));
+        try {
+            writer.println("# name x y width height");
+            for (Frame frame : frames) {
+                writer.println(frame.name + " " + frame.bounds.x + " " + frame.bounds.y + " "
+                        + frame.bounds.width + " " + frame.bounds.height);
+            }
+        } finally {
+            writer.close();
+        }
+
+        if (writer.checkError()) {
+            throw new IOException("Error writing '" + framesFile + "'.");
+        }
+    }
+
+    /**
+     * This method removes the extension and the trailing frame number (with
+     * its '_' or '-' separator) from an image file name.
+     *
+     * @param fileName The image file name.
+     *
+     * @return The frame name.
+     */
+    static String getFrameName(String fileName) {
+
+        String name = fileName;
+
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        int end = name.length();
+        while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        if (end < name.length() && end > 0 && (name.charAt(end - 1) == '_' || name.charAt(end - 1) == '-')) {
+            end--;
+        }
+
+        return end > 0 ? name.substring(0, end).replace(' ', '_') : name.replace(' ', '_');
+    }
+
+    /**
+     *
+     * @return The transparent pixels left between the frames.
+     */
+    public int getPadding() {
+        return padding;
+    }
+
+    /**
+     * This method sets the transparent pixels left between the frames.
+     *
+     * @param padding The padding in pixels. Negative values are ignored.
+     */
+    public void setPadding(int padding) {
+
+        if (padding >= 0) {
+            this.padding = padding;
+        }
+    }
+
+    /**
+     * This method runs the packer from the command line.
+     *
+     * @param args The output prefix, the maximum sprite sheet size, and the
+     * image files or directories to pack.
+     */
+    public static void main(String[] args) {
+
+        if (args.length < 3) {
+            System.out.println("Usage: java domain.SpriteSheetPacker outputPrefix maxSize imageFileOrDirectory...");
+            return;
+        }
+
+        ArrayList<File> files = new ArrayList<File>();
+        for (int i = 2; i < args.length; i++) {
+            files.add(new File(args[i]));
+        }
+
+        try {
+            int sheets = new SpriteSheetPacker(Integer.parseInt(args[1])).pack(files, args[0]);
+            System.out.println(sheets + " sprite sheets written.");
+        } catch (NumberFormatException numberEx) {
+            System.out.println("The maximum size should be a number.");
+        } catch (IOException ioEx) {
+            System.out.println("Error packing the images: " + ioEx.getMessage());
+        }
+    }
+
+    /**
+     * This class holds a packed image with its frame name and its bounds at
+     * its sprite sheet.
+     */
+    static class Frame {
+
+        /**
+         * The frame name.
+         */
+        final String name;
+        /**
+         * The frame image.
+         */
+        final BufferedImage image;
+        /**
+         * The position of the image file at the packed files.
+         */
+        final int order;
+        /**
+         * The bounds at the sprite sheet.
+         */
+        Rectangle bounds;
+
+        /**
+         * Constructor.
+         *
+         * @param name The frame name.
+         * @param image The frame image.
+         * @param order The position of the image file at the packed files.
+         */
+        Frame(String name, BufferedImage image, int order) {
+            this.name = name;
+            this.image = image;
+            this.order = order;
+        }
+    }
+}
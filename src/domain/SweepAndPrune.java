@@ -0,0 +1,543 @@
+
+package domain;
+
+import domain.interfaces.Broadphase;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+
+/**
+ * This class finds the pairs of elements wich may overlap by sweeping their
+ * bounds along an axis (the sweep and prune method).
+ *
+ * It keeps the interval endpoints of every element sorted along both axes
+ * from one search to the next. Most elements move only a few pixels between
+ * two searches, so the endpoints are almost sorted and an insertion sort puts
+ * them in order again in nearly linear time. The sweep is done along the axis
+ * where the elements are more spread, keeping the elements whose interval is
+ * open: each one opened is paired with the open ones it overlaps on the other
+ * axis.
+ *
+ * Each endpoint is packed in a long, with its coordinate at the high half and
+ * its kind and element index at the low half, so the axes are plain arrays
+ * wich are sorted without comparing objects. At the same coordinate the ends
+ * go before the starts, so the intervals wich only touch don't overlap.
+ *
+ * It suits scenes with clustered elements or elements of very different
+ * sizes, where a uniform grid would crowd some of its cells. Its area queries
+ * scan the endpoints up to the end of the area, so a SpatialHash is better
+ * for many small queries.
+ *
+ * This class isn't thread safe.
+ *
+ * @param <T> The type of the indexed elements.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see SpatialHash
+ */
+public class SweepAndPrune<T> implements Broadphase<T> {
+
+    //
+    // Fields
+    //
+    /**
+     * The number of elements added since the last search over wich the
+     * endpoints are sorted from scratch instead of by insertion.
+     */
+    private static final int INSERTION_LIMIT = 32;
+    /**
+     * The bit of a packed endpoint wich marks the start of an interval. It's
+     * above the element index, so the ends go before the starts at the same
+     * coordinate.
+     */
+    private static final long START = 0x80000000L;
+    /**
+     * The index of each indexed element.
+     */
+    private IdentityHashMap<T, Integer> indexes = new IdentityHashMap<T, Integer>();
+    /**
+     * The element at each index, or null if the index is free.
+     */
+    private Object[] elements = new Object[32];
+    /**
+     * The bounds of the element at each index. The max values are exclusive.
+     */
+    private int[] minX = new int[32], minY = new int[32], maxX = new int[32], maxY = new int[32];
+    /**
+     * The position of the element at each index in the open list during a sweep.
+     */
+    private int[] openPositions = new int[32];
+    /**
+     * true for the indexes of the removed elements whose endpoints haven't
+     * been dropped yet.
+     */
+    private boolean[] removed = new boolean[32];
+    /**
+     * The number of indexes used so far, free or not.
+     */
+    private int usedIndexes;
+    /**
+     * The free indexes, ready to be reused.
+     */
+    private int[] freeIndexes = new int[32];
+    /**
+     * The number of free indexes.
+     */
+    private int freeCount;
+    /**
+     * The packed endpoints along the x axis, sorted at the last search.
+     */
+    private long[] xAxis = new long[64];
+    /**
+     * The packed endpoints along the y axis, sorted at the last search.
+     */
+    private long[] yAxis = new long[64];
+    /**
+     * The number of endpoints at each axis.
+     */
+    private int endpointCount;
+    /**
+     * The number of elements added since the last search.
+     */
+    private int addedElements;
+    /**
+     * true if any element has been removed since the last search, so its
+     * endpoints should be dropped.
+     */
+    private boolean removedElements;
+    /**
+     * true if any element has been added, moved or removed since the last
+     * search.
+     */
+    private boolean changed;
+    /**
+     * true if the last sweep was done along the x axis.
+     */
+    private boolean horizontalSweep = true;
+    /**
+     * The indexes of the elements whose interval is open during a sweep.
+     */
+    private int[] open = new int[32];
+    /**
+     * The number of endpoint swaps done by the insertion sort at the last
+     * search.
+     */
+    private long swaps;
+
+    //
+    // Methods
+    //
+    /**
+     * This method indexes an element, or moves it if it was yet indexed. Its
+     * endpoints are sorted at the next search.
+     *
+     * @param element The element to index.
+     * @param x The x coordinate of the element bounds.
+     * @param y The y coordinate of the element bounds.
+     * @param width The width of the element bounds.
+     * @param height The height of the element bounds.
+     */
+    public void put(T element, int x, int y, int width, int height) {
+
+        Integer index = indexes.get(element);
+        int i;
+
+        if (index == null) {
+            i = allocateIndex();
+            indexes.put(element, i);
+            elements[i] = element;
+
+            if (endpointCount + 2 > xAxis.length) {
+                xAxis = Arrays.copyOf(xAxis, xAxis.length * 2);
+                yAxis = Arrays.copyOf(yAxis, yAxis.length * 2);
+            }
+
+            //The coordinates are packed when the endpoints are sorted.
+            xAxis[endpointCount] = yAxis[endpointCount] = START | i;
+            xAxis[endpointCount + 1] = yAxis[endpointCount + 1] = i;
+            endpointCount += 2;
+            addedElements++;
+        } else {
+            i = index;
+        }
+
+        minX[i] = x;
+        minY[i] = y;
+        maxX[i] = x + width;
+        maxY[i] = y + height;
+        changed = true;
+    }
+
+    /**
+     * This method indexes an element, or moves it if it was yet indexed.
+     *
+     * @param element The element to index.
+     * @param bounds The element bounds.
+     */
+    public void put(T element, Rectangle bounds) {
+        put(element, bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /**
+     * This method removes an element from the index. Its endpoints are
+     * dropped at the next search.
+     *
+     * @param element The element to remove.
+     *
+     * @return true if the element was indexed.
+     */
+    public boolean remove(T element) {
+
+        Integer index = indexes.remove(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        elements[index] = null;
+        removed[index] = true;
+        removedElements = true;
+        changed = true;
+
+        return true;
+    }
+
+    /**
+     *
+     * @param element An element.
+     *
+     * @return true if the element is indexed.
+     */
+    public boolean contains(T element) {
+        return indexes.containsKey(element);
+    }
+
+    /**
+     * This method adds to a Collection the indexed elements whose bounds
+     * touch or intersect an area. The elements without width or height are
+     * found too if they lie inside the area. Each element is added only once.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the elements are added.
+     *
+     * @return The number of elements added.
+     */
+    @SuppressWarnings("unchecked")
+    public int queryCandidates(Rectangle area, Collection<? super T> found) {
+
+        if (area.width <= 0 || area.height <= 0 || indexes.isEmpty()) {
+            return 0;
+        }
+
+        sortEndpoints();
+
+        long[] axis = horizontalSweep ? xAxis : yAxis;
+        int[] ends = horizontalSweep ? maxX : maxY;
+        int[] crossStarts = horizontalSweep ? minY : minX;
+        int[] crossEnds = horizontalSweep ? maxY : maxX;
+        int areaStart = horizontalSweep ? area.x : area.y;
+        int areaEnd = horizontalSweep ? area.x + area.width : area.y + area.height;
+        int crossStart = horizontalSweep ? area.y : area.x;
+        int crossEnd = horizontalSweep ? area.y + area.height : area.x + area.width;
+        int count = 0;
+
+        //The endpoints are sorted, so no element starting beyond the area end
+        //can touch it.
+        for (int i = 0; i < endpointCount; i++) {
+            long endpoint = axis[i];
+            if ((int) (endpoint >> 32) >= areaEnd) {
+                break;
+            }
+            if (isStart(endpoint)) {
+                int index = indexOf(endpoint);
+                if (ends[index] >= areaStart && crossEnds[index] >= crossStart && crossStarts[index] < crossEnd) {
+                    found.add((T) elements[index]);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * This method adds to a list every pair of indexed elements whose bounds
+     * intersect. The endpoints are sorted again first, and then swept along
+     * the axis where the elements are more spread.
+     *
+     * @param pairs The list where the pairs are added, as two consecutive
+     * elements.
+     *
+     * @return The number of pairs added.
+     */
+    @SuppressWarnings("unchecked")
+    public int collectPairs(ArrayList<? super T> pairs) {
+
+        sortEndpoints();
+
+        long[] axis = horizontalSweep ? xAxis : yAxis;
+        int[] crossStarts = horizontalSweep ? minY : minX;
+        int[] crossEnds = horizontalSweep ? maxY : maxX;
+        int openCount = 0;
+        int count = 0;
+
+        for (int i = 0; i < endpointCount; i++) {
+            long endpoint = axis[i];
+            int index = indexOf(endpoint);
+
+            if (maxX[index] <= minX[index] || maxY[index] <= minY[index]) {
+                continue;
+            }
+
+            if (isStart(endpoint)) {
+                int crossStart = crossStarts[index];
+                int crossEnd = crossEnds[index];
+                for (int j = 0; j < openCount; j++) {
+                    int other = open[j];
+                    if (crossStart < crossEnds[other] && crossStarts[other] < crossEnd) {
+                        pairs.add((T) elements[other]);
+                        pairs.add((T) elements[index]);
+                        count++;
+                    }
+                }
+                openPositions[index] = openCount;
+                open[openCount++] = index;
+            } else {
+                //The closed element is replaced by the last open one.
+                int last = open[--openCount];
+                open[openPositions[index]] = last;
+                openPositions[last] = openPositions[index];
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * This method drops the endpoints of the removed elements, packs the
+     * current coordinates into the endpoints and sorts both axes again, if
+     * anything has changed since the last search. It also chooses the sweep
+     * axis.
+     */
+    private void sortEndpoints() {
+
+        if (!changed) {
+            return;
+        }
+
+        swaps = 0L;
+
+        if (removedElements) {
+            dropRemovedEndpoints();
+        }
+
+        double sumX = 0.0, sumSquaresX = 0.0, sumY = 0.0, sumSquaresY = 0.0;
+
+        for (int i = 0; i < endpointCount; i++) {
+            int index = indexOf(xAxis[i]);
+            if (isStart(xAxis[i])) {
+                xAxis[i] = pack(minX[index], xAxis[i]);
+                double centerX = 0.5 * ((double) minX[index] + maxX[index]);
+                double centerY = 0.5 * ((double) minY[index] + maxY[index]);
+                sumX += centerX;
+                sumSquaresX += centerX * centerX;
+                sumY += centerY;
+                sumSquaresY += centerY * centerY;
+            } else {
+                xAxis[i] = pack(maxX[index], xAxis[i]);
+            }
+
+            index = indexOf(yAxis[i]);
+            yAxis[i] = pack(isStart(yAxis[i]) ? minY[index] : maxY[index], yAxis[i]);
+        }
+
+        if (addedElements > INSERTION_LIMIT) {
+            Arrays.sort(xAxis, 0, endpointCount);
+            Arrays.sort(yAxis, 0, endpointCount);
+        } else {
+            swaps += insertionSort(xAxis, endpointCount);
+            swaps += insertionSort(yAxis, endpointCount);
+        }
+
+        //The sweep is done along the axis with the highest variance of the
+        //element centers, where fewer intervals overlap.
+        int elementCount = endpointCount / 2;
+        if (elementCount > 0) {
+            double meanX = sumX / elementCount;
+            double meanY = sumY / elementCount;
+            horizontalSweep = sumSquaresX / elementCount - meanX * meanX
+                    >= sumSquaresY / elementCount - meanY * meanY;
+        }
+
+        addedElements = 0;
+        changed = false;
+    }
+
+    /**
+     * This method drops the endpoints of the removed elements, keeping the
+     * order of the rest, and frees their indexes.
+     */
+    private void dropRemovedEndpoints() {
+
+        int kept = 0;
+        for (int i = 0; i < endpointCount; i++) {
+            if (!removed[indexOf(xAxis[i])]) {
+                xAxis[kept++] = xAxis[i];
+            }
+        }
+
+        kept = 0;
+        for (int i = 0; i < endpointCount; i++) {
+            if (!removed[indexOf(yAxis[i])]) {
+                yAxis[kept++] = yAxis[i];
+            }
+        }
+
+        endpointCount = kept;
+
+        for (int i = 0; i < usedIndexes; i++) {
+            if (removed[i]) {
+                removed[i] = false;
+                if (freeCount == freeIndexes.length) {
+                    freeIndexes = Arrays.copyOf(freeIndexes, freeIndexes.length * 2);
+                }
+                freeIndexes[freeCount++] = i;
+            }
+        }
+
+        removedElements = false;
+    }
+
+    /**
+     * This method returns a free index for a new element, growing the
+     * element arrays if there's none.
+     *
+     * @return The index.
+     */
+    private int allocateIndex() {
+
+        if (freeCount > 0) {
+            return freeIndexes[--freeCount];
+        }
+
+        if (usedIndexes == elements.length) {
+            int capacity = elements.length * 2;
+            elements = Arrays.copyOf(elements, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            openPositions = Arrays.copyOf(openPositions, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+            open = Arrays.copyOf(open, capacity);
+        }
+
+        return usedIndexes++;
+    }
+
+    /**
+     * This method sorts the endpoints of an axis by insertion. It's nearly
+     * linear when they were almost sorted.
+     *
+     * @param axis The packed endpoints.
+     * @param count The number of endpoints.
+     *
+     * @return The number of swaps done.
+     */
+    private static long insertionSort(long[] axis, int count) {
+
+        long swapCount = 0L;
+
+        for (int i = 1; i < count; i++) {
+            long endpoint = axis[i];
+            int j = i - 1;
+            while (j >= 0 && axis[j] > endpoint) {
+                axis[j + 1] = axis[j];
+                j--;
+                swapCount++;
+            }
+            axis[j + 1] = endpoint;
+        }
+
+        return swapCount;
+    }
+
+    /**
+     * This method packs a coordinate with the element index and the kind of
+     * an endpoint.
+     *
+     * @param coordinate The coordinate of the endpoint.
+     * @param endpoint The endpoint, whose low half is kept.
+     *
+     * @return The packed endpoint.
+     */
+    private static long pack(int coordinate, long endpoint) {
+        return ((long) coordinate << 32) | (endpoint & 0xFFFFFFFFL);
+    }
+
+    /**
+     *
+     * @param endpoint A packed endpoint.
+     *
+     * @return The index of its element.
+     */
+    private static int indexOf(long endpoint) {
+        return (int) endpoint & 0x7FFFFFFF;
+    }
+
+    /**
+     *
+     * @param endpoint A packed endpoint.
+     *
+     * @return true if it's the start of the interval. false if it's its end.
+     */
+    private static boolean isStart(long endpoint) {
+        return (endpoint & START) != 0L;
+    }
+
+    /**
+     * This method removes all the elements from the index.
+     */
+    public void clear() {
+
+        indexes.clear();
+        Arrays.fill(elements, 0, usedIndexes, null);
+        Arrays.fill(removed, 0, usedIndexes, false);
+        usedIndexes = 0;
+        freeCount = 0;
+        endpointCount = 0;
+        addedElements = 0;
+        removedElements = false;
+        changed = false;
+    }
+
+    /**
+     *
+     * @return The number of indexed elements.
+     */
+    public int size() {
+        return indexes.size();
+    }
+
+    /**
+     *
+     * @return The number of endpoint swaps done by the insertion sort at the
+     * last search. It's 0 when the endpoints were sorted from scratch.
+     */
+    public long getSwaps() {
+        return swaps;
+    }
+
+    /**
+     *
+     * @return true if the last search swept along the x axis. false if it
+     * swept along the y axis.
+     */
+    public boolean isHorizontalSweep() {
+        return horizontalSweep;
+    }
+}
@@ -0,0 +1,93 @@
+
+package domain.interfaces;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * This interface should be implemented by any class wich indexes elements by
+ * their bounds, so the elements near an area, or the pairs of elements wich
+ * may overlap, can be found without checking all of them against each other.
+ *
+ * The implementations only give candidates: the callers should apply their
+ * own precise test (the narrow phase) to the elements found.
+ *
+ * @param <T> The type of the indexed elements.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see domain.SpatialHash
+ * @see domain.SweepAndPrune
+ */
+public interface Broadphase<T> {
+
+    /**
+     * This method indexes an element, or moves it if it was yet indexed.
+     *
+     * @param element The element to index.
+     * @param x The x coordinate of the element bounds.
+     * @param y The y coordinate of the element bounds.
+     * @param width The width of the element bounds.
+     * @param height The height of the element bounds.
+     */
+    public void put(T element, int x, int y, int width, int height);
+
+    /**
+     * This method indexes an element, or moves it if it was yet indexed.
+     *
+     * @param element The element to index.
+     * @param bounds The element bounds.
+     */
+    public void put(T element, Rectangle bounds);
+
+    /**
+     * This method removes an element from the index.
+     *
+     * @param element The element to remove.
+     *
+     * @return true if the element was indexed.
+     */
+    public boolean remove(T element);
+
+    /**
+     *
+     * @param element An element.
+     *
+     * @return true if the element is indexed.
+     */
+    public boolean contains(T element);
+
+    /**
+     * This method adds to a Collection the indexed elements wich may
+     * intersect an area. Each element is added only once.
+     *
+     * @param area The area to look at.
+     * @param found The Collection where the elements are added.
+     *
+     * @return The number of elements added.
+     */
+    public int queryCandidates(Rectangle area, Collection<? super T> found);
+
+    /**
+     * This method adds to a list every pair of indexed elements whose bounds
+     * intersect. Each pair is added once, as two consecutive elements.
+     *
+     * @param pairs The list where the pairs are added.
+     *
+     * @return The number of pairs added.
+     */
+    public int collectPairs(ArrayList<? super T> pairs);
+
+    /**
+     * This method removes all the elements from the index.
+     */
+    public void clear();
+
+    /**
+     *
+     * @return The number of indexed elements.
+     */
+    public int size();
+}
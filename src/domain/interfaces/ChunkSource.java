@@ -0,0 +1,34 @@
+
+package domain.interfaces;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * This interface should be implemented by any class wich provides the chunks
+ * of a ChunkedImage. A chunk is a square region of the whole image, and it's
+ * identified by its column and row at the chunks grid.
+ *
+ * The chunks are loaded on demand, sometimes from a background Thread, so the
+ * implementations should be safe to invoke from any Thread.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see domain.ChunkedImage
+ */
+public interface ChunkSource {
+
+    /**
+     * This method loads a chunk.
+     *
+     * @param column The chunk column.
+     * @param row The chunk row.
+     *
+     * @return The chunk image, or null if the chunk is empty (nothing is
+     * drawn there).
+     *
+     * @throws IOException If the chunk can't be read.
+     */
+    public BufferedImage loadChunk(int column, int row) throws IOException;
+}
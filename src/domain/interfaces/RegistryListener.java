@@ -0,0 +1,56 @@
+package domain.interfaces;
+
+import domain.Sprite;
+
+/**
+ * This interface should be implemented by any Class wich keeps its own copy of
+ * the Environment updatables, renderables or collisionables. The Environment
+ * tells its listeners every change of its registries, so they can be updated
+ * incrementally instead of being asked again for the whole lists.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see domain.Environment#addRegistryListener(domain.interfaces.RegistryListener)
+ */
+public interface RegistryListener {
+
+    /**
+     * This method is invoked when a Sprite is added to the Environment.
+     *
+     * @param sprite The Sprite added.
+     */
+    public void registered(Sprite sprite);
+
+    /**
+     * This method is invoked when a Sprite is removed from the Environment.
+     *
+     * @param sprite The Sprite removed.
+     */
+    public void unregistered(Sprite sprite);
+
+    /**
+     * This method is invoked when a Sprite of the Environment changes its zIndex,
+     * so it should be moved to its new layer.
+     *
+     * @param sprite The Sprite restacked.
+     */
+    public void restacked(Sprite sprite);
+
+    /**
+     * This method is invoked when a Sprite of the Environment changes its
+     * Scenario position or its size, so it should be moved at any spatial
+     * index kept by the listener.
+     *
+     * @param sprite The Sprite moved.
+     */
+    public void moved(Sprite sprite);
+
+    /**
+     * This method is invoked when the Environment registries have been built
+     * again from scratch (i.e. the Player, the Scenario or the others have been
+     * replaced). The listeners should ask for the whole lists again.
+     */
+    public void registryRebuilt();
+
+}
@@ -0,0 +1,227 @@
+
+package timers;
+
+import java.util.concurrent.locks.LockSupport;
+import timers.interfaces.JannatonPacer;
+import timers.interfaces.JannatonTimer;
+
+/**
+ * This class implements a frame pacer wich combines three ways of waiting to
+ * reach a deadline with sub-millisecond precision:
+ * <ol>
+ * <li>A coarse <code>Thread.sleep()</code> while the deadline is further than
+ * the sleep margin, since the sleep can oversleep for a few milliseconds at
+ * some OS.</li>
+ * <li><code>LockSupport.parkNanos()</code> while the deadline is further than
+ * the spin margin.</li>
+ * <li>A short busy loop (spin) until the deadline is reached.</li>
+ * </ol>
+ *
+ * In power saving mode the spin is not performed, so the CPU is not kept busy
+ * at the cost of waking up a little later.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public class HybridPacer implements JannatonPacer {
+
+    //
+    // Fields
+    //
+    /**
+     * The timer used to measure the deadlines.
+     */
+    private JannatonTimer timer;
+    /**
+     * While the remaining time is greater than this margin (in nanoseconds),
+     * the Thread sleeps. It's default value is 2 milliseconds.
+     */
+    private long sleepMargin = 2000000L;
+    /**
+     * While the remaining time is greater than this margin (in nanoseconds),
+     * the Thread is parked. It's default value is 200 microseconds.
+     */
+    private long spinMargin = 200000L;
+    /**
+     * If it's true, the final spin is not performed.
+     */
+    private boolean powerSaving = false;
+    /**
+     * The time that the last wait returned after its deadline.
+     */
+    private long lastJitter = 0L;
+    /**
+     * The sum of the jitter of all the waits measured.
+     */
+    private long totalJitter = 0L;
+    /**
+     * The maximum jitter measured.
+     */
+    private long maxJitter = 0L;
+    /**
+     * The number of waits measured.
+     */
+    private long waitsCount = 0L;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor.
+     *
+     * @param timer The timer used to measure the deadlines.
+     */
+    public HybridPacer(JannatonTimer timer) {
+        this.timer = timer;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method blocks the calling Thread until the timer reaches the deadline,
+     * sleeping, parking and spinning as the remaining time gets shorter.
+     *
+     * @param deadline The time instance at wich the calling Thread should continue.
+     */
+    public void waitUntil(long deadline) {
+
+        long remaining = deadline - timer.getTimeInstace();
+
+        if (remaining <= 0) {
+            return;
+        }
+
+        if (remaining > sleepMargin) {
+            long sleepTime = remaining - sleepMargin;
+            try {
+                Thread.sleep(sleepTime / 1000000L, (int) (sleepTime % 1000000L));
+            } catch (InterruptedException interruptedException) {
+                System.out.println("Not resting.");
+                return;
+            }
+            remaining = deadline - timer.getTimeInstace();
+        }
+
+        long parkMargin = powerSaving ? 0L : spinMargin;
+
+        while (remaining > parkMargin) {
+            LockSupport.parkNanos(remaining - parkMargin);
+            if (Thread.interrupted()) {
+                System.out.println("Not resting.");
+                return;
+            }
+            remaining = deadline - timer.getTimeInstace();
+        }
+
+        while (remaining > 0) {
+            Thread.yield();
+            remaining = deadline - timer.getTimeInstace();
+        }
+
+        lastJitter = -remaining;
+        totalJitter += lastJitter;
+        waitsCount++;
+
+        if (lastJitter > maxJitter) {
+            maxJitter = lastJitter;
+        }
+    }
+
+    /**
+     *
+     * @return The time, in nanoseconds, that the last wait returned after its deadline.
+     */
+    public long getLastJitter() {
+        return lastJitter;
+    }
+
+    /**
+     *
+     * @return The average time, in nanoseconds, that the waits returned after
+     * their deadlines.
+     */
+    public double getAverageJitter() {
+        return waitsCount > 0 ? (double) totalJitter / waitsCount : 0.0;
+    }
+
+    /**
+     *
+     * @return The maximum time, in nanoseconds, that a wait returned after its deadline.
+     */
+    public long getMaxJitter() {
+        return maxJitter;
+    }
+
+    /**
+     * This method forgets the jitter measured until now.
+     */
+    public void resetJitterStats() {
+        lastJitter = 0L;
+        totalJitter = 0L;
+        maxJitter = 0L;
+        waitsCount = 0L;
+    }
+
+    /**
+     *
+     * @return true if the final spin is not performed.
+     */
+    public boolean isPowerSaving() {
+        return powerSaving;
+    }
+
+    /**
+     * This method turns on or off the power saving mode. While it's on, the
+     * Thread is parked until the deadline instead of spinning the last
+     * microseconds.
+     *
+     * @param powerSaving true to avoid spinning. false to reach the deadline
+     * as precisely as possible.
+     */
+    public void setPowerSaving(boolean powerSaving) {
+        this.powerSaving = powerSaving;
+    }
+
+    /**
+     *
+     * @return The sleep margin in nanoseconds.
+     */
+    public long getSleepMargin() {
+        return sleepMargin;
+    }
+
+    /**
+     * This method sets the remaining time under wich the Thread stops sleeping.
+     * It should be greater than the OS sleep granularity.
+     *
+     * @param sleepMargin The sleep margin in nanoseconds. It can't be negative.
+     */
+    public void setSleepMargin(long sleepMargin) {
+
+        if (sleepMargin >= 0) {
+            this.sleepMargin = sleepMargin;
+        }
+    }
+
+    /**
+     *
+     * @return The spin margin in nanoseconds.
+     */
+    public long getSpinMargin() {
+        return spinMargin;
+    }
+
+    /**
+     * This method sets the remaining time under wich the Thread stops being
+     * parked and spins until the deadline.
+     *
+     * @param spinMargin The spin margin in nanoseconds. It can't be negative.
+     */
+    public void setSpinMargin(long spinMargin) {
+
+        if (spinMargin >= 0) {
+            this.spinMargin = spinMargin;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+
+package timers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records durations (in nanoseconds) in a lock-free histogram, so
+ * it can be fed from several Threads at the same time without blocking any of
+ * them, and read while it's being fed.
+ *
+ * The buckets are log-linear: every power of two is split in 8 linear buckets,
+ * so any recorded value is reported with an error lower than 12.5%. Values
+ * from 0 to about 9 hours can be recorded; greater values are counted in the
+ * last bucket.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public class LatencyHistogram {
+
+    //
+    // Fields
+    //
+    /**
+     * The number of bits used for the linear buckets of each power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * The number of linear buckets of each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of powers of two covered by the histogram.
+     */
+    private static final int MAGNITUDES = 42;
+    /**
+     * The number of buckets.
+     */
+    private static final int BUCKETS = (MAGNITUDES + 1) * SUB_BUCKETS;
+    /**
+     * The count of values recorded in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * The total number of values recorded.
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+    /**
+     * The sum of the values recorded.
+     */
+    private final AtomicLong totalValue = new AtomicLong();
+    /**
+     * The maximum value recorded.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    //
+    // Methods
+    //
+    /**
+     * This method records a value. Negative values are recorded as 0.
+     *
+     * @param value The duration in nanoseconds.
+     */
+    public void record(long value) {
+
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * This method returns the value under wich the given percentage of the
+     * recorded values are. The returned value is the upper limit of the bucket
+     * where the percentile is, but never greater than the maximum recorded.
+     *
+     * @param percentile The percentage, from 0 to 100.
+     *
+     * @return The percentile value in nanoseconds. 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+
+        long count = totalCount.get();
+
+        if (count == 0) {
+            return 0L;
+        }
+
+        long target = (long) Math.ceil(count * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        if (target < 1) {
+            target = 1;
+        }
+
+        long accumulated = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulated += counts.get(i);
+            if (accumulated >= target) {
+                return Math.min(bucketUpperValue(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     *
+     * @return The median of the recorded values, in nanoseconds.
+     */
+    public long getP50() {
+        return getPercentile(50.0);
+    }
+
+    /**
+     *
+     * @return The 99th percentile of the recorded values, in nanoseconds.
+     */
+    public long getP99() {
+        return getPercentile(99.0);
+    }
+
+    /**
+     *
+     * @return The maximum recorded value, in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     *
+     * @return The average of the recorded values, in nanoseconds.
+     */
+    public double getMean() {
+
+        long count = totalCount.get();
+
+        return count > 0 ? (double) totalValue.get() / count : 0.0;
+    }
+
+    /**
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * This method forgets all the recorded values. The values recorded while
+     * it's being reset may be partially kept.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+
+        totalCount.set(0L);
+        totalValue.set(0L);
+        max.set(0L);
+    }
+
+    /**
+     * This method calculates the bucket where a value is counted.
+     *
+     * @param value A non negative value.
+     *
+     * @return The bucket index.
+     */
+    private static int bucketIndex(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> magnitude) & (SUB_BUCKETS - 1);
+        int index = (magnitude + 1) * SUB_BUCKETS + subBucket;
+
+        return index < BUCKETS ? index : BUCKETS - 1;
+    }
+
+    /**
+     * This method calculates the greatest value counted in a bucket.
+     *
+     * @param index The bucket index.
+     *
+     * @return The upper value of the bucket.
+     */
+    private static long bucketUpperValue(int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int magnitude = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,49 @@
+
+package timers.interfaces;
+
+/**
+ * This interface should be implemented by any frame pacer. A frame pacer makes
+ * the calling Thread wait until a deadline measured with a JannatonTimer, and
+ * keeps track of how late it wakes up (the pacing jitter).
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see timers.HybridPacer
+ */
+public interface JannatonPacer {
+
+    /**
+     * This method should block the calling Thread until the timer reaches the
+     * deadline. If the deadline has yet passed, it should return at once.
+     *
+     * @param deadline The time instance, in nanoseconds of the pacer timer, at
+     * wich the calling Thread should continue.
+     */
+    public void waitUntil(long deadline);
+
+    /**
+     *
+     * @return The time, in nanoseconds, that the last wait returned after its deadline.
+     */
+    public long getLastJitter();
+
+    /**
+     *
+     * @return The average time, in nanoseconds, that the waits returned after
+     * their deadlines.
+     */
+    public double getAverageJitter();
+
+    /**
+     *
+     * @return The maximum time, in nanoseconds, that a wait returned after its deadline.
+     */
+    public long getMaxJitter();
+
+    /**
+     * This method should forget the jitter measured until now.
+     */
+    public void resetJitterStats();
+
+}
@@ -0,0 +1,290 @@
+package userInterface;
+
+import control.interfaces.Renderable;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * This class renders only the regions of a frame wich have changed since the
+ * previous one (the damaged regions), instead of filling the background and
+ * rendering every renderable again.
+ *
+ * It keeps a copy of the last RenderSnapshot rendered, and compares it with
+ * the next one entry by entry (matched by owner, and by their order when an
+ * owner adds several consecutive entries, like a chunked Scenario):
+ * <ul>
+ * <li>An entry wich has moved, changed its image (i.e. through an ImagesAnimator),
+ * its size, its image region or its zIndex damages its old and new bounds.</li>
+ * <li>An entry wich has been added damages its new bounds.</li>
+ * <li>An entry wich has been removed damages its old bounds.</li>
+ * </ul>
+ * The damaged regions are merged while they overlap, and every damaged region
+ * is rendered again clipped to it, drawing only the entries wich intersect it.
+ *
+ * A LIVE entry (a Renderable wich renders itself) can draw anything anywhere,
+ * so its presence damages the whole frame. The same happens the first time a
+ * frame is rendered, when the frame size changes, or when
+ * <code>invalidate()</code> is invoked. The changes made to the contents of
+ * an image wich keeps being the same instance aren't detected either, so it
+ * should be invalidated after such changes.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#setDirtyRectangleRendering(boolean)
+ */
+public class DirtyRectangleRenderer {
+
+    //
+    // Fields
+    //
+    /**
+     * The maximum number of separated damaged regions. When there would be
+     * more, all of them are merged into their bounding Rectangle.
+     */
+    private static final int MAX_DAMAGED_REGIONS = 16;
+    /**
+     * A copy of the last RenderSnapshot rendered.
+     */
+    private RenderSnapshot previous = new RenderSnapshot();
+    /**
+     * The index of the first entry of each owner at the previous RenderSnapshot.
+     */
+    private IdentityHashMap<Renderable, Integer> previousIndexes = new IdentityHashMap<Renderable, Integer>();
+    /**
+     * The entries of the previous RenderSnapshot wich have been found at the
+     * current one.
+     */
+    private boolean[] matched = new boolean[64];
+    /**
+     * The damaged regions of the current frame.
+     */
+    private ArrayList<Rectangle> damage = new ArrayList<Rectangle>();
+    /**
+     * If it's true, the whole frame will be damaged at the next frame.
+     */
+    private volatile boolean fullDamage = true;
+    /**
+     * The width of the last frame.
+     */
+    private int width;
+    /**
+     * The height of the last frame.
+     */
+    private int height;
+
+    //
+    // Methods
+    //
+    /**
+     * This method makes the whole frame be rendered again at the next frame.
+     * It can be invoked from any Thread.
+     */
+    public void invalidate() {
+        fullDamage = true;
+    }
+
+    /**
+     * This method compares a RenderSnapshot with the previous one, calculating
+     * the damaged regions of the frame, and keeps a copy of it to be compared
+     * with the next one.
+     *
+     * @param current The RenderSnapshot of the frame to render.
+     * @param width The frame width.
+     * @param height The frame height.
+     *
+     * @return The damaged regions. The list is reused at every frame, so it
+     * shouldn't be kept.
+     */
+    public ArrayList<Rectangle> computeDamage(RenderSnapshot current, int width, int height) {
+
+        damage.clear();
+
+        boolean wholeFrame = fullDamage || width != this.width || height != this.height;
+        fullDamage = false;
+        this.width = width;
+        this.height = height;
+
+        if (!wholeFrame) {
+            wholeFrame = compare(current);
+        }
+
+        if (wholeFrame) {
+            damage.clear();
+            damage.add(new Rectangle(0, 0, width, height));
+        }
+
+        previous.copyFrom(current);
+        previousIndexes.clear();
+        for (int i = 0, size = previous.size(); i < size; i++) {
+            if (!previousIndexes.containsKey(previous.getOwner(i))) {
+                previousIndexes.put(previous.getOwner(i), Integer.valueOf(i));
+            }
+        }
+
+        return damage;
+    }
+
+    /**
+     * This method compares the current RenderSnapshot with the previous one
+     * entry by entry, adding the damaged bounds.
+     *
+     * @param current The RenderSnapshot of the frame to render.
+     *
+     * @return true if the whole frame is damaged.
+     */
+    private boolean compare(RenderSnapshot current) {
+
+        int previousSize = previous.size();
+        if (matched.length < previousSize) {
+            matched = new boolean[previousSize * 2];
+        }
+        for (int i = 0; i < previousSize; i++) {
+            matched[i] = false;
+        }
+
+        Renderable runOwner = null;
+        int run = 0;
+
+        for (int i = 0, size = current.size(); i < size; i++) {
+            if (current.getType(i) == RenderSnapshot.LIVE) {
+                return true;
+            }
+
+            Renderable owner = current.getOwner(i);
+            if (owner == runOwner) {
+                run++;
+            } else {
+                runOwner = owner;
+                run = 0;
+            }
+
+            //The n-th consecutive entry of an owner is matched with its n-th
+            //entry at the previous RenderSnapshot.
+            Integer previousIndex = previousIndexes.get(owner);
+            int index = previousIndex == null ? -1 : previousIndex.intValue() + run;
+
+            if (index < 0 || index >= previousSize || previous.getOwner(index) != owner) {
+                addDamage(current, i);
+            } else {
+                matched[index] = true;
+                if (!current.isSameEntry(i, previous, index)) {
+                    if (previous.getType(index) == RenderSnapshot.LIVE) {
+                        return true;
+                    }
+                    addDamage(previous, index);
+                    addDamage(current, i);
+                }
+            }
+        }
+
+        for (int i = 0; i < previousSize; i++) {
+            if (!matched[i]) {
+                if (previous.getType(i) == RenderSnapshot.LIVE) {
+                    return true;
+                }
+                addDamage(previous, i);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * This method adds the bounds of an entry to the damaged regions, clipped
+     * to the frame and merged with the damaged regions it overlaps.
+     *
+     * @param snapshot The RenderSnapshot wich holds the entry.
+     * @param index The index of the entry.
+     */
+    private void addDamage(RenderSnapshot snapshot, int index) {
+
+        Rectangle region = new Rectangle(snapshot.getX(index), snapshot.getY(index),
+                snapshot.getWidth(index), snapshot.getHeight(index)).intersection(
+                new Rectangle(0, 0, width, height));
+
+        if (region.isEmpty()) {
+            return;
+        }
+
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = damage.size() - 1; i >= 0; i--) {
+                Rectangle damaged = damage.get(i);
+                if (damaged.intersects(region)) {
+                    region.add(damaged);
+                    damage.remove(i);
+                    merged = true;
+                }
+            }
+        }
+
+        damage.add(region);
+
+        if (damage.size() > MAX_DAMAGED_REGIONS) {
+            Rectangle bounds = damage.get(0);
+            for (int i = 1; i < damage.size(); i++) {
+                bounds.add(damage.get(i));
+            }
+            damage.clear();
+            damage.add(bounds);
+        }
+    }
+
+    /**
+     * This method renders the damaged regions of a frame. Each region is filled
+     * with the background and the entries wich intersect it are rendered again,
+     * clipped to it. <code>computeDamage()</code> should have been invoked
+     * before with the same RenderSnapshot.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param current The RenderSnapshot of the frame to render.
+     */
+    public void render(Graphics g, RenderSnapshot current) {
+
+        int size = current.size();
+
+        for (int d = 0, regions = damage.size(); d < regions; d++) {
+            Rectangle region = damage.get(d);
+
+            g.setClip(region.x, region.y, region.width, region.height);
+            g.fillRect(region.x, region.y, region.width, region.height);
+
+            for (int i = 0; i < size; i++) {
+                if (current.getType(i) == RenderSnapshot.LIVE
+                        || region.intersects(current.getX(i), current.getY(i),
+                        current.getWidth(i), current.getHeight(i))) {
+                    current.renderEntry(g, i);
+                }
+            }
+        }
+
+        g.setClip(null);
+    }
+
+    /**
+     *
+     * @return The damaged regions of the last frame.
+     */
+    public ArrayList<Rectangle> getDamage() {
+        return damage;
+    }
+
+    /**
+     *
+     * @return The number of damaged pixels of the last frame.
+     */
+    public long getDamagedArea() {
+
+        long area = 0L;
+        for (int i = 0, regions = damage.size(); i < regions; i++) {
+            Rectangle region = damage.get(i);
+            area += (long) region.width * region.height;
+        }
+
+        return area;
+    }
+}
@@ -0,0 +1,245 @@
+package userInterface;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import timers.LatencyHistogram;
+
+/**
+ * This class records how long each phase of the engine loop takes at every
+ * frame, so a hitch can be blamed on the game logic (update), on Java2D
+ * (render and draw), or on the pacing (sleep). The catch-up updates performed
+ * to recover the skipped frames are recorded apart from the regular ones.
+ *
+ * The durations are recorded in lock-free LatencyHistogram instances, so the
+ * animator and the renderer Threads can record them while any other Thread
+ * reads them, through this class or through JMX.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#getMetrics()
+ * @see Stats#setMetrics(userInterface.EngineMetrics)
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+
+    //
+    // Fields
+    //
+    /**
+     * Enumeration containing the phases of the engine loop.
+     */
+    public static enum Phase {
+
+        UPDATE, RENDER, DRAW, SLEEP, CATCH_UP
+    };
+    /**
+     * The histogram of each phase, indexed by the Phase ordinal.
+     */
+    private final LatencyHistogram[] histograms;
+    /**
+     * The number of frames presented.
+     */
+    private final AtomicLong frameCount = new AtomicLong();
+    /**
+     * The number of frames skipped (an update was performed without presenting it).
+     */
+    private final AtomicLong skippedFrames = new AtomicLong();
+
+    //
+    // Constructors
+    //
+    /**
+     * The default constructor. It creates a histogram for every phase.
+     */
+    public EngineMetrics() {
+
+        histograms = new LatencyHistogram[Phase.values().length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method records the duration of a phase.
+     *
+     * @param phase The phase of the engine loop.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * This method counts a presented frame.
+     */
+    public void frameCompleted() {
+        frameCount.incrementAndGet();
+    }
+
+    /**
+     * This method counts a skipped frame.
+     */
+    public void frameSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    /**
+     *
+     * @param phase The phase of the engine loop.
+     *
+     * @return The histogram of the phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * This method registers this instance at the platform MBeanServer with the
+     * name <code>jannaton:type=EngineMetrics,name=&lt;name&gt;</code>.
+     *
+     * @param name The name that identifies the engine.
+     *
+     * @return true if the instance has been registered. false otherwise.
+     */
+    public boolean registerMBean(String name) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("jannaton:type=EngineMetrics,name=" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+            return true;
+        } catch (Exception ex) {
+            System.out.println("EngineMetrics not registered: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method registers this instance at the platform MBeanServer with the
+     * name <code>jannaton:type=EngineMetrics,name=GameEngine</code>.
+     *
+     * @return true if the instance has been registered. false otherwise.
+     */
+    public boolean registerMBean() {
+        return registerMBean("GameEngine");
+    }
+
+    /**
+     * This method returns a short description of a phase with its p50, p99
+     * and max durations in milliseconds.
+     *
+     * @param phase The phase of the engine loop.
+     *
+     * @return The description of the phase.
+     */
+    public String describe(Phase phase) {
+
+        LatencyHistogram histogram = getHistogram(phase);
+
+        return phase.name().toLowerCase() + " p50: " + toMillis(histogram.getP50()) +
+                " p99: " + toMillis(histogram.getP99()) + " max: " + toMillis(histogram.getMax()) + "ms";
+    }
+
+    /**
+     * This method formats nanoseconds as milliseconds with two decimals.
+     *
+     * @param nanos The duration in nanoseconds.
+     *
+     * @return The duration in milliseconds.
+     */
+    private static String toMillis(long nanos) {
+
+        long hundredths = nanos / 10000L;
+
+        return (hundredths / 100) + "." + (hundredths % 100 < 10 ? "0" : "") + (hundredths % 100);
+    }
+
+    /**
+     * This method forgets all the recorded durations and counters.
+     */
+    public void reset() {
+
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+
+        frameCount.set(0L);
+        skippedFrames.set(0L);
+    }
+
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.get();
+    }
+
+    public long getUpdateP50() {
+        return getHistogram(Phase.UPDATE).getP50() / 1000L;
+    }
+
+    public long getUpdateP99() {
+        return getHistogram(Phase.UPDATE).getP99() / 1000L;
+    }
+
+    public long getUpdateMax() {
+        return getHistogram(Phase.UPDATE).getMax() / 1000L;
+    }
+
+    public long getRenderP50() {
+        return getHistogram(Phase.RENDER).getP50() / 1000L;
+    }
+
+    public long getRenderP99() {
+        return getHistogram(Phase.RENDER).getP99() / 1000L;
+    }
+
+    public long getRenderMax() {
+        return getHistogram(Phase.RENDER).getMax() / 1000L;
+    }
+
+    public long getDrawP50() {
+        return getHistogram(Phase.DRAW).getP50() / 1000L;
+    }
+
+    public long getDrawP99() {
+        return getHistogram(Phase.DRAW).getP99() / 1000L;
+    }
+
+    public long getDrawMax() {
+        return getHistogram(Phase.DRAW).getMax() / 1000L;
+    }
+
+    public long getSleepP50() {
+        return getHistogram(Phase.SLEEP).getP50() / 1000L;
+    }
+
+    public long getSleepP99() {
+        return getHistogram(Phase.SLEEP).getP99() / 1000L;
+    }
+
+    public long getSleepMax() {
+        return getHistogram(Phase.SLEEP).getMax() / 1000L;
+    }
+
+    public long getCatchUpP50() {
+        return getHistogram(Phase.CATCH_UP).getP50() / 1000L;
+    }
+
+    public long getCatchUpP99() {
+        return getHistogram(Phase.CATCH_UP).getP99() / 1000L;
+    }
+
+    public long getCatchUpMax() {
+        return getHistogram(Phase.CATCH_UP).getMax() / 1000L;
+    }
+}
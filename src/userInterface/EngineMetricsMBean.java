@@ -0,0 +1,50 @@
+package userInterface;
+
+/**
+ * This interface exposes the EngineMetrics through JMX. All the durations are
+ * returned in microseconds.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see EngineMetrics#registerMBean()
+ */
+public interface EngineMetricsMBean {
+
+    public long getFrameCount();
+
+    public long getSkippedFrames();
+
+    public long getUpdateP50();
+
+    public long getUpdateP99();
+
+    public long getUpdateMax();
+
+    public long getRenderP50();
+
+    public long getRenderP99();
+
+    public long getRenderMax();
+
+    public long getDrawP50();
+
+    public long getDrawP99();
+
+    public long getDrawMax();
+
+    public long getSleepP50();
+
+    public long getSleepP99();
+
+    public long getSleepMax();
+
+    public long getCatchUpP50();
+
+    public long getCatchUpP99();
+
+    public long getCatchUpMax();
+
+    public void reset();
+
+}
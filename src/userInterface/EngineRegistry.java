@@ -0,0 +1,230 @@
+package userInterface;
+
+import control.GameControler;
+import control.interfaces.Renderable;
+import control.interfaces.Updatable;
+import java.util.ArrayList;
+
+/**
+ * This class keeps the updatables and renderables driven by an engine, and the
+ * GameControler wich offers them. It's shared by the GameEngine and the
+ * HeadlessEngine, so both handle their lists the same way.
+ *
+ * The lists are asked to the GameControler again when they are out dated (i.e.
+ * when the Environment registry is rebuilt). Otherwise, the additions, removals
+ * and restacks told by the GameControler are queued and applied at the
+ * beginning of the next update or rendering, so the lists are never changed
+ * while they are being iterated. The renderables are kept sorted by layer in
+ * a RenderQueue too.
+ *
+ * If there's no GameControler, the lists start empty and only change through
+ * the queued additions and removals.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine
+ * @see HeadlessEngine
+ */
+public class EngineRegistry {
+
+    //
+    // Fields
+    //
+    /**
+     * The GameControler wich offers the updatables and renderables.
+     */
+    private GameControler controller;
+    /**
+     * The updatables being updated by the engine.
+     */
+    private ArrayList<Updatable> updatables;
+    /**
+     * The renderables being rendered by the engine, in the order they were added.
+     */
+    private ArrayList<Renderable> renderables;
+    /**
+     * If it's true, the updatables will be asked to the GameControler before
+     * the next update.
+     */
+    private boolean updatablesOutDated = false;
+    /**
+     * If it's true, the renderables will be asked to the GameControler before
+     * the next rendering.
+     */
+    private boolean renderablesOutDated = false;
+    /**
+     * The updatables added or removed since the last update. They are applied
+     * at the beginning of the next one, so the updatables are never changed
+     * while they are being updated.
+     */
+    private final PendingChanges<Updatable> updatablesChanges = new PendingChanges<Updatable>();
+    /**
+     * The renderables added or removed since the last rendering. They are
+     * applied at the beginning of the next one.
+     */
+    private final PendingChanges<Renderable> renderablesChanges = new PendingChanges<Renderable>();
+    /**
+     * The renderables sorted by layer. They are rendered in the order kept by
+     * this queue instead of the order of the renderables ArrayList.
+     */
+    private final RenderQueue renderQueue = new RenderQueue();
+
+    //
+    // Methods
+    //
+    /**
+     * This method asks the GameControler for a copy of the updatables if they
+     * are out dated or null. Then the queued additions and removals are applied.
+     * It should be invoked at the beginning of every update.
+     */
+    public void refreshUpdatables() {
+
+        if (updatablesOutDated || updatables == null) {
+            ArrayList<Updatable> current = controller != null ? controller.getUpdatables() : null;
+            if (current != null) {
+                updatablesChanges.clear();
+                updatables = new ArrayList<Updatable>(current);
+            } else if (updatables == null) {
+                updatables = new ArrayList<Updatable>();
+            }
+            updatablesOutDated = false;
+        }
+
+        updatablesChanges.applyTo(updatables);
+    }
+
+    /**
+     * This method asks the GameControler for a copy of the renderables if they
+     * are out dated or null, and sorts them again by layer. Then the queued
+     * additions, removals and restacks are applied. It should be invoked at the
+     * beginning of every rendering.
+     */
+    public void refreshRenderables() {
+
+        if (renderablesOutDated || renderables == null) {
+            ArrayList<Renderable> current = controller != null ? controller.getRenderables() : null;
+            if (current != null) {
+                renderablesChanges.clear();
+                renderables = new ArrayList<Renderable>(current);
+            } else if (renderables == null) {
+                renderables = new ArrayList<Renderable>();
+            }
+            renderQueue.rebuild(renderables);
+            renderablesOutDated = false;
+        }
+
+        renderQueue.apply(renderablesChanges, renderables);
+    }
+
+    /**
+     *
+     * @return The updatables, or null if they haven't been refreshed yet.
+     */
+    public ArrayList<Updatable> getUpdatables() {
+        return updatables;
+    }
+
+    /**
+     *
+     * @return The renderables in the order they were added, or null if they
+     * haven't been refreshed yet.
+     */
+    public ArrayList<Renderable> getRenderables() {
+        return renderables;
+    }
+
+    /**
+     *
+     * @return The renderables sorted by layer.
+     */
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+
+    /**
+     * This method queues the addition of an Updatable.
+     *
+     * @param updatable - the Updatable to add
+     */
+    public void addUpdatable(Updatable updatable) {
+        updatablesChanges.add(updatable);
+    }
+
+    /**
+     * This method queues the removal of an Updatable.
+     *
+     * @param updatable - the Updatable to remove
+     */
+    public void removeUpdatable(Updatable updatable) {
+        updatablesChanges.remove(updatable);
+    }
+
+    /**
+     * This method queues the addition of a Renderable.
+     *
+     * @param renderable - the Renderable to add
+     */
+    public void addRenderable(Renderable renderable) {
+        renderablesChanges.add(renderable);
+    }
+
+    /**
+     * This method queues the removal of a Renderable.
+     *
+     * @param renderable - the Renderable to remove
+     */
+    public void removeRenderable(Renderable renderable) {
+        renderablesChanges.remove(renderable);
+    }
+
+    /**
+     * This method queues the restack of a Renderable wich has changed its zIndex.
+     *
+     * @param renderable - the Renderable to restack
+     */
+    public void restackRenderable(Renderable renderable) {
+        renderablesChanges.restack(renderable);
+    }
+
+    /**
+     * This method tells the EngineRegistry that the updatables are outdated, so
+     * they will be asked to the GameControler at the next update.
+     */
+    public void setUpdatablesToOutDated() {
+        this.updatablesOutDated = true;
+    }
+
+    /**
+     * This method tells the EngineRegistry that the renderables are outdated, so
+     * they will be asked to the GameControler at the next rendering.
+     */
+    public void setRenderablesToOutDated() {
+        this.renderablesOutDated = true;
+    }
+
+    /**
+     *
+     * @return The GameControler wich offers the updatables and renderables, or
+     * null if none has been added.
+     */
+    public GameControler getGameController() {
+        return controller;
+    }
+
+    /**
+     * This method adds the GameControler wich offers the updatables and
+     * renderables. If another GameControler instance was previously added,
+     * this method does nothing.
+     *
+     * @param gameController - the desired non null GameControler instance.
+     */
+    public void addGameController(GameControler gameController) {
+
+        if (gameController != null && controller == null) {
+            controller = gameController;
+        } else {
+            System.out.println("Another controller was previously added. Aborting.");
+        }
+    }
+}
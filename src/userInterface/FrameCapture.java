@@ -0,0 +1,350 @@
+package userInterface;
+
+import control.interfaces.FrameSink;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class captures the frames presented by an engine (for recordings or
+ * visual regression tests) without slowing down its rendering Thread.
+ *
+ * Each captured frame is copied into one of a pool of reusable buffers, and
+ * the buffer is handed to the encoder Threads, wich pass it to a FrameSink and
+ * give it back to the pool. The rendering Thread never waits: if every buffer
+ * is still being encoded the frame is dropped, and its number is skipped.
+ *
+ * The <code>capture(Image)</code> method should be invoked always from the
+ * same Thread (the rendering one).
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#setFrameCapture(userInterface.FrameCapture)
+ * @see HeadlessEngine#setFrameCapture(userInterface.FrameCapture)
+ */
+public class FrameCapture {
+
+    //
+    // Fields
+    //
+    /**
+     * The milliseconds an idle encoder Thread waits for a frame before
+     * checking if the capture has been stopped.
+     */
+    private static final long POLL_PERIOD = 100L;
+    /**
+     * The FrameSink wich consumes the frames.
+     */
+    private final FrameSink sink;
+    /**
+     * The maximum number of frame buffers.
+     */
+    private final int bufferCount;
+    /**
+     * The number of frame buffers created so far. Only used by the capturing
+     * Thread.
+     */
+    private int createdBuffers = 0;
+    /**
+     * The frame buffers wich can be reused.
+     */
+    private final ArrayBlockingQueue<CapturedFrame> freeFrames;
+    /**
+     * The frame buffers waiting to be encoded.
+     */
+    private final ArrayBlockingQueue<CapturedFrame> pendingFrames;
+    /**
+     * The encoder Threads.
+     */
+    private final Thread[] encoders;
+    /**
+     * false once the capture has been stopped.
+     */
+    private volatile boolean running = true;
+    /**
+     * The number given to the next frame. Only used by the capturing Thread.
+     */
+    private long nextFrameNumber = 0L;
+    /**
+     * The number of frames copied to a buffer.
+     */
+    private final AtomicLong capturedFrames = new AtomicLong();
+    /**
+     * The number of frames dropped because every buffer was in use.
+     */
+    private final AtomicLong droppedFrames = new AtomicLong();
+    /**
+     * The number of frames consumed by the FrameSink.
+     */
+    private final AtomicLong encodedFrames = new AtomicLong();
+    /**
+     * The number of frames the FrameSink failed to consume.
+     */
+    private final AtomicLong failedFrames = new AtomicLong();
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. It uses four frame buffers and a single encoder Thread, so
+     * the frames reach the FrameSink in order.
+     *
+     * @param sink The FrameSink wich consumes the frames.
+     */
+    public FrameCapture(FrameSink sink) {
+        this(sink, 4, 1);
+    }
+
+    /**
+     * Constructor. The encoder Threads are started at once, and the frame
+     * buffers are created as they're needed.
+     *
+     * @param sink The FrameSink wich consumes the frames.
+     * @param bufferCount The maximum number of frame buffers. It should be
+     * greater than 0, or 1 is used.
+     * @param encoderCount The number of encoder Threads. It should be greater
+     * than 0, or 1 is used.
+     */
+    public FrameCapture(FrameSink sink, int bufferCount, int encoderCount) {
+
+        this.sink = sink;
+        this.bufferCount = Math.max(1, bufferCount);
+        this.freeFrames = new ArrayBlockingQueue<CapturedFrame>(this.bufferCount);
+        this.pendingFrames = new ArrayBlockingQueue<CapturedFrame>(this.bufferCount);
+        this.encoders = new Thread[Math.max(1, encoderCount)];
+
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = new Thread(new Runnable() {
+
+                public void run() {
+                    encode();
+                }
+            }, "FrameCapture encoder " + i);
+            encoders[i].setDaemon(true);
+            encoders[i].start();
+        }
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method captures a frame. It never blocks: the frame is copied to a
+     * free buffer and queued for encoding, or dropped if there is no free
+     * buffer.
+     *
+     * @param frame The frame image, usually the back image of an engine.
+     *
+     * @return true if the frame has been queued. false if it has been dropped
+     * or the capture is stopped.
+     */
+    public boolean capture(Image frame) {
+
+        if (!running || frame == null) {
+            return false;
+        }
+
+        int width = frame.getWidth(null);
+        int height = frame.getHeight(null);
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+
+        long frameNumber = nextFrameNumber++;
+
+        CapturedFrame captured = freeFrames.poll();
+        if (captured == null) {
+            if (createdBuffers >= bufferCount) {
+                droppedFrames.incrementAndGet();
+                return false;
+            }
+            captured = new CapturedFrame();
+            createdBuffers++;
+        }
+
+        captured.copy(frame, width, height, frameNumber);
+
+        //There are never more queued frames than buffers, so it's accepted.
+        pendingFrames.offer(captured);
+        capturedFrames.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * This method stops the capture. The frames already queued are encoded
+     * before the encoder Threads end.
+     *
+     * @param timeout The maximum milliseconds to wait for each encoder Thread,
+     * or 0 to wait as long as needed.
+     *
+     * @return true if every encoder Thread has ended.
+     */
+    public boolean stop(long timeout) {
+
+        running = false;
+
+        boolean ended = true;
+        for (Thread encoder : encoders) {
+            try {
+                encoder.join(timeout);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            ended &= !encoder.isAlive();
+        }
+
+        return ended;
+    }
+
+    /**
+     * This method is the loop of the encoder Threads: it hands the queued
+     * frames to the FrameSink and gives their buffers back to the pool, until
+     * the capture is stopped and there are no frames left.
+     */
+    private void encode() {
+
+        while (true) {
+            CapturedFrame captured;
+            try {
+                captured = pendingFrames.poll(POLL_PERIOD, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            if (captured == null) {
+                if (!running && pendingFrames.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                sink.frameCaptured(captured.image, captured.frameNumber);
+                encodedFrames.incrementAndGet();
+            } catch (Exception ex) {
+                failedFrames.incrementAndGet();
+                System.out.println("Frame " + captured.frameNumber + " not encoded: " + ex.getMessage());
+            } finally {
+                freeFrames.offer(captured);
+            }
+        }
+    }
+
+    /**
+     *
+     * @return true until the capture is stopped.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     *
+     * @return The FrameSink wich consumes the frames.
+     */
+    public FrameSink getSink() {
+        return sink;
+    }
+
+    /**
+     *
+     * @return The maximum number of frame buffers.
+     */
+    public int getBufferCount() {
+        return bufferCount;
+    }
+
+    /**
+     *
+     * @return The number of encoder Threads.
+     */
+    public int getEncoderCount() {
+        return encoders.length;
+    }
+
+    /**
+     *
+     * @return The number of frames copied to a buffer.
+     */
+    public long getCapturedFrames() {
+        return capturedFrames.get();
+    }
+
+    /**
+     *
+     * @return The number of frames dropped because every buffer was in use.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     *
+     * @return The number of frames consumed by the FrameSink.
+     */
+    public long getEncodedFrames() {
+        return encodedFrames.get();
+    }
+
+    /**
+     *
+     * @return The number of frames the FrameSink failed to consume.
+     */
+    public long getFailedFrames() {
+        return failedFrames.get();
+    }
+
+    /**
+     * This class is a reusable frame buffer.
+     */
+    private static class CapturedFrame {
+
+        /**
+         * The copy of the frame.
+         */
+        private BufferedImage image;
+        /**
+         * The pixels of the copy.
+         */
+        private int[] pixels;
+        /**
+         * The number of the frame.
+         */
+        private long frameNumber;
+
+        /**
+         * This method copies a frame, creating the buffer again only if the
+         * frame size has changed.
+         *
+         * @param frame The frame image.
+         * @param width The frame width.
+         * @param height The frame height.
+         * @param frameNumber The number of the frame.
+         */
+        private void copy(Image frame, int width, int height, long frameNumber) {
+
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            }
+
+            //The pixels of an int RGB frame are read straight from its raster,
+            //wich doesn't stop the frame from being accelerated.
+            if (frame instanceof BufferedImage
+                    && ((BufferedImage) frame).getType() == BufferedImage.TYPE_INT_RGB) {
+                ((BufferedImage) frame).getRaster().getDataElements(0, 0, width, height, pixels);
+            } else {
+                Graphics2D g = image.createGraphics();
+                g.drawImage(frame, 0, 0, null);
+                g.dispose();
+            }
+
+            this.frameNumber = frameNumber;
+        }
+    }
+}
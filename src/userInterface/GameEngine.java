@@ -1,22 +1,39 @@
 package userInterface;
 
 import control.GameControler;
+import control.interfaces.Interpolable;
+import control.interfaces.JannatonEngine;
 import control.interfaces.Renderable;
+import control.interfaces.Snapshotable;
 import control.interfaces.Updatable;
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
+import java.awt.Window;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferStrategy;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Exchanger;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import timers.HybridPacer;
 import timers.TimerNano;
 import timers.TimerPerf;
+import timers.interfaces.JannatonPacer;
 import timers.interfaces.JannatonTimer;
 
 /**
@@ -37,7 +54,7 @@ import timers.interfaces.JannatonTimer;
  * @author Germán Coines
  *
  */
-public class GameEngine extends JPanel implements Runnable {
+public class GameEngine extends JPanel implements Runnable, JannatonEngine {
 
     //
     //Fields
@@ -49,54 +66,48 @@ public class GameEngine extends JPanel implements Runnable {
      */
     private static GameEngine engine;
     /**
-     * The GameControler instance asociated to this GameEngine.
-     *
-     * The GameController acts as a Control layer between the domain of the game
-     * and the external events raised from the GameFrame, GameApplet or the
-     * GameEngine itself.
+     * The updatables and renderables of the GameEngine, and the GameControler
+     * wich offers them. The changes told by the GameControler are applied at
+     * the beginning of the next update or rendering.
      *
      * @see #addGameController(control.GameControler)
-     *
+     * @see #gameUpdate()
+     * @see #gameRender()
      */
-    private GameControler controller;
+    private final EngineRegistry registry = new EngineRegistry();
     /**
-     * An ArrayList containing all the Updatable instances that the GameEngine
-     * should update to, at the game updating state stage.
+     * The renderables of the frame being rendered, in rendering order. It's
+     * refilled at every frame.
      *
-     * @see control.interfaces.Updatable#update()
-     * @see #gameUpdate()
+     * @see #collectFrameRenderables()
      */
-    private ArrayList<Updatable> updatables;
+    private final ArrayList<Renderable> frameRenderables = new ArrayList<Renderable>();
     /**
-     * An ArrayList containing all the Drawables instances that the GameEngine
-     * should render and render to, at the game render and render state stages.
-     *
-     * @see Renderable#render(java.awt.Graphics)
-     * @see #gameDraw()
+     * If it's true, the renderables whose Scenario bounds don't intersect the
+     * camera are skipped. It has no effect when there's no camera (i.e. outside
+     * a DinamicEnvironment).
      */
-    private ArrayList<Renderable> renderables;
+    private boolean viewportCulling = false;
     /**
-     * This field holds the updatables 'upToDate' state. That means if this field
-     * contains a false value, the updatables ArrayList is outdated. This field
-     * should not be modified since the GameControler instance will do if it detects
-     * that the updatable instances from the GameClient has been changed.
-     * At every updating stage the GameEngine instace checks for this field to know
-     * if it has to ask for the updated updatables ArrayList to the GameControler.
-     *
-     * @see #gameUpdate()
-     * @see #setUpdatablesToOutDated() 
-     * @see GameControler#getUpdatables()
+     * The number of pixels the camera is grown by at each side before culling,
+     * so the renderables drawn at an interpolated position or slightly out of
+     * their bounds aren't skipped too early.
+     */
+    private int cullingMargin = 32;
+    /**
+     * The number of renderables drawn at the last frame.
+     */
+    private int drawnRenderables;
+    /**
+     * The number of renderables skipped by the viewport culling at the last frame.
      */
-    private boolean updatablesOutDated = false;
+    private int culledRenderables;
     /**
-     * This field holds the renderables 'upToDate' state. That means if this field
-     * contains a false value, the renderables ArrayList is outdated. This field
-     * should not be modified since the GameControler instance will do, if it detects
-     * that the renderables instances from the GameClient has been changed.
-     * At every drawing stage the GameEngine instace checks for this field to know
-     * if it has to ask for the updated renderables ArrayList to the GameControler.
+     * The caches of the static layers, by zIndex. It's replaced as a whole
+     * when a layer is marked or unmarked, so the rendering Thread always reads
+     * a consistent map.
      */
-    private boolean renderablesOutDated = false;
+    private volatile HashMap<Integer, LayerCache> staticLayers = new HashMap<Integer, LayerCache>();
     /**
      * The Image Object used to obtain the Graphics object used at the rendering
      * stage. The GameEngine first creates that Image Object with it's width and
@@ -146,7 +157,7 @@ public class GameEngine extends JPanel implements Runnable {
      * @see #run()
      * @see #terminate()
      */
-    private boolean running;
+    private volatile boolean running;
     /**
      * The desired Frames Per Second that the GameEngine instance should accomplish.
      * Obviously, the real FPS obtained will vary on the CPU and GPU demands.
@@ -158,12 +169,25 @@ public class GameEngine extends JPanel implements Runnable {
     /**
      * The time that the GameEngine should take in a loop to acomplish the desired
      * frames per second.
-     * (in milliseconds)
+     * (in nanoseconds, as the timer instances)
      *
      * @see #updatePeriod()
      * @see #setFps(int)
      */
-    private long period = (long) 1000.0 / fps;
+    private long period = 1000000000L / fps;
+    /**
+     * The frame pacer used to wait until the end of each period. By default
+     * it's a HybridPacer using the GameEngine timer.
+     *
+     * @see #setPacer(timers.interfaces.JannatonPacer)
+     */
+    private JannatonPacer pacer;
+    /**
+     * The durations of the loop phases recorded at every frame.
+     *
+     * @see #getMetrics()
+     */
+    private EngineMetrics metrics;
     /**
      * This field indicates how many delays the GameEngine will permit before
      * calling <code>Thread.yield()</code> to allow other Threads to be
@@ -174,9 +198,189 @@ public class GameEngine extends JPanel implements Runnable {
      */
     private int numberOfDelaysPerYield = 16;
     /**
-     *
+     * This field indicates how many updates the GameEngine will perform in a row
+     * to catch up when the loop doesn't finish within the specified period.
      */
     private int maxFrameSkips = 16;
+    /**
+     * boolean field to control if the GameEngine runs its updates at a fixed
+     * rate (the ups), independently of the frames per second. While it's true,
+     * the renderings draw the Interpolable renderables between their last two
+     * updated states. It's default value is false.
+     *
+     * @see #setFixedTimeStep(boolean)
+     * @see #runFixedTimeStep()
+     */
+    private boolean fixedTimeStep = false;
+    /**
+     * The desired Updates Per Second that the GameEngine instance should accomplish
+     * when it's running in fixed time step mode.
+     *
+     * @see #setUps(int)
+     */
+    private int ups = 60;
+    /**
+     * The time between two updates when the GameEngine is running in fixed time
+     * step mode (in nanoseconds).
+     *
+     * @see #setUps(int)
+     */
+    private long updatePeriod = 1000000000L / ups;
+    /**
+     * The value between 0 (previous state) and 1 (current state) at wich the
+     * Interpolable renderables will be rendered in fixed time step mode.
+     *
+     * @see Interpolable#render(java.awt.Graphics, double)
+     */
+    private double interpolation = 1.0;
+    /**
+     * The elapsed time not consumed by the updates yet, when the GameEngine is
+     * running in fixed time step mode (in nanoseconds).
+     *
+     * @see #advanceFixedTimeStep(long)
+     */
+    private long accumulator = 0L;
+    /**
+     * boolean field to control if the GameEngine renders in its own Thread. While
+     * it's true, the animator Thread updates the next frame while the renderer
+     * Thread renders and draws the previous one from a RenderSnapshot. It's
+     * default value is false.
+     *
+     * @see #setPipelined(boolean)
+     * @see #publishSnapshot()
+     * @see #runRenderer()
+     */
+    private boolean pipelined = false;
+    /**
+     * This field holds the Thread wich renders and draws the RenderSnapshot
+     * instances when the GameEngine is running in pipelined mode.
+     *
+     * @see #runRenderer()
+     */
+    private Thread renderer;
+    /**
+     * The RenderSnapshot being filled by the animator Thread in pipelined mode.
+     * The other RenderSnapshot instance is held by the renderer Thread.
+     */
+    private RenderSnapshot snapshot = new RenderSnapshot();
+    /**
+     * The Exchanger used to swap the RenderSnapshot instances between the animator
+     * and the renderer Threads.
+     */
+    private final Exchanger<RenderSnapshot> snapshotExchanger = new Exchanger<RenderSnapshot>();
+    /**
+     * The time (in milliseconds) that a Thread waits for the other one at the
+     * RenderSnapshot exchange before checking if the GameEngine is still running.
+     */
+    private static final long EXCHANGE_TIMEOUT = 100L;
+    /**
+     * The Semaphore released by the renderer Thread each time it has presented
+     * a RenderSnapshot with live entries. The animator Thread waits for it
+     * before updating again, since the live entries read the Renderable state.
+     *
+     * @see #publishSnapshot()
+     */
+    private final Semaphore livePresented = new Semaphore(0);
+    /**
+     * If it's true and the GameEngine is inside a GameFrame with its BufferStrategy
+     * enabled, the frames are rendered straight into the BufferStrategy buffers
+     * and shown by page flipping. Otherwise the back image is used.
+     *
+     * @see #setBufferStrategyPresentation(boolean)
+     * @see GameFrame#enableBufferStrategy()
+     */
+    private boolean bufferStrategyPresentation = false;
+    /**
+     * If it's true, only the regions of the frame wich have changed since the
+     * previous one are rendered and drawn.
+     *
+     * @see #setDirtyRectangleRendering(boolean)
+     */
+    private boolean dirtyRectangleRendering = false;
+    /**
+     * The renderer wich tracks the damaged regions in dirty rectangle mode.
+     */
+    private final DirtyRectangleRenderer dirtyRenderer = new DirtyRectangleRenderer();
+    /**
+     * The RenderSnapshot taken at each frame in dirty rectangle mode when the
+     * GameEngine isn't pipelined.
+     */
+    private final RenderSnapshot dirtySnapshot = new RenderSnapshot();
+    /**
+     * If it's true, the frames are composed by writing straight into the
+     * pixels of the back image.
+     *
+     * @see #setSoftwareRendering(boolean)
+     */
+    private boolean softwareRendering = false;
+    /**
+     * The SoftwareRasterizer wich owns the back image in software rendering
+     * mode. It's created when needed.
+     */
+    private SoftwareRasterizer rasterizer;
+    /**
+     * The number of horizontal bands the SoftwareRasterizer splits the frames in.
+     *
+     * @see #setRenderingBands(int)
+     */
+    private int renderingBands = 1;
+    /**
+     * The size of the back image relative to the GameEngine size. The frames
+     * are rendered at this resolution and upscaled when they are drawn. It's
+     * volatile since the renderer Thread adjusts it in pipelined mode.
+     *
+     * @see #setRenderScale(double)
+     */
+    private volatile double renderScale = 1.0;
+    /**
+     * The render scale the back image was created for.
+     */
+    private double imageScale = 1.0;
+    /**
+     * The width of the back image.
+     */
+    private int imageWidth;
+    /**
+     * The height of the back image.
+     */
+    private int imageHeight;
+    /**
+     * If it's true, the render scale is adjusted to the measured rendering time.
+     *
+     * @see #setDynamicRenderScale(boolean)
+     */
+    private boolean dynamicRenderScale = false;
+    /**
+     * The RenderScaler wich adjusts the render scale in dynamic mode.
+     */
+    private final RenderScaler renderScaler = new RenderScaler();
+    /**
+     * The FrameCapture wich receives every presented frame, or null if the
+     * frames aren't captured.
+     */
+    private volatile FrameCapture frameCapture;
+    /**
+     * The RenderSnapshot rasterized when the GameEngine isn't pipelined.
+     */
+    private final RenderSnapshot softwareSnapshot = new RenderSnapshot();
+    /**
+     * If it's true, the updatables are updated by the ParallelUpdater: the
+     * ParallelUpdatable instances compute their updates in parallel and commit
+     * them in order.
+     *
+     * @see #setParallelUpdate(boolean)
+     */
+    private boolean parallelUpdate = false;
+    /**
+     * The ParallelUpdater used when the parallel update is on. It's created the
+     * first time it's needed.
+     */
+    private ParallelUpdater parallelUpdater;
+    /**
+     * The GameFrame wich contains this GameEngine. It's found when the GameEngine
+     * is added to its parent.
+     */
+    private GameFrame gameFrame;
     /**
      * boolean field to control if the GameEngine status should be rendered and
      * drawn to the screen. (It's useful while the testing and development stages).
@@ -221,7 +425,11 @@ public class GameEngine extends JPanel implements Runnable {
 
         timer = TimerNano.instantiate();
 
-        stats = Stats.instantiate(timer, period, 500, 10);
+        pacer = new HybridPacer(timer);
+
+        metrics = new EngineMetrics();
+
+        stats = Stats.instantiate(timer, period / 1000000L, 500, 10);
 
 
         setFocusable(true);
@@ -264,12 +472,12 @@ public class GameEngine extends JPanel implements Runnable {
 
             @Override
             public void keyPressed(KeyEvent ke) {
-                controller.processKeyEvent(ke);
+                registry.getGameController().processKeyEvent(ke);
             }
 
             @Override
             public void keyReleased(KeyEvent ke) {
-                controller.processKeyEvent(ke);
+                registry.getGameController().processKeyEvent(ke);
             }
         });
 
@@ -277,42 +485,42 @@ public class GameEngine extends JPanel implements Runnable {
 
             @Override
             public void mouseClicked(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseDragged(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseEntered(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseExited(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseMoved(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mousePressed(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseReleased(MouseEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
 
             @Override
             public void mouseWheelMoved(MouseWheelEvent me) {
-                controller.processMouseEvent(me);
+                registry.getGameController().processMouseEvent(me);
             }
         });
 
@@ -348,9 +556,9 @@ public class GameEngine extends JPanel implements Runnable {
      * When one loop iteration finishes, a sleepTime value is calculated
      * as here follows: <code>sleepTime = (period - timeDiff) - overSleepTime;</code> 
      * If the iteration loop takes less time than the desired period (that means 
-     * the <code>sleepTime &gt; 0</code> ) the animator Thread will sleep a while
-     * giving a chance to other processes or Threads to execute (The Garbage Collector,
-     * for example).
+     * the <code>sleepTime &gt; 0</code> ) the animator Thread will wait for the
+     * frame pacer giving a chance to other processes or Threads to execute (The
+     * Garbage Collector, for example).
      *
      * If the iteration loop has taken more time than the period
      * (<code>sleepTime $gt; 0</code>), then the excess interval is stored and the delay
@@ -366,29 +574,47 @@ public class GameEngine extends JPanel implements Runnable {
      */
     public void run() {
 
+        running = true;
+
+        if (pipelined) {
+            startRenderer();
+        }
+
+        if (fixedTimeStep) {
+            runFixedTimeStep();
+        } else {
+            runVariableTimeStep();
+        }
+    }
+
+    /**
+     * This method is the GameEngine loop used when the fixed time step mode is
+     * off. The updates are tied to the frames, and the frames skipped are
+     * recovered by updating up to <code>maxFrameSkips</code> times in a row.
+     *
+     * @see #run()
+     */
+    private void runVariableTimeStep() {
+
         long beforeTime, timeDiff, afterTime, sleepTime, overSleepTime = 0L, excess = 0L;
         int delays = 0;
 
         beforeTime = timer.getTimeInstace();
 
-        running = true;
-
         while (running) {
 
+            long updateTime = timer.getTimeInstace();
             gameUpdate();
-            gameRender();
-            gameDraw();
+            metrics.record(EngineMetrics.Phase.UPDATE, timer.getTimeInstace() - updateTime);
+
+            presentFrame();
 
             afterTime = timer.getTimeInstace();
             timeDiff = afterTime - beforeTime;
             sleepTime = (period - timeDiff) - overSleepTime;
 
             if (sleepTime > 0) {
-                try {
-                    Thread.sleep(sleepTime / 1000000L);
-                } catch (InterruptedException interruptedException) {
-                    System.out.println("Not resting.");
-                }
+                pacer.waitUntil(afterTime + sleepTime);
 
                 overSleepTime = (timer.getTimeInstace() - afterTime) - sleepTime;
 
@@ -403,12 +629,13 @@ public class GameEngine extends JPanel implements Runnable {
             }
 
             beforeTime = timer.getTimeInstace();
+            metrics.record(EngineMetrics.Phase.SLEEP, beforeTime - afterTime);
 
             int skips = 0;
 
             while ((excess > period) && (skips < maxFrameSkips)) {
                 excess -= period;
-                gameUpdate();
+                catchUpUpdate();
                 skips++;
             }
 
@@ -416,196 +643,1428 @@ public class GameEngine extends JPanel implements Runnable {
     }
 
     /**
-     * This method overrides it's superClass (Jpanel) addNotify().
-     * It actually calls to <code>super.addNotify()</code> and
-     * <code>GameEngine.startEngine()</code>.
-     *
-     * That means that the GameEngine loop will start running when it's added
-     * to it's parent JComponent.
-     */
-    @Override
-    public void addNotify() {
-
-        super.addNotify();
-        startEngine();
-    }
-
-    /**
-     * This method updates the Game by calling the update method from all the
-     * Updatable elements in game.
+     * This method is the GameEngine loop used when the fixed time step mode is on.
      *
-     * It firsts checks if the updatables are out dated or null (for if the flys!),
-     * and if they are, the GameEngine will update its updatables instances as it's shown here
-     * <code> if (updatablesOutDated || updatables == null) { this.setUpdatables(controller.getUpdatables());
-     * updatablesOutDated = false;} </code>
+     * The elapsed time is accumulated and consumed in <code>updatePeriod</code>
+     * steps, so the updates always run at the ups rate whatever the frames per
+     * second are. Before each update the Interpolable updatables save their
+     * previous state, and the remaining accumulated time gives the interpolation
+     * value used to render them between their last two states.
      *
-     * Once the updatables are updated, then all the instances (sprites) are updated.
+     * The time accumulated in a single iteration is limited to <code>maxFrameSkips</code>
+     * update periods, so a long hitch doesn't make the GameEngine updating forever.
      *
-     * @see GameEngine#setUpdatables(java.util.ArrayList)
-     * @see Updatable#update()
-     * @see Sprite#update()
+     * @see #run()
+     * @see Interpolable
      */
-    private void gameUpdate() {
+    private void runFixedTimeStep() {
 
-        if (updatablesOutDated || updatables == null) {
-            this.setUpdatables(controller.getUpdatables());
-            updatablesOutDated = false;
-        }
+        long previousTime, currentTime, sleepTime;
+        long framePeriod = 1000000000L / fps;
 
-        if (updatables != null) {
-            for (Updatable sprite : updatables) {
-                sprite.update();
+        resetFixedTimeStep();
+
+        previousTime = timer.getTimeInstace();
+
+        while (running) {
+
+            currentTime = timer.getTimeInstace();
+            advanceFixedTimeStep(currentTime - previousTime);
+            previousTime = currentTime;
+
+            presentFrame();
+
+            long afterTime = timer.getTimeInstace();
+            sleepTime = framePeriod - (afterTime - currentTime);
+
+            if (sleepTime > 0) {
+                pacer.waitUntil(currentTime + framePeriod);
+            } else {
+                Thread.yield();
             }
+
+            metrics.record(EngineMetrics.Phase.SLEEP, timer.getTimeInstace() - afterTime);
         }
 
+        resetFixedTimeStep();
     }
 
     /**
-     * This method renders the Game by calling the render method on all the
-     * Renderable elements in game.
+     * This method accumulates the time elapsed since the previous frame and
+     * consumes it in <code>updatePeriod</code> steps. Before each update the
+     * Interpolable updatables save their previous state. The first update of
+     * the frame is a regular one, and the rest of them are catch up updates.
      *
-     * It firsts checks if the renderables are outdated or null (for if the flys!),
-     * and if they are, the GameEngine will update its renderables instances as it's shown here
-     * <code> if (renderablesOutDated || renderables == null) { this.setRenderables(controller.getRenderables());
-     * renderablesOutDated = false;} </code>
-     *
-     * Since the renderables are updated, the method checks if the Image object
-     * holded by the <code>image</code> field is null. If it is, it creates the
-     * image using <code>JPanel.createImage(int width, int height)</code> using
-     * the GameEngine width and height. If image exists or if it's just newly
-     * instantiated, a new Graphics object is created from it (while the old drawn
-     * Image is yet on shown at the screen, like a DoubleBuffer).
+     * The elapsed time is limited to <code>maxFrameSkips</code> update periods,
+     * and the time left in the accumulator sets the interpolation value.
      *
-     * This Graphics instance fills the background and after that the Renderable
-     * instances from the game (sprites) are all rendered.
+     * @param frameTime The time elapsed since the previous frame (in nanoseconds).
      *
-     * Finally, if the GameEngine is asked to show its status the method call the
-     * <code>Stats.reportStats()</code> method and render its output to the upper
-     * left corner.
+     * @return The number of updates performed.
      *
-     * @see GameEngine#setRenderables(java.util.ArrayList)
-     * @see Renderable#render()
-     * @see Sprite#render()
+     * @see #runFixedTimeStep()
      */
-    private void gameRender() {
+    int advanceFixedTimeStep(long frameTime) {
 
-        if (renderablesOutDated || renderables == null) {
-            this.setRenderables(controller.getRenderables());
-            renderablesOutDated = false;
-        }
+        long maxFrameTime = updatePeriod * maxFrameSkips;
 
-        if (image == null) {
-            image = createImage(width, height);
-            if (image == null) {
-                System.out.println("dbImage is null");
-                return;
-            } else {
-                graphics = image.getGraphics();
-            }
+        if (frameTime > maxFrameTime) {
+            frameTime = maxFrameTime;
         }
 
-        graphics.fillRect(0, 0, width, height);
+        accumulator += frameTime;
+
+        int updates = 0;
 
-        if (renderables != null) {
-            for (Renderable sprite : renderables) {
-                sprite.render(graphics);
+        while (accumulator >= updatePeriod) {
+            savePreviousStates();
+            if (updates++ == 0) {
+                long beforeTime = timer.getTimeInstace();
+                gameUpdate();
+                metrics.record(EngineMetrics.Phase.UPDATE, timer.getTimeInstace() - beforeTime);
+            } else {
+                catchUpUpdate();
             }
-        } else {
-            System.out.println("drawables in GameEngine is null!");
+            accumulator -= updatePeriod;
         }
 
-        if (showingEngineStatus) {
-            stats.reportStats();
-            stats.render(graphics);
-        }
+        interpolation = (double) accumulator / updatePeriod;
 
+        return updates;
     }
 
     /**
-     * This method draws the rendered image to the GameEngine using it's Graphics
-     * object.
+     * This method empties the fixed time step accumulator, so the Interpolable
+     * renderables are rendered at their current state again.
      */
-    private void gameDraw() {
+    void resetFixedTimeStep() {
 
-        Graphics g;
-        try {
-            g = this.getGraphics();
-            if ((g != null) && (image != null)) {
-                g.drawImage(image, 0, 0, null);
-                g.dispose();
-            }
-            //The next line is needed by some OS wich currently doesn't synchronise
-            //the display buffer.
-            Toolkit.getDefaultToolkit().sync();
-        } catch (Exception ex) {
-            System.out.println("Graphics Error! :" + ex.getMessage());
-        }
+        accumulator = 0L;
+        interpolation = 1.0;
     }
 
     /**
-     * This method sets the showingEngineStatus field to true, making the GameEngine
-     * instance keep showing it's status.
+     * This method makes the updated frame reach the screen. If the GameEngine is
+     * running in pipelined mode, a RenderSnapshot is published to the renderer
+     * Thread. Otherwise the frame is rendered and drawn right now.
+     *
+     * @see #publishSnapshot()
+     * @see #gameRender()
+     * @see #gameDraw()
      */
-    public void showEngineStatus() {
-        this.showingEngineStatus = true;
-    }
+    private void presentFrame() {
 
-    /**
-     * This method sets the showingEngineStatus field to false, making the GameEngine
-     * instance keep not showing it's status.
-     */
-    public void hideEngineStatus() {
-        this.showingEngineStatus = false;
+        if (pipelined) {
+            publishSnapshot();
+        } else {
+            registry.refreshRenderables();
+            presentRendering(null);
+        }
     }
 
     /**
-     * This method gets the current frames per second desired value.
+     * This method starts the renderer Thread used in pipelined mode.
      *
-     * @return fps - the current frames per second value.
+     * @see #runRenderer()
      */
-    public int getFps() {
-        return fps;
+    private void startRenderer() {
+
+        if (renderer == null || !renderer.isAlive()) {
+            renderer = new Thread(new Runnable() {
+
+                public void run() {
+                    runRenderer();
+                }
+            }, "GameEngine renderer");
+            renderer.start();
+        }
     }
 
     /**
-     * This method sets the current frames per second desired value and updates
-     * the period.
-     * It sets the <code>Stats</code> period too.
+     * This method is the renderer Thread loop used in pipelined mode.
      *
-     * @param fps - the required non negative frames per second value
+     * The renderer Thread holds one RenderSnapshot and exchanges it for the one
+     * filled by the animator Thread. While the received snapshot is rendered and
+     * drawn, the animator Thread is updating the next frame and filling the
+     * snapshot that has been given back.
      *
-     * @see GameEngine#updatePeriod()
-     * @see Stats#setPeriod(int)
+     * @see #publishSnapshot()
      */
-    public void setFps(int fps) {
-        if (fps > 0) {
-            this.fps = fps;
-            this.stats.setPeriod(fps);
+    private void runRenderer() {
+
+        RenderSnapshot rendering = new RenderSnapshot();
+
+        while (running) {
+            try {
+                rendering = snapshotExchanger.exchange(rendering, EXCHANGE_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException timeoutException) {
+                continue;
+            } catch (InterruptedException interruptedException) {
+                System.out.println("Renderer interrupted.");
+                break;
+            }
+
+            presentRendering(rendering);
+
+            if (rendering.hasLiveEntries()) {
+                livePresented.release();
+            }
         }
-        updatePeriod();
     }
 
     /**
-     * This method returns the maximum number of frames that the GameEngine is
-     * allowed to skip if the iteration loop exceeds the period.
+     * This method renders and draws a frame, through the BufferStrategy if it's
+     * avaible or through the back image otherwise, recording the render and
+     * draw durations.
      *
-     * @return maxFrameSkips - the number of frames that GameEngine can skip
+     * @param rendering The RenderSnapshot to render, or null to render the
+     * renderables.
      */
-    public int getMaxFrameSkips() {
-        return maxFrameSkips;
-    }
+    private void presentRendering(RenderSnapshot rendering) {
 
-    /**
-     * This method sets the maxFrameSkips field
-     *
-     * @param maxFrameSkips - the desired integer non-negative value.
-     */
-    public void setMaxFrameSkips(int maxFrameSkips) {
-        if (maxFrameSkips > 0) {
+        long presentTime = timer.getTimeInstace();
+
+        if (!presentWithBufferStrategy(rendering)) {
+            long beforeTime = timer.getTimeInstace();
+
+            if (softwareRendering) {
+                renderSoftware(rendering);
+            } else if (dirtyRectangleRendering) {
+                renderDamage(rendering);
+            } else if (rendering == null) {
+                gameRender();
+            } else {
+                renderSnapshot(rendering);
+            }
+
+            long renderedTime = timer.getTimeInstace();
+            metrics.record(EngineMetrics.Phase.RENDER, renderedTime - beforeTime);
+
+            if (dirtyRectangleRendering && !softwareRendering) {
+                drawDamage();
+            } else {
+                gameDraw();
+            }
+            metrics.record(EngineMetrics.Phase.DRAW, timer.getTimeInstace() - renderedTime);
+        }
+
+        FrameCapture capture = frameCapture;
+        if (capture != null && image != null) {
+            capture.capture(image);
+        }
+
+        if (dynamicRenderScale) {
+            renderScale = renderScaler.adjust(renderScale, timer.getTimeInstace() - presentTime, period);
+        }
+
+        metrics.frameCompleted();
+    }
+
+    /**
+     * This method performs an update wich won't be presented, to recover the
+     * time lost by a slow frame. Its duration is recorded apart from the
+     * regular updates, and the frame is counted as skipped.
+     */
+    private void catchUpUpdate() {
+
+        long beforeTime = timer.getTimeInstace();
+
+        gameUpdate();
+
+        metrics.record(EngineMetrics.Phase.CATCH_UP, timer.getTimeInstace() - beforeTime);
+        metrics.frameSkipped();
+    }
+
+    /**
+     * This method takes a RenderSnapshot of the renderables and exchanges it with
+     * the renderer Thread.
+     *
+     * If the renderer Thread is busy for too long the snapshot is discarded, and
+     * it will be filled again at the next frame.
+     *
+     * If the snapshot has live entries, this method waits until the renderer
+     * Thread has presented it, so the live Renderable instances are never
+     * updated while they are being rendered.
+     *
+     * @see #takeSnapshot(userInterface.RenderSnapshot)
+     */
+    private void publishSnapshot() {
+
+        takeSnapshot(snapshot);
+
+        boolean live = snapshot.hasLiveEntries();
+
+        try {
+            snapshot = snapshotExchanger.exchange(snapshot, EXCHANGE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            if (live) {
+                while (running && !livePresented.tryAcquire(EXCHANGE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    //The renderer Thread is still rendering the live entries.
+                }
+            }
+        } catch (TimeoutException timeoutException) {
+            System.out.println("Renderer busy. Frame skipped.");
+            metrics.frameSkipped();
+        } catch (InterruptedException interruptedException) {
+            System.out.println("Not publishing.");
+        }
+    }
+
+    /**
+     * This method fills a RenderSnapshot with the renderables of the current
+     * frame, asking the GameControler for them first if they are out dated.
+     * The Snapshotable renderables describe themselves as images, while the
+     * rest of them are added as live entries, at the layer the RenderQueue
+     * keeps them in.
+     *
+     * @param target The RenderSnapshot to fill.
+     *
+     * @see Snapshotable#snapshot(control.interfaces.FrameSnapshot, double)
+     */
+    private void takeSnapshot(RenderSnapshot target) {
+
+        registry.refreshRenderables();
+
+        double snapshotInterpolation = fixedTimeStep ? interpolation : 1.0;
+
+        target.clear();
+
+        collectFrameRenderables();
+        for (int i = 0, count = frameRenderables.size(); i < count; i++) {
+            Renderable sprite = frameRenderables.get(i);
+            if (sprite instanceof Snapshotable) {
+                ((Snapshotable) sprite).snapshot(target, snapshotInterpolation);
+            } else {
+                target.addRenderable(sprite, registry.getRenderQueue().getZIndex(sprite));
+            }
+        }
+    }
+
+    /**
+     * This method overrides it's superClass (Jpanel) addNotify().
+     * It actually calls to <code>super.addNotify()</code> and
+     * <code>GameEngine.startEngine()</code>.
+     *
+     * That means that the GameEngine loop will start running when it's added
+     * to it's parent JComponent.
+     */
+    @Override
+    public void addNotify() {
+
+        super.addNotify();
+
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (window instanceof GameFrame) {
+            gameFrame = (GameFrame) window;
+        }
+
+        startEngine();
+    }
+
+    /**
+     * This method updates the Game by calling the update method from all the
+     * Updatable elements in game.
+     *
+     * It firsts asks the EngineRegistry to refresh the updatables, so they are
+     * asked again to the GameControler if they are out dated or null (for if the
+     * flys!), and the queued additions and removals are applied.
+     *
+     * Once the updatables are updated, then all the instances (sprites) are updated.
+     *
+     * @see EngineRegistry#refreshUpdatables()
+     * @see Updatable#update()
+     * @see Sprite#update()
+     */
+    private void gameUpdate() {
+
+        registry.refreshUpdatables();
+
+        ArrayList<Updatable> updatables = registry.getUpdatables();
+
+        if (updatables != null) {
+            if (parallelUpdate) {
+                getParallelUpdater().update(updatables);
+            } else {
+                for (Updatable sprite : updatables) {
+                    sprite.update();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * This method tells all the Interpolable updatables to save their current
+     * state as the previous one. It's invoked before each update in fixed time
+     * step mode.
+     *
+     * @see Interpolable#savePreviousState()
+     */
+    private void savePreviousStates() {
+
+        registry.refreshUpdatables();
+
+        ArrayList<Updatable> updatables = registry.getUpdatables();
+
+        if (updatables != null) {
+            for (Updatable sprite : updatables) {
+                if (sprite instanceof Interpolable) {
+                    ((Interpolable) sprite).savePreviousState();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method renders the Game by calling the render method on all the
+     * Renderable elements in game.
+     *
+     * It firsts asks the EngineRegistry to refresh the renderables, so they are
+     * asked again to the GameControler if they are outdated or null (for if the
+     * flys!), and the queued additions, removals and restacks are applied.
+     *
+     * Since the renderables are updated, the method checks if the Image object
+     * holded by the <code>image</code> field is null. If it is, it creates the
+     * image using <code>JPanel.createImage(int width, int height)</code> using
+     * the GameEngine width and height. If image exists or if it's just newly
+     * instantiated, a new Graphics object is created from it (while the old drawn
+     * Image is yet on shown at the screen, like a DoubleBuffer).
+     *
+     * This Graphics instance fills the background and after that the Renderable
+     * instances from the game (sprites) are all rendered, layer by layer from
+     * the lowest zIndex to the highest one. In fixed time step mode the
+     * Interpolable ones are rendered at the current interpolation value.
+     *
+     * Finally, if the GameEngine is asked to show its status the method call the
+     * <code>Stats.reportStats()</code> method and render its output to the upper
+     * left corner.
+     *
+     * @see EngineRegistry#refreshRenderables()
+     * @see Renderable#render()
+     * @see Sprite#render()
+     */
+    private void gameRender() {
+
+        registry.refreshRenderables();
+
+        if (!prepareImage()) {
+            return;
+        }
+
+        renderScene(graphics);
+    }
+
+    /**
+     * This method renders the frame using the given Graphics object, asking
+     * the GameControler for the renderables first if they are out dated. It
+     * renders the same as <code>gameRender()</code>, but to any Graphics object.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     *
+     * @see #renderScene(java.awt.Graphics)
+     */
+    void renderFrame(Graphics g) {
+
+        registry.refreshRenderables();
+
+        renderScene(g);
+    }
+
+    /**
+     * This method fills the background and renders the renderables and the
+     * engine status using the given Graphics object.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     */
+    private void renderScene(Graphics g) {
+
+        g.fillRect(0, 0, width, height);
+
+        if (registry.getRenderables() != null) {
+            collectFrameRenderables();
+            HashMap<Integer, LayerCache> caches = staticLayers;
+            LayerCache drawnCache = null;
+            for (int i = 0, count = frameRenderables.size(); i < count; i++) {
+                Renderable sprite = frameRenderables.get(i);
+                if (!caches.isEmpty()) {
+                    //The renderables are sorted by layer, so a static layer is
+                    //drawn once, at its first renderable, and the rest are skipped.
+                    int zIndex = registry.getRenderQueue().getZIndex(sprite);
+                    LayerCache cache = caches.get(zIndex);
+                    if (cache != null) {
+                        if (cache != drawnCache) {
+                            cache.draw(g, registry.getRenderQueue().findLayer(zIndex), width, height);
+                            drawnCache = cache;
+                        }
+                        continue;
+                    }
+                }
+                if (fixedTimeStep && sprite instanceof Interpolable) {
+                    ((Interpolable) sprite).render(g, interpolation);
+                } else {
+                    sprite.render(g);
+                }
+            }
+        } else {
+            System.out.println("drawables in GameEngine is null!");
+        }
+
+        if (showingEngineStatus) {
+            stats.reportStats();
+            stats.render(g);
+        }
+    }
+
+    /**
+     * This method fills the frameRenderables list with the renderables to draw
+     * at this frame, in rendering order.
+     *
+     * If the viewport culling is on and there's a camera, only the renderables
+     * found through the camera (grown by the culling margin) are kept. They
+     * are asked to the GameControler, wich finds them through a spatial query
+     * instead of checking all of them, and they are sorted by layer. Otherwise
+     * all the renderables are kept.
+     *
+     * The drawn and culled counts are reported to the Stats instance when the
+     * viewport culling is on.
+     *
+     * @see GameControler#collectVisibleRenderables(java.awt.Rectangle, java.util.ArrayList)
+     * @see RenderQueue#sort(java.util.ArrayList)
+     */
+    private void collectFrameRenderables() {
+
+        frameRenderables.clear();
+
+        Rectangle camera = viewportCulling ? registry.getGameController().getCamera() : null;
+
+        if (camera != null) {
+            camera.grow(cullingMargin, cullingMargin);
+            registry.getGameController().collectVisibleRenderables(camera, frameRenderables);
+            registry.getRenderQueue().sort(frameRenderables);
+        } else {
+            registry.getRenderQueue().collect(frameRenderables);
+        }
+
+        drawnRenderables = frameRenderables.size();
+        culledRenderables = registry.getRenderQueue().size() - drawnRenderables;
+
+        if (viewportCulling) {
+            stats.reportCulling(drawnRenderables, culledRenderables);
+        }
+    }
+
+    /**
+     * This method renders a RenderSnapshot taken by the animator Thread. It's
+     * invoked by the renderer Thread in pipelined mode.
+     *
+     * @param rendering The RenderSnapshot to render.
+     *
+     * @see #runRenderer()
+     */
+    private void renderSnapshot(RenderSnapshot rendering) {
+
+        if (!prepareImage()) {
+            return;
+        }
+
+        renderSnapshotScene(graphics, rendering);
+    }
+
+    /**
+     * This method renders only the damaged regions of the frame to the back
+     * image. If no RenderSnapshot is given, one is taken from the renderables.
+     *
+     * The whole frame is damaged when the back image is created and while the
+     * engine status is shown, since the status overlay changes on its own.
+     *
+     * @param rendering The RenderSnapshot to render, or null to render the
+     * renderables.
+     *
+     * @see DirtyRectangleRenderer#computeDamage(userInterface.RenderSnapshot, int, int)
+     */
+    private void renderDamage(RenderSnapshot rendering) {
+
+        if (rendering == null) {
+            takeSnapshot(dirtySnapshot);
+            rendering = dirtySnapshot;
+        }
+
+        if (image == null || showingEngineStatus) {
+            dirtyRenderer.invalidate();
+        }
+
+        if (!prepareImage()) {
+            return;
+        }
+
+        dirtyRenderer.computeDamage(rendering, width, height);
+        dirtyRenderer.render(graphics, rendering);
+
+        if (showingEngineStatus) {
+            stats.reportStats();
+            stats.render(graphics);
+        }
+    }
+
+    /**
+     * This method composes the frame with the SoftwareRasterizer, writing the
+     * images straight into the pixels of the back image. If no RenderSnapshot
+     * is given, one is taken from the renderables. The engine status is drawn
+     * through the Graphics of the back image.
+     *
+     * @param rendering The RenderSnapshot to render, or null to render the
+     * renderables.
+     *
+     * @see SoftwareRasterizer#render(userInterface.RenderSnapshot)
+     */
+    private void renderSoftware(RenderSnapshot rendering) {
+
+        if (rendering == null) {
+            takeSnapshot(softwareSnapshot);
+            rendering = softwareSnapshot;
+        }
+
+        if (!prepareImage()) {
+            return;
+        }
+
+        rasterizer.clear(graphics.getColor());
+        rasterizer.render(rendering);
+
+        if (showingEngineStatus) {
+            stats.reportStats();
+            stats.render(graphics);
+        }
+    }
+
+    /**
+     * This method fills the background and renders a RenderSnapshot and the
+     * engine status using the given Graphics object.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param rendering The RenderSnapshot to render.
+     */
+    private void renderSnapshotScene(Graphics g, RenderSnapshot rendering) {
+
+        g.fillRect(0, 0, width, height);
+
+        rendering.render(g);
+
+        if (showingEngineStatus) {
+            stats.reportStats();
+            stats.render(g);
+        }
+    }
+
+    /**
+     * This method renders the frame straight into the BufferStrategy of the
+     * GameFrame and shows it (page flipping when the hardware supports it).
+     *
+     * The drawing Graphics are translated to the GameEngine location inside
+     * the GameFrame and clipped to its size. The rendering is repeated while
+     * the buffer contents are restored, and the whole frame is repeated if they
+     * are lost before being shown, as the BufferStrategy contract requires.
+     *
+     * @param rendering The RenderSnapshot to render, or null to render the
+     * renderables.
+     *
+     * @return true if the frame has been presented. false if the BufferStrategy
+     * presentation is off or not avaible, so the back image should be used.
+     */
+    private boolean presentWithBufferStrategy(RenderSnapshot rendering) {
+
+        if (!bufferStrategyPresentation || softwareRendering || gameFrame == null) {
+            return false;
+        }
+
+        BufferStrategy strategy = gameFrame.getGameBufferStrategy();
+        if (strategy == null || !isShowing()) {
+            return false;
+        }
+
+        try {
+            Point location = SwingUtilities.convertPoint(this, 0, 0, gameFrame);
+            long renderTime = 0L;
+            long drawTime = 0L;
+
+            //A scaled or captured frame is rendered once to the back image, and
+            //only its drawing is repeated if the buffer contents are lost.
+            boolean throughImage = isRenderScaled() || frameCapture != null;
+            if (throughImage) {
+                long beforeTime = timer.getTimeInstace();
+                if (rendering == null) {
+                    gameRender();
+                } else {
+                    renderSnapshot(rendering);
+                }
+                renderTime = timer.getTimeInstace() - beforeTime;
+            }
+
+            do {
+                long beforeTime = timer.getTimeInstace();
+                do {
+                    Graphics g = strategy.getDrawGraphics();
+                    try {
+                        g.translate(location.x, location.y);
+                        g.clipRect(0, 0, width, height);
+                        if (throughImage) {
+                            drawScaledImage(g);
+                        } else if (rendering == null) {
+                            renderScene(g);
+                        } else {
+                            renderSnapshotScene(g, rendering);
+                        }
+                    } finally {
+                        g.dispose();
+                    }
+                } while (strategy.contentsRestored());
+
+                long renderedTime = timer.getTimeInstace();
+                renderTime += renderedTime - beforeTime;
+
+                strategy.show();
+
+                drawTime += timer.getTimeInstace() - renderedTime;
+            } while (strategy.contentsLost());
+
+            long beforeSyncTime = timer.getTimeInstace();
+
+            //The next line is needed by some OS wich currently doesn't synchronise
+            //the display buffer.
+            Toolkit.getDefaultToolkit().sync();
+
+            metrics.record(EngineMetrics.Phase.RENDER, renderTime);
+            metrics.record(EngineMetrics.Phase.DRAW, drawTime + timer.getTimeInstace() - beforeSyncTime);
+        } catch (IllegalStateException stateEx) {
+            //The BufferStrategy has been disposed (i.e. the window peer changed).
+            System.out.println("BufferStrategy not avaible: " + stateEx.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * This method creates the image used to render the frames if it doesn't
+     * exist yet, and extracts its Graphics object. In software rendering mode
+     * the image is the one owned by the SoftwareRasterizer.
+     *
+     * @return true if the image is ready to be rendered. false otherwise.
+     */
+    private boolean prepareImage() {
+
+        if (softwareRendering) {
+            if (rasterizer == null || rasterizer.getWidth() != width || rasterizer.getHeight() != height) {
+                if (rasterizer != null) {
+                    rasterizer.shutdown();
+                }
+                rasterizer = new SoftwareRasterizer(width, height);
+            }
+            if (rasterizer.getBands() != renderingBands) {
+                rasterizer.setBands(renderingBands);
+            }
+            if (image != rasterizer.getImage()) {
+                image = rasterizer.getImage();
+                graphics = rasterizer.getGraphics();
+                //The rasterizer image is never scaled, even if a scaled one
+                //was being used before.
+                imageScale = 1.0;
+                imageWidth = width;
+                imageHeight = height;
+                //Like the images created by the GameEngine, the Graphics start
+                //with its foreground Color, wich fills the background.
+                graphics.setColor(getForeground() != null ? getForeground() : Color.black);
+            }
+            return true;
+        }
+
+        if (rasterizer != null) {
+            if (image == rasterizer.getImage()) {
+                image = null;
+            }
+            rasterizer.shutdown();
+            rasterizer = null;
+        }
+
+        double scale = isRenderScaled() ? renderScale : 1.0;
+
+        if (image != null && scale != imageScale) {
+            image = null;
+        }
+
+        if (image == null) {
+            imageWidth = Math.max(1, (int) Math.round(width * scale));
+            imageHeight = Math.max(1, (int) Math.round(height * scale));
+            image = createImage(imageWidth, imageHeight);
+            if (image == null) {
+                System.out.println("dbImage is null");
+                return false;
+            } else {
+                graphics = image.getGraphics();
+                imageScale = scale;
+                if (scale != 1.0) {
+                    //The renderables keep drawing at the GameEngine size.
+                    ((Graphics2D) graphics).scale((double) imageWidth / width, (double) imageHeight / height);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     *
+     * @return true if the back image is smaller than the GameEngine, so it
+     * should be upscaled when it's drawn. The render scale has no effect in
+     * software or dirty rectangle rendering modes.
+     */
+    private boolean isRenderScaled() {
+        return renderScale < 1.0 && !softwareRendering && !dirtyRectangleRendering;
+    }
+
+    /**
+     * This method draws the back image upscaled to the GameEngine size, with
+     * the nearest neighbour interpolation (the fastest one).
+     *
+     * @param g The Graphics object wich will perform the drawing.
+     */
+    private void drawScaledImage(Graphics g) {
+        g.drawImage(image, 0, 0, width, height, 0, 0, imageWidth, imageHeight, null);
+    }
+
+    /**
+     * This method draws the rendered image to the GameEngine using it's Graphics
+     * object.
+     */
+    private void gameDraw() {
+
+        Graphics g;
+        try {
+            g = this.getGraphics();
+            if ((g != null) && (image != null)) {
+                if (imageScale != 1.0) {
+                    drawScaledImage(g);
+                } else {
+                    g.drawImage(image, 0, 0, null);
+                }
+                g.dispose();
+            }
+            //The next line is needed by some OS wich currently doesn't synchronise
+            //the display buffer.
+            Toolkit.getDefaultToolkit().sync();
+        } catch (Exception ex) {
+            System.out.println("Graphics Error! :" + ex.getMessage());
+        }
+    }
+
+    /**
+     * This method draws only the damaged regions of the rendered image to the
+     * GameEngine using it's Graphics object.
+     *
+     * @see #renderDamage(userInterface.RenderSnapshot)
+     */
+    private void drawDamage() {
+
+        Graphics g;
+        try {
+            g = this.getGraphics();
+            if ((g != null) && (image != null)) {
+                ArrayList<Rectangle> damage = dirtyRenderer.getDamage();
+                for (int i = 0, regions = damage.size(); i < regions; i++) {
+                    Rectangle region = damage.get(i);
+                    int x2 = region.x + region.width;
+                    int y2 = region.y + region.height;
+                    g.drawImage(image, region.x, region.y, x2, y2, region.x, region.y, x2, y2, null);
+                }
+                g.dispose();
+            }
+            //The next line is needed by some OS wich currently doesn't synchronise
+            //the display buffer.
+            Toolkit.getDefaultToolkit().sync();
+        } catch (Exception ex) {
+            System.out.println("Graphics Error! :" + ex.getMessage());
+        }
+    }
+
+    /**
+     * This method overrides it's superClass (JPanel) paintComponent(). When
+     * Swing paints the GameEngine (i.e. after being covered by another window)
+     * the last frame is lost from the screen, so the whole next frame is drawn
+     * in dirty rectangle mode.
+     *
+     * @param g The Graphics object given by Swing.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+
+        super.paintComponent(g);
+
+        dirtyRenderer.invalidate();
+    }
+
+    /**
+     * This method sets the showingEngineStatus field to true, making the GameEngine
+     * instance keep showing it's status.
+     */
+    public void showEngineStatus() {
+        this.showingEngineStatus = true;
+    }
+
+    /**
+     * This method sets the showingEngineStatus field to false, making the GameEngine
+     * instance keep not showing it's status.
+     */
+    public void hideEngineStatus() {
+        this.showingEngineStatus = false;
+    }
+
+    /**
+     * This method makes the GameEngine keep showing it's status together with
+     * the durations of the loop phases.
+     *
+     * @see #getMetrics()
+     */
+    public void showEngineMetrics() {
+        stats.setMetrics(metrics);
+        this.showingEngineStatus = true;
+    }
+
+    /**
+     * This method makes the GameEngine stop showing the durations of the loop
+     * phases with it's status.
+     */
+    public void hideEngineMetrics() {
+        stats.setMetrics(null);
+    }
+
+    /**
+     * This method gets the current frames per second desired value.
+     *
+     * @return fps - the current frames per second value.
+     */
+    public int getFps() {
+        return fps;
+    }
+
+    /**
+     * This method sets the current frames per second desired value and updates
+     * the period.
+     * It sets the <code>Stats</code> period too.
+     *
+     * @param fps - the required non negative frames per second value
+     *
+     * @see GameEngine#updatePeriod()
+     * @see Stats#setPeriod(int)
+     */
+    public void setFps(int fps) {
+        if (fps > 0) {
+            this.fps = fps;
+            this.stats.setPeriod(fps);
+        }
+        updatePeriod();
+    }
+
+    /**
+     * This method returns the maximum number of frames that the GameEngine is
+     * allowed to skip if the iteration loop exceeds the period.
+     *
+     * @return maxFrameSkips - the number of frames that GameEngine can skip
+     */
+    public int getMaxFrameSkips() {
+        return maxFrameSkips;
+    }
+
+    /**
+     * This method sets the maxFrameSkips field
+     *
+     * @param maxFrameSkips - the desired integer non-negative value.
+     */
+    public void setMaxFrameSkips(int maxFrameSkips) {
+        if (maxFrameSkips > 0) {
             this.maxFrameSkips = maxFrameSkips;
         }
     }
 
+    /**
+     * This method returns true if the GameEngine renders in its own Thread.
+     *
+     * @return pipelined - the pipelined mode state
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * This method turns on or off the pipelined mode. It should be called before
+     * the GameEngine starts.
+     *
+     * While the pipelined mode is on, the frames are rendered from RenderSnapshot
+     * instances by a second Thread. The Renderable instances wich are not
+     * Snapshotable will have their render method invoked from that Thread, so
+     * the frames wich hold any of them aren't pipelined: the next update waits
+     * until they have been presented.
+     *
+     * @param pipelined - true to render in a separated Thread. false to update,
+     * render and draw in the animator Thread.
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * This method returns true if the GameEngine updates the ParallelUpdatable
+     * instances in parallel.
+     *
+     * @return parallelUpdate - the parallel update state
+     */
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    /**
+     * This method turns on or off the parallel update. While it's on, the
+     * <code>compute()</code> method of the ParallelUpdatable instances is invoked
+     * from several Threads, and then every updatable is committed or updated
+     * in order, producing the same result as the sequential update.
+     *
+     * @param parallelUpdate - true to update in parallel. false to update every
+     * instance sequentially.
+     *
+     * @see ParallelUpdater
+     */
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    /**
+     *
+     * @return The ParallelUpdater used when the parallel update is on.
+     */
+    private ParallelUpdater getParallelUpdater() {
+
+        if (parallelUpdater == null) {
+            parallelUpdater = new ParallelUpdater();
+        }
+
+        return parallelUpdater;
+    }
+
+    /**
+     * This method returns the durations of the loop phases recorded at every
+     * frame. They can be exposed through JMX with <code>registerMBean()</code>,
+     * and drawn with the engine status using <code>Stats.setMetrics()</code>.
+     *
+     * @return metrics - the EngineMetrics of this GameEngine
+     *
+     * @see EngineMetrics#registerMBean()
+     * @see Stats#setMetrics(userInterface.EngineMetrics)
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * This method returns the frame pacer used to wait until the end of each
+     * period. It can be asked for the measured pacing jitter.
+     *
+     * @return pacer - the current JannatonPacer
+     */
+    public JannatonPacer getPacer() {
+        return pacer;
+    }
+
+    /**
+     * This method sets the frame pacer used to wait until the end of each period.
+     * A HybridPacer in power saving mode can be used to avoid spinning.
+     *
+     * @param pacer - the desired non null JannatonPacer
+     *
+     * @see HybridPacer#setPowerSaving(boolean)
+     */
+    public void setPacer(JannatonPacer pacer) {
+        if (pacer != null) {
+            this.pacer = pacer;
+        }
+    }
+
+    /**
+     *
+     * @return true if the renderables outside the camera are skipped.
+     */
+    public boolean isViewportCulling() {
+        return viewportCulling;
+    }
+
+    /**
+     * This method turns the viewport culling on or off. When it's on, at a
+     * DinamicEnvironment only the renderables whose Scenario bounds intersect
+     * the camera are drawn, and the drawn and culled counts are shown by the
+     * engine status.
+     *
+     * The renderables should keep their Scenario and screen positions coherent,
+     * since they are culled by the first ones and drawn at the second ones.
+     *
+     * @param viewportCulling true to skip the renderables outside the camera.
+     *
+     * @see domain.Environment#getCamera()
+     */
+    public void setViewportCulling(boolean viewportCulling) {
+        this.viewportCulling = viewportCulling;
+    }
+
+    /**
+     *
+     * @return The number of pixels the camera is grown by before culling.
+     */
+    public int getCullingMargin() {
+        return cullingMargin;
+    }
+
+    /**
+     * This method sets the number of pixels the camera is grown by at each side
+     * before culling.
+     *
+     * @param cullingMargin The margin in pixels. Negative values are ignored.
+     */
+    public void setCullingMargin(int cullingMargin) {
+
+        if (cullingMargin >= 0) {
+            this.cullingMargin = cullingMargin;
+        }
+    }
+
+    /**
+     *
+     * @return The number of renderables drawn at the last frame.
+     */
+    public int getDrawnRenderables() {
+        return drawnRenderables;
+    }
+
+    /**
+     *
+     * @return The number of renderables skipped by the viewport culling at the
+     * last frame.
+     */
+    public int getCulledRenderables() {
+        return culledRenderables;
+    }
+
+    /**
+     * This method marks or unmarks a layer as static. The renderables of a
+     * static layer are pre-composited into a single cached image, wich is drawn
+     * with one blit and composed again only when the layer changes.
+     *
+     * It's intended for the layers whose sprites never move, like decorations,
+     * HUD frames or the Scenario of a StaticEnvironment. It only applies when
+     * the renderables are rendered directly (not in pipelined, dirty rectangle
+     * or software rendering modes).
+     *
+     * @param zIndex The zIndex of the layer.
+     * @param staticLayer true to cache the layer. false to render its
+     * renderables one by one again.
+     *
+     * @see LayerCache
+     * @see domain.Sprite#setZIndex(int)
+     */
+    public void setStaticLayer(int zIndex, boolean staticLayer) {
+
+        if (staticLayer == isStaticLayer(zIndex)) {
+            return;
+        }
+
+        HashMap<Integer, LayerCache> layers = new HashMap<Integer, LayerCache>(staticLayers);
+        if (staticLayer) {
+            layers.put(zIndex, new LayerCache(zIndex));
+        } else {
+            layers.remove(zIndex);
+        }
+        staticLayers = layers;
+    }
+
+    /**
+     *
+     * @param zIndex The zIndex of the layer.
+     *
+     * @return true if the layer is cached as a static one.
+     */
+    public boolean isStaticLayer(int zIndex) {
+        return staticLayers.containsKey(zIndex);
+    }
+
+    /**
+     * This method forces a static layer to be composed again at the next
+     * frame. It's only needed when a renderable of the layer wich isn't a Sprite
+     * looks different, since the Sprite changes are noticed automatically.
+     *
+     * @param zIndex The zIndex of the layer.
+     */
+    public void invalidateStaticLayer(int zIndex) {
+
+        LayerCache cache = staticLayers.get(zIndex);
+
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     *
+     * @param zIndex The zIndex of the layer.
+     *
+     * @return The cache of a static layer, or null if the layer isn't static.
+     */
+    public LayerCache getStaticLayerCache(int zIndex) {
+        return staticLayers.get(zIndex);
+    }
+
+    /**
+     *
+     * @return true if only the damaged regions of each frame are rendered and drawn.
+     */
+    public boolean isDirtyRectangleRendering() {
+        return dirtyRectangleRendering;
+    }
+
+    /**
+     * This method turns the dirty rectangle rendering on or off. When it's on,
+     * only the regions of the frame wich have changed since the previous one
+     * (the sprites wich moved, changed their image, or were added or removed)
+     * are rendered again and drawn to the screen. It's intended for mostly
+     * static screens, like board games or menus.
+     *
+     * The frames presented through the BufferStrategy are always whole, since
+     * its buffers are flipped, so this mode has no effect while the
+     * BufferStrategy presentation is on.
+     *
+     * @param dirtyRectangleRendering true to render only the damaged regions.
+     *
+     * @see DirtyRectangleRenderer
+     */
+    public void setDirtyRectangleRendering(boolean dirtyRectangleRendering) {
+        this.dirtyRectangleRendering = dirtyRectangleRendering;
+        dirtyRenderer.invalidate();
+    }
+
+    /**
+     *
+     * @return true if the frames are composed by writing straight into the
+     * pixels of the back image.
+     */
+    public boolean isSoftwareRendering() {
+        return softwareRendering;
+    }
+
+    /**
+     * This method turns the software rendering on or off. When it's on, the
+     * frames are composed by a SoftwareRasterizer, wich copies the images of
+     * the sprites straight into the pixels of a TYPE_INT_RGB back image with
+     * its own loops, instead of invoking <code>Graphics.drawImage()</code>
+     * for each of them. It's intended for scenes with thousands of small
+     * sprites, mostly on hosts where Java2D renders by software anyway.
+     *
+     * The sprites opt in by leaving <code>Sprite.render()</code> as it is (or
+     * by overriding <code>snapshot()</code> too), so they are described as
+     * images. A sprite wich overrides its render method is still rendered
+     * through the Graphics of the back image.
+     *
+     * The pixels of the rasterized images are read directly, so Java2D stops
+     * caching them in video memory. The BufferStrategy presentation and the
+     * dirty rectangle rendering have no effect while this mode is on.
+     *
+     * @param softwareRendering true to compose the frames with the SoftwareRasterizer.
+     *
+     * @see SoftwareRasterizer
+     */
+    public void setSoftwareRendering(boolean softwareRendering) {
+        this.softwareRendering = softwareRendering;
+        dirtyRenderer.invalidate();
+    }
+
+    /**
+     *
+     * @return The number of horizontal bands the frames are split in by the
+     * software rendering.
+     */
+    public int getRenderingBands() {
+        return renderingBands;
+    }
+
+    /**
+     * This method sets the number of horizontal bands the frames are split in
+     * by the software rendering. Each band is rasterized by its own Thread,
+     * clipping the sorted sprites to its rows, so the rendering of big frames
+     * (i.e. a full screen display mode at 1440p or 4K) scales with the cores.
+     * It's applied at the next frame.
+     *
+     * @param renderingBands The number of bands, usually the number of avaible
+     * processors. 1 rasterizes the frames in a single Thread. Values lower than
+     * 1 are ignored.
+     *
+     * @see #setSoftwareRendering(boolean)
+     * @see SoftwareRasterizer#setBands(int)
+     */
+    public void setRenderingBands(int renderingBands) {
+
+        if (renderingBands > 0) {
+            this.renderingBands = renderingBands;
+        }
+    }
+
+    /**
+     *
+     * @return The size of the rendered frames relative to the GameEngine size.
+     */
+    public double getRenderScale() {
+        return renderScale;
+    }
+
+    /**
+     * This method sets the internal render resolution as a share of the
+     * GameEngine size. The frames are rendered into a back image of that
+     * resolution (the renderables keep using the GameEngine coordinates) and
+     * upscaled once when they are drawn, so the rendering cost doesn't depend
+     * on the display mode of the GameFrame.
+     *
+     * The render scale has no effect in software or dirty rectangle rendering
+     * modes.
+     *
+     * @param renderScale The render scale, from 0.25 to 1. 1 renders at the
+     * GameEngine size. Values out of the range are clamped.
+     *
+     * @see #setDynamicRenderScale(boolean)
+     */
+    public void setRenderScale(double renderScale) {
+        this.renderScale = Math.max(0.25, Math.min(1.0, renderScale));
+    }
+
+    /**
+     *
+     * @return true if the render scale is adjusted to the measured rendering time.
+     */
+    public boolean isDynamicRenderScale() {
+        return dynamicRenderScale;
+    }
+
+    /**
+     * This method turns the dynamic render scale on or off. When it's on, the
+     * render scale is lowered when rendering and drawing the frames takes
+     * too much of the period, and raised again when there's time left, so
+     * the frames per second keep stable on slower machines.
+     *
+     * @param dynamicRenderScale true to adjust the render scale automatically.
+     *
+     * @see #getRenderScaler()
+     */
+    public void setDynamicRenderScale(boolean dynamicRenderScale) {
+        this.dynamicRenderScale = dynamicRenderScale;
+        renderScaler.reset();
+    }
+
+    /**
+     *
+     * @return The RenderScaler wich adjusts the render scale in dynamic mode,
+     * so its range and thresholds can be changed.
+     */
+    public RenderScaler getRenderScaler() {
+        return renderScaler;
+    }
+
+    /**
+     *
+     * @return The FrameCapture wich receives every presented frame, or null
+     * if the frames aren't captured.
+     */
+    public FrameCapture getFrameCapture() {
+        return frameCapture;
+    }
+
+    /**
+     * This method sets the FrameCapture wich receives every presented frame.
+     * The frames are captured from the back image, at the internal resolution
+     * when the render scale is lower than 1. While there's a FrameCapture, the
+     * BufferStrategy presentation renders each frame to the back image first.
+     *
+     * The previous FrameCapture isn't stopped.
+     *
+     * @param frameCapture The FrameCapture, or null to stop capturing frames.
+     */
+    public void setFrameCapture(FrameCapture frameCapture) {
+        this.frameCapture = frameCapture;
+    }
+
+    /**
+     * This method returns true if the GameEngine presents its frames through
+     * the BufferStrategy of its GameFrame.
+     *
+     * @return bufferStrategyPresentation - the BufferStrategy presentation state
+     */
+    public boolean isBufferStrategyPresentation() {
+        return bufferStrategyPresentation;
+    }
+
+    /**
+     * This method turns on or off the BufferStrategy presentation. While it's on,
+     * and the GameFrame has its BufferStrategy enabled, every frame is rendered
+     * into the next buffer and flipped to the screen, avoiding the copy of the
+     * back image. When there's no BufferStrategy avaible the GameEngine keeps
+     * drawing its back image.
+     *
+     * @param bufferStrategyPresentation - true to present the frames through the
+     * BufferStrategy. false to draw the back image.
+     *
+     * @see GameFrame#enableBufferStrategy()
+     */
+    public void setBufferStrategyPresentation(boolean bufferStrategyPresentation) {
+        this.bufferStrategyPresentation = bufferStrategyPresentation;
+    }
+
+    /**
+     * This method returns true if the GameEngine updates at a fixed rate
+     * interpolating the renderings.
+     *
+     * @return fixedTimeStep - the fixed time step mode state
+     */
+    public boolean isFixedTimeStep() {
+        return fixedTimeStep;
+    }
+
+    /**
+     * This method turns on or off the fixed time step mode. It should be called
+     * before the GameEngine starts, since the loop is choosen when it starts running.
+     *
+     * @param fixedTimeStep - true to update at the ups rate interpolating the
+     * renderings. false to tie the updates to the frames.
+     *
+     * @see #setUps(int)
+     */
+    public void setFixedTimeStep(boolean fixedTimeStep) {
+        this.fixedTimeStep = fixedTimeStep;
+    }
+
+    /**
+     * This method gets the current updates per second desired value used in
+     * fixed time step mode.
+     *
+     * @return ups - the current updates per second value.
+     */
+    public int getUps() {
+        return ups;
+    }
+
+    /**
+     * This method sets the updates per second desired value used in fixed time
+     * step mode and updates the update period.
+     *
+     * @param ups - the required non negative updates per second value
+     */
+    public void setUps(int ups) {
+        if (ups > 0) {
+            this.ups = ups;
+            this.updatePeriod = 1000000000L / ups;
+        }
+    }
+
     /**
      * This method returns the number of delays that the GameEngine will permit
      * before invoking <code>Thread.yield()</code>
@@ -630,10 +2089,10 @@ public class GameEngine extends JPanel implements Runnable {
 
     /**
      * This method updates the period that a single loop iteration from the
-     * GameEngine.run() method should take (in milliseconds)
+     * GameEngine.run() method should take (in nanoseconds)
      */
     private void updatePeriod() {
-        this.period = (long) 1000.0 / fps;
+        this.period = 1000000000L / fps;
     }
 
     /**
@@ -642,20 +2101,7 @@ public class GameEngine extends JPanel implements Runnable {
      * @return renderables - the Renderable ArrayList
      */
     public ArrayList<Renderable> getRenderables() {
-        return renderables;
-    }
-
-    /**
-     * This method sets the renderables ArrayList.
-     *
-     * @param renderables - a non null ArrayList of Renderable
-     */
-    private void setRenderables(ArrayList<Renderable> renderables) {
-        if (renderables != null) {
-            this.renderables = renderables;
-        } else {
-            System.out.println("Warning! Renderables not setted.");
-        }
+        return registry.getRenderables();
     }
 
     /**
@@ -664,16 +2110,7 @@ public class GameEngine extends JPanel implements Runnable {
      * @return updatables
      */
     public ArrayList<Updatable> getUpdatables() {
-        return updatables;
-    }
-
-    /**
-     * This method sets the updatables ArrayList.
-     *
-     * @param updatables - a non null <code>rrayList of Updatable instances
-     */
-    private void setUpdatables(ArrayList<Updatable> updatables) {
-        this.updatables = updatables;
+        return registry.getUpdatables();
     }
 
     /**
@@ -714,12 +2151,72 @@ public class GameEngine extends JPanel implements Runnable {
         setPreferredSize(new Dimension(width, height));
     }
 
+    /**
+     *
+     * @return The GameEngine preferred Dimension.
+     *
+     * @see #setEngineDimension(int, int)
+     */
+    public Dimension getEngineDimension() {
+        return getPreferredSize();
+    }
+
+    /**
+     * This method queues the addition of an Updatable. It will be updated from
+     * the next update on.
+     *
+     * @param updatable - the Updatable to add
+     */
+    public void addUpdatable(Updatable updatable) {
+        registry.addUpdatable(updatable);
+    }
+
+    /**
+     * This method queues the removal of an Updatable. It won't be updated from
+     * the next update on.
+     *
+     * @param updatable - the Updatable to remove
+     */
+    public void removeUpdatable(Updatable updatable) {
+        registry.removeUpdatable(updatable);
+    }
+
+    /**
+     * This method queues the addition of a Renderable. It will be rendered from
+     * the next rendering on.
+     *
+     * @param renderable - the Renderable to add
+     */
+    public void addRenderable(Renderable renderable) {
+        registry.addRenderable(renderable);
+    }
+
+    /**
+     * This method queues the removal of a Renderable. It won't be rendered from
+     * the next rendering on.
+     *
+     * @param renderable - the Renderable to remove
+     */
+    public void removeRenderable(Renderable renderable) {
+        registry.removeRenderable(renderable);
+    }
+
+    /**
+     * This method queues the restack of a Renderable wich has changed its
+     * zIndex. It will be rendered at its new layer from the next rendering on.
+     *
+     * @param renderable - the Renderable to restack
+     */
+    public void restackRenderable(Renderable renderable) {
+        registry.restackRenderable(renderable);
+    }
+
     /**
      * This method tells the GameEngine that its updatables are outdated. Doing that
      * wil cause the updatables to update at the next updating stage.
      */
     public void setUpdatablesToOutDated() {
-        this.updatablesOutDated = true;
+        registry.setUpdatablesToOutDated();
     }
 
     /**
@@ -727,7 +2224,7 @@ public class GameEngine extends JPanel implements Runnable {
      * wil cause the renderables to update at the next rendering stage.
      */
     public void setRenderablesToOutDated() {
-        this.renderablesOutDated = true;
+        registry.setRenderablesToOutDated();
     }
 
     /**
@@ -737,12 +2234,7 @@ public class GameEngine extends JPanel implements Runnable {
      * @param gameController - the desired non null GameControler instance.
      */
     public void addGameController(GameControler gameController) {
-
-        if (gameController != null && controller == null) {
-            controller = gameController;
-        } else {
-            System.out.println("Another controller was previously added. Aborting.");
-        }
+        registry.addGameController(gameController);
     }
 
     /**
@@ -7,6 +7,7 @@ import java.awt.GraphicsDevice;
 import java.awt.Toolkit;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferStrategy;
 import javax.swing.JFrame;
 
 /**
@@ -88,6 +89,22 @@ public class GameFrame extends JFrame {
      * Java Full Screen Exclusive Mode enabled. It's default value is false
      */
     private boolean isFullScreenModeOn = false;
+    /**
+     * The BufferStrategy owned by this GameFrame. When it's not null, the
+     * GameEngine can present its frames by page flipping (or blitting, if
+     * flipping isn't avaible) instead of drawing its back image.
+     *
+     * @see #enableBufferStrategy()
+     * @see GameEngine#setBufferStrategyPresentation(boolean)
+     */
+    private BufferStrategy bufferStrategy;
+    /**
+     * The number of buffers requested when the BufferStrategy is created.
+     * It's default value is 2.
+     *
+     * @see #setNumberOfBuffers(int)
+     */
+    private int numberOfBuffers = 2;
 
     //
     //Constructors
@@ -253,6 +270,7 @@ public class GameFrame extends JFrame {
         if (isFullScreenModeSupported && !isFullScreenModeOn) {
             graphicsDevice.setFullScreenWindow(this);
             isFullScreenModeOn = true;
+            recreateBufferStrategy();
         } else {
             System.out.println("Error: Full Screen Exclusive Mode Not Supported.");
         }
@@ -274,6 +292,7 @@ public class GameFrame extends JFrame {
 
         setGameFrameDimension(gameFrameDimension);
         setVisible(true);
+        recreateBufferStrategy();
     }
 
     /**
@@ -307,6 +326,7 @@ public class GameFrame extends JFrame {
                 if (isNewModeAvaible) {
                     graphicsDevice.setDisplayMode(newDisplayMode);
                     currentDisplayMode = newDisplayMode;
+                    recreateBufferStrategy();
                 }
 
             } else {
@@ -327,6 +347,108 @@ public class GameFrame extends JFrame {
         }
     }
 
+    /**
+     * This method creates the BufferStrategy used for active rendering. The
+     * GameFrame should be displayable (shown) before calling it. Once the
+     * BufferStrategy exists, the repaint events are ignored since the GameEngine
+     * is the responsible of presenting every frame.
+     *
+     * The strategy is recreated each time the Full Screen Exclusive Mode or the
+     * DisplayMode changes.
+     *
+     * @return true if the BufferStrategy has been created. false otherwise.
+     */
+    public boolean enableBufferStrategy() {
+
+        if (!isDisplayable()) {
+            System.out.println("The GameFrame is not displayable. BufferStrategy not created.");
+            return false;
+        }
+
+        try {
+            setIgnoreRepaint(true);
+            if (engine != null) {
+                engine.setIgnoreRepaint(true);
+            }
+            createBufferStrategy(numberOfBuffers);
+            bufferStrategy = getBufferStrategy();
+        } catch (IllegalStateException stateEx) {
+            System.out.println("Error: BufferStrategy not created. " + stateEx.getMessage());
+            bufferStrategy = null;
+        }
+
+        return bufferStrategy != null;
+    }
+
+    /**
+     * This method disposes the BufferStrategy, making the GameEngine go back to
+     * drawing its back image.
+     */
+    public void disableBufferStrategy() {
+
+        if (bufferStrategy != null) {
+            bufferStrategy.dispose();
+            bufferStrategy = null;
+        }
+
+        setIgnoreRepaint(false);
+        if (engine != null) {
+            engine.setIgnoreRepaint(false);
+        }
+    }
+
+    /**
+     * This method recreates the BufferStrategy if it was enabled. It's invoked
+     * when the window peer changes. If the GameFrame is not displayable anymore
+     * the BufferStrategy is just forgotten.
+     */
+    void recreateBufferStrategy() {
+
+        if (bufferStrategy != null) {
+            bufferStrategy = null;
+            enableBufferStrategy();
+        }
+    }
+
+    /**
+     *
+     * @return The BufferStrategy owned by this GameFrame. null if it's not enabled.
+     */
+    public BufferStrategy getGameBufferStrategy() {
+        return bufferStrategy;
+    }
+
+    /**
+     *
+     * @return true if the BufferStrategy is presenting the frames by page flipping.
+     * false if it's blitting them or if it's not enabled.
+     */
+    public boolean isPageFlipping() {
+        return bufferStrategy != null && bufferStrategy.getCapabilities().isPageFlipping();
+    }
+
+    /**
+     *
+     * @return The number of buffers requested for the BufferStrategy.
+     */
+    public int getNumberOfBuffers() {
+        return numberOfBuffers;
+    }
+
+    /**
+     * This method sets the number of buffers requested for the BufferStrategy.
+     * If the BufferStrategy is enabled, it's recreated.
+     *
+     * @param numberOfBuffers The number of buffers. It should be 2 or more.
+     */
+    public void setNumberOfBuffers(int numberOfBuffers) {
+
+        if (numberOfBuffers >= 2) {
+            this.numberOfBuffers = numberOfBuffers;
+            recreateBufferStrategy();
+        }
+    }
+
     /**
      * This method gets the current DisplayMode for the GameEngine instace.
      *
@@ -0,0 +1,271 @@
+package userInterface;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * This class is a bitmap font: the printable ASCII characters of a Font are
+ * rasterized once, in a given Color, into a single image (the atlas). Then a
+ * text is drawn copying the region of each character from the atlas, wich is
+ * much cheaper than laying out and rasterizing the text with
+ * <code>Graphics.drawString()</code>, and it doesn't create any object.
+ *
+ * It's used by Stats, and it can be used by any game HUD along with a
+ * TextBuffer to draw a text wich changes every frame without allocating
+ * memory.
+ *
+ * The characters out of the printable ASCII range are drawn as '?'. The
+ * kerning of the Font is lost, since every character is drawn with its own
+ * advance.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see TextBuffer
+ */
+public class GlyphAtlas {
+
+    //
+    // Fields
+    //
+    /**
+     * The first character of the atlas (the space).
+     */
+    private static final char FIRST_CHAR = ' ';
+    /**
+     * The last character of the atlas (the tilde).
+     */
+    private static final char LAST_CHAR = '~';
+    /**
+     * The pixels left at each side of a glyph, so the parts of the characters
+     * wich go beyond their advance aren't cut.
+     */
+    private static final int GLYPH_PADDING = 2;
+    /**
+     * The image with all the glyphs in a row.
+     */
+    private final BufferedImage atlas;
+    /**
+     * The x coordinate of each glyph at the atlas.
+     */
+    private final int[] glyphX = new int[LAST_CHAR - FIRST_CHAR + 1];
+    /**
+     * The advance of each glyph.
+     */
+    private final int[] advances = new int[LAST_CHAR - FIRST_CHAR + 1];
+    /**
+     * The width of each glyph at the atlas, padding included.
+     */
+    private final int[] glyphWidths = new int[LAST_CHAR - FIRST_CHAR + 1];
+    /**
+     * The distance from the baseline to the top of the glyphs.
+     */
+    private final int ascent;
+    /**
+     * The height of the glyphs (the Font ascent plus its descent).
+     */
+    private final int height;
+    /**
+     * The Font of the glyphs.
+     */
+    private final Font font;
+    /**
+     * The Color of the glyphs.
+     */
+    private final Color color;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. The glyphs are rasterized at once.
+     *
+     * @param font The Font of the glyphs.
+     * @param color The Color of the glyphs.
+     */
+    public GlyphAtlas(Font font, Color color) {
+
+        this.font = font;
+        this.color = color;
+
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D scratchGraphics = scratch.createGraphics();
+        FontMetrics metrics = scratchGraphics.getFontMetrics(font);
+        scratchGraphics.dispose();
+
+        ascent = metrics.getAscent();
+        height = Math.max(ascent + metrics.getDescent(), 1);
+
+        int x = 0;
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++) {
+            int index = c - FIRST_CHAR;
+            advances[index] = metrics.charWidth(c);
+            glyphX[index] = x;
+            glyphWidths[index] = advances[index] + 2 * GLYPH_PADDING;
+            x += glyphWidths[index];
+        }
+
+        atlas = new BufferedImage(Math.max(x, 1), height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = atlas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        g.setColor(color);
+
+        char[] glyph = new char[1];
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++) {
+            int index = c - FIRST_CHAR;
+            glyph[0] = c;
+            g.setClip(glyphX[index], 0, glyphWidths[index], height);
+            g.drawChars(glyph, 0, 1, glyphX[index] + GLYPH_PADDING, ascent);
+        }
+        g.dispose();
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method draws some characters.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param chars The array wich holds the characters.
+     * @param offset The position of the first character to draw.
+     * @param length The number of characters to draw.
+     * @param x The x coordinate where the text starts.
+     * @param y The y coordinate of the baseline, as in <code>Graphics.drawString()</code>.
+     *
+     * @return The x coordinate where the text ends.
+     */
+    public int drawChars(Graphics g, char[] chars, int offset, int length, int x, int y) {
+
+        int top = y - ascent;
+
+        for (int i = offset, end = offset + length; i < end; i++) {
+            x = drawGlyph(g, chars[i], x, top);
+        }
+
+        return x;
+    }
+
+    /**
+     * This method draws the text of a TextBuffer.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param text The text to draw.
+     * @param x The x coordinate where the text starts.
+     * @param y The y coordinate of the baseline, as in <code>Graphics.drawString()</code>.
+     *
+     * @return The x coordinate where the text ends.
+     */
+    public int drawText(Graphics g, TextBuffer text, int x, int y) {
+        return drawChars(g, text.getChars(), 0, text.length(), x, y);
+    }
+
+    /**
+     * This method draws a text.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param text The text to draw.
+     * @param x The x coordinate where the text starts.
+     * @param y The y coordinate of the baseline, as in <code>Graphics.drawString()</code>.
+     *
+     * @return The x coordinate where the text ends.
+     */
+    public int drawString(Graphics g, CharSequence text, int x, int y) {
+
+        int top = y - ascent;
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            x = drawGlyph(g, text.charAt(i), x, top);
+        }
+
+        return x;
+    }
+
+    /**
+     * This method draws a single character.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param c The character.
+     * @param x The x coordinate where the character starts.
+     * @param top The y coordinate of the top of the glyph.
+     *
+     * @return The x coordinate where the next character starts.
+     */
+    private int drawGlyph(Graphics g, char c, int x, int top) {
+
+        int index = (c < FIRST_CHAR || c > LAST_CHAR ? '?' : c) - FIRST_CHAR;
+
+        if (c != ' ') {
+            int sourceX = glyphX[index];
+            int targetX = x - GLYPH_PADDING;
+            g.drawImage(atlas, targetX, top, targetX + glyphWidths[index], top + height,
+                    sourceX, 0, sourceX + glyphWidths[index], height, null);
+        }
+
+        return x + advances[index];
+    }
+
+    /**
+     *
+     * @param text A text.
+     *
+     * @return The width of the text when it's drawn with this atlas.
+     */
+    public int getWidth(CharSequence text) {
+
+        int width = 0;
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            width += advances[(c < FIRST_CHAR || c > LAST_CHAR ? '?' : c) - FIRST_CHAR];
+        }
+
+        return width;
+    }
+
+    /**
+     *
+     * @return The height of the glyphs.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     *
+     * @return The distance from the baseline to the top of the glyphs.
+     */
+    public int getAscent() {
+        return ascent;
+    }
+
+    /**
+     *
+     * @return The Font of the glyphs.
+     */
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     *
+     * @return The Color of the glyphs.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     *
+     * @return The image with all the glyphs.
+     */
+    public BufferedImage getAtlas() {
+        return atlas;
+    }
+}
@@ -0,0 +1,569 @@
+package userInterface;
+
+import control.GameControler;
+import control.interfaces.JannatonEngine;
+import control.interfaces.Renderable;
+import control.interfaces.Updatable;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import timers.HybridPacer;
+import timers.TimerNano;
+import timers.interfaces.JannatonPacer;
+import timers.interfaces.JannatonTimer;
+
+/**
+ * This class acts as a game engine wich doesn't need any display. It drives the
+ * same updatables offered by the GameControler as the GameEngine does, but it's
+ * not a Component, so it can run the game logic at a server, at batch tests, or
+ * at performance benchmarks on hosts without display.
+ *
+ * The HeadlessEngine can run in two ways:
+ * <ul>
+ * <li>At real time: <code>start()</code> launches a Thread wich updates at the
+ * ups rate until <code>terminate()</code> is invoked.</li>
+ * <li>As fast as possible: <code>runTicks(long)</code> updates the given number
+ * of times in the calling Thread, without sleeping.</li>
+ * </ul>
+ *
+ * Optionally, the renderables can be rendered after every update to an offscreen
+ * BufferedImage, wich doesn't need a display either.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine
+ * @see #setOffscreenRendering(boolean)
+ */
+public class HeadlessEngine implements Runnable, JannatonEngine {
+
+    //
+    // Fields
+    //
+    /**
+     * The HeadlessEngine itself.
+     */
+    private static HeadlessEngine engine;
+    /**
+     * The updatables and renderables of the HeadlessEngine, and the GameControler
+     * wich offers them.
+     */
+    private final EngineRegistry registry = new EngineRegistry();
+    /**
+     * The width of the offscreen render target and of the client area reported
+     * to the GameControler.
+     */
+    private int width = 640;
+    /**
+     * The height of the offscreen render target and of the client area reported
+     * to the GameControler.
+     */
+    private int height = 480;
+    /**
+     * If it's true, the renderables are rendered to the offscreen render target
+     * after each update.
+     */
+    private boolean offscreenRendering = false;
+    /**
+     * The offscreen render target. It's created the first time it's needed.
+     */
+    private BufferedImage renderTarget;
+    /**
+     * The FrameCapture wich receives every rendered frame, or null if the
+     * frames aren't captured.
+     */
+    private volatile FrameCapture frameCapture;
+    /**
+     * The Thread wich runs the real time loop.
+     */
+    private Thread animator;
+    /**
+     * The control variable of the real time loop.
+     */
+    private volatile boolean running;
+    /**
+     * The updates per second desired when running at real time.
+     */
+    private int ups = 60;
+    /**
+     * The update period in nanoseconds.
+     */
+    private long updatePeriod = 1000000000L / ups;
+    /**
+     * The number of updates performed since the HeadlessEngine was created.
+     */
+    private long ticks = 0L;
+    /**
+     * If it's true, the updatables are updated by the ParallelUpdater: the
+     * ParallelUpdatable instances compute their updates in parallel and commit
+     * them in order.
+     *
+     * @see #setParallelUpdate(boolean)
+     */
+    private boolean parallelUpdate = false;
+    /**
+     * The ParallelUpdater used when the parallel update is on. It's created the
+     * first time it's needed.
+     */
+    private ParallelUpdater parallelUpdater;
+    /**
+     * The timer used to measure the loop periods.
+     */
+    private JannatonTimer timer;
+    /**
+     * The frame pacer used to wait until each update of the real time loop.
+     */
+    private JannatonPacer pacer;
+    /**
+     * The durations of the update and render phases recorded at every tick.
+     */
+    private EngineMetrics metrics;
+
+    //
+    // Constructors
+    //
+    /**
+     * Private constructor. To get a HeadlessEngine instance it shoud be requested
+     * using the static method HeadlessEngine.instantiate().
+     */
+    private HeadlessEngine() {
+
+        timer = TimerNano.instantiate();
+        pacer = new HybridPacer(timer);
+        metrics = new EngineMetrics();
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method is used to get a HeadlessEngine instance following the Single-Town model
+     *
+     * @return a HeadlessEngine instance
+     */
+    public static HeadlessEngine instantiate() {
+
+        if (engine == null) {
+            engine = new HeadlessEngine();
+        }
+
+        return engine;
+    }
+
+    /**
+     * This method starts the real time loop in a new Thread. If it's yet
+     * running, this method does nothing.
+     */
+    public void start() {
+
+        if (animator == null || !animator.isAlive()) {
+            running = true;
+            animator = new Thread(this, "HeadlessEngine animator");
+            animator.start();
+        }
+    }
+
+    /**
+     * This method is the real time loop. It updates (and optionally renders)
+     * once every update period, sleeping the remaining time. If an update takes
+     * longer than the period, the lost updates are recovered without sleeping,
+     * so the simulation keeps the ups rate in the long run.
+     */
+    public void run() {
+
+        running = true;
+
+        long nextTime = timer.getTimeInstace();
+
+        while (running) {
+
+            tick();
+
+            nextTime += updatePeriod;
+            long afterTime = timer.getTimeInstace();
+            long sleepTime = nextTime - afterTime;
+
+            if (sleepTime > 0) {
+                pacer.waitUntil(nextTime);
+                metrics.record(EngineMetrics.Phase.SLEEP, timer.getTimeInstace() - afterTime);
+            } else if (-sleepTime > updatePeriod * 16) {
+                //Too far behind: the lost time is forgotten.
+                nextTime = timer.getTimeInstace();
+            }
+        }
+    }
+
+    /**
+     * This method updates the given number of times as fast as possible in the
+     * calling Thread. It shouldn't be invoked while the real time loop is running.
+     *
+     * @param numberOfTicks The number of updates to perform.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long runTicks(long numberOfTicks) {
+
+        if (running) {
+            System.out.println("HeadlessEngine is running at real time. Ticks not run.");
+            return 0L;
+        }
+
+        long beforeTime = timer.getTimeInstace();
+
+        for (long i = 0; i < numberOfTicks; i++) {
+            tick();
+        }
+
+        return timer.getTimeInstace() - beforeTime;
+    }
+
+    /**
+     * This method performs a single step: it updates all the updatables and, if
+     * the offscreen rendering is on, renders all the renderables.
+     */
+    private void tick() {
+
+        long beforeTime = timer.getTimeInstace();
+
+        gameUpdate();
+
+        long updatedTime = timer.getTimeInstace();
+        metrics.record(EngineMetrics.Phase.UPDATE, updatedTime - beforeTime);
+
+        if (offscreenRendering) {
+            gameRender();
+            metrics.record(EngineMetrics.Phase.RENDER, timer.getTimeInstace() - updatedTime);
+
+            FrameCapture capture = frameCapture;
+            if (capture != null) {
+                capture.capture(renderTarget);
+            }
+        }
+
+        metrics.frameCompleted();
+
+        ticks++;
+    }
+
+    /**
+     * This method updates all the updatables, asking the GameControler for them
+     * if they are out dated or null.
+     *
+     * @see EngineRegistry#refreshUpdatables()
+     */
+    private void gameUpdate() {
+
+        registry.refreshUpdatables();
+
+        ArrayList<Updatable> updatables = registry.getUpdatables();
+
+        if (updatables != null) {
+            if (parallelUpdate) {
+                getParallelUpdater().update(updatables);
+            } else {
+                for (Updatable sprite : updatables) {
+                    sprite.update();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method renders all the renderables to the offscreen render target,
+     * layer by layer, asking the GameControler for them if they are out dated
+     * or null.
+     *
+     * @see EngineRegistry#refreshRenderables()
+     */
+    private void gameRender() {
+
+        registry.refreshRenderables();
+
+        RenderQueue renderQueue = registry.getRenderQueue();
+
+        BufferedImage target = getRenderTarget();
+        Graphics g = target.getGraphics();
+
+        g.fillRect(0, 0, width, height);
+
+        int layers = renderQueue.getLayerCount();
+        for (int i = 0; i < layers; i++) {
+            for (Renderable sprite : renderQueue.getLayer(i)) {
+                sprite.render(g);
+            }
+        }
+
+        g.dispose();
+    }
+
+    /**
+     *
+     * @return The durations of the update and render phases recorded at every tick.
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     *
+     * @return The frame pacer used by the real time loop.
+     */
+    public JannatonPacer getPacer() {
+        return pacer;
+    }
+
+    /**
+     * This method sets the frame pacer used by the real time loop.
+     *
+     * @param pacer - the desired non null JannatonPacer
+     */
+    public void setPacer(JannatonPacer pacer) {
+        if (pacer != null) {
+            this.pacer = pacer;
+        }
+    }
+
+    /**
+     * This method causes the real time loop to finish at the end of the current
+     * iteration.
+     */
+    public void terminate() {
+        running = false;
+    }
+
+    /**
+     *
+     * @return true if the real time loop is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     *
+     * @return The updatables being updated by the HeadlessEngine.
+     */
+    public ArrayList<Updatable> getUpdatables() {
+        return registry.getUpdatables();
+    }
+
+    /**
+     *
+     * @return The number of updates performed since the HeadlessEngine was created.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     *
+     * @return The offscreen render target. It's created if it doesn't exist yet.
+     */
+    public BufferedImage getRenderTarget() {
+
+        if (renderTarget == null) {
+            renderTarget = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+
+        return renderTarget;
+    }
+
+    /**
+     * This method returns true if the HeadlessEngine updates the ParallelUpdatable
+     * instances in parallel.
+     *
+     * @return parallelUpdate - the parallel update state
+     */
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    /**
+     * This method turns on or off the parallel update. While it's on, the
+     * <code>compute()</code> method of the ParallelUpdatable instances is invoked
+     * from several Threads, and then every updatable is committed or updated
+     * in order, producing the same result as the sequential update.
+     *
+     * @param parallelUpdate - true to update in parallel. false to update every
+     * instance sequentially.
+     *
+     * @see ParallelUpdater
+     */
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    /**
+     *
+     * @return The ParallelUpdater used when the parallel update is on.
+     */
+    private ParallelUpdater getParallelUpdater() {
+
+        if (parallelUpdater == null) {
+            parallelUpdater = new ParallelUpdater();
+        }
+
+        return parallelUpdater;
+    }
+
+    /**
+     *
+     * @return true if the renderables are rendered to the offscreen render target
+     * after each update.
+     */
+    public boolean isOffscreenRendering() {
+        return offscreenRendering;
+    }
+
+    /**
+     * This method turns on or off the rendering to the offscreen render target.
+     *
+     * @param offscreenRendering true to render after each update. false to only update.
+     */
+    public void setOffscreenRendering(boolean offscreenRendering) {
+        this.offscreenRendering = offscreenRendering;
+    }
+
+    /**
+     *
+     * @return The FrameCapture wich receives every rendered frame, or null
+     * if the frames aren't captured.
+     */
+    public FrameCapture getFrameCapture() {
+        return frameCapture;
+    }
+
+    /**
+     * This method sets the FrameCapture wich receives every frame rendered to
+     * the offscreen render target. The frames are only captured while the
+     * offscreen rendering is on.
+     *
+     * The previous FrameCapture isn't stopped.
+     *
+     * @param frameCapture The FrameCapture, or null to stop capturing frames.
+     */
+    public void setFrameCapture(FrameCapture frameCapture) {
+        this.frameCapture = frameCapture;
+    }
+
+    /**
+     *
+     * @return ups - the current updates per second value.
+     */
+    public int getUps() {
+        return ups;
+    }
+
+    /**
+     * This method sets the updates per second desired value used by the real
+     * time loop.
+     *
+     * @param ups - the desired updates per second. It should be greater than 0.
+     */
+    public void setUps(int ups) {
+
+        if (ups > 0) {
+            this.ups = ups;
+            this.updatePeriod = 1000000000L / ups;
+        }
+    }
+
+    /**
+     * This method sets the HeadlessEngine width and height. The offscreen
+     * render target is created again with the new size.
+     *
+     * @param width - the desired non negative width
+     * @param height - the desired non negative height
+     */
+    public void setEngineDimension(int width, int height) {
+
+        if (width > 0 && height > 0) {
+            this.width = width;
+            this.height = height;
+            renderTarget = null;
+        }
+    }
+
+    /**
+     *
+     * @return The Dimension of the offscreen render target.
+     */
+    public Dimension getEngineDimension() {
+        return new Dimension(width, height);
+    }
+
+    /**
+     * This method queues the addition of an Updatable. It will be updated from
+     * the next update on.
+     *
+     * @param updatable - the Updatable to add
+     */
+    public void addUpdatable(Updatable updatable) {
+        registry.addUpdatable(updatable);
+    }
+
+    /**
+     * This method queues the removal of an Updatable. It won't be updated from
+     * the next update on.
+     *
+     * @param updatable - the Updatable to remove
+     */
+    public void removeUpdatable(Updatable updatable) {
+        registry.removeUpdatable(updatable);
+    }
+
+    /**
+     * This method queues the addition of a Renderable. It will be rendered from
+     * the next rendering on.
+     *
+     * @param renderable - the Renderable to add
+     */
+    public void addRenderable(Renderable renderable) {
+        registry.addRenderable(renderable);
+    }
+
+    /**
+     * This method queues the removal of a Renderable. It won't be rendered from
+     * the next rendering on.
+     *
+     * @param renderable - the Renderable to remove
+     */
+    public void removeRenderable(Renderable renderable) {
+        registry.removeRenderable(renderable);
+    }
+
+    /**
+     * This method queues the restack of a Renderable wich has changed its
+     * zIndex. It will be rendered at its new layer from the next rendering on.
+     *
+     * @param renderable - the Renderable to restack
+     */
+    public void restackRenderable(Renderable renderable) {
+        registry.restackRenderable(renderable);
+    }
+
+    /**
+     * This method tells the HeadlessEngine that its updatables are outdated.
+     */
+    public void setUpdatablesToOutDated() {
+        registry.setUpdatablesToOutDated();
+    }
+
+    /**
+     * This method tells the HeadlessEngine that its renderables are outdated.
+     */
+    public void setRenderablesToOutDated() {
+        registry.setRenderablesToOutDated();
+    }
+
+    /**
+     * This method adds a GameControler instance to the HeadlessEngine. If another
+     * GameControler instance was previously added, this method does nothing.
+     *
+     * @param gameController - the desired non null GameControler instance.
+     */
+    public void addGameController(GameControler gameController) {
+        registry.addGameController(gameController);
+    }
+}
@@ -0,0 +1,223 @@
+package userInterface;
+
+import control.interfaces.Renderable;
+import domain.Sprite;
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * This class keeps a static layer pre-composited into a single image, so the
+ * whole layer is drawn with one blit instead of rendering each of its
+ * renderables at every frame.
+ *
+ * The cache is composed again only when the layer changes: a renderable is
+ * added to or removed from it (it's shown or hidden), or one of its Sprite
+ * instances changes its image or its screen position. The changes of any
+ * other Renderable can't be noticed, so <code>invalidate()</code> should be
+ * invoked when one of them looks different.
+ *
+ * The cache is an image of the GameEngine size, so each static layer costs
+ * <code>4 * width * height</code> bytes.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#setStaticLayer(int, boolean)
+ */
+public class LayerCache {
+
+    //
+    // Fields
+    //
+    /**
+     * The zIndex of the cached layer.
+     */
+    private final int zIndex;
+    /**
+     * The composed layer.
+     */
+    private BufferedImage image;
+    /**
+     * false if the layer should be composed again.
+     */
+    private volatile boolean valid = false;
+    /**
+     * The renderables of the layer when it was composed.
+     */
+    private Renderable[] members = new Renderable[16];
+    /**
+     * The image of each Sprite member when the layer was composed.
+     */
+    private Image[] memberImages = new Image[16];
+    /**
+     * The screen position of each Sprite member when the layer was composed,
+     * as x and y pairs.
+     */
+    private int[] memberPositions = new int[32];
+    /**
+     * The number of renderables of the layer when it was composed.
+     */
+    private int memberCount;
+    /**
+     * The number of times the layer has been composed.
+     */
+    private long compositions;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor.
+     *
+     * @param zIndex The zIndex of the cached layer.
+     */
+    public LayerCache(int zIndex) {
+        this.zIndex = zIndex;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method draws the layer, composing it again first if it has changed.
+     *
+     * @param g The Graphics object wich will perform the drawing.
+     * @param layer The current renderables of the layer, in rendering order.
+     * @param width The GameEngine width.
+     * @param height The GameEngine height.
+     */
+    public void draw(Graphics g, ArrayList<Renderable> layer, int width, int height) {
+
+        if (layer == null || layer.isEmpty()) {
+            memberCount = 0;
+            return;
+        }
+
+        if (!isValid(layer, width, height)) {
+            compose(layer, width, height);
+        }
+
+        g.drawImage(image, 0, 0, null);
+    }
+
+    /**
+     * This method forces the layer to be composed again the next time it's
+     * drawn.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * This method checks if the composed layer still matches the renderables.
+     *
+     * @param layer The current renderables of the layer.
+     * @param width The GameEngine width.
+     * @param height The GameEngine height.
+     *
+     * @return true if the composed layer can be drawn as it is.
+     */
+    private boolean isValid(ArrayList<Renderable> layer, int width, int height) {
+
+        if (!valid || image == null || image.getWidth() != width || image.getHeight() != height
+                || layer.size() != memberCount) {
+            return false;
+        }
+
+        for (int i = 0; i < memberCount; i++) {
+            Renderable renderable = layer.get(i);
+            if (renderable != members[i]) {
+                return false;
+            }
+            if (renderable instanceof Sprite) {
+                Sprite sprite = (Sprite) renderable;
+                Point position = sprite.getScreenCoordinates();
+                if (sprite.getImage() != memberImages[i]
+                        || position.x != memberPositions[2 * i]
+                        || position.y != memberPositions[2 * i + 1]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * This method composes the layer again, recording the state of its
+     * renderables.
+     *
+     * @param layer The current renderables of the layer.
+     * @param width The GameEngine width.
+     * @param height The GameEngine height.
+     */
+    private void compose(ArrayList<Renderable> layer, int width, int height) {
+
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        //It's validated before composing, so an invalidation meanwhile isn't lost.
+        valid = true;
+
+        memberCount = layer.size();
+        if (members.length < memberCount) {
+            int capacity = Math.max(memberCount, members.length * 2);
+            members = new Renderable[capacity];
+            memberImages = new Image[capacity];
+            memberPositions = new int[2 * capacity];
+        }
+
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, width, height);
+            g.setComposite(AlphaComposite.SrcOver);
+
+            for (int i = 0; i < memberCount; i++) {
+                Renderable renderable = layer.get(i);
+                members[i] = renderable;
+                memberImages[i] = null;
+                if (renderable instanceof Sprite) {
+                    Sprite sprite = (Sprite) renderable;
+                    Point position = sprite.getScreenCoordinates();
+                    memberImages[i] = sprite.getImage();
+                    memberPositions[2 * i] = position.x;
+                    memberPositions[2 * i + 1] = position.y;
+                }
+                renderable.render(g);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        //The references beyond the members are dropped, so they can be collected.
+        for (int i = memberCount; i < members.length && members[i] != null; i++) {
+            members[i] = null;
+            memberImages[i] = null;
+        }
+
+        compositions++;
+    }
+
+    /**
+     *
+     * @return The zIndex of the cached layer.
+     */
+    public int getZIndex() {
+        return zIndex;
+    }
+
+    /**
+     *
+     * @return The number of times the layer has been composed.
+     */
+    public long getCompositions() {
+        return compositions;
+    }
+}
@@ -0,0 +1,195 @@
+package userInterface;
+
+import control.interfaces.ParallelUpdatable;
+import control.interfaces.Updatable;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class updates the updatables in two phases, spreading the first one
+ * across all the avaible cores:
+ * <ol>
+ * <li>The compute phase invokes <code>compute()</code> on every ParallelUpdatable
+ * instance from a ForkJoinPool. The updatables list is split in ranges of at
+ * most <code>threshold</code> instances.</li>
+ * <li>The commit phase goes through the updatables in order from the calling
+ * Thread, invoking <code>commit()</code> on the ParallelUpdatable instances and
+ * <code>update()</code> on the rest of them.</li>
+ * </ol>
+ *
+ * Since the commits are applied in the same order as the sequential updates,
+ * the resulting game state is the same as the one produced by the sequential
+ * updating, as long as the <code>compute()</code> methods only read the state
+ * they are allowed to.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see ParallelUpdatable
+ * @see GameEngine#setParallelUpdate(boolean)
+ * @see HeadlessEngine#setParallelUpdate(boolean)
+ */
+public class ParallelUpdater {
+
+    //
+    // Fields
+    //
+    /**
+     * The pool wich runs the compute phase.
+     */
+    private ForkJoinPool pool;
+    /**
+     * The maximum number of updatables computed by a single task. Smaller lists
+     * are computed in the calling Thread.
+     */
+    private int threshold = 64;
+
+    //
+    // Constructors
+    //
+    /**
+     * The default constructor. The pool uses as many Threads as avaible processors.
+     */
+    public ParallelUpdater() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism The number of Threads used by the compute phase.
+     */
+    public ParallelUpdater(int parallelism) {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : 1);
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method updates all the updatables: first it computes all the
+     * ParallelUpdatable instances in parallel, and then it commits or updates
+     * every instance in order.
+     *
+     * @param updatables The updatables to update.
+     */
+    public void update(ArrayList<Updatable> updatables) {
+
+        int size = updatables.size();
+
+        if (size > threshold) {
+            pool.invoke(new ComputeTask(updatables, 0, size));
+        } else {
+            compute(updatables, 0, size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Updatable updatable = updatables.get(i);
+            if (updatable instanceof ParallelUpdatable) {
+                ((ParallelUpdatable) updatable).commit();
+            } else {
+                updatable.update();
+            }
+        }
+    }
+
+    /**
+     * This method invokes <code>compute()</code> on the ParallelUpdatable
+     * instances of a range.
+     *
+     * @param updatables The updatables.
+     * @param start The first index of the range.
+     * @param end The index after the last one of the range.
+     */
+    private static void compute(ArrayList<Updatable> updatables, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+            Updatable updatable = updatables.get(i);
+            if (updatable instanceof ParallelUpdatable) {
+                ((ParallelUpdatable) updatable).compute();
+            }
+        }
+    }
+
+    /**
+     * This method stops the Threads used by the compute phase.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     *
+     * @return The maximum number of updatables computed by a single task.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * This method sets the maximum number of updatables computed by a single task.
+     *
+     * @param threshold The number of updatables. It should be greater than 0.
+     */
+    public void setThreshold(int threshold) {
+
+        if (threshold > 0) {
+            this.threshold = threshold;
+        }
+    }
+
+    /**
+     *
+     * @return The number of Threads used by the compute phase.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * This class computes a range of the updatables, splitting it in two halves
+     * while it's bigger than the threshold.
+     */
+    private class ComputeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The updatables.
+         */
+        private ArrayList<Updatable> updatables;
+        /**
+         * The first index of the range.
+         */
+        private int start;
+        /**
+         * The index after the last one of the range.
+         */
+        private int end;
+
+        /**
+         * Constructor.
+         *
+         * @param updatables The updatables.
+         * @param start The first index of the range.
+         * @param end The index after the last one of the range.
+         */
+        ComputeTask(ArrayList<Updatable> updatables, int start, int end) {
+            this.updatables = updatables;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (end - start <= threshold) {
+                ParallelUpdater.compute(updatables, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ComputeTask(updatables, start, middle), new ComputeTask(updatables, middle, end));
+            }
+        }
+    }
+}
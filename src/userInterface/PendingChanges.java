@@ -0,0 +1,146 @@
+package userInterface;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class queues the additions and removals asked for a list wich is being
+ * iterated by an engine, so they can be applied later, at the beginning of the
+ * next frame, in the same order they were asked. The changes can be queued
+ * from any Thread.
+ *
+ * The restacks (changes of an element layer) are queued too, so they can be
+ * applied to a RenderQueue. A plain list has no layers, so they are skipped
+ * when the changes are applied to it.
+ *
+ * @param <T> The type of the list elements.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ */
+public class PendingChanges<T> {
+
+    //
+    // Fields
+    //
+    /**
+     * The kind of change wich adds an element.
+     */
+    static final byte ADDITION = 0;
+    /**
+     * The kind of change wich removes an element.
+     */
+    static final byte REMOVAL = 1;
+    /**
+     * The kind of change wich moves an element to its current layer.
+     */
+    static final byte RESTACK = 2;
+    /**
+     * The queued changes.
+     */
+    private final ConcurrentLinkedQueue<Change<T>> changes = new ConcurrentLinkedQueue<Change<T>>();
+
+    //
+    // Methods
+    //
+    /**
+     * This method queues the addition of an element.
+     *
+     * @param element The element to add.
+     */
+    public void add(T element) {
+        changes.add(new Change<T>(element, ADDITION));
+    }
+
+    /**
+     * This method queues the removal of an element.
+     *
+     * @param element The element to remove.
+     */
+    public void remove(T element) {
+        changes.add(new Change<T>(element, REMOVAL));
+    }
+
+    /**
+     * This method queues the restack of an element, wich has changed its layer.
+     *
+     * @param element The element to restack.
+     *
+     * @see RenderQueue#restack(control.interfaces.Renderable)
+     */
+    public void restack(T element) {
+        changes.add(new Change<T>(element, RESTACK));
+    }
+
+    /**
+     * This method applies all the queued changes to the list.
+     *
+     * @param list The list to change.
+     */
+    public void applyTo(ArrayList<T> list) {
+
+        Change<T> change = changes.poll();
+
+        while (change != null) {
+            if (change.kind == ADDITION) {
+                list.add(change.element);
+            } else if (change.kind == REMOVAL) {
+                list.remove(change.element);
+            }
+            change = changes.poll();
+        }
+    }
+
+    /**
+     * This method takes the oldest queued change out of the queue.
+     *
+     * @return The oldest queued change, or null if there are none.
+     */
+    Change<T> poll() {
+        return changes.poll();
+    }
+
+    /**
+     * This method forgets all the queued changes. It should be invoked when
+     * the list is asked again from scratch.
+     */
+    public void clear() {
+        changes.clear();
+    }
+
+    /**
+     *
+     * @return true if there are no queued changes.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * This class holds a single queued change.
+     *
+     * @param <T> The type of the element.
+     */
+    static class Change<T> {
+
+        /**
+         * The element to add, remove or restack.
+         */
+        final T element;
+        /**
+         * The kind of change: ADDITION, REMOVAL or RESTACK.
+         */
+        final byte kind;
+
+        /**
+         * Constructor.
+         *
+         * @param element The element to add, remove or restack.
+         * @param kind The kind of change.
+         */
+        Change(T element, byte kind) {
+            this.element = element;
+            this.kind = kind;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package userInterface;
+
+import control.interfaces.FrameSink;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * This class writes the frames captured by a FrameCapture to a directory, one
+ * PNG file per frame, named <code>prefix_000042.png</code> after the frame
+ * number. The files can be joined into a video by any external encoder, or
+ * compared with the ones of a previous run.
+ *
+ * It's safe to use with several encoder Threads, since every frame is written
+ * to its own file.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see FrameCapture
+ */
+public class PngFrameSink implements FrameSink {
+
+    //
+    // Fields
+    //
+    /**
+     * The directory where the frames are written.
+     */
+    private final File directory;
+    /**
+     * The name prefix of the frame files.
+     */
+    private final String prefix;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor. The directory is created if it doesn't exist.
+     *
+     * @param directory The directory where the frames are written.
+     * @param prefix The name prefix of the frame files.
+     */
+    public PngFrameSink(File directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("The frames directory can't be created: " + directory);
+        }
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method writes a frame to its PNG file.
+     *
+     * @param frame The captured frame.
+     * @param frameNumber The number of the frame.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void frameCaptured(BufferedImage frame, long frameNumber) throws IOException {
+
+        if (!ImageIO.write(frame, "png", getFrameFile(frameNumber))) {
+            throw new IOException("No PNG writer avaible");
+        }
+    }
+
+    /**
+     * This method returns the file of a frame.
+     *
+     * @param frameNumber The number of the frame.
+     *
+     * @return The file where the frame is (or will be) written.
+     */
+    public File getFrameFile(long frameNumber) {
+        return new File(directory, prefix + "_" + String.format("%06d", frameNumber) + ".png");
+    }
+
+    /**
+     *
+     * @return The directory where the frames are written.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     *
+     * @return The name prefix of the frame files.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+}
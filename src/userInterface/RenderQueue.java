@@ -0,0 +1,400 @@
+package userInterface;
+
+import control.interfaces.Renderable;
+import domain.Sprite;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+/**
+ * This class keeps the renderables sorted by layer, so they can be rendered
+ * from the lowest zIndex to the highest one. The renderables of the same layer
+ * keep the order in wich they were added, so two renderables with the same
+ * zIndex are rendered in the same order as in the Environment registry.
+ *
+ * Each layer is kept as a batch (an ArrayList of its renderables). The queue
+ * is never sorted again as a whole: an addition or a removal only touches its
+ * layer, and a renderable wich changes its zIndex is restacked, moving it from
+ * its old layer to the end of the new one.
+ *
+ * The Sprite instances are layered by their zIndex. Any other Renderable is
+ * layered at the zIndex 0.
+ *
+ * Every renderable gets a sequence number when it's added to its layer, so a
+ * subset of the renderables (i.e. the ones found inside the camera) can be
+ * sorted in the same order they would be rendered by the whole queue.
+ *
+ * This class isn't thread safe. It should be changed and iterated by the
+ * rendering Thread only, applying the changes queued by other Threads through
+ * <code>apply(PendingChanges, ArrayList)</code>.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see Sprite#setZIndex(int)
+ * @see PendingChanges#restack(java.lang.Object)
+ */
+public class RenderQueue {
+
+    //
+    // Fields
+    //
+    /**
+     * The layers, sorted by zIndex.
+     */
+    private ArrayList<Layer> layers = new ArrayList<Layer>();
+    /**
+     * The position (layer and sequence number) of each renderable.
+     */
+    private IdentityHashMap<Renderable, Position> positions = new IdentityHashMap<Renderable, Position>();
+    /**
+     * The sequence number for the next renderable added.
+     */
+    private long nextSequence;
+    /**
+     * The Comparator wich sorts the renderables in rendering order.
+     */
+    private final Comparator<Renderable> renderingOrder = new Comparator<Renderable>() {
+
+        public int compare(Renderable first, Renderable second) {
+
+            Position firstPosition = positions.get(first);
+            Position secondPosition = positions.get(second);
+
+            if (firstPosition.layer.zIndex != secondPosition.layer.zIndex) {
+                return firstPosition.layer.zIndex < secondPosition.layer.zIndex ? -1 : 1;
+            }
+
+            return firstPosition.sequence < secondPosition.sequence ? -1
+                    : (firstPosition.sequence == secondPosition.sequence ? 0 : 1);
+        }
+    };
+    /**
+     * The number of renderables in the queue.
+     */
+    private int size;
+
+    //
+    // Methods
+    //
+    /**
+     * This method empties the queue and adds all the renderables, in order.
+     *
+     * @param renderables The renderables to add. If it's null the queue is
+     * left empty.
+     */
+    public void rebuild(ArrayList<Renderable> renderables) {
+
+        clear();
+
+        if (renderables != null) {
+            for (Renderable renderable : renderables) {
+                add(renderable);
+            }
+        }
+    }
+
+    /**
+     * This method removes all the renderables from the queue.
+     */
+    public void clear() {
+
+        layers.clear();
+        positions.clear();
+        nextSequence = 0L;
+        size = 0;
+    }
+
+    /**
+     * This method adds a renderable to the end of its layer. If it was yet in
+     * the queue, it's restacked instead.
+     *
+     * @param renderable The renderable to add. null is ignored.
+     */
+    public void add(Renderable renderable) {
+
+        if (renderable == null) {
+            return;
+        }
+
+        if (positions.containsKey(renderable)) {
+            restack(renderable);
+            return;
+        }
+
+        Layer layer = getLayer(zIndexOf(renderable), true);
+        layer.renderables.add(renderable);
+        positions.put(renderable, new Position(layer, nextSequence++));
+        size++;
+    }
+
+    /**
+     * This method removes a renderable from its layer. Empty layers are dropped.
+     *
+     * @param renderable The renderable to remove.
+     */
+    public void remove(Renderable renderable) {
+
+        Position position = positions.remove(renderable);
+
+        if (position != null) {
+            Layer layer = position.layer;
+            layer.renderables.remove(renderable);
+            size--;
+            if (layer.renderables.isEmpty()) {
+                layers.remove(layer);
+            }
+        }
+    }
+
+    /**
+     * This method moves a renderable to the end of the layer given by its
+     * current zIndex, if it's not at that layer yet.
+     *
+     * @param renderable The renderable to restack.
+     */
+    public void restack(Renderable renderable) {
+
+        Position position = positions.get(renderable);
+
+        if (position != null && position.layer.zIndex != zIndexOf(renderable)) {
+            remove(renderable);
+            add(renderable);
+        }
+    }
+
+    /**
+     * This method applies the changes queued for the renderables, both to the
+     * queue and to the given registry list.
+     *
+     * @param changes The queued changes.
+     * @param registry The list of renderables kept in the order they were
+     * added. It may be null.
+     */
+    public void apply(PendingChanges<Renderable> changes, ArrayList<Renderable> registry) {
+
+        PendingChanges.Change<Renderable> change = changes.poll();
+
+        while (change != null) {
+            if (change.kind == PendingChanges.ADDITION) {
+                if (registry != null) {
+                    registry.add(change.element);
+                }
+                add(change.element);
+            } else if (change.kind == PendingChanges.REMOVAL) {
+                if (registry != null) {
+                    registry.remove(change.element);
+                }
+                remove(change.element);
+            } else {
+                restack(change.element);
+            }
+            change = changes.poll();
+        }
+    }
+
+    /**
+     * This method adds all the renderables to a list, in rendering order.
+     *
+     * @param ordered The list where the renderables are added.
+     */
+    public void collect(ArrayList<Renderable> ordered) {
+
+        for (int i = 0, layerCount = layers.size(); i < layerCount; i++) {
+            ordered.addAll(layers.get(i).renderables);
+        }
+    }
+
+    /**
+     * This method sorts a subset of the renderables in rendering order. The
+     * elements wich aren't in the queue are dropped from the list.
+     *
+     * @param subset The list to sort.
+     */
+    public void sort(ArrayList<Renderable> subset) {
+
+        int kept = 0;
+        for (int i = 0, count = subset.size(); i < count; i++) {
+            Renderable renderable = subset.get(i);
+            if (positions.containsKey(renderable)) {
+                subset.set(kept++, renderable);
+            }
+        }
+
+        for (int i = subset.size() - 1; i >= kept; i--) {
+            subset.remove(i);
+        }
+
+        Collections.sort(subset, renderingOrder);
+    }
+
+    /**
+     *
+     * @return The number of renderables in the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return The number of layers (different zIndex values) in the queue.
+     */
+    public int getLayerCount() {
+        return layers.size();
+    }
+
+    /**
+     *
+     * @param index The layer index, from 0 (the lowest zIndex) to
+     * <code>getLayerCount() - 1</code>.
+     *
+     * @return The zIndex of the layer.
+     */
+    public int getLayerZIndex(int index) {
+        return layers.get(index).zIndex;
+    }
+
+    /**
+     * This method returns the batch of renderables of a layer, in the order
+     * they should be rendered. It shouldn't be modified.
+     *
+     * @param index The layer index, from 0 (the lowest zIndex) to
+     * <code>getLayerCount() - 1</code>.
+     *
+     * @return The renderables of the layer.
+     */
+    public ArrayList<Renderable> getLayer(int index) {
+        return layers.get(index).renderables;
+    }
+
+    /**
+     * This method returns the batch of renderables of the layer with the given
+     * zIndex. It shouldn't be modified.
+     *
+     * @param zIndex The zIndex of the layer.
+     *
+     * @return The renderables of the layer, or null if there's no renderable
+     * with that zIndex.
+     */
+    public ArrayList<Renderable> findLayer(int zIndex) {
+
+        Layer layer = getLayer(zIndex, false);
+
+        return layer == null ? null : layer.renderables;
+    }
+
+    /**
+     * This method returns the zIndex of the layer where a renderable is.
+     *
+     * @param renderable The renderable.
+     *
+     * @return The zIndex of its layer, or the one it would have if it's not in
+     * the queue.
+     */
+    public int getZIndex(Renderable renderable) {
+
+        Position position = positions.get(renderable);
+
+        return position == null ? zIndexOf(renderable) : position.layer.zIndex;
+    }
+
+    /**
+     * This method looks for the layer of a zIndex with a binary search,
+     * creating it at its sorted position if asked to.
+     *
+     * @param zIndex The zIndex of the layer.
+     * @param create true if the layer should be created when it doesn't exist.
+     *
+     * @return The layer, or null if it doesn't exist and it hasn't been created.
+     */
+    private Layer getLayer(int zIndex, boolean create) {
+
+        int low = 0;
+        int high = layers.size() - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleZIndex = layers.get(middle).zIndex;
+            if (middleZIndex < zIndex) {
+                low = middle + 1;
+            } else if (middleZIndex > zIndex) {
+                high = middle - 1;
+            } else {
+                return layers.get(middle);
+            }
+        }
+
+        if (!create) {
+            return null;
+        }
+
+        Layer layer = new Layer(zIndex);
+        layers.add(low, layer);
+
+        return layer;
+    }
+
+    /**
+     * This method returns the layer where a renderable should be.
+     *
+     * @param renderable The renderable.
+     *
+     * @return The zIndex of a Sprite. 0 for any other Renderable.
+     */
+    private static int zIndexOf(Renderable renderable) {
+        return renderable instanceof Sprite ? ((Sprite) renderable).getZIndex() : 0;
+    }
+
+    /**
+     * This class holds the layer of a renderable and the order in wich it was
+     * added to it.
+     */
+    private static class Position {
+
+        /**
+         * The layer where the renderable is.
+         */
+        private final Layer layer;
+        /**
+         * The sequence number of the renderable.
+         */
+        private final long sequence;
+
+        /**
+         * Constructor.
+         *
+         * @param layer The layer where the renderable is.
+         * @param sequence The sequence number of the renderable.
+         */
+        Position(Layer layer, long sequence) {
+            this.layer = layer;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * This class holds the renderables of a single zIndex.
+     */
+    private static class Layer {
+
+        /**
+         * The zIndex of the layer.
+         */
+        private final int zIndex;
+        /**
+         * The renderables of the layer, in the order they were added.
+         */
+        private final ArrayList<Renderable> renderables = new ArrayList<Renderable>();
+
+        /**
+         * Constructor.
+         *
+         * @param zIndex The zIndex of the layer.
+         */
+        Layer(int zIndex) {
+            this.zIndex = zIndex;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package userInterface;
+
+/**
+ * This class decides the render scale of the GameEngine in dynamic render
+ * scale mode. It averages the time spent rendering and drawing the frames,
+ * and every <code>window</code> frames compares it with the frame budget (the
+ * GameEngine period):
+ * <ul>
+ * <li>If the frames take more than <code>upperLoad</code> of the budget, the
+ * render scale is lowered one step.</li>
+ * <li>If they take less than <code>lowerLoad</code> of the budget, the render
+ * scale is raised one step.</li>
+ * </ul>
+ * The render scale is always kept between <code>minScale</code> and
+ * <code>maxScale</code>. Since the rendering cost grows with the square of the
+ * scale, the gap between both loads should be wide enough to avoid raising
+ * and lowering the scale over and over.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#setDynamicRenderScale(boolean)
+ */
+public class RenderScaler {
+
+    //
+    // Fields
+    //
+    /**
+     * The lowest render scale.
+     */
+    private double minScale = 0.5;
+    /**
+     * The highest render scale.
+     */
+    private double maxScale = 1.0;
+    /**
+     * The amount the render scale is raised or lowered at once.
+     */
+    private double step = 0.1;
+    /**
+     * The share of the frame budget under wich the render scale is raised.
+     */
+    private double lowerLoad = 0.5;
+    /**
+     * The share of the frame budget over wich the render scale is lowered.
+     */
+    private double upperLoad = 0.85;
+    /**
+     * The number of frames averaged before each decision.
+     */
+    private int window = 30;
+    /**
+     * The number of frames measured since the last decision.
+     */
+    private int samples;
+    /**
+     * The total rendering time of the frames measured since the last decision,
+     * in nanoseconds.
+     */
+    private long totalTime;
+
+    //
+    // Methods
+    //
+    /**
+     * This method records the rendering time of a frame and returns the
+     * render scale for the next frames.
+     *
+     * @param scale The current render scale.
+     * @param renderTime The time spent rendering and drawing the frame, in nanoseconds.
+     * @param frameBudget The time avaible for each frame, in nanoseconds.
+     *
+     * @return The new render scale. It's the current one until
+     * <code>window</code> frames have been measured.
+     */
+    public double adjust(double scale, long renderTime, long frameBudget) {
+
+        totalTime += renderTime;
+        samples++;
+
+        if (samples < window || frameBudget <= 0L) {
+            return scale;
+        }
+
+        double load = (double) totalTime / samples / frameBudget;
+        samples = 0;
+        totalTime = 0L;
+
+        double adjusted = scale;
+        if (load > upperLoad) {
+            adjusted = scale - step;
+        } else if (load < lowerLoad) {
+            adjusted = scale + step;
+        }
+
+        //The scale is rounded to hundredths so the steps don't drift.
+        return Math.round(Math.max(minScale, Math.min(maxScale, adjusted)) * 100.0) / 100.0;
+    }
+
+    /**
+     * This method forgets the frames measured since the last decision.
+     */
+    public void reset() {
+        samples = 0;
+        totalTime = 0L;
+    }
+
+    /**
+     *
+     * @return The lowest render scale.
+     */
+    public double getMinScale() {
+        return minScale;
+    }
+
+    /**
+     *
+     * @return The highest render scale.
+     */
+    public double getMaxScale() {
+        return maxScale;
+    }
+
+    /**
+     * This method sets the range of the render scale.
+     *
+     * @param minScale The lowest render scale, greater than 0.
+     * @param maxScale The highest render scale, from minScale to 1.
+     */
+    public void setScaleRange(double minScale, double maxScale) {
+
+        if (minScale > 0.0 && minScale <= maxScale && maxScale <= 1.0) {
+            this.minScale = minScale;
+            this.maxScale = maxScale;
+        }
+    }
+
+    /**
+     *
+     * @return The amount the render scale is raised or lowered at once.
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * This method sets the amount the render scale is raised or lowered at once.
+     *
+     * @param step The step. It should be greater than 0.
+     */
+    public void setStep(double step) {
+
+        if (step > 0.0) {
+            this.step = step;
+        }
+    }
+
+    /**
+     *
+     * @return The share of the frame budget under wich the render scale is raised.
+     */
+    public double getLowerLoad() {
+        return lowerLoad;
+    }
+
+    /**
+     *
+     * @return The share of the frame budget over wich the render scale is lowered.
+     */
+    public double getUpperLoad() {
+        return upperLoad;
+    }
+
+    /**
+     * This method sets the shares of the frame budget wich make the render
+     * scale change.
+     *
+     * @param lowerLoad The share under wich the render scale is raised.
+     * @param upperLoad The share over wich the render scale is lowered. It
+     * should be greater than lowerLoad.
+     */
+    public void setLoads(double lowerLoad, double upperLoad) {
+
+        if (lowerLoad >= 0.0 && lowerLoad < upperLoad) {
+            this.lowerLoad = lowerLoad;
+            this.upperLoad = upperLoad;
+        }
+    }
+
+    /**
+     *
+     * @return The number of frames averaged before each decision.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * This method sets the number of frames averaged before each decision.
+     *
+     * @param window The number of frames. It should be greater than 0.
+     */
+    public void setWindow(int window) {
+
+        if (window > 0) {
+            this.window = window;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package userInterface;
+
+import control.interfaces.FrameSnapshot;
+import control.interfaces.Renderable;
+import java.awt.Graphics;
+import java.awt.Image;
+
+/**
+ * This class holds the state needed to render a single frame: the images, the
+ * screen positions, and the zIndex of every renderable, in the order they should
+ * be drawn. It's taken by the GameEngine at the end of each update when it's
+ * running in pipelined mode, so the next frame can be updated while this one is
+ * being rendered by another Thread.
+ *
+ * The GameEngine uses two RenderSnapshot instances and exchanges them between
+ * the updating and the rendering Threads (double buffering). The arrays are
+ * reused from one frame to the next one, so no objects are created once they
+ * have grown to the number of renderables.
+ *
+ * A Renderable wich can't describe itself as images is stored as a live entry,
+ * and its <code>render()</code> method will be invoked when the snapshot is
+ * rendered. Since a live entry reads the Renderable state, the GameEngine
+ * doesn't update the next frame while a snapshot with live entries is being
+ * rendered.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see control.interfaces.Snapshotable
+ * @see GameEngine#setPipelined(boolean)
+ */
+public class RenderSnapshot implements FrameSnapshot {
+
+    //
+    // Fields
+    //
+    /**
+     * Entry type for a whole image drawn at a screen position.
+     */
+    public static final byte IMAGE = 0;
+    /**
+     * Entry type for a region of an image drawn at a screen position.
+     */
+    public static final byte WINDOW = 1;
+    /**
+     * Entry type for a Renderable wich renders itself.
+     */
+    public static final byte LIVE = 2;
+    /**
+     * The initial capacity of the entries arrays.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * The number of entries currently stored.
+     */
+    private int size;
+    /**
+     * The number of LIVE entries currently stored.
+     */
+    private int liveEntries;
+    /**
+     * The type of each entry (IMAGE, WINDOW or LIVE).
+     */
+    private byte[] types;
+    /**
+     * The Renderable wich added each entry.
+     */
+    private Renderable[] owners;
+    /**
+     * The image of each entry. null for LIVE entries.
+     */
+    private Image[] images;
+    /**
+     * The screen x coordinate of each entry.
+     */
+    private int[] xs;
+    /**
+     * The screen y coordinate of each entry.
+     */
+    private int[] ys;
+    /**
+     * The width of each entry at the screen.
+     */
+    private int[] widths;
+    /**
+     * The height of each entry at the screen.
+     */
+    private int[] heights;
+    /**
+     * The x coordinate of the image region drawn by each WINDOW entry.
+     */
+    private int[] sourceXs;
+    /**
+     * The y coordinate of the image region drawn by each WINDOW entry.
+     */
+    private int[] sourceYs;
+    /**
+     * The zIndex of each entry.
+     */
+    private int[] zIndexes;
+
+    //
+    // Constructors
+    //
+    /**
+     * The default constructor. It initializes the entries arrays.
+     */
+    public RenderSnapshot() {
+
+        types = new byte[INITIAL_CAPACITY];
+        owners = new Renderable[INITIAL_CAPACITY];
+        images = new Image[INITIAL_CAPACITY];
+        xs = new int[INITIAL_CAPACITY];
+        ys = new int[INITIAL_CAPACITY];
+        widths = new int[INITIAL_CAPACITY];
+        heights = new int[INITIAL_CAPACITY];
+        sourceXs = new int[INITIAL_CAPACITY];
+        sourceYs = new int[INITIAL_CAPACITY];
+        zIndexes = new int[INITIAL_CAPACITY];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method removes all the entries. The arrays are kept to be reused.
+     */
+    public void clear() {
+
+        for (int i = 0; i < size; i++) {
+            owners[i] = null;
+            images[i] = null;
+        }
+
+        size = 0;
+        liveEntries = 0;
+    }
+
+    /**
+     * This method adds a whole image drawn at the given screen position.
+     *
+     * @param owner The Renderable wich is represented by the image.
+     * @param image The image to draw. If it's null the entry is not added.
+     * @param x The screen x coordinate.
+     * @param y The screen y coordinate.
+     * @param zIndex The superposition value of the owner.
+     */
+    public void addImage(Renderable owner, Image image, int x, int y, int zIndex) {
+
+        if (image != null) {
+            int index = nextIndex();
+            types[index] = IMAGE;
+            owners[index] = owner;
+            images[index] = image;
+            xs[index] = x;
+            ys[index] = y;
+            widths[index] = image.getWidth(null);
+            heights[index] = image.getHeight(null);
+            sourceXs[index] = 0;
+            sourceYs[index] = 0;
+            zIndexes[index] = zIndex;
+        }
+    }
+
+    /**
+     * This method adds a region of an image drawn at the given screen position
+     * without scaling.
+     *
+     * @param owner The Renderable wich is represented by the image.
+     * @param image The image from wich the region is drawn. If it's null the entry
+     * is not added.
+     * @param x The screen x coordinate.
+     * @param y The screen y coordinate.
+     * @param width The width of the region.
+     * @param height The height of the region.
+     * @param sourceX The x coordinate of the region at the image.
+     * @param sourceY The y coordinate of the region at the image.
+     * @param zIndex The superposition value of the owner.
+     */
+    public void addImageWindow(Renderable owner, Image image, int x, int y, int width, int height,
+            int sourceX, int sourceY, int zIndex) {
+
+        if (image != null) {
+            int index = nextIndex();
+            types[index] = WINDOW;
+            owners[index] = owner;
+            images[index] = image;
+            xs[index] = x;
+            ys[index] = y;
+            widths[index] = width;
+            heights[index] = height;
+            sourceXs[index] = sourceX;
+            sourceYs[index] = sourceY;
+            zIndexes[index] = zIndex;
+        }
+    }
+
+    /**
+     * This method adds a Renderable wich will render itself when the snapshot
+     * is rendered.
+     *
+     * @param renderable The Renderable to add. If it's null the entry is not added.
+     * @param zIndex The superposition value of the Renderable.
+     */
+    public void addRenderable(Renderable renderable, int zIndex) {
+
+        if (renderable != null) {
+            int index = nextIndex();
+            types[index] = LIVE;
+            liveEntries++;
+            owners[index] = renderable;
+            images[index] = null;
+            xs[index] = 0;
+            ys[index] = 0;
+            widths[index] = 0;
+            heights[index] = 0;
+            sourceXs[index] = 0;
+            sourceYs[index] = 0;
+            zIndexes[index] = zIndex;
+        }
+    }
+
+    /**
+     * This method draws all the entries in the order they were added.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     */
+    public void render(Graphics g) {
+
+        for (int i = 0; i < size; i++) {
+            renderEntry(g, i);
+        }
+    }
+
+    /**
+     * This method draws a single entry.
+     *
+     * @param g The Graphics object wich will perform the rendering.
+     * @param index The index of the entry.
+     */
+    public void renderEntry(Graphics g, int index) {
+
+        switch (types[index]) {
+            case IMAGE:
+                g.drawImage(images[index], xs[index], ys[index], null);
+                break;
+            case WINDOW:
+                g.drawImage(images[index], xs[index], ys[index],
+                        xs[index] + widths[index], ys[index] + heights[index],
+                        sourceXs[index], sourceYs[index],
+                        sourceXs[index] + widths[index], sourceYs[index] + heights[index], null);
+                break;
+            case LIVE:
+                owners[index].render(g);
+                break;
+        }
+    }
+
+    /**
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return true if any entry is a LIVE one, wich reads the state of its
+     * Renderable when it's rendered.
+     */
+    public boolean hasLiveEntries() {
+        return liveEntries > 0;
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The entry type (IMAGE, WINDOW or LIVE).
+     */
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The Renderable wich added the entry.
+     */
+    public Renderable getOwner(int index) {
+        return owners[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The image of the entry. null for LIVE entries.
+     */
+    public Image getImage(int index) {
+        return images[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The screen x coordinate of the entry.
+     */
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The screen y coordinate of the entry.
+     */
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The width of the entry at the screen.
+     */
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The height of the entry at the screen.
+     */
+    public int getHeight(int index) {
+        return heights[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The x coordinate of the image region for WINDOW entries.
+     */
+    public int getSourceX(int index) {
+        return sourceXs[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The y coordinate of the image region for WINDOW entries.
+     */
+    public int getSourceY(int index) {
+        return sourceYs[index];
+    }
+
+    /**
+     *
+     * @param index The index of the entry.
+     *
+     * @return The zIndex of the entry.
+     */
+    public int getZIndex(int index) {
+        return zIndexes[index];
+    }
+
+    /**
+     * This method makes this RenderSnapshot hold the same entries as another
+     * one. The arrays are reused if they are big enough.
+     *
+     * @param other The RenderSnapshot to copy.
+     */
+    public void copyFrom(RenderSnapshot other) {
+
+        clear();
+
+        for (int i = 0; i < other.size; i++) {
+            int index = nextIndex();
+            types[index] = other.types[i];
+            owners[index] = other.owners[i];
+            images[index] = other.images[i];
+            xs[index] = other.xs[i];
+            ys[index] = other.ys[i];
+            widths[index] = other.widths[i];
+            heights[index] = other.heights[i];
+            sourceXs[index] = other.sourceXs[i];
+            sourceYs[index] = other.sourceYs[i];
+            zIndexes[index] = other.zIndexes[i];
+        }
+
+        liveEntries = other.liveEntries;
+    }
+
+    /**
+     * This method checks if an entry of this RenderSnapshot would draw exactly
+     * the same as an entry of another one: same type, image, position, size,
+     * image region and zIndex. LIVE entries are never the same, since their
+     * drawing is unknown.
+     *
+     * @param index The index of the entry at this RenderSnapshot.
+     * @param other The other RenderSnapshot.
+     * @param otherIndex The index of the entry at the other RenderSnapshot.
+     *
+     * @return true if both entries draw the same.
+     */
+    public boolean isSameEntry(int index, RenderSnapshot other, int otherIndex) {
+
+        return types[index] != LIVE
+                && types[index] == other.types[otherIndex]
+                && images[index] == other.images[otherIndex]
+                && xs[index] == other.xs[otherIndex]
+                && ys[index] == other.ys[otherIndex]
+                && widths[index] == other.widths[otherIndex]
+                && heights[index] == other.heights[otherIndex]
+                && sourceXs[index] == other.sourceXs[otherIndex]
+                && sourceYs[index] == other.sourceYs[otherIndex]
+                && zIndexes[index] == other.zIndexes[otherIndex];
+    }
+
+    /**
+     * This method returns the index for a new entry, growing the arrays if
+     * they are full.
+     *
+     * @return The index of the new entry.
+     */
+    private int nextIndex() {
+
+        if (size == types.length) {
+            int capacity = size * 2;
+
+            byte[] newTypes = new byte[capacity];
+            System.arraycopy(types, 0, newTypes, 0, size);
+            types = newTypes;
+
+            Renderable[] newOwners = new Renderable[capacity];
+            System.arraycopy(owners, 0, newOwners, 0, size);
+            owners = newOwners;
+
+            Image[] newImages = new Image[capacity];
+            System.arraycopy(images, 0, newImages, 0, size);
+            images = newImages;
+
+            xs = grow(xs, capacity);
+            ys = grow(ys, capacity);
+            widths = grow(widths, capacity);
+            heights = grow(heights, capacity);
+            sourceXs = grow(sourceXs, capacity);
+            sourceYs = grow(sourceYs, capacity);
+            zIndexes = grow(zIndexes, capacity);
+        }
+
+        return size++;
+    }
+
+    /**
+     * This method copies an int array into a bigger one.
+     *
+     * @param values The array to copy.
+     * @param capacity The new length.
+     *
+     * @return The new array.
+     */
+    private int[] grow(int[] values, int capacity) {
+
+        int[] newValues = new int[capacity];
+        System.arraycopy(values, 0, newValues, 0, size);
+
+        return newValues;
+    }
+}
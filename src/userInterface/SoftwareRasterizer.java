@@ -0,0 +1,669 @@
+package userInterface;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class composes the frames by writing straight into the pixels (an
+ * int[] array) of a TYPE_INT_RGB back image, instead of going through
+ * <code>Graphics.drawImage()</code> for every sprite. When there are thousands
+ * of small sprites the per call overhead of Java2D is avoided, wich pays off
+ * mostly where Java2D renders by software anyway.
+ *
+ * The images of the RenderSnapshot entries are copied with a loop chosen by
+ * their transparency:
+ * <ul>
+ * <li>Opaque images are copied row by row with <code>System.arraycopy()</code>.</li>
+ * <li>Bitmask images (every pixel is either opaque or fully transparent) copy
+ * only their opaque pixels.</li>
+ * <li>Translucent images are blended pixel by pixel, premultiplied or not.</li>
+ * </ul>
+ * Only the integer RGB and ARGB BufferedImage instances (the ones prepared by
+ * the ImagesManager, and their subimages) are rasterized this way. Any other
+ * image, and the LIVE entries (the Renderable instances wich override their
+ * render method), are drawn through the Graphics of the back image.
+ *
+ * The transparency of each image is found by looking at its pixels the first
+ * time it's drawn, and then it's remembered. If the pixels of an image are
+ * changed later, <code>forget()</code> should be invoked.
+ *
+ * The frame can be split in horizontal bands, each one rasterized by its own
+ * Thread from a ForkJoinPool. Every band goes through the whole list of
+ * entries in order, clipping each image to its rows, so the result is the
+ * same as the one of a single band. The entries wich can't be rasterized
+ * are drawn by the calling Thread between the parallel runs, keeping their
+ * order.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GameEngine#setSoftwareRendering(boolean)
+ */
+public class SoftwareRasterizer {
+
+    //
+    // Fields
+    //
+    /**
+     * The back image.
+     */
+    private final BufferedImage image;
+    /**
+     * The pixels of the back image.
+     */
+    private final int[] pixels;
+    /**
+     * The Graphics of the back image, used by the entries wich can't be rasterized.
+     */
+    private final Graphics2D graphics;
+    /**
+     * The width of the back image.
+     */
+    private final int width;
+    /**
+     * The height of the back image.
+     */
+    private final int height;
+    /**
+     * The transparency (a java.awt.Transparency constant) of each image drawn.
+     */
+    private final WeakHashMap<BufferedImage, Integer> transparencies = new WeakHashMap<BufferedImage, Integer>();
+    /**
+     * The transparency of each entry of the RenderSnapshot being rendered, or
+     * FALLBACK if it's drawn through the Graphics.
+     */
+    private int[] entryModes = new int[64];
+    /**
+     * The mode of the entries drawn through the Graphics.
+     */
+    private static final int FALLBACK = 0;
+    /**
+     * The number of horizontal bands rasterized in parallel.
+     */
+    private int bands = 1;
+    /**
+     * The minimum height of a band, in pixels, so the bands aren't too thin to
+     * pay off.
+     */
+    private static final int MIN_BAND_HEIGHT = 32;
+    /**
+     * The pool wich rasterizes the bands. It's created when there's more than
+     * one band.
+     */
+    private ForkJoinPool pool;
+    /**
+     * The number of entries rasterized at the last frame.
+     */
+    private int rasterizedEntries;
+    /**
+     * The number of entries drawn through the Graphics at the last frame.
+     */
+    private int fallbackEntries;
+
+    //
+    // Constructors
+    //
+    /**
+     * Constructor.
+     *
+     * @param width The width of the back image.
+     * @param height The height of the back image.
+     */
+    public SoftwareRasterizer(int width, int height) {
+
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+
+        image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        graphics = image.createGraphics();
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method fills the whole back image with a color.
+     *
+     * @param color The background color.
+     */
+    public void clear(Color color) {
+
+        int bandCount = getBandCount();
+
+        if (bandCount > 1) {
+            pool.invoke(new BandTask(null, 0, 0, 0, bandCount, color.getRGB()));
+        } else {
+            Arrays.fill(pixels, color.getRGB());
+        }
+    }
+
+    /**
+     * This method draws all the entries of a RenderSnapshot in the order they
+     * were added.
+     *
+     * @param snapshot The RenderSnapshot to draw.
+     */
+    public void render(RenderSnapshot snapshot) {
+
+        int size = snapshot.size();
+
+        if (entryModes.length < size) {
+            entryModes = new int[size * 2];
+        }
+
+        rasterizedEntries = 0;
+        fallbackEntries = 0;
+
+        int runStart = 0;
+
+        for (int i = 0; i < size; i++) {
+            byte type = snapshot.getType(i);
+            Image entryImage = snapshot.getImage(i);
+
+            if (type != RenderSnapshot.LIVE && isRasterizable(entryImage)) {
+                entryModes[i] = getTransparency((BufferedImage) entryImage);
+                rasterizedEntries++;
+            } else {
+                entryModes[i] = FALLBACK;
+                rasterizeRun(snapshot, runStart, i);
+                snapshot.renderEntry(graphics, i);
+                runStart = i + 1;
+                fallbackEntries++;
+            }
+        }
+
+        rasterizeRun(snapshot, runStart, size);
+    }
+
+    /**
+     * This method rasterizes a run of consecutive rasterizable entries, split
+     * in bands if there's more than one.
+     *
+     * @param snapshot The RenderSnapshot being rendered.
+     * @param start The index of the first entry of the run.
+     * @param end The index after the last entry of the run.
+     */
+    private void rasterizeRun(RenderSnapshot snapshot, int start, int end) {
+
+        if (start >= end) {
+            return;
+        }
+
+        int bandCount = getBandCount();
+
+        if (bandCount > 1) {
+            pool.invoke(new BandTask(snapshot, start, end, 0, bandCount, 0));
+        } else {
+            rasterizeEntries(snapshot, start, end, 0, height);
+        }
+    }
+
+    /**
+     * This method rasterizes some entries clipped to a band of rows.
+     *
+     * @param snapshot The RenderSnapshot being rendered.
+     * @param start The index of the first entry.
+     * @param end The index after the last entry.
+     * @param top The first row of the band.
+     * @param bottom The row after the last one of the band.
+     */
+    private void rasterizeEntries(RenderSnapshot snapshot, int start, int end, int top, int bottom) {
+
+        for (int i = start; i < end; i++) {
+            BufferedImage entryImage = (BufferedImage) snapshot.getImage(i);
+
+            if (snapshot.getType(i) == RenderSnapshot.IMAGE) {
+                drawRegion(entryImage, snapshot.getX(i), snapshot.getY(i),
+                        entryImage.getWidth(), entryImage.getHeight(), 0, 0, entryModes[i], top, bottom);
+            } else {
+                drawRegion(entryImage, snapshot.getX(i), snapshot.getY(i), snapshot.getWidth(i),
+                        snapshot.getHeight(i), snapshot.getSourceX(i), snapshot.getSourceY(i),
+                        entryModes[i], top, bottom);
+            }
+        }
+    }
+
+    /**
+     * This method copies a region of an image into the back image, clipped to
+     * its bounds.
+     *
+     * @param source The image to draw.
+     * @param x The x coordinate where the region is drawn.
+     * @param y The y coordinate where the region is drawn.
+     * @param regionWidth The width of the region.
+     * @param regionHeight The height of the region.
+     * @param sourceX The x coordinate of the region at the image.
+     * @param sourceY The y coordinate of the region at the image.
+     *
+     * @return true if the image has been rasterized (or it's out of the back
+     * image). false if it's not an integer RGB or ARGB BufferedImage, so it
+     * should be drawn through the Graphics.
+     */
+    public boolean drawImage(Image source, int x, int y, int regionWidth, int regionHeight,
+            int sourceX, int sourceY) {
+
+        if (!isRasterizable(source)) {
+            return false;
+        }
+
+        BufferedImage bufferedSource = (BufferedImage) source;
+
+        drawRegion(bufferedSource, x, y, regionWidth, regionHeight, sourceX, sourceY,
+                getTransparency(bufferedSource), 0, height);
+
+        return true;
+    }
+
+    /**
+     * This method copies a region of a rasterizable image into the back image,
+     * clipped to its columns and to a band of its rows.
+     *
+     * @param bufferedSource The image to draw.
+     * @param x The x coordinate where the region is drawn.
+     * @param y The y coordinate where the region is drawn.
+     * @param regionWidth The width of the region.
+     * @param regionHeight The height of the region.
+     * @param sourceX The x coordinate of the region at the image.
+     * @param sourceY The y coordinate of the region at the image.
+     * @param transparency The transparency of the image.
+     * @param top The first row of the band.
+     * @param bottom The row after the last one of the band.
+     */
+    private void drawRegion(BufferedImage bufferedSource, int x, int y, int regionWidth, int regionHeight,
+            int sourceX, int sourceY, int transparency, int top, int bottom) {
+
+        //The region is clipped to the image, to the back image and to the band.
+        regionWidth = Math.min(regionWidth, bufferedSource.getWidth() - sourceX);
+        regionHeight = Math.min(regionHeight, bufferedSource.getHeight() - sourceY);
+        if (x < 0) {
+            sourceX -= x;
+            regionWidth += x;
+            x = 0;
+        }
+        if (y < top) {
+            sourceY += top - y;
+            regionHeight -= top - y;
+            y = top;
+        }
+        regionWidth = Math.min(regionWidth, width - x);
+        regionHeight = Math.min(regionHeight, bottom - y);
+
+        if (regionWidth <= 0 || regionHeight <= 0 || sourceX < 0 || sourceY < 0) {
+            return;
+        }
+
+        WritableRaster raster = bufferedSource.getRaster();
+        DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+        int[] sourcePixels = buffer.getData();
+        int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        int sourceIndex = buffer.getOffset()
+                + (sourceY - raster.getSampleModelTranslateY()) * stride
+                + (sourceX - raster.getSampleModelTranslateX());
+        int targetIndex = y * width + x;
+
+        switch (transparency) {
+            case Transparency.OPAQUE:
+                copyOpaque(sourcePixels, sourceIndex, stride, targetIndex, regionWidth, regionHeight);
+                break;
+            case Transparency.BITMASK:
+                copyBitmask(sourcePixels, sourceIndex, stride, targetIndex, regionWidth, regionHeight);
+                break;
+            default:
+                blend(sourcePixels, sourceIndex, stride, targetIndex, regionWidth, regionHeight,
+                        bufferedSource.isAlphaPremultiplied());
+        }
+    }
+
+    /**
+     * This method copies the rows of an opaque region.
+     *
+     * @param source The pixels of the image.
+     * @param sourceIndex The index of the first pixel of the region.
+     * @param stride The distance between two rows of the image.
+     * @param targetIndex The index of the first pixel at the back image.
+     * @param regionWidth The width of the region.
+     * @param regionHeight The height of the region.
+     */
+    private void copyOpaque(int[] source, int sourceIndex, int stride, int targetIndex,
+            int regionWidth, int regionHeight) {
+
+        for (int row = 0; row < regionHeight; row++) {
+            System.arraycopy(source, sourceIndex, pixels, targetIndex, regionWidth);
+            sourceIndex += stride;
+            targetIndex += width;
+        }
+    }
+
+    /**
+     * This method copies the opaque pixels of a bitmask region.
+     *
+     * @param source The pixels of the image.
+     * @param sourceIndex The index of the first pixel of the region.
+     * @param stride The distance between two rows of the image.
+     * @param targetIndex The index of the first pixel at the back image.
+     * @param regionWidth The width of the region.
+     * @param regionHeight The height of the region.
+     */
+    private void copyBitmask(int[] source, int sourceIndex, int stride, int targetIndex,
+            int regionWidth, int regionHeight) {
+
+        for (int row = 0; row < regionHeight; row++) {
+            for (int column = 0; column < regionWidth; column++) {
+                int pixel = source[sourceIndex + column];
+                if ((pixel >>> 24) != 0) {
+                    pixels[targetIndex + column] = pixel;
+                }
+            }
+            sourceIndex += stride;
+            targetIndex += width;
+        }
+    }
+
+    /**
+     * This method blends the pixels of a translucent region over the back image.
+     *
+     * @param source The pixels of the image.
+     * @param sourceIndex The index of the first pixel of the region.
+     * @param stride The distance between two rows of the image.
+     * @param targetIndex The index of the first pixel at the back image.
+     * @param regionWidth The width of the region.
+     * @param regionHeight The height of the region.
+     * @param premultiplied true if the color components of the image are
+     * premultiplied by its alpha.
+     */
+    private void blend(int[] source, int sourceIndex, int stride, int targetIndex,
+            int regionWidth, int regionHeight, boolean premultiplied) {
+
+        for (int row = 0; row < regionHeight; row++) {
+            for (int column = 0; column < regionWidth; column++) {
+                int pixel = source[sourceIndex + column];
+                int alpha = pixel >>> 24;
+
+                if (alpha == 0xFF) {
+                    pixels[targetIndex + column] = pixel;
+                } else if (alpha != 0) {
+                    int background = pixels[targetIndex + column];
+                    int inverse = 0xFF - alpha;
+
+                    int red = (background >> 16 & 0xFF) * inverse;
+                    int green = (background >> 8 & 0xFF) * inverse;
+                    int blue = (background & 0xFF) * inverse;
+
+                    if (premultiplied) {
+                        red = (pixel >> 16 & 0xFF) + (red + 127) / 255;
+                        green = (pixel >> 8 & 0xFF) + (green + 127) / 255;
+                        blue = (pixel & 0xFF) + (blue + 127) / 255;
+                    } else {
+                        red = ((pixel >> 16 & 0xFF) * alpha + red + 127) / 255;
+                        green = ((pixel >> 8 & 0xFF) * alpha + green + 127) / 255;
+                        blue = ((pixel & 0xFF) * alpha + blue + 127) / 255;
+                    }
+
+                    pixels[targetIndex + column] = Math.min(red, 0xFF) << 16
+                            | Math.min(green, 0xFF) << 8 | Math.min(blue, 0xFF);
+                }
+            }
+            sourceIndex += stride;
+            targetIndex += width;
+        }
+    }
+
+    /**
+     * This method returns the transparency of an image, looking at its alpha
+     * values the first time.
+     *
+     * @param source A rasterizable image.
+     *
+     * @return Transparency.OPAQUE, Transparency.BITMASK or Transparency.TRANSLUCENT.
+     */
+    private int getTransparency(BufferedImage source) {
+
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return Transparency.OPAQUE;
+        }
+
+        Integer transparency = transparencies.get(source);
+
+        if (transparency == null) {
+            int found = Transparency.OPAQUE;
+            for (int y = 0, sourceHeight = source.getHeight(); y < sourceHeight && found != Transparency.TRANSLUCENT; y++) {
+                for (int x = 0, sourceWidth = source.getWidth(); x < sourceWidth; x++) {
+                    int alpha = source.getRGB(x, y) >>> 24;
+                    if (alpha == 0) {
+                        found = Transparency.BITMASK;
+                    } else if (alpha != 0xFF) {
+                        found = Transparency.TRANSLUCENT;
+                        break;
+                    }
+                }
+            }
+            transparency = Integer.valueOf(found);
+            transparencies.put(source, transparency);
+        }
+
+        return transparency.intValue();
+    }
+
+    /**
+     * This method forgets the transparency of an image, so its pixels are
+     * looked at again the next time it's drawn. It should be invoked after
+     * changing the pixels of an image wich has been drawn.
+     *
+     * @param source The image.
+     */
+    public void forget(BufferedImage source) {
+        transparencies.remove(source);
+    }
+
+    /**
+     *
+     * @param source An image.
+     *
+     * @return true if the image can be rasterized: an integer RGB or ARGB
+     * BufferedImage (or a subimage of one).
+     */
+    public static boolean isRasterizable(Image source) {
+
+        if (!(source instanceof BufferedImage)) {
+            return false;
+        }
+
+        BufferedImage bufferedSource = (BufferedImage) source;
+        int type = bufferedSource.getType();
+
+        return (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB
+                || type == BufferedImage.TYPE_INT_ARGB_PRE)
+                && bufferedSource.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT
+                && bufferedSource.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel;
+    }
+
+    /**
+     *
+     * @return The number of horizontal bands rasterized in parallel.
+     */
+    public int getBands() {
+        return bands;
+    }
+
+    /**
+     * This method sets the number of horizontal bands the frame is split in,
+     * each one rasterized by its own Thread. The bands are never thinner than
+     * MIN_BAND_HEIGHT rows, so a small frame may use less of them.
+     *
+     * @param bands The number of bands. 1 rasterizes the whole frame in the
+     * calling Thread. Values lower than 1 are ignored.
+     */
+    public void setBands(int bands) {
+
+        if (bands < 1 || bands == this.bands) {
+            return;
+        }
+
+        this.bands = bands;
+
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+
+        if (bands > 1) {
+            pool = new ForkJoinPool(bands);
+        }
+    }
+
+    /**
+     * This method stops the Threads wich rasterize the bands. The frames are
+     * rasterized by the calling Thread from then on.
+     */
+    public void shutdown() {
+
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        bands = 1;
+    }
+
+    /**
+     *
+     * @return The number of bands used at the next frame.
+     */
+    private int getBandCount() {
+        return pool == null ? 1 : Math.max(1, Math.min(bands, height / MIN_BAND_HEIGHT));
+    }
+
+    /**
+     *
+     * @return The back image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     *
+     * @return The Graphics of the back image.
+     */
+    public Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    /**
+     *
+     * @return The width of the back image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     *
+     * @return The height of the back image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     *
+     * @return The number of entries rasterized at the last frame.
+     */
+    public int getRasterizedEntries() {
+        return rasterizedEntries;
+    }
+
+    /**
+     *
+     * @return The number of entries drawn through the Graphics at the last frame.
+     */
+    public int getFallbackEntries() {
+        return fallbackEntries;
+    }
+
+    /**
+     * This class rasterizes a range of bands, splitting it in two halves while
+     * it holds more than one band. With no RenderSnapshot, the bands are
+     * filled with a color instead.
+     */
+    private class BandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The RenderSnapshot being rendered, or null to fill the bands.
+         */
+        private RenderSnapshot snapshot;
+        /**
+         * The index of the first entry to rasterize.
+         */
+        private int start;
+        /**
+         * The index after the last entry to rasterize.
+         */
+        private int end;
+        /**
+         * The first band of the range.
+         */
+        private int firstBand;
+        /**
+         * The band after the last one of the range.
+         */
+        private int lastBand;
+        /**
+         * The color wich fills the bands when there's no RenderSnapshot.
+         */
+        private int color;
+
+        /**
+         * Constructor.
+         *
+         * @param snapshot The RenderSnapshot being rendered, or null to fill the bands.
+         * @param start The index of the first entry to rasterize.
+         * @param end The index after the last entry to rasterize.
+         * @param firstBand The first band of the range.
+         * @param lastBand The band after the last one of the range.
+         * @param color The color wich fills the bands when there's no RenderSnapshot.
+         */
+        BandTask(RenderSnapshot snapshot, int start, int end, int firstBand, int lastBand, int color) {
+            this.snapshot = snapshot;
+            this.start = start;
+            this.end = end;
+            this.firstBand = firstBand;
+            this.lastBand = lastBand;
+            this.color = color;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (lastBand - firstBand > 1) {
+                int middle = (firstBand + lastBand) >>> 1;
+                invokeAll(new BandTask(snapshot, start, end, firstBand, middle, color),
+                        new BandTask(snapshot, start, end, middle, lastBand, color));
+                return;
+            }
+
+            int bandCount = getBandCount();
+            int top = (int) ((long) firstBand * height / bandCount);
+            int bottom = (int) ((long) lastBand * height / bandCount);
+
+            if (snapshot == null) {
+                Arrays.fill(pixels, top * width, bottom * width, color);
+            } else {
+                rasterizeEntries(snapshot, start, end, top, bottom);
+            }
+        }
+    }
+}
@@ -4,7 +4,7 @@ import control.interfaces.Renderable;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
-import java.text.DecimalFormat;
+import timers.LatencyHistogram;
 import timers.interfaces.JannatonTimer;
 
 /**
@@ -17,7 +17,12 @@ import timers.interfaces.JannatonTimer;
  *
  * Once the <code>reportStats()</code> has been called, then a call to <code>render()</code>
  * should be made in order to render the status results.
- * 
+ *
+ * The output is built into TextBuffer instances and drawn through a GlyphAtlas,
+ * and the duration of the last frames is drawn as a graph under it. None of
+ * them creates objects at each frame, so turning the stats on doesn't change
+ * the frame times being measured.
+ *
  *
  * @author German Coines Laguna
  */
@@ -64,13 +69,27 @@ public class Stats implements Renderable {
      */
     private double averageFPS = 0.0;
     /**
-     * A DecimalFormat instance to format the fps and afps output
+     * The number of frame durations drawn by the frame time graph (one per pixel).
      */
-    private DecimalFormat df = new DecimalFormat("0.#");
+    private static final int FRAME_GRAPH_SAMPLES = 120;
     /**
-     * A DecimalFormat instance to format the elapsed time output
+     * The height of the frame time graph, in pixels.
      */
-    private DecimalFormat timeDf = new DecimalFormat("0.####");
+    private static final int FRAME_GRAPH_HEIGHT = 40;
+    /**
+     * The phases of the engine loop, kept to avoid creating the array at each report.
+     */
+    private static final EngineMetrics.Phase[] PHASES = EngineMetrics.Phase.values();
+    /**
+     * The lowercase names of the phases of the engine loop.
+     */
+    private static final String[] PHASE_NAMES = new String[PHASES.length];
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            PHASE_NAMES[i] = PHASES[i].name().toLowerCase();
+        }
+    }
     /**
      * The GameEngine requested period.
      */
@@ -82,24 +101,68 @@ public class Stats implements Renderable {
     /**
      * The field that will hold the requested frames per second
      */
-    private String requestedFps = "";
+    private TextBuffer requestedFps = new TextBuffer();
     /**
      * The field that will hold the timming error (in tant per cent)
      */
-    private String timerStats = "";
+    private TextBuffer timerStats = new TextBuffer();
     /**
      * The field that will hold the resulting frames per second
      */
-    private String resultFps = "";
+    private TextBuffer resultFps = new TextBuffer();
     /**
      * This field holds the color that theresult String will have when it gets
      * rendered.
      */
     private Color fontColor = Color.yellow;
     /**
-     * The Graphics object to render the output.
+     * The Font used to render the output.
+     */
+    private Font statsFont = new Font("Arial", Font.BOLD, 14);
+    /**
+     * The glyphs of the statsFont in the fontColor. It's created at the first
+     * rendering, and again when the color changes.
+     */
+    private GlyphAtlas glyphs;
+    /**
+     * The duration of the last frames, in nanoseconds, as a ring buffer.
+     */
+    private long[] frameTimes = new long[FRAME_GRAPH_SAMPLES];
+    /**
+     * The position at frameTimes where the next frame duration is stored.
+     */
+    private int frameTimesIndex = 0;
+    /**
+     * The time at wich the last reportStats() call was made. 0 before the first one.
      */
-    private Graphics graphics;
+    private long prevFrameTime = 0L;
+    /**
+     * The engine metrics to report with the frames per second. It's null if
+     * only the frames per second should be reported.
+     *
+     * @see #setMetrics(userInterface.EngineMetrics)
+     */
+    private EngineMetrics metrics;
+    /**
+     * The fields that will hold the engine metrics of each loop phase.
+     */
+    private TextBuffer[] metricsStats = new TextBuffer[0];
+    /**
+     * The number of renderables drawn at the last reported frame.
+     */
+    private int drawnRenderables;
+    /**
+     * The number of renderables culled at the last reported frame.
+     */
+    private int culledRenderables;
+    /**
+     * true if the renderables counts have been reported at least once.
+     */
+    private boolean cullingReported = false;
+    /**
+     * The field that will hold the drawn and culled renderables counts.
+     */
+    private TextBuffer cullingStats = new TextBuffer();
     /**
      * The instance itself.
      */
@@ -151,8 +214,16 @@ public class Stats implements Renderable {
     public void reportStats() {
         frameCount++;
         statsInterval += period;
+
+        long frameTime = timer.getTimeInstace();
+        if (prevFrameTime != 0L) {
+            frameTimes[frameTimesIndex] = frameTime - prevFrameTime;
+            frameTimesIndex = (frameTimesIndex + 1) % FRAME_GRAPH_SAMPLES;
+        }
+        prevFrameTime = frameTime;
+
         if (statsInterval >= maxStatsInterval) {
-            long timeNow = timer.getTimeInstace();
+            long timeNow = frameTime;
 
             long realElapsedTime = timeNow - prevStatsTime;
 
@@ -179,11 +250,37 @@ public class Stats implements Renderable {
                 averageFPS = totalFPS / numberFpsToAverage;
             }
 
-            requestedFps = "requested fps: " + 1000 / period + " period: " + period + "ms \n";
-            timerStats = timeDf.format((double) statsInterval / 1000) + " " +
-                    timeDf.format((double) realElapsedTime / 1000000000L) + "s\n" +
-                    "timing error: " + df.format(timingError) + "%\n";
-            resultFps = "total frames: " + frameCount + " fps: " + df.format(actualFPS) + " afps: " + df.format(averageFPS);
+            requestedFps.clear().append("requested fps: ").append(1000 / period)
+                    .append(" period: ").append(period).append("ms");
+            timerStats.clear().append((double) statsInterval / 1000, 4).append(' ')
+                    .append((double) realElapsedTime / 1000000000L, 4).append("s ")
+                    .append("timing error: ").append(timingError, 1).append('%');
+            resultFps.clear().append("total frames: ").append(frameCount)
+                    .append(" fps: ").append(actualFPS, 1).append(" afps: ").append(averageFPS, 1);
+
+            if (metrics != null) {
+                TextBuffer[] phasesStats = metricsStats;
+                if (phasesStats.length != PHASES.length + 1) {
+                    phasesStats = new TextBuffer[PHASES.length + 1];
+                    for (int i = 0; i < phasesStats.length; i++) {
+                        phasesStats[i] = new TextBuffer();
+                    }
+                }
+                for (int i = 0; i < PHASES.length; i++) {
+                    LatencyHistogram histogram = metrics.getHistogram(PHASES[i]);
+                    phasesStats[i].clear().append(PHASE_NAMES[i])
+                            .append(" p50: ").append(histogram.getP50() / 1000000.0, 2)
+                            .append(" p99: ").append(histogram.getP99() / 1000000.0, 2)
+                            .append(" max: ").append(histogram.getMax() / 1000000.0, 2).append("ms");
+                }
+                phasesStats[PHASES.length].clear().append("skipped frames: ").append(metrics.getSkippedFrames());
+                metricsStats = phasesStats;
+            }
+
+            if (cullingReported) {
+                cullingStats.clear().append("drawn sprites: ").append(drawnRenderables)
+                        .append(" culled sprites: ").append(culledRenderables);
+            }
 
             prevStatsTime = timeNow;
             statsInterval = 0L;
@@ -219,29 +316,105 @@ public class Stats implements Renderable {
      */
     public void setFontColor(Color color){
         this.fontColor = color;
+        glyphs = null;
+    }
+
+    /**
+     * This method sets the engine metrics that will be reported under the
+     * frames per second.
+     *
+     * @param metrics The EngineMetrics instance, or null to stop reporting them.
+     */
+    public void setMetrics(EngineMetrics metrics){
+        this.metrics = metrics;
+        if (metrics == null) {
+            metricsStats = new TextBuffer[0];
+        }
+    }
+
+    /**
+     * This method reports the number of renderables drawn and skipped by the
+     * viewport culling at the current frame, so they're shown under the frames
+     * per second.
+     *
+     * @param drawn The number of renderables drawn.
+     * @param culled The number of renderables culled.
+     */
+    public void reportCulling(int drawn, int culled){
+        drawnRenderables = drawn;
+        culledRenderables = culled;
+        cullingReported = true;
     }
 
     /**
      * Since Stats implements the Renderable interface it can be rendered by the
      * GameEngine, so it's able to render it's result.
-     * If the Stats graphics field is null, it will get the Graphics instance
-     * passed by parameter in this method.
+     * The Graphics instance passed by parameter is used every time, since it
+     * may change from one frame to the next one (i.e. when the GameEngine
+     * renders through a BufferStrategy).
      *
      * @param g The Graphics instance that Stats will use.
      */
     public void render(Graphics g) {
 
-        if(graphics != null){
-        
-            graphics.setFont(new Font("Arial", Font.BOLD, 14));
-            graphics.setColor(fontColor);
+        GlyphAtlas atlas = glyphs;
+        if (atlas == null) {
+            atlas = new GlyphAtlas(statsFont, fontColor);
+            glyphs = atlas;
+        }
+
+        atlas.drawText(g, requestedFps, 20, 20);
+        atlas.drawText(g, timerStats, 20, 40);
+        atlas.drawText(g, resultFps, 20, 60);
 
-            graphics.drawString(requestedFps, 20, 20);
-            graphics.drawString(timerStats, 20, 40);
-            graphics.drawString(resultFps, 20, 60);
+        int y = 80;
 
-        } else {
-            graphics = g.create();
+        TextBuffer[] phasesStats = metricsStats;
+        for (int i = 0; i < phasesStats.length; i++) {
+            atlas.drawText(g, phasesStats[i], 20, y);
+            y += 20;
+        }
+
+        if (cullingReported) {
+            atlas.drawText(g, cullingStats, 20, y);
+            y += 20;
+        }
+
+        renderFrameGraph(g, 20, y - 10);
+    }
+
+    /**
+     * This method draws the duration of the last frames as a line graph, from
+     * the oldest (left) to the newest (right). The middle line of the graph is
+     * the requested period, so the top of the graph is twice the period.
+     *
+     * @param g The Graphics instance that Stats will use.
+     * @param x The x coordinate of the graph.
+     * @param y The y coordinate of the graph.
+     */
+    private void renderFrameGraph(Graphics g, int x, int y) {
+
+        g.setColor(fontColor);
+        g.drawRect(x, y, FRAME_GRAPH_SAMPLES, FRAME_GRAPH_HEIGHT);
+
+        int middle = y + FRAME_GRAPH_HEIGHT / 2;
+        for (int i = 0; i < FRAME_GRAPH_SAMPLES; i += 4) {
+            g.drawLine(x + i, middle, x + i + 1, middle);
+        }
+
+        long fullScale = Math.max(period * 2000000L, 1L);
+        int previousY = -1;
+
+        for (int i = 0; i < FRAME_GRAPH_SAMPLES; i++) {
+            long frameTime = frameTimes[(frameTimesIndex + i) % FRAME_GRAPH_SAMPLES];
+            if (frameTime <= 0L) {
+                previousY = -1;
+                continue;
+            }
+            int sampleY = y + FRAME_GRAPH_HEIGHT
+                    - (int) (Math.min(frameTime, fullScale) * FRAME_GRAPH_HEIGHT / fullScale);
+            g.drawLine(x + i, previousY < 0 ? sampleY : previousY, x + i + 1, sampleY);
+            previousY = sampleY;
         }
     }
 }
@@ -0,0 +1,231 @@
+package userInterface;
+
+/**
+ * This class holds a line of text in a reusable char array, so a text wich
+ * changes every frame (i.e. a score, or the Stats output) can be built without
+ * creating new String instances. The numbers are appended by hand, without
+ * going through String or DecimalFormat.
+ *
+ * The array only grows when a longer text is built, so once it has reached
+ * its usual length no more memory is allocated.
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see GlyphAtlas#drawText(java.awt.Graphics, userInterface.TextBuffer, int, int)
+ */
+public class TextBuffer {
+
+    //
+    // Fields
+    //
+    /**
+     * The characters of the text. Only the first <code>length</code> are used.
+     */
+    private char[] chars;
+    /**
+     * The length of the text.
+     */
+    private int length;
+    /**
+     * The digits of the number being appended, in reverse order.
+     */
+    private final char[] digits = new char[20];
+
+    //
+    // Constructors
+    //
+    /**
+     * The default constructor. It has room for 64 characters.
+     */
+    public TextBuffer() {
+        this(64);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The initial room for characters.
+     */
+    public TextBuffer(int capacity) {
+        chars = new char[Math.max(capacity, 1)];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method empties the text, keeping its char array.
+     *
+     * @return The TextBuffer itself, so the calls can be chained.
+     */
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * This method appends a character.
+     *
+     * @param c The character.
+     *
+     * @return The TextBuffer itself, so the calls can be chained.
+     */
+    public TextBuffer append(char c) {
+
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+
+        return this;
+    }
+
+    /**
+     * This method appends the characters of a text.
+     *
+     * @param text The text. null appends nothing.
+     *
+     * @return The TextBuffer itself, so the calls can be chained.
+     */
+    public TextBuffer append(CharSequence text) {
+
+        if (text != null) {
+            int textLength = text.length();
+            ensureCapacity(length + textLength);
+            for (int i = 0; i < textLength; i++) {
+                chars[length++] = text.charAt(i);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * This method appends an integer number in decimal notation.
+     *
+     * @param value The number.
+     *
+     * @return The TextBuffer itself, so the calls can be chained.
+     */
+    public TextBuffer append(long value) {
+
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+
+        int count = 0;
+        do {
+            digits[count++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        ensureCapacity(length + count);
+        while (count > 0) {
+            chars[length++] = digits[--count];
+        }
+
+        return this;
+    }
+
+    /**
+     * This method appends a decimal number rounded to the given number of
+     * decimals. The trailing zero decimals are dropped, like the "0.##"
+     * DecimalFormat pattern does.
+     *
+     * @param value The number. NaN and infinite values are appended as "?".
+     * @param decimals The maximum number of decimals, from 0 to 9.
+     *
+     * @return The TextBuffer itself, so the calls can be chained.
+     */
+    public TextBuffer append(double value, int decimals) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append('?');
+        }
+
+        decimals = Math.max(0, Math.min(decimals, 9));
+
+        long scale = 1L;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10L;
+        }
+
+        long scaled = Math.round(Math.abs(value) * scale);
+        long fraction = scaled % scale;
+
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        append(scaled / scale);
+
+        if (fraction != 0) {
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                scale /= 10;
+            }
+            append('.');
+            for (long digit = scale / 10; digit > fraction && digit > 1; digit /= 10) {
+                append('0');
+            }
+            append(fraction);
+        }
+
+        return this;
+    }
+
+    /**
+     *
+     * @return The length of the text.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     *
+     * @param index The position of a character, from 0 to <code>length() - 1</code>.
+     *
+     * @return The character.
+     */
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    /**
+     * This method returns the char array wich holds the text. It's reused, so
+     * it shouldn't be kept, and only its first <code>length()</code>
+     * characters are part of the text.
+     *
+     * @return The char array.
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     *
+     * @return A new String with the text.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * This method grows the char array if it has less room than needed.
+     *
+     * @param capacity The needed room.
+     */
+    private void ensureCapacity(int capacity) {
+
+        if (capacity > chars.length) {
+            char[] grown = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class AABBTreeTest {
+
+    public AABBTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static HashSet<Rectangle> bruteForce(Rectangle[] areas, Rectangle area) {
+        HashSet<Rectangle> found = new HashSet<Rectangle>();
+        for (Rectangle candidate : areas) {
+            if (candidate != null && candidate.intersects(area)) {
+                found.add(candidate);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Test of query method, of class AABBTree. It should find the same
+     * rectangles as checking all of them.
+     */
+    @Test
+    public void testQuery() {
+        System.out.println("query");
+        Random random = new Random(11L);
+        Rectangle[] areas = new Rectangle[2000];
+        for (int i = 0; i < areas.length; i++) {
+            areas[i] = new Rectangle(random.nextInt(4000) - 500, random.nextInt(4000) - 500,
+                    1 + random.nextInt(120), 1 + random.nextInt(120));
+        }
+        areas[7] = null;
+        AABBTree instance = new AABBTree(areas);
+        assertEquals(1999, instance.size());
+
+        for (int i = 0; i < 200; i++) {
+            Rectangle area = new Rectangle(random.nextInt(4000) - 500, random.nextInt(4000) - 500,
+                    1 + random.nextInt(200), 1 + random.nextInt(200));
+            ArrayList<Rectangle> found = new ArrayList<Rectangle>();
+            int result = instance.query(area, found);
+            HashSet<Rectangle> expected = bruteForce(areas, area);
+            assertEquals(expected.size(), result);
+            assertEquals(expected, new HashSet<Rectangle>(found));
+            assertEquals(!expected.isEmpty(), instance.intersectsAny(area));
+        }
+
+        assertEquals(0, instance.query(new Rectangle(0, 0, 0, 50), new ArrayList<Rectangle>()));
+        assertFalse(new AABBTree(new Rectangle[0]).intersectsAny(new Rectangle(0, 0, 10, 10)));
+    }
+
+    /**
+     * Test of refit method, of class AABBTree. The moved rectangles should be
+     * found at their new place.
+     */
+    @Test
+    public void testRefit() {
+        System.out.println("refit");
+        Rectangle[] areas = new Rectangle[20];
+        for (int i = 0; i < areas.length; i++) {
+            areas[i] = new Rectangle(i * 20, 0, 10, 10);
+        }
+        AABBTree instance = new AABBTree(areas);
+        Rectangle target = new Rectangle(1000, 1000, 5, 5);
+        assertFalse(instance.intersectsAny(target));
+
+        areas[3].setLocation(998, 998);
+        instance.refit();
+        ArrayList<Rectangle> found = new ArrayList<Rectangle>();
+        assertEquals(1, instance.query(target, found));
+        assertSame(areas[3], found.get(0));
+        assertFalse(instance.intersectsAny(new Rectangle(60, 0, 10, 10)));
+    }
+
+    /**
+     * Test of getCollisionableAreasTree method, of class Scenario. The Threads
+     * asking for the tree at once should get the same one, and their queries
+     * should find the same rectangles as checking all of them.
+     */
+    @Test
+    public void testConcurrentQuery() throws InterruptedException {
+        System.out.println("concurrentQuery");
+        Random random = new Random(3L);
+        final Rectangle[] areas = new Rectangle[500];
+        for (int i = 0; i < areas.length; i++) {
+            areas[i] = new Rectangle(random.nextInt(2000), random.nextInt(2000),
+                    1 + random.nextInt(80), 1 + random.nextInt(80));
+        }
+        final Scenario scenario = new Scenario(new Point(0, 0), 2000, 2000, 0, areas);
+        final AABBTree[] trees = new AABBTree[4];
+        final AtomicInteger mismatches = new AtomicInteger();
+        Thread[] threads = new Thread[trees.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+
+                public void run() {
+                    Random queries = new Random(index);
+                    ArrayList<Rectangle> found = new ArrayList<Rectangle>();
+                    for (int i = 0; i < 2000; i++) {
+                        AABBTree tree = scenario.getCollisionableAreasTree();
+                        if (i == 0) {
+                            trees[index] = tree;
+                        }
+                        Rectangle area = new Rectangle(queries.nextInt(2000), queries.nextInt(2000),
+                                1 + queries.nextInt(150), 1 + queries.nextInt(150));
+                        found.clear();
+                        tree.query(area, found);
+                        if (!bruteForce(areas, area).equals(new HashSet<Rectangle>(found))) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mismatches.get());
+        for (AABBTree tree : trees) {
+            assertSame(scenario.getCollisionableAreasTree(), tree);
+        }
+    }
+
+}
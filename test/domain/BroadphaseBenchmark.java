@@ -0,0 +1,177 @@
+
+package domain;
+
+import domain.interfaces.Broadphase;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This class compares the Broadphase implementations finding the intersecting
+ * pairs of a moving scene. The boxes move a few pixels per frame, as most
+ * sprites do, and the pairs are searched after each movement.
+ *
+ * Two scenes are measured: a uniform one, with the boxes spread over the
+ * whole world, and a clustered one, with the boxes crowded around a few
+ * points.
+ *
+ * It can be run from the command line:
+ * <code>java domain.BroadphaseBenchmark [boxes] [frames]</code>
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see SpatialHash
+ * @see SweepAndPrune
+ */
+public class BroadphaseBenchmark {
+
+    //
+    // Fields
+    //
+    /**
+     * The side length of the world, in pixels.
+     */
+    private static final int WORLD_SIZE = 8192;
+    /**
+     * The number of clusters of the clustered scene.
+     */
+    private static final int CLUSTERS = 8;
+    /**
+     * The radius of each cluster, in pixels.
+     */
+    private static final int CLUSTER_RADIUS = 384;
+
+    /**
+     * This class holds a moving box of the scene.
+     */
+    private static class Box {
+
+        /**
+         * The box bounds.
+         */
+        private int x, y, width, height;
+        /**
+         * The box velocity, in pixels per frame.
+         */
+        private int xSpeed, ySpeed;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * This method builds a scene.
+     *
+     * @param count The number of boxes.
+     * @param clustered true to crowd the boxes around a few points.
+     * @param seed The seed of the random positions.
+     *
+     * @return The boxes.
+     */
+    private static Box[] buildScene(int count, boolean clustered, long seed) {
+
+        Random random = new Random(seed);
+        int[] centers = new int[2 * CLUSTERS];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = CLUSTER_RADIUS + random.nextInt(WORLD_SIZE - 2 * CLUSTER_RADIUS);
+        }
+
+        Box[] boxes = new Box[count];
+        for (int i = 0; i < count; i++) {
+            Box box = new Box();
+            box.width = 16 + random.nextInt(48);
+            box.height = 16 + random.nextInt(48);
+            if (clustered) {
+                int cluster = random.nextInt(CLUSTERS);
+                box.x = centers[2 * cluster] + (int) (random.nextGaussian() * CLUSTER_RADIUS / 2);
+                box.y = centers[2 * cluster + 1] + (int) (random.nextGaussian() * CLUSTER_RADIUS / 2);
+            } else {
+                box.x = random.nextInt(WORLD_SIZE);
+                box.y = random.nextInt(WORLD_SIZE);
+            }
+            box.xSpeed = random.nextInt(5) - 2;
+            box.ySpeed = random.nextInt(5) - 2;
+            boxes[i] = box;
+        }
+
+        return boxes;
+    }
+
+    /**
+     * This method runs a scene through a Broadphase.
+     *
+     * @param broadphase The Broadphase to measure.
+     * @param boxes The boxes of the scene. They're moved by this method.
+     * @param frames The number of frames.
+     *
+     * @return The average nanoseconds per frame, and the number of pairs found
+     * at the last frame.
+     */
+    private static long[] run(Broadphase<Box> broadphase, Box[] boxes, int frames) {
+
+        ArrayList<Box> pairs = new ArrayList<Box>();
+
+        for (Box box : boxes) {
+            broadphase.put(box, box.x, box.y, box.width, box.height);
+        }
+        broadphase.collectPairs(pairs);
+
+        long beforeTime = System.nanoTime();
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (Box box : boxes) {
+                box.x += box.xSpeed;
+                box.y += box.ySpeed;
+                if (box.x < 0 || box.x + box.width > WORLD_SIZE) {
+                    box.xSpeed = -box.xSpeed;
+                }
+                if (box.y < 0 || box.y + box.height > WORLD_SIZE) {
+                    box.ySpeed = -box.ySpeed;
+                }
+                broadphase.put(box, box.x, box.y, box.width, box.height);
+            }
+            pairs.clear();
+            broadphase.collectPairs(pairs);
+        }
+
+        return new long[]{(System.nanoTime() - beforeTime) / Math.max(frames, 1), pairs.size() / 2};
+    }
+
+    /**
+     * This method measures both Broadphase implementations at a scene. Each
+     * one runs the same boxes from the same positions.
+     *
+     * @param name The scene name.
+     * @param count The number of boxes.
+     * @param frames The number of frames.
+     * @param clustered true to crowd the boxes around a few points.
+     */
+    private static void compare(String name, int count, int frames, boolean clustered) {
+
+        long[] grid = run(new SpatialHash<Box>(), buildScene(count, clustered, 42L), frames);
+        long[] sweep = run(new SweepAndPrune<Box>(), buildScene(count, clustered, 42L), frames);
+
+        System.out.println(name + " scene, " + count + " boxes, " + frames + " frames:");
+        System.out.println("  SpatialHash   " + (grid[0] / 1000L) + " us/frame, " + grid[1] + " pairs");
+        System.out.println("  SweepAndPrune " + (sweep[0] / 1000L) + " us/frame, " + sweep[1] + " pairs");
+    }
+
+    /**
+     * This method runs the benchmark. The JVM is warmed up first with a
+     * smaller run of each scene.
+     *
+     * @param args The number of boxes (5000 by default) and the number of
+     * frames (300 by default).
+     */
+    public static void main(String[] args) {
+
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        run(new SpatialHash<Box>(), buildScene(count, false, 1L), 50);
+        run(new SweepAndPrune<Box>(), buildScene(count, true, 1L), 50);
+
+        compare("Uniform", count, frames, false);
+        compare("Clustered", count, frames, true);
+    }
+}
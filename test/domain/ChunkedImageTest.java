@@ -0,0 +1,149 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import domain.interfaces.ChunkSource;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class ChunkedImageTest {
+
+    private File directory;
+
+    public ChunkedImageTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("chunks", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * A 10x10 pixels chunk whose color encodes its column and row.
+     */
+    private static ChunkSource colorSource() {
+        return new ChunkSource() {
+
+            public BufferedImage loadChunk(int column, int row) {
+                BufferedImage chunk = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = chunk.createGraphics();
+                g.setColor(new java.awt.Color(column * 10, row * 10, 0));
+                g.fillRect(0, 0, 10, 10);
+                g.dispose();
+                return chunk;
+            }
+        };
+    }
+
+    /**
+     * Test of render method, of class ChunkedImage.
+     */
+    @Test
+    public void testRender() {
+        System.out.println("render");
+        ChunkedImage instance = new ChunkedImage(colorSource(), 100, 100, 10);
+        instance.setPrefetchMargin(0);
+        BufferedImage screen = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        instance.render(g, new Rectangle(35, 45, 20, 20), 0, 0);
+        g.dispose();
+        assertEquals(new java.awt.Color(30, 40, 0).getRGB(), screen.getRGB(0, 0));
+        assertEquals(new java.awt.Color(40, 40, 0).getRGB(), screen.getRGB(5, 0));
+        assertEquals(new java.awt.Color(50, 60, 0).getRGB(), screen.getRGB(19, 19));
+        assertEquals(9, instance.getResidentChunks());
+        assertTrue(instance.isResident(3, 4));
+        assertFalse(instance.isResident(0, 0));
+    }
+
+    /**
+     * Test of setMemoryBudget method, of class ChunkedImage.
+     */
+    @Test
+    public void testMemoryBudget() {
+        System.out.println("setMemoryBudget");
+        ChunkedImage instance = new ChunkedImage(colorSource(), 100, 100, 10);
+        instance.setPrefetchMargin(0);
+        instance.setMemoryBudget(4 * 10 * 10 * 4);
+        BufferedImage screen = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        for (int x = 0; x <= 80; x += 10) {
+            instance.render(g, new Rectangle(x, 0, 20, 20), 0, 0);
+            assertTrue(instance.getResidentBytes() <= instance.getMemoryBudget());
+        }
+        g.dispose();
+        assertEquals(4, instance.getResidentChunks());
+        assertTrue(instance.isResident(8, 1));
+        assertFalse(instance.isResident(0, 0));
+        instance.flush();
+        assertEquals(0, instance.getResidentChunks());
+        assertEquals(0L, instance.getResidentBytes());
+    }
+
+    /**
+     * Test of split method, of class FileChunkSource, loaded through a
+     * ChunkedImage.
+     */
+    @Test
+    public void testSplit() throws Exception {
+        System.out.println("split");
+        BufferedImage whole = new BufferedImage(25, 12, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 25; x++) {
+            for (int y = 0; y < 12; y++) {
+                whole.setRGB(x, y, (x * 10) << 16 | (y * 20) << 8);
+            }
+        }
+        File imageFile = new File(directory, "whole.png");
+        ImageIO.write(whole, "png", imageFile);
+        Dimension size = FileChunkSource.split(imageFile, directory, "level", 10);
+        assertEquals(new Dimension(25, 12), size);
+        assertTrue(FileChunkSource.getChunkFile(directory, "level", 2, 1).isFile());
+        ChunkedImage instance = new ChunkedImage(new FileChunkSource(directory, "level"), 25, 12, 10);
+        assertEquals(3, instance.getColumns());
+        assertEquals(2, instance.getRows());
+        BufferedImage chunk = instance.getChunk(2, 1);
+        assertEquals(5, chunk.getWidth());
+        assertEquals(2, chunk.getHeight());
+        assertEquals(whole.getRGB(23, 11), chunk.getRGB(3, 1));
+        assertNull(instance.getChunk(3, 0));
+        instance.flush();
+    }
+
+}
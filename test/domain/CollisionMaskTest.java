@@ -0,0 +1,96 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class CollisionMaskTest {
+
+    public CollisionMaskTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static BufferedImage randomImage(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (random.nextInt(40) == 0) {
+                    image.setRGB(x, y, 0x80FF0000);
+                }
+            }
+        }
+        return image;
+    }
+
+    private static boolean overlapsByPixels(BufferedImage image1, int x1, int y1, BufferedImage image2, int x2, int y2) {
+        for (int x = 0; x < image1.getWidth(); x++) {
+            for (int y = 0; y < image1.getHeight(); y++) {
+                int otherX = x + x1 - x2, otherY = y + y1 - y2;
+                if ((image1.getRGB(x, y) >>> 24) != 0 && otherX >= 0 && otherY >= 0
+                        && otherX < image2.getWidth() && otherY < image2.getHeight()
+                        && (image2.getRGB(otherX, otherY) >>> 24) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test of overlaps method, of class CollisionMask. It should match
+     * checking the pixels one by one, also for masks wider than a long.
+     */
+    @Test
+    public void testOverlaps() {
+        System.out.println("overlaps");
+        Random random = new Random(5L);
+        for (int i = 0; i < 300; i++) {
+            BufferedImage image1 = randomImage(random, 1 + random.nextInt(150), 1 + random.nextInt(20));
+            BufferedImage image2 = randomImage(random, 1 + random.nextInt(150), 1 + random.nextInt(20));
+            CollisionMask mask1 = new CollisionMask(image1);
+            CollisionMask mask2 = new CollisionMask(image2);
+            int x2 = random.nextInt(300) - 150, y2 = random.nextInt(40) - 20;
+            assertEquals(overlapsByPixels(image1, 7, 3, image2, x2, y2), mask1.overlaps(7, 3, mask2, x2, y2));
+            assertEquals(mask1.overlaps(7, 3, mask2, x2, y2), mask2.overlaps(x2, y2, mask1, 7, 3));
+        }
+
+        CollisionMask solid = new CollisionMask(new BufferedImage(70, 2, BufferedImage.TYPE_INT_RGB));
+        assertTrue(solid.isSolid(69, 1));
+        assertFalse(solid.isSolid(70, 1));
+        CollisionMask dot = new CollisionMask(3, 3);
+        assertFalse(solid.overlaps(0, 0, dot, 60, 0));
+        dot.setSolid(2, 2, true);
+        assertTrue(solid.overlaps(0, 0, dot, 67, -1));
+        assertFalse(solid.overlaps(0, 0, dot, 68, -1));
+    }
+
+}
@@ -16,7 +16,10 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
 import java.util.ArrayList;
+import javax.imageio.ImageIO;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -524,6 +527,83 @@ public class CollisionsTest {
         //fail("The test case is a prototype.");
     }
 
+    /**
+     * Test of checkCollisionableIntersectionPrecisionCollision method, of class
+     * Collisions. Two sprites whose bounds overlap should collide only when
+     * their solid pixels do.
+     */
+    @Test
+    public void testCheckCollisionableIntersectionPrecisionCollision() {
+        System.out.println("checkCollisionableIntersectionPrecisionCollision");
+        java.awt.image.BufferedImage corner = new java.awt.image.BufferedImage(10, 10, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        corner.setRGB(0, 0, 0xFF000000);
+        Player sprite1 = new Player(new Point(0, 0), 10, 10, 0);
+        Player sprite2 = new Player(new Point(0, 0), 10, 10, 0);
+        sprite1.image = corner;
+        sprite2.image = corner;
+        sprite1.setScenarioCoordinates(100, 100);
+        sprite2.setScenarioCoordinates(105, 105);
+        assertFalse(Collisions.checkCollisionableIntersectionPrecisionCollision(sprite1, sprite2));
+        sprite2.setScenarioCoordinates(100, 100);
+        assertTrue(Collisions.checkCollisionableIntersectionPrecisionCollision(sprite1, sprite2));
+    }
+
+    private static boolean sideReachesByPoints(Rectangle a, Rectangle b, Point from, Point to, boolean vertical) {
+        if (!a.intersects(b)) {
+            return false;
+        }
+        for (Point point : Paths.generateLinearPathFromPointToPoint(from, to)) {
+            if (vertical ? point.y >= b.y && point.y <= b.y + b.height && point.x >= b.x
+                    : point.x >= b.x && point.x <= b.x + b.width && point.y >= b.y && point.y <= b.y + b.height) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean surfaceCollisionByPoints(Rectangle a, CollisionDirection direction, Rectangle b) {
+        boolean north = a.y <= b.y + b.height && sideReachesByPoints(a, b, a.getLocation(), new Point(a.x + a.width, a.y), false);
+        boolean south = a.y + a.height >= b.y && sideReachesByPoints(a, b, new Point(a.x, a.y + a.height), new Point(a.x + a.width, a.y + a.height), false);
+        boolean east = a.x + a.width >= b.x && sideReachesByPoints(a, b, new Point(a.x + a.width, a.y), new Point(a.x + a.width, a.y + a.height - 5), true);
+        boolean west = a.x <= b.x + b.width && sideReachesByPoints(a, b, a.getLocation(), new Point(a.x, a.y + a.height - 5), true);
+        switch (direction) {
+            case NORTH: return north;
+            case NORTH_EAST: return east || north;
+            case EAST: return east;
+            case SOUTH_EAST: return east || south;
+            case SOUTH: return south;
+            case SOUTH_WEST: return west || south;
+            case WEST: return west;
+            case NORTH_WEST: return west || north;
+            default: return false;
+        }
+    }
+
+    /**
+     * Test of checkSurfaceCollisionablesCollision method, of class Collisions.
+     * It should give the same results as walking the surface points one by one.
+     */
+    @Test
+    public void testCheckSurfaceCollisionablesCollision() {
+        System.out.println("checkSurfaceCollisionablesCollision");
+        Rectangle collisioned = new Rectangle(10, 10, 8, 6);
+        for (CollisionDirection direction : CollisionDirection.values()) {
+            for (int x = 0; x <= 20; x++) {
+                for (int y = 0; y <= 18; y++) {
+                    for (int width = 0; width <= 9; width += 3) {
+                        for (int height = 0; height <= 9; height++) {
+                            Rectangle area = new Rectangle(x, y, width, height);
+                            assertEquals(direction + " " + area, surfaceCollisionByPoints(area, direction, collisioned),
+                                    Collisions.checkSurfaceCollisionablesCollision(area, direction, collisioned));
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(Collisions.checkSurfaceCollisionablesCollision(new Rectangle(5, 12, 10, 20), CollisionDirection.EAST, collisioned));
+        assertFalse(Collisions.checkSurfaceCollisionablesCollision(new Rectangle(5, 12, 10, 5), CollisionDirection.EAST, collisioned));
+    }
+
     /**
      * Test of getVisibleCollisionables method, of class Collisions.
      */
@@ -572,6 +652,132 @@ public class CollisionsTest {
         //fail("The test case is a prototype.");
     }
 
+    /**
+     * Test of getCollisionableAtPoint method, of class Collisions, with a
+     * Sprite wich is added, moved and removed.
+     */
+    @Test
+    public void testGetCollisionableAtPoint_Moved() {
+        System.out.println("getCollisionableAtPoint moved");
+        Player sprite = new Player(new Point(0, 0), 10, 10, 0);
+        sprite.setScenarioCoordinates(5000, 5000);
+        Collisions.checkPointCollision(new Point(0, 0));
+        environment.addToOthers(sprite);
+        assertEquals(sprite, Collisions.getCollisionableAtPoint(new Point(5005, 5005)));
+        sprite.setScenarioCoordinates(7000, 7000);
+        assertNull(Collisions.getCollisionableAtPoint(new Point(5005, 5005)));
+        assertEquals(sprite, Collisions.getCollisionableAtPoint(new Point(7005, 7005)));
+        environment.removeFromOthers(sprite);
+        assertFalse(Collisions.checkPointCollision(new Point(7005, 7005)));
+    }
+
+    /**
+     * Test of getCollisionableAtPoint method, of class Collisions, with a
+     * Sprite wich is resized by a new image and moved through its screen
+     * coordinates, wich are also its Scenario ones.
+     */
+    @Test
+    public void testGetCollisionableAtPoint_Resized() throws Exception {
+        System.out.println("getCollisionableAtPoint resized");
+        File file = File.createTempFile("grown", ".png");
+        ImageIO.write(new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB), "png", file);
+        ImagesManager.instantiate().loadImage("grown", file);
+        file.delete();
+        Player sprite = new Player(new Point(6000, 6000), 10, 10, 0);
+        environment.addToOthers(sprite);
+        assertNull(Collisions.getCollisionableAtPoint(new Point(6030, 6030)));
+        sprite.setImage("grown");
+        assertEquals(sprite, Collisions.getCollisionableAtPoint(new Point(6030, 6030)));
+        sprite.setScreenCoordinates(8000, 8000);
+        assertNull(Collisions.getCollisionableAtPoint(new Point(6005, 6005)));
+        assertEquals(sprite, Collisions.getCollisionableAtPoint(new Point(8005, 8005)));
+        environment.removeFromOthers(sprite);
+    }
+
+    /**
+     * A Player wich logs the collisions it receives from an Action.
+     */
+    private static class Target extends Player {
+
+        private ArrayList<Sprite> log;
+
+        public Target(ArrayList<Sprite> log, int x, int y) {
+            super(new Point(0, 0), 10, 10, 0);
+            this.log = log;
+            setScenarioCoordinates(x, y);
+        }
+
+        @Override
+        public void receiveCollisionFromSprite(Sprite sprite, CollisionType type) {
+            log.add(this);
+        }
+    }
+
+    /**
+     * Test of checkCollisionableIntersectionCollision method, of class Collisions,
+     * with a pair Broadphase. The same instances should be told as looking
+     * around the causable, also after they move.
+     */
+    @Test
+    public void testCheckCollisionableCollision_PairBroadphase() {
+        System.out.println("checkCollisionableCollision pair broadphase");
+        Action action = new Action() {
+
+            public String getActionName() {
+                return "push";
+            }
+
+            public CollisionType getCollisionTypeCausable() {
+                return CollisionType.ATTACKING;
+            }
+
+            public CollisionType getCollisionTypesReactionable() {
+                return CollisionType.UNDEFINED;
+            }
+
+            public void executeAction() {
+            }
+
+            public void finishAction() {
+            }
+        };
+        ArrayList<Sprite> scanLog = new ArrayList<Sprite>();
+        ArrayList<Sprite> pairLog = new ArrayList<Sprite>();
+        ArrayList<Sprite> log = new ArrayList<Sprite>();
+        Target causable = new Target(log, 9000, 9000);
+        Target[] targets = {new Target(log, 9005, 9005), new Target(log, 8995, 9003),
+            new Target(log, 9100, 9100)};
+        environment.addToOthers(causable);
+        for (Target target : targets) {
+            environment.addToOthers(target);
+        }
+
+        for (int step = 0; step < 3; step++) {
+            Collisions.setPairBroadphase(null);
+            log.clear();
+            assertEquals(step < 2, Collisions.checkCollisionableIntersectionCollision(causable, action));
+            scanLog.addAll(log);
+
+            Collisions.setPairBroadphase(new SweepAndPrune<Collisionable>());
+            log.clear();
+            assertEquals(step < 2, Collisions.checkCollisionableIntersectionCollision(causable, action));
+            log.clear();
+            assertEquals(step < 2, Collisions.checkCollisionableIntersectionCollision(causable, action));
+            pairLog.addAll(log);
+
+            targets[step].setScenarioCoordinates(9500 + step * 50, 9500);
+        }
+
+        Collisions.setPairBroadphase(null);
+        environment.removeFromOthers(causable);
+        for (Target target : targets) {
+            environment.removeFromOthers(target);
+        }
+
+        assertEquals(3, scanLog.size());
+        assertEquals(scanLog, pairLog);
+    }
+
     /**
      * Test of setCollisionablesToOutdated method, of class Collisions.
      */
@@ -0,0 +1,137 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.ref.WeakReference;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class ImagesManagerTest {
+
+    public ImagesManagerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getTransparency method, of class ImagesManager.
+     */
+    @Test
+    public void testGetTransparency() {
+        System.out.println("getTransparency");
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                image.setRGB(x, y, 0xFF336699);
+            }
+        }
+        assertEquals(Transparency.OPAQUE, ImagesManager.getTransparency(image));
+        image.setRGB(0, 0, 0x00000000);
+        assertEquals(Transparency.BITMASK, ImagesManager.getTransparency(image));
+        image.setRGB(1, 1, 0x80336699);
+        assertEquals(Transparency.TRANSLUCENT, ImagesManager.getTransparency(image));
+        assertEquals(Transparency.OPAQUE, ImagesManager.getTransparency(
+                new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR)));
+    }
+
+    /**
+     * Test of prepareImage method, of class ImagesManager.
+     */
+    @Test
+    public void testPrepareImage() {
+        System.out.println("prepareImage");
+        ImagesManager instance = ImagesManager.instantiate();
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_4BYTE_ABGR);
+        image.setRGB(2, 3, 0xFF102030);
+        BufferedImage result = instance.prepareImage(image);
+        assertEquals(4, result.getWidth());
+        assertEquals(4, result.getHeight());
+        assertEquals(0xFF102030, result.getRGB(2, 3));
+        assertEquals(0, result.getRGB(0, 0) >>> 24);
+        instance.setImagesPreparation(false);
+        assertSame(image, instance.prepareImage(image));
+        instance.setImagesPreparation(true);
+    }
+
+    /**
+     * Test of loadSpriteSheet method, of class ImagesManager, with a grid of frames.
+     */
+    @Test
+    public void testLoadSpriteSheetGrid() throws Exception {
+        System.out.println("loadSpriteSheetGrid");
+        BufferedImage sheet = new BufferedImage(35, 20, BufferedImage.TYPE_INT_RGB);
+        sheet.setRGB(10, 0, 0xFFABCDEF);
+        File file = File.createTempFile("grid", ".png");
+        ImageIO.write(sheet, "png", file);
+        ImagesManager instance = ImagesManager.instantiate();
+        instance.loadSpriteSheet("gridFrames", file, 10, 10);
+        file.delete();
+        assertEquals(6, instance.getImages("gridFrames").size());
+        assertEquals(0xFFABCDEF, instance.getImages("gridFrames").get(1).getRGB(0, 0));
+    }
+
+    /**
+     * Test of getCollisionMask method, of class ImagesManager.
+     */
+    @Test
+    public void testGetCollisionMask() {
+        System.out.println("getCollisionMask");
+        ImagesManager instance = ImagesManager.instantiate();
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(3, 4, 0xFF000000);
+        CollisionMask result = instance.getCollisionMask(image);
+        assertSame(result, instance.getCollisionMask(image));
+        assertTrue(result.isSolid(3, 4));
+        assertFalse(result.isSolid(4, 4));
+        assertNull(instance.getCollisionMask(null));
+    }
+
+    /**
+     * Test of getCollisionMask method, of class ImagesManager. The images
+     * wich aren't used anymore shouldn't be kept by their masks.
+     */
+    @Test
+    public void testGetCollisionMaskReleasesImages() throws InterruptedException {
+        System.out.println("getCollisionMaskReleasesImages");
+        ImagesManager instance = ImagesManager.instantiate();
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        WeakReference<BufferedImage> reference = new WeakReference<BufferedImage>(image);
+        assertNotNull(instance.getCollisionMask(image));
+        image = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+    }
+
+}
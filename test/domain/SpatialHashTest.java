@@ -0,0 +1,108 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class SpatialHashTest {
+
+    public SpatialHashTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of query method, of class SpatialHash.
+     */
+    @Test
+    public void testQuery() {
+        System.out.println("query");
+        SpatialHash<String> instance = new SpatialHash<String>(100);
+        instance.put("inside", 10, 10, 20, 20);
+        instance.put("spanning", 90, 90, 250, 250);
+        instance.put("negative", -150, -150, 20, 20);
+        instance.put("outside", 900, 900, 20, 20);
+        ArrayList<String> found = new ArrayList<String>();
+        int result = instance.query(new Rectangle(0, 0, 300, 300), found);
+        assertEquals(2, result);
+        assertTrue(found.contains("inside"));
+        assertTrue(found.contains("spanning"));
+        found.clear();
+        instance.query(new Rectangle(-200, -200, 100, 100), found);
+        assertEquals(1, found.size());
+        assertEquals("negative", found.get(0));
+    }
+
+    /**
+     * Test of queryCandidates method, of class SpatialHash. The elements at
+     * the overlapped cells should be found once, even by a wide area.
+     */
+    @Test
+    public void testQueryCandidates() {
+        System.out.println("queryCandidates");
+        SpatialHash<String> instance = new SpatialHash<String>(100);
+        instance.put("corner", 150, 150, 10, 10);
+        instance.put("spanning", 90, 90, 250, 250);
+        instance.put("empty", 120, 20, 0, 0);
+        ArrayList<String> found = new ArrayList<String>();
+        assertEquals(3, instance.queryCandidates(new Rectangle(100, 0, 100, 200), found));
+        assertEquals(0, instance.query(new Rectangle(100, 0, 10, 10), new ArrayList<String>()));
+        found.clear();
+        assertEquals(3, instance.queryCandidates(new Rectangle(-100000, -100000, 200000, 200000), found));
+        assertTrue(found.contains("corner"));
+        assertTrue(found.contains("spanning"));
+        assertTrue(found.contains("empty"));
+        found.clear();
+        assertEquals(2, instance.query(new Rectangle(-100000, -100000, 200000, 200000), found));
+        assertFalse(found.contains("empty"));
+    }
+
+    /**
+     * Test of put method, of class SpatialHash, moving an indexed element.
+     */
+    @Test
+    public void testMove() {
+        System.out.println("move");
+        SpatialHash<String> instance = new SpatialHash<String>(100);
+        instance.put("sprite", 10, 10, 20, 20);
+        instance.put("sprite", 510, 10, 20, 20);
+        assertEquals(1, instance.size());
+        ArrayList<String> found = new ArrayList<String>();
+        instance.query(new Rectangle(0, 0, 100, 100), found);
+        assertTrue(found.isEmpty());
+        instance.query(new Rectangle(500, 0, 100, 100), found);
+        assertEquals(1, found.size());
+        assertTrue(instance.remove("sprite"));
+        assertFalse(instance.contains("sprite"));
+        assertEquals(0, instance.query(new Rectangle(500, 0, 100, 100), found));
+    }
+
+}
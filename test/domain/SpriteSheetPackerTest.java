@@ -0,0 +1,120 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class SpriteSheetPackerTest {
+
+    private File directory;
+
+    public SpriteSheetPackerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("sheets", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private File writeImage(String name, int width, int height, int color) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, color);
+            }
+        }
+        File file = new File(directory, name);
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    /**
+     * Test of getFrameName method, of class SpriteSheetPacker.
+     */
+    @Test
+    public void testGetFrameName() {
+        System.out.println("getFrameName");
+        assertEquals("walk", SpriteSheetPacker.getFrameName("walk_12.png"));
+        assertEquals("jump", SpriteSheetPacker.getFrameName("jump-3.gif"));
+        assertEquals("tree", SpriteSheetPacker.getFrameName("tree.png"));
+        assertEquals("42", SpriteSheetPacker.getFrameName("42.png"));
+    }
+
+    /**
+     * Test of pack method, of class SpriteSheetPacker, loading the result
+     * with ImagesManager.loadSpriteSheet.
+     */
+    @Test
+    public void testPack() throws Exception {
+        System.out.println("pack");
+        ArrayList<File> files = new ArrayList<File>();
+        files.add(writeImage("packwalk_0.png", 20, 30, 0xFFFF0000));
+        files.add(writeImage("packwalk_1.png", 20, 30, 0xFF00FF00));
+        files.add(writeImage("packtree.png", 40, 10, 0xFF0000FF));
+        SpriteSheetPacker instance = new SpriteSheetPacker(64);
+        String prefix = new File(directory, "atlas").getPath();
+        assertEquals(1, instance.pack(files, prefix));
+
+        ImagesManager manager = ImagesManager.instantiate();
+        manager.loadSpriteSheet(new File(prefix + "_0.png"), new File(prefix + "_0" + SpriteSheetPacker.FRAMES_EXTENSION));
+        ArrayList<BufferedImage> walk = manager.getImages("packwalk");
+        assertEquals(2, walk.size());
+        assertEquals(20, walk.get(0).getWidth());
+        assertEquals(0xFFFF0000, walk.get(0).getRGB(19, 29));
+        assertEquals(0xFF00FF00, walk.get(1).getRGB(0, 0));
+        assertEquals(0xFF0000FF, manager.getImage("packtree").getRGB(39, 9));
+    }
+
+    /**
+     * Test of pack method, of class SpriteSheetPacker, when the images don't
+     * fit a single sprite sheet.
+     */
+    @Test
+    public void testPackSeveralSheets() throws Exception {
+        System.out.println("packSeveralSheets");
+        ArrayList<File> files = new ArrayList<File>();
+        files.add(directory);
+        writeImage("big_0.png", 60, 60, 0xFFFFFFFF);
+        writeImage("big_1.png", 60, 60, 0xFFFFFFFF);
+        SpriteSheetPacker instance = new SpriteSheetPacker(64);
+        assertEquals(2, instance.pack(files, new File(directory, "many").getPath()));
+    }
+
+}
@@ -0,0 +1,152 @@
+
+package domain;
+
+import domain.Collisions.CollisionDirection;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Random;
+
+/**
+ * This class compares the surface collision check of the Collisions class,
+ * wich overlaps intervals, with walking the surface points one by one, as it
+ * was done before. Both are run over the same rectangles and directions, and
+ * the collisions found by each one are counted so they can be compared.
+ *
+ * It can be run from the command line:
+ * <code>java domain.SurfaceCollisionBenchmark [checks] [rounds]</code>
+ *
+ * @author Germán Coines Laguna
+ * @author Alberto Languiz Polo
+ *
+ * @see Collisions#checkSurfaceCollisionablesCollision(java.awt.Rectangle, domain.Collisions.CollisionDirection, java.awt.Rectangle)
+ */
+public class SurfaceCollisionBenchmark {
+
+    //
+    // Fields
+    //
+    /**
+     * The moving directions checked.
+     */
+    private static final CollisionDirection[] DIRECTIONS = {
+        CollisionDirection.NORTH, CollisionDirection.NORTH_EAST, CollisionDirection.EAST,
+        CollisionDirection.SOUTH_EAST, CollisionDirection.SOUTH, CollisionDirection.SOUTH_WEST,
+        CollisionDirection.WEST, CollisionDirection.NORTH_WEST
+    };
+
+    //
+    // Methods
+    //
+    /**
+     * This method checks a surface of a Rectangle against another one walking
+     * its points.
+     *
+     * @param area The Rectangle whose surface is checked.
+     * @param collisioned The other Rectangle.
+     * @param from The point before the first one of the surface.
+     * @param to The last point of the surface.
+     * @param vertical true for the right and left surfaces.
+     *
+     * @return true if any point of the surface reaches the other Rectangle.
+     */
+    private static boolean checkSideByPoints(Rectangle area, Rectangle collisioned, Point from, Point to, boolean vertical) {
+
+        if (!area.intersects(collisioned)) {
+            return false;
+        }
+
+        for (Point point : Paths.generateLinearPathFromPointToPoint(from, to)) {
+            if (point.y >= collisioned.y && point.y <= collisioned.y + collisioned.height
+                    && point.x >= collisioned.x
+                    && (vertical || point.x <= collisioned.x + collisioned.width)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * This method checks the surfaces of a Rectangle facing a direction
+     * walking their points.
+     *
+     * @param area The moving Rectangle.
+     * @param direction The moving direction.
+     * @param collisioned The other Rectangle.
+     *
+     * @return true if the surfaces reach the other Rectangle.
+     */
+    private static boolean checkSurfaceByPoints(Rectangle area, CollisionDirection direction, Rectangle collisioned) {
+
+        boolean north = direction == CollisionDirection.NORTH || direction == CollisionDirection.NORTH_EAST
+                || direction == CollisionDirection.NORTH_WEST;
+        boolean south = direction == CollisionDirection.SOUTH || direction == CollisionDirection.SOUTH_EAST
+                || direction == CollisionDirection.SOUTH_WEST;
+        boolean east = direction == CollisionDirection.EAST || direction == CollisionDirection.NORTH_EAST
+                || direction == CollisionDirection.SOUTH_EAST;
+        boolean west = direction == CollisionDirection.WEST || direction == CollisionDirection.NORTH_WEST
+                || direction == CollisionDirection.SOUTH_WEST;
+
+        int right = area.x + area.width;
+        int bottom = area.y + area.height;
+
+        return (east && right >= collisioned.x
+                && checkSideByPoints(area, collisioned, new Point(right, area.y), new Point(right, bottom - 5), true))
+                || (west && area.x <= collisioned.x + collisioned.width
+                && checkSideByPoints(area, collisioned, area.getLocation(), new Point(area.x, bottom - 5), true))
+                || (north && area.y <= collisioned.y + collisioned.height
+                && checkSideByPoints(area, collisioned, area.getLocation(), new Point(right, area.y), false))
+                || (south && bottom >= collisioned.y
+                && checkSideByPoints(area, collisioned, new Point(area.x, bottom), new Point(right, bottom), false));
+    }
+
+    /**
+     * This method runs the benchmark. Each round checks every rectangle
+     * against a wall in every direction, first with the interval overlaps and
+     * then walking the points. The first round warms the JVM up.
+     *
+     * @param args The number of rectangles (20000 by default) and the number
+     * of rounds (5 by default).
+     */
+    public static void main(String[] args) {
+
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Random random = new Random(42L);
+        Rectangle wall = new Rectangle(200, 200, 256, 64);
+        Rectangle[] areas = new Rectangle[count];
+        for (int i = 0; i < count; i++) {
+            areas[i] = new Rectangle(150 + random.nextInt(320), 150 + random.nextInt(130),
+                    16 + random.nextInt(48), 16 + random.nextInt(48));
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            int intervalHits = 0, pointHits = 0;
+
+            long beforeTime = System.nanoTime();
+            for (Rectangle area : areas) {
+                for (CollisionDirection direction : DIRECTIONS) {
+                    if (Collisions.checkSurfaceCollisionablesCollision(area, direction, wall)) {
+                        intervalHits++;
+                    }
+                }
+            }
+            long intervalTime = System.nanoTime() - beforeTime;
+
+            beforeTime = System.nanoTime();
+            for (Rectangle area : areas) {
+                for (CollisionDirection direction : DIRECTIONS) {
+                    if (checkSurfaceByPoints(area, direction, wall)) {
+                        pointHits++;
+                    }
+                }
+            }
+            long pointTime = System.nanoTime() - beforeTime;
+
+            long checks = (long) count * DIRECTIONS.length;
+            System.out.println("Round " + round + ": intervals " + (intervalTime / checks) + " ns/check, "
+                    + intervalHits + " hits; points " + (pointTime / checks) + " ns/check, " + pointHits + " hits");
+        }
+    }
+}
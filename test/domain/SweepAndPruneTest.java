@@ -0,0 +1,122 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package domain;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class SweepAndPruneTest {
+
+    public SweepAndPruneTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static HashSet<String> toPairSet(ArrayList<Integer> pairs) {
+        HashSet<String> set = new HashSet<String>();
+        for (int i = 0; i < pairs.size(); i += 2) {
+            int a = pairs.get(i), b = pairs.get(i + 1);
+            set.add(Math.min(a, b) + "-" + Math.max(a, b));
+        }
+        return set;
+    }
+
+    /**
+     * Test of collectPairs method, of class SweepAndPrune. The pairs should
+     * match the ones of a SpatialHash while the elements move and are removed.
+     */
+    @Test
+    public void testCollectPairs() {
+        System.out.println("collectPairs");
+        SweepAndPrune<Integer> instance = new SweepAndPrune<Integer>();
+        SpatialHash<Integer> expected = new SpatialHash<Integer>(64);
+        Random random = new Random(7L);
+        int[][] boxes = new int[300][4];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = new int[]{random.nextInt(1000), random.nextInt(1000), 10 + random.nextInt(40), 10 + random.nextInt(40)};
+            instance.put(i, boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3]);
+            expected.put(i, boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3]);
+        }
+
+        ArrayList<Integer> pairs = new ArrayList<Integer>();
+        ArrayList<Integer> expectedPairs = new ArrayList<Integer>();
+        for (int frame = 0; frame < 20; frame++) {
+            for (int i = 0; i < boxes.length; i++) {
+                boxes[i][0] += random.nextInt(9) - 4;
+                boxes[i][1] += random.nextInt(9) - 4;
+                instance.put(i, boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3]);
+                expected.put(i, boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3]);
+            }
+            if (frame % 5 == 4) {
+                Integer victim = random.nextInt(boxes.length);
+                assertEquals(expected.remove(victim), instance.remove(victim));
+            }
+            pairs.clear();
+            expectedPairs.clear();
+            int result = instance.collectPairs(pairs);
+            assertEquals(expected.collectPairs(expectedPairs), result);
+            assertEquals(toPairSet(expectedPairs), toPairSet(pairs));
+        }
+
+        instance.clear();
+        instance.put(1, 0, 0, 10, 10);
+        instance.put(2, 10, 0, 10, 10);
+        pairs.clear();
+        assertEquals(0, instance.collectPairs(pairs));
+        instance.put(2, 9, 0, 10, 10);
+        assertEquals(1, instance.collectPairs(pairs));
+    }
+
+    /**
+     * Test of queryCandidates method, of class SweepAndPrune.
+     */
+    @Test
+    public void testQueryCandidates() {
+        System.out.println("queryCandidates");
+        SweepAndPrune<String> instance = new SweepAndPrune<String>();
+        instance.put("inside", 10, 10, 20, 20);
+        instance.put("spanning", -50, 90, 500, 20);
+        instance.put("below", 10, 400, 20, 20);
+        instance.put("beyond", 900, 10, 20, 20);
+        ArrayList<String> found = new ArrayList<String>();
+        int result = instance.queryCandidates(new Rectangle(0, 0, 300, 300), found);
+        assertEquals(2, result);
+        assertTrue(found.contains("inside"));
+        assertTrue(found.contains("spanning"));
+        assertTrue(instance.remove("inside"));
+        assertFalse(instance.contains("inside"));
+        found.clear();
+        assertEquals(1, instance.queryCandidates(new Rectangle(0, 0, 300, 300), found));
+        assertEquals(3, instance.size());
+    }
+
+}
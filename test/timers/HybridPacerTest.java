@@ -0,0 +1,87 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package timers;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class HybridPacerTest {
+
+    public HybridPacerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of waitUntil method, of class HybridPacer.
+     */
+    @Test
+    public void testWaitUntil() {
+        System.out.println("waitUntil");
+        TimerNano timer = TimerNano.instantiate();
+        HybridPacer instance = new HybridPacer(timer);
+        for (int i = 0; i < 20; i++) {
+            long deadline = timer.getTimeInstace() + 3000000L;
+            instance.waitUntil(deadline);
+            assertTrue(timer.getTimeInstace() >= deadline);
+        }
+        assertTrue(instance.getMaxJitter() >= instance.getLastJitter());
+        assertTrue(instance.getAverageJitter() >= 0.0);
+    }
+
+    /**
+     * Test of waitUntil method with a passed deadline, of class HybridPacer.
+     */
+    @Test
+    public void testWaitUntilPassedDeadline() {
+        System.out.println("waitUntilPassedDeadline");
+        TimerNano timer = TimerNano.instantiate();
+        HybridPacer instance = new HybridPacer(timer);
+        long before = timer.getTimeInstace();
+        instance.waitUntil(before - 1000000L);
+        assertTrue(timer.getTimeInstace() - before < 1000000L);
+    }
+
+    /**
+     * Test of setPowerSaving method, of class HybridPacer.
+     */
+    @Test
+    public void testSetPowerSaving() {
+        System.out.println("setPowerSaving");
+        TimerNano timer = TimerNano.instantiate();
+        HybridPacer instance = new HybridPacer(timer);
+        instance.setPowerSaving(true);
+        assertTrue(instance.isPowerSaving());
+        long deadline = timer.getTimeInstace() + 1000000L;
+        instance.waitUntil(deadline);
+        assertTrue(timer.getTimeInstace() >= deadline);
+        instance.resetJitterStats();
+        assertEquals(0L, instance.getMaxJitter());
+    }
+
+}
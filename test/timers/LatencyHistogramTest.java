@@ -0,0 +1,99 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package timers;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class LatencyHistogramTest {
+
+    public LatencyHistogramTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getPercentile method, of class LatencyHistogram.
+     */
+    @Test
+    public void testGetPercentile() {
+        System.out.println("getPercentile");
+        LatencyHistogram instance = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            instance.record(i * 1000L);
+        }
+        assertEquals(1000, instance.getCount());
+        assertEquals(1000000L, instance.getMax());
+        long p50 = instance.getP50();
+        long p99 = instance.getP99();
+        assertTrue(p50 >= 500000L && p50 <= 500000L * 1125 / 1000);
+        assertTrue(p99 >= 990000L && p99 <= 1000000L);
+        assertEquals(500500.0, instance.getMean(), 0.001);
+    }
+
+    /**
+     * Test of record method from several Threads, of class LatencyHistogram.
+     */
+    @Test
+    public void testRecordConcurrently() throws InterruptedException {
+        System.out.println("recordConcurrently");
+        final LatencyHistogram instance = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        instance.record(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, instance.getCount());
+        assertEquals(9999L, instance.getMax());
+    }
+
+    /**
+     * Test of reset method, of class LatencyHistogram.
+     */
+    @Test
+    public void testReset() {
+        System.out.println("reset");
+        LatencyHistogram instance = new LatencyHistogram();
+        instance.record(123456L);
+        instance.reset();
+        assertEquals(0, instance.getCount());
+        assertEquals(0L, instance.getMax());
+        assertEquals(0L, instance.getP99());
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.Renderable;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class DirtyRectangleRendererTest {
+
+    public static class Owner implements Renderable {
+
+        public void render(Graphics gr) {
+        }
+    }
+
+    private BufferedImage image;
+    private Owner first;
+    private Owner second;
+
+    public DirtyRectangleRendererTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        first = new Owner();
+        second = new Owner();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of computeDamage method, of class DirtyRectangleRenderer.
+     */
+    @Test
+    public void testComputeDamage() {
+        System.out.println("computeDamage");
+        DirtyRectangleRenderer instance = new DirtyRectangleRenderer();
+        RenderSnapshot frame = new RenderSnapshot();
+        frame.addImage(first, image, 10, 10, 0);
+        frame.addImage(second, image, 100, 100, 0);
+
+        ArrayList<Rectangle> damage = instance.computeDamage(frame, 200, 200);
+        assertEquals(1, damage.size());
+        assertEquals(new Rectangle(0, 0, 200, 200), damage.get(0));
+
+        damage = instance.computeDamage(frame, 200, 200);
+        assertTrue(damage.isEmpty());
+
+        frame.clear();
+        frame.addImage(first, image, 15, 10, 0);
+        frame.addImage(second, image, 100, 100, 0);
+        damage = instance.computeDamage(frame, 200, 200);
+        assertEquals(1, damage.size());
+        assertEquals(new Rectangle(10, 10, 15, 10), damage.get(0));
+
+        frame.clear();
+        frame.addImage(first, image, 15, 10, 0);
+        damage = instance.computeDamage(frame, 200, 200);
+        assertEquals(1, damage.size());
+        assertEquals(new Rectangle(100, 100, 10, 10), damage.get(0));
+        assertEquals(100L, instance.getDamagedArea());
+    }
+
+    /**
+     * Test of invalidate method, of class DirtyRectangleRenderer.
+     */
+    @Test
+    public void testInvalidate() {
+        System.out.println("invalidate");
+        DirtyRectangleRenderer instance = new DirtyRectangleRenderer();
+        RenderSnapshot frame = new RenderSnapshot();
+        frame.addImage(first, image, 10, 10, 0);
+        instance.computeDamage(frame, 200, 200);
+        instance.invalidate();
+        ArrayList<Rectangle> damage = instance.computeDamage(frame, 200, 200);
+        assertEquals(new Rectangle(0, 0, 200, 200), damage.get(0));
+        frame.addRenderable(second, 0);
+        damage = instance.computeDamage(frame, 200, 200);
+        assertEquals(new Rectangle(0, 0, 200, 200), damage.get(0));
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.FrameSink;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class FrameCaptureTest {
+
+    public FrameCaptureTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of capture method, of class FrameCapture. While the sink is busy
+     * the frames beyond the buffers should be dropped without blocking, and
+     * the queued ones should keep the pixels they had when captured.
+     */
+    @Test
+    public void testCapture() throws InterruptedException {
+        System.out.println("capture");
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        FrameCapture instance = new FrameCapture(new FrameSink() {
+
+            public void frameCaptured(BufferedImage frame, long frameNumber) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                received.add(frameNumber + ":" + Integer.toHexString(frame.getRGB(1, 1) & 0xFFFFFF));
+            }
+        }, 2, 1);
+
+        BufferedImage frame = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        frame.setRGB(1, 1, 0x112233);
+        assertTrue(instance.capture(frame));
+        frame.setRGB(1, 1, 0x445566);
+        assertTrue(instance.capture(frame));
+        frame.setRGB(1, 1, 0x778899);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(instance.capture(frame));
+        }
+        assertEquals(2L, instance.getCapturedFrames());
+        assertEquals(3L, instance.getDroppedFrames());
+
+        release.countDown();
+        assertTrue(instance.stop(5000L));
+        assertFalse(instance.capture(frame));
+        assertEquals(2L, instance.getEncodedFrames());
+        assertEquals(0L, instance.getFailedFrames());
+        assertEquals("[0:112233, 1:445566]", received.toString());
+    }
+
+    /**
+     * Test of capture method, of class FrameCapture. The frames of other
+     * image types should be converted, and the buffers reused.
+     */
+    @Test
+    public void testCaptureConverted() throws InterruptedException {
+        System.out.println("capture converted");
+        final List<BufferedImage> buffers = Collections.synchronizedList(new ArrayList<BufferedImage>());
+        FrameCapture instance = new FrameCapture(new FrameSink() {
+
+            public void frameCaptured(BufferedImage frame, long frameNumber) {
+                assertEquals(0xFF00FF, frame.getRGB(2, 0) & 0xFFFFFF);
+                if (!buffers.contains(frame)) {
+                    buffers.add(frame);
+                }
+            }
+        });
+
+        BufferedImage frame = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        frame.setRGB(2, 0, 0xFFFF00FF);
+        for (int i = 0; i < 20; i++) {
+            instance.capture(frame);
+            Thread.sleep(2L);
+        }
+        assertTrue(instance.stop(5000L));
+        assertEquals(20L, instance.getCapturedFrames() + instance.getDroppedFrames());
+        assertEquals(instance.getCapturedFrames(), instance.getEncodedFrames());
+        assertTrue(buffers.size() <= instance.getBufferCount());
+    }
+
+}
@@ -11,7 +11,11 @@ import domain.Environment;
 import domain.GameClient;
 import domain.OffLine;
 import domain.Player;
+import control.interfaces.Interpolable;
+import control.interfaces.Updatable;
 import domain.interfaces.Action;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -94,6 +98,30 @@ public class GameEngineTest {
     }
 
 
+    public static class Probe implements Updatable, Interpolable {
+
+        int updates = 0;
+        int savedStates = 0;
+        double renderedInterpolation = -1.0;
+
+        public void update() {
+            updates++;
+        }
+
+        public void savePreviousState() {
+            savedStates++;
+        }
+
+        public void render(Graphics gr, double interpolation) {
+            renderedInterpolation = interpolation;
+        }
+
+        public void render(Graphics gr) {
+            renderedInterpolation = 1.0;
+        }
+    }
+
+
     public GameEngineTest() {
     }
 
@@ -325,4 +353,159 @@ public class GameEngineTest {
         //fail("The test case is a prototype.");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test of setUps method, of class GameEngine.
+     */
+    @Test
+    public void testSetUps() {
+        System.out.println("setUps");
+        int ups = 30;
+        GameEngine instance = GameEngine.instantiate();
+        instance.setUps(ups);
+        int result = instance.getUps();
+        assertEquals(ups, result);
+        instance.setUps(-1);
+        assertEquals(ups, instance.getUps());
+    }
+
+    /**
+     * Test of setFixedTimeStep method, of class GameEngine.
+     */
+    @Test
+    public void testSetFixedTimeStep() {
+        System.out.println("setFixedTimeStep");
+        GameEngine instance = GameEngine.instantiate();
+        instance.setFixedTimeStep(true);
+        assertTrue(instance.isFixedTimeStep());
+        instance.setFixedTimeStep(false);
+        assertFalse(instance.isFixedTimeStep());
+    }
+
+    /**
+     * Test of setPipelined method, of class GameEngine.
+     */
+    @Test
+    public void testSetPipelined() {
+        System.out.println("setPipelined");
+        GameEngine instance = GameEngine.instantiate();
+        instance.setPipelined(true);
+        assertTrue(instance.isPipelined());
+        instance.setPipelined(false);
+        assertFalse(instance.isPipelined());
+    }
+
+    /**
+     * Test of setBufferStrategyPresentation method, of class GameEngine.
+     */
+    @Test
+    public void testSetBufferStrategyPresentation() {
+        System.out.println("setBufferStrategyPresentation");
+        GameEngine instance = GameEngine.instantiate();
+        instance.setBufferStrategyPresentation(true);
+        assertTrue(instance.isBufferStrategyPresentation());
+        instance.setBufferStrategyPresentation(false);
+        assertFalse(instance.isBufferStrategyPresentation());
+    }
+
+    /**
+     * This method returns the GameEngine with its loop stopped (testAddNotify
+     * starts it), so only the test updates it.
+     */
+    private static GameEngine controlledEngine() throws InterruptedException {
+        GameClient client = OffLine.instantiate();
+        World world = new World();
+        world.setPlayer(new Player());
+        client.initialize(world);
+        GameEngine instance = GameEngine.instantiate();
+        GameControler.instanciate(instance, client);
+        instance.terminate();
+        Thread.sleep(100);
+        return instance;
+    }
+
+    /**
+     * Test of advanceFixedTimeStep method, of class GameEngine. The elapsed
+     * time should be consumed in update periods, and the time left should be
+     * the interpolation passed to the Interpolable renderables.
+     */
+    @Test
+    public void testAdvanceFixedTimeStep() throws InterruptedException {
+        System.out.println("advanceFixedTimeStep");
+        GameEngine instance = controlledEngine();
+        instance.setUps(50);
+        instance.setMaxFrameSkips(16);
+        instance.setFixedTimeStep(true);
+        long updatePeriod = 1000000000L / 50;
+        Graphics g = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB).getGraphics();
+
+        instance.resetFixedTimeStep();
+        instance.advanceFixedTimeStep(updatePeriod);
+        instance.renderFrame(g);
+        Probe probe = new Probe();
+        instance.addUpdatable(probe);
+        instance.addRenderable(probe);
+        instance.resetFixedTimeStep();
+
+        assertEquals(3, instance.advanceFixedTimeStep(updatePeriod * 3 + updatePeriod / 4));
+        assertEquals(3, probe.updates);
+        assertEquals(3, probe.savedStates);
+        instance.renderFrame(g);
+        assertEquals(0.25, probe.renderedInterpolation, 1e-9);
+
+        assertEquals(0, instance.advanceFixedTimeStep(updatePeriod / 2));
+        assertEquals(3, probe.updates);
+        instance.renderFrame(g);
+        assertEquals(0.75, probe.renderedInterpolation, 1e-9);
+
+        assertEquals(1, instance.advanceFixedTimeStep(updatePeriod));
+        assertEquals(4, probe.updates);
+        instance.renderFrame(g);
+        assertEquals(0.75, probe.renderedInterpolation, 1e-9);
+
+        instance.setFixedTimeStep(false);
+        instance.renderFrame(g);
+        assertEquals(1.0, probe.renderedInterpolation, 1e-9);
+
+        instance.removeUpdatable(probe);
+        instance.removeRenderable(probe);
+        instance.resetFixedTimeStep();
+        instance.advanceFixedTimeStep(updatePeriod);
+        instance.renderFrame(g);
+        g.dispose();
+    }
+
+    /**
+     * Test of advanceFixedTimeStep method, of class GameEngine. A long hitch
+     * should be limited to maxFrameSkips update periods.
+     */
+    @Test
+    public void testAdvanceFixedTimeStepClamp() throws InterruptedException {
+        System.out.println("advanceFixedTimeStepClamp");
+        GameEngine instance = controlledEngine();
+        instance.setUps(50);
+        instance.setMaxFrameSkips(5);
+        long updatePeriod = 1000000000L / 50;
+
+        instance.resetFixedTimeStep();
+        instance.advanceFixedTimeStep(updatePeriod);
+        Probe probe = new Probe();
+        instance.addUpdatable(probe);
+        instance.resetFixedTimeStep();
+
+        assertEquals(5, instance.advanceFixedTimeStep(1000000000L));
+        assertEquals(5, probe.updates);
+        assertEquals(5, probe.savedStates);
+        assertEquals(5, instance.advanceFixedTimeStep(updatePeriod * 5 + updatePeriod / 2));
+        assertEquals(10, probe.updates);
+        assertEquals(0, instance.advanceFixedTimeStep(updatePeriod / 2));
+        assertEquals(1, instance.advanceFixedTimeStep(updatePeriod / 2));
+        assertEquals(11, probe.updates);
+
+        instance.removeUpdatable(probe);
+        instance.resetFixedTimeStep();
+        instance.advanceFixedTimeStep(updatePeriod);
+        instance.setMaxFrameSkips(16);
+        instance.setUps(60);
+    }
+
+}
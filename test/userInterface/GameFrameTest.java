@@ -104,5 +104,46 @@ public class GameFrameTest {
         //fail("The test case is a prototype.");
     }
 
-    
-}
\ No newline at end of file
+    /**
+     * Test of disableBufferStrategy method, of class GameFrame. It should be
+     * safe when the GameFrame is not displayable, even if invoked twice.
+     */
+    @Test
+    public void testDisableBufferStrategy() {
+        System.out.println("disableBufferStrategy");
+        GameFrame instance = GameFrame.instantiate();
+        instance.dispose();
+        assertFalse(instance.isDisplayable());
+        assertFalse(instance.enableBufferStrategy());
+        instance.disableBufferStrategy();
+        assertNull(instance.getGameBufferStrategy());
+        instance.disableBufferStrategy();
+        assertNull(instance.getGameBufferStrategy());
+        assertFalse(instance.getIgnoreRepaint());
+    }
+
+    /**
+     * Test of recreateBufferStrategy method, of class GameFrame. A BufferStrategy
+     * enabled while the GameFrame was displayable should be forgotten once it's
+     * not displayable anymore.
+     */
+    @Test
+    public void testRecreateBufferStrategy() {
+        System.out.println("recreateBufferStrategy");
+        GameFrame instance = GameFrame.instantiate();
+        instance.dispose();
+        instance.recreateBufferStrategy();
+        assertNull(instance.getGameBufferStrategy());
+
+        instance.addNotify();
+        if (instance.enableBufferStrategy()) {
+            assertNotNull(instance.getGameBufferStrategy());
+        }
+        instance.dispose();
+        instance.recreateBufferStrategy();
+        assertNull(instance.getGameBufferStrategy());
+        instance.disableBufferStrategy();
+        assertNull(instance.getGameBufferStrategy());
+    }
+
+}
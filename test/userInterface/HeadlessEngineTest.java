@@ -0,0 +1,258 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.GameControler;
+import control.interfaces.FrameSink;
+import control.interfaces.Renderable;
+import control.interfaces.Updatable;
+import domain.GameClient;
+import domain.OffLine;
+import domain.Player;
+import domain.Sprite;
+import domain.interfaces.RegistryListener;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class HeadlessEngineTest {
+
+    public HeadlessEngineTest() {
+    }
+
+    private GameEngineTest.World world;
+    private RegistryListener registryListener;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+
+        GameClient client = OffLine.instantiate();
+        GameEngineTest.World clientWorld = new GameEngineTest.World();
+        clientWorld.setPlayer(new Player());
+        client.initialize(clientWorld);
+        GameControler.instanciate(HeadlessEngine.instantiate(), client);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    /**
+     * The GameControler is a singleton wich may be bound to another engine or
+     * Environment by the tests run before, so a fresh Environment tells its
+     * registry changes to the HeadlessEngine the same way the GameControler does.
+     */
+    @Before
+    public void setUp() {
+
+        final HeadlessEngine engine = HeadlessEngine.instantiate();
+        world = new GameEngineTest.World();
+        world.setPlayer(new Player());
+        registryListener = new RegistryListener() {
+
+            public void registered(Sprite sprite) {
+                engine.addUpdatable(sprite);
+                engine.addRenderable(sprite);
+            }
+
+            public void unregistered(Sprite sprite) {
+                engine.removeUpdatable(sprite);
+                engine.removeRenderable(sprite);
+            }
+
+            public void restacked(Sprite sprite) {
+                engine.restackRenderable(sprite);
+            }
+
+            public void moved(Sprite sprite) {
+            }
+
+            public void registryRebuilt() {
+                engine.setUpdatablesToOutDated();
+                engine.setRenderablesToOutDated();
+            }
+        };
+        world.addRegistryListener(registryListener);
+    }
+
+    @After
+    public void tearDown() {
+
+        world.removeRegistryListener(registryListener);
+    }
+
+    /**
+     * Test of instantiate method, of class HeadlessEngine.
+     */
+    @Test
+    public void testInstantiate() {
+        System.out.println("instantiate");
+        HeadlessEngine expResult = HeadlessEngine.instantiate();
+        HeadlessEngine result = HeadlessEngine.instantiate();
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of runTicks method, of class HeadlessEngine.
+     */
+    @Test
+    public void testRunTicks() {
+        System.out.println("runTicks");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        long before = instance.getTicks();
+        instance.runTicks(1000);
+        assertEquals(before + 1000, instance.getTicks());
+    }
+
+    /**
+     * Test of runTicks method, of class HeadlessEngine. An added Updatable
+     * should be updated once per tick.
+     */
+    @Test
+    public void testRunTicksUpdates() {
+        System.out.println("runTicksUpdates");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        instance.runTicks(1);
+        final AtomicInteger updates = new AtomicInteger();
+        Updatable counter = new Updatable() {
+
+            public void update() {
+                updates.incrementAndGet();
+            }
+        };
+        instance.addUpdatable(counter);
+        instance.runTicks(25);
+        assertEquals(25, updates.get());
+        assertTrue(instance.getUpdatables().contains(counter));
+        instance.removeUpdatable(counter);
+        instance.runTicks(5);
+        assertEquals(25, updates.get());
+    }
+
+    /**
+     * Test of setOffscreenRendering method, of class HeadlessEngine. An added
+     * Renderable should be drawn to the offscreen render target.
+     */
+    @Test
+    public void testOffscreenRenderingDraws() {
+        System.out.println("offscreenRenderingDraws");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        instance.setEngineDimension(64, 48);
+        instance.setOffscreenRendering(true);
+        instance.runTicks(1);
+        final AtomicInteger renders = new AtomicInteger();
+        Renderable painter = new Renderable() {
+
+            public void render(Graphics gr) {
+                renders.incrementAndGet();
+                gr.setColor(Color.RED);
+                gr.fillRect(10, 10, 20, 20);
+            }
+        };
+        instance.addRenderable(painter);
+        instance.runTicks(3);
+        instance.setOffscreenRendering(false);
+        instance.removeRenderable(painter);
+        assertEquals(3, renders.get());
+        BufferedImage target = instance.getRenderTarget();
+        assertEquals(Color.RED.getRGB(), target.getRGB(15, 15));
+        assertEquals(Color.RED.getRGB(), target.getRGB(29, 29));
+        assertFalse(Color.RED.getRGB() == target.getRGB(5, 5));
+        assertFalse(Color.RED.getRGB() == target.getRGB(30, 30));
+    }
+
+    /**
+     * Test of setOffscreenRendering method, of class HeadlessEngine.
+     */
+    @Test
+    public void testSetOffscreenRendering() {
+        System.out.println("setOffscreenRendering");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        instance.setEngineDimension(320, 240);
+        instance.setOffscreenRendering(true);
+        instance.runTicks(10);
+        instance.setOffscreenRendering(false);
+        BufferedImage target = instance.getRenderTarget();
+        assertEquals(320, target.getWidth());
+        assertEquals(240, target.getHeight());
+    }
+
+    /**
+     * Test of setFrameCapture method, of class HeadlessEngine.
+     */
+    @Test
+    public void testSetFrameCapture() {
+        System.out.println("setFrameCapture");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        final AtomicInteger frames = new AtomicInteger();
+        FrameCapture capture = new FrameCapture(new FrameSink() {
+
+            public void frameCaptured(BufferedImage frame, long frameNumber) {
+                frames.incrementAndGet();
+            }
+        }, 16, 1);
+        instance.setFrameCapture(capture);
+        instance.runTicks(5);
+        instance.setOffscreenRendering(true);
+        instance.runTicks(10);
+        instance.setOffscreenRendering(false);
+        instance.setFrameCapture(null);
+        assertTrue(capture.stop(5000L));
+        assertEquals(10L, capture.getCapturedFrames() + capture.getDroppedFrames());
+        assertEquals(capture.getCapturedFrames(), frames.get());
+    }
+
+    /**
+     * Test of addUpdatable and removeUpdatable methods, of class HeadlessEngine,
+     * through the Environment registries.
+     */
+    @Test
+    public void testRegistryChanges() {
+        System.out.println("registryChanges");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        instance.runTicks(1);
+        int size = instance.getUpdatables().size();
+        Player other = new Player();
+        world.addToOthers(other);
+        assertEquals(size, instance.getUpdatables().size());
+        instance.runTicks(1);
+        assertEquals(size + 1, instance.getUpdatables().size());
+        assertTrue(instance.getUpdatables().contains(other));
+        world.removeFromOthers(other);
+        instance.runTicks(1);
+        assertEquals(size, instance.getUpdatables().size());
+        assertFalse(instance.getUpdatables().contains(other));
+    }
+
+    /**
+     * Test of start and terminate methods, of class HeadlessEngine.
+     */
+    @Test
+    public void testStartAndTerminate() throws InterruptedException {
+        System.out.println("start");
+        HeadlessEngine instance = HeadlessEngine.instantiate();
+        instance.setUps(200);
+        long before = instance.getTicks();
+        instance.start();
+        Thread.sleep(100);
+        instance.terminate();
+        Thread.sleep(50);
+        assertFalse(instance.isRunning());
+        assertTrue(instance.getTicks() > before);
+    }
+
+}
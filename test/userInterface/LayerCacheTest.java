@@ -0,0 +1,106 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.Renderable;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class LayerCacheTest {
+
+    public LayerCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static class Block implements Renderable {
+
+        private final Color color;
+        private final int x;
+        private int renders;
+
+        Block(Color color, int x) {
+            this.color = color;
+            this.x = x;
+        }
+
+        public void render(Graphics gr) {
+            renders++;
+            gr.setColor(color);
+            gr.fillRect(x, 0, 4, 4);
+        }
+    }
+
+    /**
+     * Test of draw method, of class LayerCache. The layer should be composed
+     * only when its members or the size change, or when it's invalidated.
+     */
+    @Test
+    public void testDraw() {
+        System.out.println("draw");
+        Block red = new Block(Color.red, 0);
+        Block green = new Block(Color.green, 4);
+        ArrayList<Renderable> layer = new ArrayList<Renderable>();
+        layer.add(red);
+        layer.add(green);
+
+        BufferedImage frame = new BufferedImage(12, 4, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        LayerCache instance = new LayerCache(3);
+
+        for (int i = 0; i < 5; i++) {
+            instance.draw(g, layer, 12, 4);
+        }
+        assertEquals(1L, instance.getCompositions());
+        assertEquals(1, red.renders);
+        assertEquals(0xFF0000, frame.getRGB(1, 1) & 0xFFFFFF);
+        assertEquals(0x00FF00, frame.getRGB(5, 1) & 0xFFFFFF);
+        assertEquals(0x000000, frame.getRGB(9, 1) & 0xFFFFFF);
+
+        layer.remove(green);
+        g.setColor(Color.blue);
+        g.fillRect(0, 0, 12, 4);
+        instance.draw(g, layer, 12, 4);
+        assertEquals(2L, instance.getCompositions());
+        assertEquals(0x0000FF, frame.getRGB(5, 1) & 0xFFFFFF);
+
+        instance.invalidate();
+        instance.draw(g, layer, 12, 4);
+        instance.draw(g, layer, 16, 4);
+        instance.draw(g, layer, 16, 4);
+        assertEquals(4L, instance.getCompositions());
+        assertEquals(4, red.renders);
+        g.dispose();
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.ParallelUpdatable;
+import control.interfaces.Updatable;
+import domain.Collisions;
+import domain.Collisions.CollisionDirection;
+import domain.Collisions.CollisionType;
+import domain.Player;
+import domain.Scenario;
+import domain.Sprite;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class ParallelUpdaterTest {
+
+    /**
+     * A ParallelUpdatable wich computes its next value and appends it to a
+     * shared log when it's committed.
+     */
+    public static class Counter implements ParallelUpdatable {
+
+        private ArrayList<Integer> log;
+        private int id;
+        private int value;
+        private int computed;
+
+        public Counter(ArrayList<Integer> log, int id) {
+            this.log = log;
+            this.id = id;
+        }
+
+        public void compute() {
+            computed = value + id;
+        }
+
+        public void commit() {
+            value = computed;
+            log.add(id);
+        }
+
+        public void update() {
+            compute();
+            commit();
+        }
+    }
+
+    /**
+     * A Player wich bounces back when it reaches the Scenario limits or
+     * collisionable areas, and when another Bouncer gets close to it. The
+     * closeness is checked at update(), before the movement, so it changes the
+     * increments computed at the compute phase.
+     */
+    public static class Bouncer extends Player {
+
+        private int scenarioCollisions;
+        private int spriteCollisions;
+
+        public Bouncer(Point relativeToScenario, int xIncrement, int yIncrement) {
+            super(new Point(0, 0), relativeToScenario, 8, 8, 1);
+            this.xIncrement = xIncrement;
+            this.yIncrement = yIncrement;
+            setSpeed(-1);
+        }
+
+        @Override
+        public void receiveCollisionFromSprite(Sprite sprite, CollisionType type, CollisionDirection direction) {
+            scenarioCollisions++;
+            xIncrement = -xIncrement;
+            yIncrement = -yIncrement;
+        }
+
+        @Override
+        public void update() {
+            Rectangle near = getCollisionableArea();
+            near.grow(6, 6);
+            if (Collisions.getCollisionablesInArea(near).size() > 1) {
+                spriteCollisions++;
+                xIncrement = -xIncrement;
+                yIncrement = -yIncrement;
+            }
+            super.update();
+        }
+    }
+
+    /**
+     * This method builds a World with a walled Scenario and some Bouncers
+     * moving across it.
+     */
+    private static ArrayList<Updatable> bouncers() {
+        Random random = new Random(11L);
+        Scenario scenario = new Scenario(new Point(0, 0), 400, 400, 0, new Rectangle[]{
+                    new Rectangle(100, 100, 40, 200), new Rectangle(260, 60, 30, 30), new Rectangle(200, 320, 120, 20)});
+        ArrayList<Sprite> others = new ArrayList<Sprite>();
+        ArrayList<Updatable> updatables = new ArrayList<Updatable>();
+        for (int i = 0; i < 120; i++) {
+            Point position = new Point(10 + random.nextInt(370), 10 + random.nextInt(370));
+            Bouncer bouncer = new Bouncer(position, random.nextInt(7) - 3, random.nextInt(7) - 3);
+            others.add(bouncer);
+            updatables.add(bouncer);
+        }
+        GameEngineTest.World world = new GameEngineTest.World();
+        world.setScenario(scenario);
+        world.setOthers(others);
+        return updatables;
+    }
+
+    private static ArrayList<Point> positions(ArrayList<Updatable> bouncers) {
+        ArrayList<Point> positions = new ArrayList<Point>();
+        for (Updatable bouncer : bouncers) {
+            positions.add(((Sprite) bouncer).getScenarioCoordinates());
+        }
+        return positions;
+    }
+
+    public ParallelUpdaterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of update method, of class ParallelUpdater.
+     */
+    @Test
+    public void testUpdate() {
+        System.out.println("update");
+        ArrayList<Integer> sequentialLog = new ArrayList<Integer>();
+        ArrayList<Integer> parallelLog = new ArrayList<Integer>();
+        ArrayList<Updatable> sequential = new ArrayList<Updatable>();
+        ArrayList<Updatable> parallel = new ArrayList<Updatable>();
+        for (int i = 0; i < 1000; i++) {
+            sequential.add(new Counter(sequentialLog, i));
+            parallel.add(new Counter(parallelLog, i));
+        }
+
+        ParallelUpdater instance = new ParallelUpdater(4);
+        instance.setThreshold(16);
+        for (int frame = 0; frame < 10; frame++) {
+            for (Updatable updatable : sequential) {
+                updatable.update();
+            }
+            instance.update(parallel);
+        }
+        instance.shutdown();
+
+        assertEquals(sequentialLog, parallelLog);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(((Counter) sequential.get(i)).value, ((Counter) parallel.get(i)).value);
+        }
+    }
+
+    /**
+     * Test of update method, of class ParallelUpdater, with Animated sprites
+     * wich collide with the Scenario and with each other. The positions reached
+     * in parallel should be the same as the sequential ones at every frame.
+     */
+    @Test
+    public void testUpdateAnimated() {
+        System.out.println("update animated");
+        ArrayList<Updatable> sequential = bouncers();
+        ArrayList<ArrayList<Point>> sequentialPositions = new ArrayList<ArrayList<Point>>();
+        for (int frame = 0; frame < 80; frame++) {
+            for (Updatable updatable : sequential) {
+                updatable.update();
+            }
+            sequentialPositions.add(positions(sequential));
+        }
+
+        ArrayList<Updatable> parallel = bouncers();
+        ArrayList<ArrayList<Point>> parallelPositions = new ArrayList<ArrayList<Point>>();
+        ParallelUpdater instance = new ParallelUpdater(4);
+        instance.setThreshold(16);
+        for (int frame = 0; frame < 80; frame++) {
+            instance.update(parallel);
+            parallelPositions.add(positions(parallel));
+        }
+        instance.shutdown();
+
+        int scenarioCollisions = 0, spriteCollisions = 0;
+        for (int i = 0; i < sequential.size(); i++) {
+            Bouncer expected = (Bouncer) sequential.get(i);
+            Bouncer result = (Bouncer) parallel.get(i);
+            assertEquals(expected.scenarioCollisions, result.scenarioCollisions);
+            assertEquals(expected.spriteCollisions, result.spriteCollisions);
+            scenarioCollisions += result.scenarioCollisions;
+            spriteCollisions += result.spriteCollisions;
+        }
+        assertTrue(scenarioCollisions > 0);
+        assertTrue(spriteCollisions > 0);
+        for (int frame = 0; frame < 80; frame++) {
+            assertEquals("frame " + frame, sequentialPositions.get(frame), parallelPositions.get(frame));
+        }
+    }
+
+    /**
+     * Test of setThreshold method, of class ParallelUpdater.
+     */
+    @Test
+    public void testSetThreshold() {
+        System.out.println("setThreshold");
+        ParallelUpdater instance = new ParallelUpdater(2);
+        instance.setThreshold(8);
+        assertEquals(8, instance.getThreshold());
+        instance.setThreshold(0);
+        assertEquals(8, instance.getThreshold());
+        instance.shutdown();
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.Renderable;
+import domain.Player;
+import java.awt.Point;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class RenderQueueTest {
+
+    public RenderQueueTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static Player sprite(int zIndex) {
+        return new Player(new Point(0, 0), 10, 10, zIndex);
+    }
+
+    private static ArrayList<Renderable> flatten(RenderQueue queue) {
+        ArrayList<Renderable> order = new ArrayList<Renderable>();
+        for (int i = 0; i < queue.getLayerCount(); i++) {
+            order.addAll(queue.getLayer(i));
+        }
+        return order;
+    }
+
+    /**
+     * Test of rebuild method, of class RenderQueue.
+     */
+    @Test
+    public void testRebuild() {
+        System.out.println("rebuild");
+        Player a = sprite(2);
+        Player b = sprite(0);
+        Player c = sprite(2);
+        Player d = sprite(-1);
+        ArrayList<Renderable> renderables = new ArrayList<Renderable>();
+        renderables.add(a);
+        renderables.add(b);
+        renderables.add(c);
+        renderables.add(d);
+        RenderQueue instance = new RenderQueue();
+        instance.rebuild(renderables);
+        assertEquals(4, instance.size());
+        assertEquals(3, instance.getLayerCount());
+        assertEquals(-1, instance.getLayerZIndex(0));
+        assertEquals(2, instance.getLayerZIndex(2));
+        ArrayList<Renderable> order = flatten(instance);
+        assertSame(d, order.get(0));
+        assertSame(b, order.get(1));
+        assertSame(a, order.get(2));
+        assertSame(c, order.get(3));
+    }
+
+    /**
+     * Test of restack method, of class RenderQueue.
+     */
+    @Test
+    public void testRestack() {
+        System.out.println("restack");
+        Player a = sprite(0);
+        Player b = sprite(1);
+        RenderQueue instance = new RenderQueue();
+        instance.add(a);
+        instance.add(b);
+        a.setZIndex(5);
+        instance.restack(a);
+        assertEquals(2, instance.getLayerCount());
+        assertSame(b, flatten(instance).get(0));
+        assertSame(a, flatten(instance).get(1));
+        instance.remove(b);
+        assertEquals(1, instance.getLayerCount());
+        assertEquals(1, instance.size());
+    }
+
+    /**
+     * Test of apply method, of class RenderQueue.
+     */
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        Player a = sprite(3);
+        Player b = sprite(1);
+        ArrayList<Renderable> registry = new ArrayList<Renderable>();
+        PendingChanges<Renderable> changes = new PendingChanges<Renderable>();
+        RenderQueue instance = new RenderQueue();
+        changes.add(a);
+        changes.add(b);
+        b.setZIndex(4);
+        changes.restack(b);
+        instance.apply(changes, registry);
+        assertTrue(changes.isEmpty());
+        assertEquals(2, registry.size());
+        assertSame(a, registry.get(0));
+        assertSame(a, flatten(instance).get(0));
+        assertSame(b, flatten(instance).get(1));
+        changes.remove(a);
+        instance.apply(changes, registry);
+        assertEquals(1, registry.size());
+        assertEquals(1, instance.size());
+    }
+
+    /**
+     * Test of sort method, of class RenderQueue.
+     */
+    @Test
+    public void testSort() {
+        System.out.println("sort");
+        Player a = sprite(1);
+        Player b = sprite(0);
+        Player c = sprite(1);
+        Player stranger = sprite(0);
+        RenderQueue instance = new RenderQueue();
+        instance.add(a);
+        instance.add(b);
+        instance.add(c);
+        ArrayList<Renderable> subset = new ArrayList<Renderable>();
+        subset.add(c);
+        subset.add(stranger);
+        subset.add(a);
+        subset.add(b);
+        instance.sort(subset);
+        assertEquals(3, subset.size());
+        assertSame(b, subset.get(0));
+        assertSame(a, subset.get(1));
+        assertSame(c, subset.get(2));
+    }
+
+}
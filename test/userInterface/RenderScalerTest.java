@@ -0,0 +1,74 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class RenderScalerTest {
+
+    public RenderScalerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of adjust method, of class RenderScaler.
+     */
+    @Test
+    public void testAdjust() {
+        System.out.println("adjust");
+        RenderScaler instance = new RenderScaler();
+        instance.setWindow(4);
+        long budget = 16000000L;
+        double scale = 1.0;
+
+        for (int i = 0; i < 3; i++) {
+            scale = instance.adjust(scale, budget, budget);
+        }
+        assertEquals(1.0, scale, 0.0);
+        scale = instance.adjust(scale, budget, budget);
+        assertEquals(0.9, scale, 1e-9);
+
+        for (int i = 0; i < 40; i++) {
+            scale = instance.adjust(scale, budget * 2, budget);
+        }
+        assertEquals(0.5, scale, 1e-9);
+
+        for (int i = 0; i < 4; i++) {
+            scale = instance.adjust(scale, budget * 6 / 10, budget);
+        }
+        assertEquals(0.5, scale, 1e-9);
+
+        for (int i = 0; i < 4; i++) {
+            scale = instance.adjust(scale, budget / 10, budget);
+        }
+        assertEquals(0.6, scale, 1e-9);
+    }
+
+}
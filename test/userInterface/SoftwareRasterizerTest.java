@@ -0,0 +1,159 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import control.interfaces.Renderable;
+import domain.Player;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class SoftwareRasterizerTest {
+
+    public SoftwareRasterizerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static BufferedImage image(int type, int width, int height, int[] colors) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, colors[(x + y) % colors.length]);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, int tolerance) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    int difference = Math.abs((e >> shift & 0xFF) - (a >> shift & 0xFF));
+                    assertTrue("pixel " + x + "," + y + " expected " + Integer.toHexString(e)
+                            + " but was " + Integer.toHexString(a), difference <= tolerance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of render method, of class SoftwareRasterizer. The result should
+     * match the one of Graphics.drawImage().
+     */
+    @Test
+    public void testRender() {
+        System.out.println("render");
+        BufferedImage opaque = image(BufferedImage.TYPE_INT_RGB, 12, 9, new int[]{0xFF336699, 0xFFCC0000});
+        BufferedImage bitmask = image(BufferedImage.TYPE_INT_ARGB, 10, 10, new int[]{0x00000000, 0xFF00FF00});
+        BufferedImage translucent = image(BufferedImage.TYPE_INT_ARGB, 8, 8, new int[]{0x80FFFFFF, 0x40FF0000, 0xFF0000FF});
+        BufferedImage premultiplied = image(BufferedImage.TYPE_INT_ARGB_PRE, 8, 8, new int[]{0x80FFFF00, 0x20FFFFFF});
+        BufferedImage sheet = image(BufferedImage.TYPE_INT_ARGB, 30, 30, new int[]{0xFF112233, 0x00000000, 0xFF445566});
+        BufferedImage frame = sheet.getSubimage(10, 5, 7, 6);
+
+        Player owner = new Player(new Point(0, 0), 10, 10, 0);
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.addImage(owner, opaque, -4, -3, 0);
+        snapshot.addImage(owner, bitmask, 5, 2, 0);
+        snapshot.addImage(owner, translucent, 3, 4, 0);
+        snapshot.addImage(owner, premultiplied, 16, 14, 0);
+        snapshot.addImage(owner, frame, 12, 1, 0);
+        snapshot.addImageWindow(owner, sheet, 18, 3, 8, 8, 20, 21, 0);
+
+        BufferedImage expected = new BufferedImage(20, 18, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = expected.createGraphics();
+        g.setColor(Color.gray);
+        g.fillRect(0, 0, 20, 18);
+        snapshot.render(g);
+        g.dispose();
+
+        SoftwareRasterizer instance = new SoftwareRasterizer(20, 18);
+        instance.clear(Color.gray);
+        instance.render(snapshot);
+
+        assertEquals(6, instance.getRasterizedEntries());
+        assertEquals(0, instance.getFallbackEntries());
+        assertSamePixels(expected, instance.getImage(), 2);
+    }
+
+    /**
+     * Test of setBands method, of class SoftwareRasterizer. The bands should
+     * give the same result as a single one, keeping the order of the entries
+     * wich can't be rasterized.
+     */
+    @Test
+    public void testBands() {
+        System.out.println("setBands");
+        BufferedImage tall = image(BufferedImage.TYPE_INT_ARGB, 30, 150, new int[]{0xFF0000FF, 0x80FF8800, 0x00000000});
+        BufferedImage wide = image(BufferedImage.TYPE_INT_RGB, 50, 20, new int[]{0xFF00FF00, 0xFF000000});
+        Player owner = new Player(new Point(0, 0), 10, 10, 0);
+        Renderable live = new Renderable() {
+
+            public void render(Graphics gr) {
+                gr.setColor(Color.white);
+                gr.fillRect(10, 40, 20, 60);
+            }
+        };
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.addImage(owner, tall, 5, -10, 0);
+        snapshot.addRenderable(live, 0);
+        snapshot.addImage(owner, wide, 0, 60, 0);
+        snapshot.addImage(owner, tall, 20, 30, 0);
+
+        SoftwareRasterizer single = new SoftwareRasterizer(64, 160);
+        single.clear(Color.darkGray);
+        single.render(snapshot);
+
+        SoftwareRasterizer banded = new SoftwareRasterizer(64, 160);
+        banded.setBands(4);
+        banded.clear(Color.darkGray);
+        banded.render(snapshot);
+        banded.shutdown();
+
+        assertEquals(1, banded.getFallbackEntries());
+        assertSamePixels(single.getImage(), banded.getImage(), 0);
+    }
+
+    /**
+     * Test of isRasterizable method, of class SoftwareRasterizer.
+     */
+    @Test
+    public void testIsRasterizable() {
+        System.out.println("isRasterizable");
+        assertTrue(SoftwareRasterizer.isRasterizable(new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB_PRE)));
+        assertFalse(SoftwareRasterizer.isRasterizable(new BufferedImage(2, 2, BufferedImage.TYPE_4BYTE_ABGR)));
+        assertFalse(SoftwareRasterizer.isRasterizable(null));
+    }
+
+}
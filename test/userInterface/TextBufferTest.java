@@ -0,0 +1,71 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package userInterface;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Germán Coines Laguna
+ */
+public class TextBufferTest {
+
+    public TextBufferTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of append method, of class TextBuffer.
+     */
+    @Test
+    public void testAppendLong() {
+        System.out.println("append long");
+        TextBuffer instance = new TextBuffer(2);
+        instance.append("frames: ").append(0L).append(' ').append(-42L).append(' ').append(1234567890123L);
+        assertEquals("frames: 0 -42 1234567890123", instance.toString());
+        char[] chars = instance.getChars();
+        instance.clear().append(7L);
+        assertEquals("7", instance.toString());
+        assertSame(chars, instance.getChars());
+    }
+
+    /**
+     * Test of append method, of class TextBuffer.
+     */
+    @Test
+    public void testAppendDouble() {
+        System.out.println("append double");
+        TextBuffer instance = new TextBuffer();
+        assertEquals("59.9", instance.clear().append(59.94, 1).toString());
+        assertEquals("60", instance.clear().append(59.96, 1).toString());
+        assertEquals("1.05", instance.clear().append(1.05, 2).toString());
+        assertEquals("0.0042", instance.clear().append(0.0042, 4).toString());
+        assertEquals("-2.5", instance.clear().append(-2.5, 3).toString());
+        assertEquals("0", instance.clear().append(-0.001, 1).toString());
+        assertEquals("?", instance.clear().append(Double.NaN, 1).toString());
+    }
+
+}